@@ -27,7 +27,7 @@ statement
    : INSERT INTO insertFullPathSpec VALUES insertValuesSpec # insertStatement
    | LOAD DATA importFileClause INTO (path tagList? (SET KEY keyName = stringLiteral)? | insertFullPathSpec) (AT keyBase = INT)? # insertFromFileStatement
    | DELETE FROM path (COMMA path)* whereClause? withClause? # deleteStatement
-   | EXPLAIN? (LOGICAL | PHYSICAL)? cteClause? queryClause orderByClause? limitClause? exportFileClause? # selectStatement
+   | EXPLAIN? (LOGICAL | PHYSICAL | ANALYZE)? cteClause? queryClause orderByClause? limitClause? exportFileClause? # selectStatement
    | COUNT POINTS # countPointsStatement
    | DELETE COLUMNS path (COMMA path)* withClause? # deleteColumnsStatement
    | CLEAR DATA # clearDataStatement
@@ -567,6 +567,7 @@ keyWords
    | EXPLAIN
    | LOGICAL
    | PHYSICAL
+   | ANALYZE
    | SET
    | CONFIG
    | SESSIONID
@@ -1018,6 +1019,10 @@ LOGICAL
    : L O G I C A L
    ;
 
+ANALYZE
+   : A N A L Y Z E
+   ;
+
 PHYSICAL
    : P H Y S I C A L
    ;
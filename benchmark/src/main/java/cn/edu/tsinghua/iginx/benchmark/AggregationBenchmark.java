@@ -0,0 +1,119 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.benchmark;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.naive.NaiveOperatorMemoryExecutor;
+import cn.edu.tsinghua.iginx.engine.shared.KeyRange;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.expr.BaseExpression;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionCall;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionParams;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.Avg;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Downsample;
+import cn.edu.tsinghua.iginx.engine.shared.operator.GroupBy;
+import cn.edu.tsinghua.iginx.engine.shared.source.EmptySource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** 分组聚合与降采样：对 v 列求 avg，分组数与窗口大小由参数控制 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+  @Param({"100000"})
+  private int rowCount;
+
+  @Param({"10", "10000"})
+  private int groupCount;
+
+  private Header header;
+
+  private List<Row> rows;
+
+  private GroupBy groupBy;
+
+  private Downsample downsample;
+
+  @Setup
+  public void setUp() {
+    header = DataGenerator.keyValueHeader("t");
+    rows = DataGenerator.rows(header, rowCount, groupCount, 0);
+    FunctionParams params = new FunctionParams(new BaseExpression("t.v"));
+    FunctionCall avg = new FunctionCall(Avg.getInstance(), params);
+    groupBy =
+        new GroupBy(
+            EmptySource.EMPTY_SOURCE,
+            Collections.singletonList(new BaseExpression("t.k")),
+            Collections.singletonList(avg));
+    // 窗口数与分组数相同，便于对比两种聚合方式
+    long precision = Math.max(1, rowCount / groupCount);
+    downsample =
+        new Downsample(
+            EmptySource.EMPTY_SOURCE,
+            precision,
+            precision,
+            Collections.singletonList(avg),
+            new KeyRange(0, rowCount));
+  }
+
+  @Benchmark
+  public int groupBy() throws PhysicalException {
+    return consume(
+        NaiveOperatorMemoryExecutor.getInstance()
+            .executeUnaryOperator(groupBy, new Table(header, new ArrayList<>(rows)), null));
+  }
+
+  @Benchmark
+  public int downsample() throws PhysicalException {
+    return consume(
+        NaiveOperatorMemoryExecutor.getInstance()
+            .executeUnaryOperator(downsample, new Table(header, new ArrayList<>(rows)), null));
+  }
+
+  private static int consume(RowStream stream) throws PhysicalException {
+    int count = 0;
+    while (stream.hasNext()) {
+      stream.next();
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次 JMH 运行的 JSON 结果（-rf json -rff 输出）
+ *
+ * <p>用法：BaselineComparator baseline.json current.json [threshold]。threshold 为允许的退化比例，默认 0.1；
+ * 存在超过阈值的退化时以非零状态码退出，便于在 CI 中使用。
+ */
+public class BaselineComparator {
+
+  private static final double DEFAULT_THRESHOLD = 0.1;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("usage: BaselineComparator <baseline.json> <current.json> [threshold]");
+      System.exit(2);
+    }
+    double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+    Map<String, JsonNode> baseline = load(new File(args[0]));
+    Map<String, JsonNode> current = load(new File(args[1]));
+
+    int regressions = 0;
+    for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+      JsonNode base = baseline.get(entry.getKey());
+      if (base == null) {
+        System.out.printf(
+            "%-100s %12s -> %12.3f %s (new)%n",
+            entry.getKey(),
+            "-",
+            score(entry.getValue()),
+            unit(entry.getValue()));
+        continue;
+      }
+      double baseScore = score(base);
+      double currentScore = score(entry.getValue());
+      // 吞吐量模式下分数越大越好，其余模式（平均时间、采样时间等）分数越小越好
+      boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+      double change = baseScore == 0 ? 0 : (currentScore - baseScore) / baseScore;
+      double regression = higherIsBetter ? -change : change;
+      boolean regressed = regression > threshold;
+      if (regressed) {
+        regressions++;
+      }
+      System.out.printf(
+          "%-100s %12.3f -> %12.3f %s %+7.2f%%%s%n",
+          entry.getKey(),
+          baseScore,
+          currentScore,
+          unit(entry.getValue()),
+          change * 100,
+          regressed ? "  REGRESSION" : "");
+    }
+    for (String key : baseline.keySet()) {
+      if (!current.containsKey(key)) {
+        System.out.printf("%-100s (missing in current result)%n", key);
+      }
+    }
+    if (regressions > 0) {
+      System.out.printf(
+          "%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+      System.exit(1);
+    }
+  }
+
+  /** 以 benchmark 名称加参数作为键，参数按名称排序 */
+  private static Map<String, JsonNode> load(File file) throws IOException {
+    JsonNode root = new ObjectMapper().readTree(file);
+    Map<String, JsonNode> results = new TreeMap<>();
+    for (JsonNode result : root) {
+      StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+      JsonNode params = result.path("params");
+      if (params.isObject()) {
+        Map<String, String> sortedParams = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+          Map.Entry<String, JsonNode> field = fields.next();
+          sortedParams.put(field.getKey(), field.getValue().asText());
+        }
+        key.append(sortedParams);
+      }
+      results.put(key.toString(), result);
+    }
+    return results;
+  }
+
+  private static double score(JsonNode result) {
+    return result.path("primaryMetric").path("score").asDouble();
+  }
+
+  private static String unit(JsonNode result) {
+    return result.path("primaryMetric").path("scoreUnit").asText();
+  }
+}
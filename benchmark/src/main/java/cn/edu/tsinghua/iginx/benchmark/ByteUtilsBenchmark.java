@@ -0,0 +1,113 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.benchmark;
+
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.Bitmap;
+import cn.edu.tsinghua.iginx.utils.ByteUtils;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** 行/列序列化与反序列化：ByteUtils.getRowByteBuffer 与 ByteUtils.getColumnValuesByDataType */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ByteUtilsBenchmark {
+
+  @Param({"10000"})
+  private int rowCount;
+
+  @Param({"10"})
+  private int columnCount;
+
+  @Param({"0.1"})
+  private double nullRatio;
+
+  private List<Object[]> rowValues;
+
+  private List<DataType> dataTypes;
+
+  private List<ByteBuffer> columnBuffers;
+
+  private List<ByteBuffer> bitmapBuffers;
+
+  @Setup
+  public void setUp() {
+    Header header = DataGenerator.mixedHeader("t", columnCount);
+    List<Row> rows = DataGenerator.rows(header, rowCount, 1000, nullRatio);
+    dataTypes = new ArrayList<>(columnCount);
+    header.getFields().forEach(field -> dataTypes.add(field.getType()));
+
+    rowValues = new ArrayList<>(rowCount);
+    rows.forEach(row -> rowValues.add(row.getValues()));
+
+    columnBuffers = new ArrayList<>(columnCount);
+    bitmapBuffers = new ArrayList<>(columnCount);
+    for (int i = 0; i < columnCount; i++) {
+      Bitmap bitmap = new Bitmap(rowCount);
+      List<Object> nonNullValues = new ArrayList<>();
+      for (int j = 0; j < rowCount; j++) {
+        Object value = rowValues.get(j)[i];
+        if (value != null) {
+          bitmap.mark(j);
+          nonNullValues.add(value);
+        }
+      }
+      columnBuffers.add(ByteUtils.getColumnByteBuffer(nonNullValues.toArray(), dataTypes.get(i)));
+      bitmapBuffers.add(ByteBuffer.wrap(bitmap.getBytes()));
+    }
+  }
+
+  @Benchmark
+  public void serializeRows(Blackhole blackhole) {
+    for (Object[] values : rowValues) {
+      blackhole.consume(ByteUtils.getRowByteBuffer(values, dataTypes));
+    }
+  }
+
+  @Benchmark
+  public Object[] deserializeColumns() {
+    List<ByteBuffer> buffers = new ArrayList<>(columnCount);
+    for (ByteBuffer buffer : columnBuffers) {
+      // 反序列化会移动 position，每次调用使用独立的视图
+      buffers.add(buffer.duplicate());
+    }
+    return ByteUtils.getColumnValuesByDataType(buffers, dataTypes, bitmapBuffers, rowCount);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.benchmark;
+
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** 生成基准测试所用的合成数据，固定随机种子保证不同提交之间的数据一致 */
+public class DataGenerator {
+
+  public static final long SEED = 20240101L;
+
+  private static final DataType[] MIXED_TYPES =
+      new DataType[] {
+        DataType.LONG, DataType.DOUBLE, DataType.INTEGER, DataType.BINARY, DataType.BOOLEAN
+      };
+
+  private DataGenerator() {}
+
+  /** 生成 columnCount 列的表头，列名为 prefix.c0, prefix.c1, ...，类型依次循环使用 MIXED_TYPES */
+  public static Header mixedHeader(String prefix, int columnCount) {
+    List<Field> fields = new ArrayList<>(columnCount);
+    for (int i = 0; i < columnCount; i++) {
+      fields.add(new Field(prefix + ".c" + i, MIXED_TYPES[i % MIXED_TYPES.length]));
+    }
+    return new Header(Field.KEY, fields);
+  }
+
+  /** 生成两列 LONG 的表头：prefix.k 作为连接或分组列，prefix.v 作为数值列 */
+  public static Header keyValueHeader(String prefix) {
+    List<Field> fields = new ArrayList<>(2);
+    fields.add(new Field(prefix + ".k", DataType.LONG));
+    fields.add(new Field(prefix + ".v", DataType.LONG));
+    return new Header(Field.KEY, fields);
+  }
+
+  /**
+   * 按表头生成行，约 nullRatio 比例的值为空
+   *
+   * @param distinctValues 整数列的取值个数，控制连接与分组的基数
+   */
+  public static List<Row> rows(Header header, int rowCount, int distinctValues, double nullRatio) {
+    Random random = new Random(SEED);
+    List<Field> fields = header.getFields();
+    List<Row> rows = new ArrayList<>(rowCount);
+    for (int i = 0; i < rowCount; i++) {
+      Object[] values = new Object[fields.size()];
+      for (int j = 0; j < values.length; j++) {
+        if (random.nextDouble() < nullRatio) {
+          continue;
+        }
+        values[j] = randomValue(random, fields.get(j).getType(), distinctValues);
+      }
+      rows.add(new Row(header, i, values));
+    }
+    return rows;
+  }
+
+  /** 生成按 k 列升序排列、k 取值为 0 到 distinctValues - 1 的键值行 */
+  public static List<Row> sortedKeyValueRows(Header header, int rowCount, int distinctValues) {
+    List<Row> rows = new ArrayList<>(rowCount);
+    for (int i = 0; i < rowCount; i++) {
+      long k = (long) i * distinctValues / rowCount;
+      rows.add(new Row(header, i, new Object[] {k, (long) i}));
+    }
+    return rows;
+  }
+
+  private static Object randomValue(Random random, DataType type, int distinctValues) {
+    switch (type) {
+      case LONG:
+        return (long) random.nextInt(distinctValues);
+      case INTEGER:
+        return random.nextInt(distinctValues);
+      case DOUBLE:
+        return random.nextDouble() * distinctValues;
+      case FLOAT:
+        return random.nextFloat() * distinctValues;
+      case BOOLEAN:
+        return random.nextBoolean();
+      case BINARY:
+        return ("value" + random.nextInt(distinctValues)).getBytes();
+      default:
+        throw new IllegalArgumentException("unsupported data type: " + type);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.benchmark;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.CompiledFilter;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterCompiler;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterUtils;
+import cn.edu.tsinghua.iginx.engine.shared.data.Value;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.AndFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Filter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.KeyFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Op;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.OrFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.ValueFilter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** 过滤条件求值：逐行解释执行的 FilterUtils.validate 与按 Header 编译后的 CompiledFilter */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+  @Param({"100000"})
+  private int rowCount;
+
+  private List<Row> rows;
+
+  private Filter filter;
+
+  private CompiledFilter compiledFilter;
+
+  @Setup
+  public void setUp() {
+    Header header = DataGenerator.mixedHeader("t", 5);
+    rows = DataGenerator.rows(header, rowCount, 1000, 0.05);
+    // t.c0 为 LONG，t.c1 为 DOUBLE，t.c2 为 INTEGER，t.c3 为 BINARY
+    filter =
+        new AndFilter(
+            Arrays.asList(
+                new KeyFilter(Op.GE, rowCount / 10),
+                new ValueFilter("t.c0", Op.L, new Value(500L)),
+                new OrFilter(
+                    Arrays.asList(
+                        new ValueFilter("t.c1", Op.GE, new Value(100)),
+                        new ValueFilter("t.c2", Op.NE, new Value(7)),
+                        new ValueFilter("t.c3", Op.LIKE, new Value("value1.*"))))));
+    compiledFilter = FilterCompiler.compile(filter, header);
+  }
+
+  @Benchmark
+  public int interpreted() throws PhysicalException {
+    int count = 0;
+    for (Row row : rows) {
+      if (FilterUtils.validate(filter, row)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int compiled() throws PhysicalException {
+    int count = 0;
+    for (Row row : rows) {
+      if (compiledFilter.validate(row)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
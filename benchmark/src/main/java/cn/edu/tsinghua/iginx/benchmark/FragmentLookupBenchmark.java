@@ -0,0 +1,127 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.benchmark;
+
+import cn.edu.tsinghua.iginx.metadata.cache.DefaultMetaCache;
+import cn.edu.tsinghua.iginx.metadata.entity.ColumnsInterval;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.metadata.entity.KeyInterval;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DefaultMetaCache 的分片查找
+ *
+ * <p>分片按 columnIntervalCount 个列区间、每个列区间若干个时间区间均匀生成。DefaultMetaCache 是单例，依赖 JMH 对每组参数单独 fork
+ * 进程来保证不同规模之间互不影响。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FragmentLookupBenchmark {
+
+  private static final long KEY_INTERVAL_LENGTH = 1_000_000L;
+
+  @Param({"10000", "100000", "1000000"})
+  private int fragmentCount;
+
+  @Param({"1000"})
+  private int columnIntervalCount;
+
+  private DefaultMetaCache cache;
+
+  private long maxKey;
+
+  private Random random;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cache = DefaultMetaCache.getInstance();
+    int keyIntervalCount = Math.max(1, fragmentCount / columnIntervalCount);
+    maxKey = keyIntervalCount * KEY_INTERVAL_LENGTH;
+    Map<ColumnsInterval, List<FragmentMeta>> fragmentListMap = new HashMap<>();
+    for (int i = 0; i < columnIntervalCount; i++) {
+      String startColumn = i == 0 ? null : columnName(i);
+      String endColumn = i == columnIntervalCount - 1 ? null : columnName(i + 1);
+      ColumnsInterval columnsInterval = new ColumnsInterval(startColumn, endColumn);
+      List<FragmentMeta> fragments = new ArrayList<>(keyIntervalCount);
+      for (int j = 0; j < keyIntervalCount; j++) {
+        // 每个列区间的最后一个分片是仍在写入的分片
+        long endKey = j == keyIntervalCount - 1 ? Long.MAX_VALUE : (j + 1) * KEY_INTERVAL_LENGTH;
+        fragments.add(
+            new FragmentMeta(
+                startColumn,
+                endColumn,
+                j * KEY_INTERVAL_LENGTH,
+                endKey,
+                String.format("unit%010d", i % 16)));
+      }
+      fragmentListMap.put(columnsInterval, fragments);
+    }
+    cache.initFragment(fragmentListMap);
+    random = new Random(DataGenerator.SEED);
+  }
+
+  private static String columnName(int index) {
+    return String.format("root.sg.d%08d", index);
+  }
+
+  @Benchmark
+  public List<FragmentMeta> lookupByColumnAndKey() {
+    String column = columnName(random.nextInt(columnIntervalCount)) + ".s";
+    long startKey = (long) (random.nextDouble() * maxKey);
+    return cache.getFragmentListByColumnNameAndKeyInterval(
+        column, new KeyInterval(startKey, startKey + KEY_INTERVAL_LENGTH));
+  }
+
+  @Benchmark
+  public Map<ColumnsInterval, List<FragmentMeta>> lookupByColumnRangeAndKey() {
+    int start = random.nextInt(columnIntervalCount);
+    int end = Math.min(columnIntervalCount - 1, start + 10);
+    long startKey = (long) (random.nextDouble() * maxKey);
+    return cache.getFragmentMapByColumnsIntervalAndKeyInterval(
+        new ColumnsInterval(columnName(start), columnName(end)),
+        new KeyInterval(startKey, startKey + KEY_INTERVAL_LENGTH));
+  }
+
+  @Benchmark
+  public FragmentMeta latestByColumn() {
+    return cache.getLatestFragmentByColumnName(columnName(random.nextInt(columnIntervalCount)));
+  }
+}
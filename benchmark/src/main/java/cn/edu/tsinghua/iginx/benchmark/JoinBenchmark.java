@@ -0,0 +1,111 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.benchmark;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.naive.NaiveOperatorMemoryExecutor;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.operator.InnerJoin;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Op;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.PathFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.type.JoinAlgType;
+import cn.edu.tsinghua.iginx.engine.shared.source.EmptySource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** 等值连接：HashJoin 与 SortedMergeJoin，两侧输入均已按连接列升序排列 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JoinBenchmark {
+
+  @Param({"10000", "100000"})
+  private int rowCountA;
+
+  @Param({"1000", "100000"})
+  private int rowCountB;
+
+  @Param({"HashJoin", "SortedMergeJoin"})
+  private JoinAlgType joinAlgType;
+
+  private Header headerA;
+
+  private Header headerB;
+
+  private List<Row> rowsA;
+
+  private List<Row> rowsB;
+
+  private InnerJoin innerJoin;
+
+  @Setup
+  public void setUp() {
+    int distinctValues = Math.min(rowCountA, rowCountB);
+    headerA = DataGenerator.keyValueHeader("a");
+    headerB = DataGenerator.keyValueHeader("b");
+    rowsA = DataGenerator.sortedKeyValueRows(headerA, rowCountA, distinctValues);
+    rowsB = DataGenerator.sortedKeyValueRows(headerB, rowCountB, distinctValues);
+    innerJoin =
+        new InnerJoin(
+            EmptySource.EMPTY_SOURCE,
+            EmptySource.EMPTY_SOURCE,
+            "a",
+            "b",
+            new PathFilter("a.k", Op.E, "b.k"),
+            Collections.emptyList(),
+            false,
+            joinAlgType);
+  }
+
+  @Benchmark
+  public int join() throws PhysicalException {
+    // 执行器可能原地修改输入的行列表，每次调用都复制一份
+    Table tableA = new Table(headerA, new ArrayList<>(rowsA));
+    Table tableB = new Table(headerB, new ArrayList<>(rowsB));
+    RowStream result =
+        NaiveOperatorMemoryExecutor.getInstance()
+            .executeBinaryOperator(innerJoin, tableA, tableB, null);
+    int count = 0;
+    while (result.hasNext()) {
+      result.next();
+      count++;
+    }
+    return count;
+  }
+}
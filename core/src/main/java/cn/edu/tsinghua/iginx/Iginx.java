@@ -21,6 +21,9 @@ package cn.edu.tsinghua.iginx;
 
 import cn.edu.tsinghua.iginx.conf.Config;
 import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.shared.function.manager.PythonInterpreterPool;
+import cn.edu.tsinghua.iginx.metrics.ThriftServerMetricsHandler;
+import cn.edu.tsinghua.iginx.metrics.TimedProxy;
 import cn.edu.tsinghua.iginx.monitor.MonitorManager;
 import cn.edu.tsinghua.iginx.mqtt.MQTTService;
 import cn.edu.tsinghua.iginx.rest.RestServer;
@@ -50,12 +53,17 @@ public class Iginx {
     if (config.isEnableMonitor()) {
       new Thread(MonitorManager.getInstance()).start();
     }
+    PythonInterpreterPool.getInstance().start();
     Iginx iginx = new Iginx();
     iginx.startServer();
   }
 
   private void startServer() throws TTransportException {
-    TProcessor processor = new IService.Processor<IService.Iface>(IginxWorker.getInstance());
+    IService.Iface worker = IginxWorker.getInstance();
+    if (config.isEnableMetrics()) {
+      worker = TimedProxy.wrap(IService.Iface.class, worker, "iginx_rpc", "Thrift rpc");
+    }
+    TProcessor processor = new IService.Processor<>(worker);
     TServerSocket serverTransport =
         new TServerSocket(ConfigDescriptor.getInstance().getConfig().getPort());
     TThreadPoolServer.Args args =
@@ -65,6 +73,9 @@ public class Iginx {
             .maxWorkerThreads(config.getMaxThriftWrokerThreadNum());
     args.protocolFactory(new TBinaryProtocol.Factory());
     TServer server = new TThreadPoolServer(args);
+    if (config.isEnableMetrics()) {
+      server.setServerEventHandler(new ThriftServerMetricsHandler());
+    }
     LOGGER.info("iginx starts successfully!");
     System.out.print("\n\nIGinX is now in service......\n\n");
     server.serve();
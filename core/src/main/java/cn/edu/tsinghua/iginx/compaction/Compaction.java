@@ -32,6 +32,7 @@ import cn.edu.tsinghua.iginx.engine.shared.source.GlobalSource;
 import cn.edu.tsinghua.iginx.metadata.IMetaManager;
 import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
 import cn.edu.tsinghua.iginx.metadata.entity.StorageUnitMeta;
+import cn.edu.tsinghua.iginx.migration.MigrationPhysicalExecutor;
 import java.util.*;
 
 public abstract class Compaction {
@@ -115,6 +116,7 @@ public abstract class Compaction {
     long startTime = fragmentGroup.get(0).getKeyInterval().getStartKey();
     long endTime = fragmentGroup.get(0).getKeyInterval().getEndKey();
 
+    List<Migration> migrations = new ArrayList<>();
     for (FragmentMeta fragmentMeta : fragmentGroup) {
       // 找到新分片空间
       if (startTimeseries == null || fragmentMeta.getColumnsInterval().getStartColumn() == null) {
@@ -156,13 +158,14 @@ public abstract class Compaction {
 
         // TODO: pathSet 不应为空，目前通过判空做补丁，有待深入处理
         if (!pathSet.isEmpty()) {
-          Migration migration =
+          migrations.add(
               new Migration(
-                  new GlobalSource(), fragmentMeta, new ArrayList<>(pathSet), targetStorageUnit);
-          physicalEngine.execute(new RequestContext(), migration);
+                  new GlobalSource(), fragmentMeta, new ArrayList<>(pathSet), targetStorageUnit));
         }
       }
     }
+    // 重写各分片的数据，分片之间并行执行
+    MigrationPhysicalExecutor.getInstance().executeAll(physicalEngine, migrations);
     // TODO add write lock
     // 创建新分片
     FragmentMeta newFragment =
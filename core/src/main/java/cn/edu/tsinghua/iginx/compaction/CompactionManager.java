@@ -43,6 +43,12 @@ public class CompactionManager {
     compactionList.add(
         new LowAccessFragmentCompaction(
             PhysicalEngineImpl.getInstance(), DefaultMetaManager.getInstance()));
+    // 合并过小的分片是自适应分片切分的逆操作，只在开启切分时使用
+    if (ConfigDescriptor.getInstance().getConfig().isEnableAdaptiveFragmentSplit()) {
+      compactionList.add(
+          new SmallFragmentCompaction(
+              PhysicalEngineImpl.getInstance(), DefaultMetaManager.getInstance()));
+    }
   }
 
   private static final CompactionManager instance = new CompactionManager();
@@ -25,6 +25,7 @@ import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
 import cn.edu.tsinghua.iginx.metadata.IMetaManager;
 import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
 import cn.edu.tsinghua.iginx.metadata.entity.StorageUnitMeta;
+import cn.edu.tsinghua.iginx.monitor.FragmentHeatTracker;
 import cn.edu.tsinghua.iginx.utils.Pair;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -39,6 +40,9 @@ public class LowAccessFragmentCompaction extends Compaction {
 
   private List<List<FragmentMeta>> toCompactFragmentGroups;
 
+  // 元数据存储中的热度是周期汇总的结果，合并前再用本节点实时的热度排除刚刚重新变热的分片
+  private final FragmentHeatTracker heatTracker = FragmentHeatTracker.getInstance();
+
   public LowAccessFragmentCompaction(PhysicalEngine physicalEngine, IMetaManager metaManager) {
     super(physicalEngine, metaManager);
   }
@@ -76,7 +80,8 @@ public class LowAccessFragmentCompaction extends Compaction {
           && writeLoad
               < ConfigDescriptor.getInstance().getConfig().getFragmentCompactionWriteThreshold()
           && readLoad
-              <= ConfigDescriptor.getInstance().getConfig().getFragmentCompactionReadThreshold()) {
+              <= ConfigDescriptor.getInstance().getConfig().getFragmentCompactionReadThreshold()
+          && !heatTracker.isActive(fragmentMeta)) {
         candidateFragments.add(fragmentMeta);
       }
     }
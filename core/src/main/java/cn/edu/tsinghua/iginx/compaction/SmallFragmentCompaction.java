@@ -0,0 +1,113 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.compaction;
+
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.PhysicalEngine;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.metadata.IMetaManager;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.metadata.entity.StorageUnitMeta;
+import cn.edu.tsinghua.iginx.monitor.FragmentHeatTracker;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 合并自适应切分后留下的点数较少、已不再写入且近期没有访问的相邻分片
+ *
+ * <p>“近期没有访问”依据本节点的 FragmentHeatTracker 判断，不包含其他节点上的访问
+ */
+public class SmallFragmentCompaction extends Compaction {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SmallFragmentCompaction.class);
+
+  private List<List<FragmentMeta>> toCompactFragmentGroups;
+
+  private Map<FragmentMeta, Long> fragmentMetaPointsMap;
+
+  private final FragmentHeatTracker heatTracker = FragmentHeatTracker.getInstance();
+
+  public SmallFragmentCompaction(PhysicalEngine physicalEngine, IMetaManager metaManager) {
+    super(physicalEngine, metaManager);
+  }
+
+  @Override
+  public boolean needCompaction() throws Exception {
+    fragmentMetaPointsMap = metaManager.loadFragmentPoints();
+    if (fragmentMetaPointsMap == null) {
+      fragmentMetaPointsMap = new HashMap<>();
+    }
+    toCompactFragmentGroups = judgeCompaction(metaManager.getFragments(), fragmentMetaPointsMap);
+    return !toCompactFragmentGroups.isEmpty();
+  }
+
+  public List<List<FragmentMeta>> judgeCompaction(
+      List<FragmentMeta> fragmentMetaSet, Map<FragmentMeta, Long> fragmentMetaPointsMap) {
+    long pointsThreshold =
+        ConfigDescriptor.getInstance().getConfig().getFragmentMergePointsThreshold();
+    List<FragmentMeta> candidateFragments = new ArrayList<>();
+    for (FragmentMeta fragmentMeta : fragmentMetaSet) {
+      if (!fragmentMeta.isDummyFragment()
+          && fragmentMeta.getKeyInterval().getEndKey() != Long.MAX_VALUE
+          && fragmentMetaPointsMap.getOrDefault(fragmentMeta, 0L) < pointsThreshold
+          && !heatTracker.isActive(fragmentMeta)) {
+        candidateFragments.add(fragmentMeta);
+      }
+    }
+    return packFragmentsByGroup(candidateFragments);
+  }
+
+  @Override
+  public void compact() throws Exception {
+    LOGGER.info("start to compact small fragments");
+    executeCompaction(toCompactFragmentGroups, fragmentMetaPointsMap);
+  }
+
+  public void executeCompaction(
+      List<List<FragmentMeta>> toCompactFragmentGroups,
+      Map<FragmentMeta, Long> fragmentMetaPointsMap)
+      throws PhysicalException {
+    for (List<FragmentMeta> fragmentGroup : toCompactFragmentGroups) {
+      if (fragmentGroup.size() <= 1) {
+        continue;
+      }
+      // 合并到组内数据量最多的du，使需要搬迁的数据最少
+      Map<String, Long> storageUnitPointsMap = new HashMap<>();
+      StorageUnitMeta maxStorageUnitMeta = fragmentGroup.get(0).getMasterStorageUnit();
+      long maxStorageUnitPoints = -1;
+      long totalPoints = 0;
+      for (FragmentMeta fragmentMeta : fragmentGroup) {
+        long points = fragmentMetaPointsMap.getOrDefault(fragmentMeta, 0L);
+        long storageUnitPoints =
+            storageUnitPointsMap.merge(fragmentMeta.getMasterStorageUnitId(), points, Long::sum);
+        if (storageUnitPoints > maxStorageUnitPoints) {
+          maxStorageUnitPoints = storageUnitPoints;
+          maxStorageUnitMeta = fragmentMeta.getMasterStorageUnit();
+        }
+        totalPoints += points;
+      }
+      compactFragmentGroupToTargetStorageUnit(fragmentGroup, maxStorageUnitMeta, totalPoints);
+    }
+  }
+}
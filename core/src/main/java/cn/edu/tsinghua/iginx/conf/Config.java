@@ -73,12 +73,28 @@ public class Config {
 
   private double fragmentCompactionReadRatioThreshold = 0.1;
 
+  private boolean enableAdaptiveFragmentSplit = false;
+
+  private long fragmentSplitPointsThreshold = 100000000;
+
+  private long fragmentSplitWritePointRate = 100000;
+
+  private int fragmentSplitMaxColumnRanges = 4;
+
+  private long fragmentMergePointsThreshold = 1000000;
+
   private long reshardFragmentTimeMargin = 60;
 
   private String migrationPolicyClassName = "cn.edu.tsinghua.iginx.migration.GreedyMigrationPolicy";
 
   private long migrationBatchSize = 100;
 
+  private int migrationParallelism = 4;
+
+  private int migrationMaxInFlightBatches = 2;
+
+  private long migrationMaxPointsPerSecond = 0;
+
   private int maxReshardFragmentsNum = 3;
 
   private double maxTimeseriesLoadBalanceThreshold = 2;
@@ -99,6 +115,8 @@ public class Config {
 
   private int asyncRestThreadPool = 100;
 
+  private boolean enableMetrics = true;
+
   private boolean enableRestService = true;
 
   private String etcdEndpoints = "http://localhost:2379";
@@ -131,6 +149,52 @@ public class Config {
 
   private int maxCachedPhysicalTaskPerStorage = 500;
 
+  private boolean enableParallelFragmentScan = false;
+
+  private int parallelFragmentScanThreadNum = 16;
+
+  private int parallelFragmentScanBatchSize = 1024;
+
+  private boolean enableColumnStatistics = false;
+
+  private boolean enableReplicaRead = false;
+
+  private boolean enableHedgedRead = false;
+
+  private long hedgedReadMinDelayMs = 20;
+
+  private boolean enableQueryResultCache = false;
+
+  private long queryResultCacheCapacity = 268435456;
+
+  private long queryResultCacheMaxEntrySize = 16777216;
+
+  private long queryResultCacheTtlMs = 60000;
+
+  private String continuousAggregates = "";
+
+  private String continuousAggregatePrefix = "rollup";
+
+  private boolean enableResultPrefetch = true;
+
+  private int resultPrefetchBatchNum = 2;
+
+  private long resultPrefetchMaxBatchBytes = 4194304;
+
+  private int resultPrefetchThreadNum = 8;
+
+  private boolean enableLastValueCache = false;
+
+  private int lastValueCacheCapacity = 100000;
+
+  private long lastValueCacheTtlMs = 60000;
+
+  private boolean enableSchemaCatalog = false;
+
+  private long schemaCatalogTtlMs = 60000;
+
+  private int schemaCatalogThreadNum = 8;
+
   private double cachedTimeseriesProb = 0.01;
 
   private int retryCount = 10;
@@ -171,8 +235,16 @@ public class Config {
 
   private int transformMaxRetryTimes = 3;
 
+  private boolean enableTransformPipeline = false;
+
+  private int transformPipelineMaxInFlightBatches = 4;
+
   private boolean needInitBasicUDFFunctions = true;
 
+  private int udfInterpreterPoolSize = 5;
+
+  private boolean enableUDFInterpreterPoolWarmUp = true;
+
   private List<String> udfList = new ArrayList<>();
 
   private String historicalPrefixList = "";
@@ -184,7 +256,7 @@ public class Config {
   private int maxThriftWrokerThreadNum = 2147483647;
 
   private String ruleBasedOptimizer =
-      "NotFilterRemoveRule=on,FragmentPruningByFilterRule=on,ColumnPruningRule=on,FragmentPruningByPatternRule=on";
+      "NotFilterRemoveRule=on,FragmentPruningByFilterRule=on,ColumnPruningRule=on,FragmentPruningByPatternRule=on,CostBasedJoinRule=on";
 
   //////////////
 
@@ -212,6 +284,8 @@ public class Config {
 
   private int batchSizeImportCsv = 10000;
 
+  private int importCsvParallelism = 4;
+
   private boolean isUTTestEnv = false; // 是否是单元测试环境
 
   public int getMaxTimeseriesLength() {
@@ -903,4 +977,300 @@ public class Config {
   public void setRuleBasedOptimizer(String ruleBasedOptimizer) {
     this.ruleBasedOptimizer = ruleBasedOptimizer;
   }
+
+  public int getUdfInterpreterPoolSize() {
+    return udfInterpreterPoolSize;
+  }
+
+  public void setUdfInterpreterPoolSize(int udfInterpreterPoolSize) {
+    this.udfInterpreterPoolSize = udfInterpreterPoolSize;
+  }
+
+  public boolean isEnableUDFInterpreterPoolWarmUp() {
+    return enableUDFInterpreterPoolWarmUp;
+  }
+
+  public void setEnableUDFInterpreterPoolWarmUp(boolean enableUDFInterpreterPoolWarmUp) {
+    this.enableUDFInterpreterPoolWarmUp = enableUDFInterpreterPoolWarmUp;
+  }
+
+  public boolean isEnableTransformPipeline() {
+    return enableTransformPipeline;
+  }
+
+  public void setEnableTransformPipeline(boolean enableTransformPipeline) {
+    this.enableTransformPipeline = enableTransformPipeline;
+  }
+
+  public int getTransformPipelineMaxInFlightBatches() {
+    return transformPipelineMaxInFlightBatches;
+  }
+
+  public void setTransformPipelineMaxInFlightBatches(int transformPipelineMaxInFlightBatches) {
+    this.transformPipelineMaxInFlightBatches = transformPipelineMaxInFlightBatches;
+  }
+
+  public int getImportCsvParallelism() {
+    return importCsvParallelism;
+  }
+
+  public void setImportCsvParallelism(int importCsvParallelism) {
+    this.importCsvParallelism = importCsvParallelism;
+  }
+
+  public int getMigrationParallelism() {
+    return migrationParallelism;
+  }
+
+  public void setMigrationParallelism(int migrationParallelism) {
+    this.migrationParallelism = migrationParallelism;
+  }
+
+  public int getMigrationMaxInFlightBatches() {
+    return migrationMaxInFlightBatches;
+  }
+
+  public void setMigrationMaxInFlightBatches(int migrationMaxInFlightBatches) {
+    this.migrationMaxInFlightBatches = migrationMaxInFlightBatches;
+  }
+
+  public long getMigrationMaxPointsPerSecond() {
+    return migrationMaxPointsPerSecond;
+  }
+
+  public void setMigrationMaxPointsPerSecond(long migrationMaxPointsPerSecond) {
+    this.migrationMaxPointsPerSecond = migrationMaxPointsPerSecond;
+  }
+
+  public boolean isEnableReplicaRead() {
+    return enableReplicaRead;
+  }
+
+  public void setEnableReplicaRead(boolean enableReplicaRead) {
+    this.enableReplicaRead = enableReplicaRead;
+  }
+
+  public boolean isEnableHedgedRead() {
+    return enableHedgedRead;
+  }
+
+  public void setEnableHedgedRead(boolean enableHedgedRead) {
+    this.enableHedgedRead = enableHedgedRead;
+  }
+
+  public long getHedgedReadMinDelayMs() {
+    return hedgedReadMinDelayMs;
+  }
+
+  public void setHedgedReadMinDelayMs(long hedgedReadMinDelayMs) {
+    this.hedgedReadMinDelayMs = hedgedReadMinDelayMs;
+  }
+
+  public boolean isEnableColumnStatistics() {
+    return enableColumnStatistics;
+  }
+
+  public void setEnableColumnStatistics(boolean enableColumnStatistics) {
+    this.enableColumnStatistics = enableColumnStatistics;
+  }
+
+  public boolean isEnableMetrics() {
+    return enableMetrics;
+  }
+
+  public void setEnableMetrics(boolean enableMetrics) {
+    this.enableMetrics = enableMetrics;
+  }
+
+  public boolean isEnableQueryResultCache() {
+    return enableQueryResultCache;
+  }
+
+  public void setEnableQueryResultCache(boolean enableQueryResultCache) {
+    this.enableQueryResultCache = enableQueryResultCache;
+  }
+
+  public long getQueryResultCacheCapacity() {
+    return queryResultCacheCapacity;
+  }
+
+  public void setQueryResultCacheCapacity(long queryResultCacheCapacity) {
+    this.queryResultCacheCapacity = queryResultCacheCapacity;
+  }
+
+  public long getQueryResultCacheMaxEntrySize() {
+    return queryResultCacheMaxEntrySize;
+  }
+
+  public void setQueryResultCacheMaxEntrySize(long queryResultCacheMaxEntrySize) {
+    this.queryResultCacheMaxEntrySize = queryResultCacheMaxEntrySize;
+  }
+
+  public long getQueryResultCacheTtlMs() {
+    return queryResultCacheTtlMs;
+  }
+
+  public void setQueryResultCacheTtlMs(long queryResultCacheTtlMs) {
+    this.queryResultCacheTtlMs = queryResultCacheTtlMs;
+  }
+
+  public String getContinuousAggregates() {
+    return continuousAggregates;
+  }
+
+  public void setContinuousAggregates(String continuousAggregates) {
+    this.continuousAggregates = continuousAggregates;
+  }
+
+  public String getContinuousAggregatePrefix() {
+    return continuousAggregatePrefix;
+  }
+
+  public void setContinuousAggregatePrefix(String continuousAggregatePrefix) {
+    this.continuousAggregatePrefix = continuousAggregatePrefix;
+  }
+
+  public boolean isEnableResultPrefetch() {
+    return enableResultPrefetch;
+  }
+
+  public void setEnableResultPrefetch(boolean enableResultPrefetch) {
+    this.enableResultPrefetch = enableResultPrefetch;
+  }
+
+  public int getResultPrefetchBatchNum() {
+    return resultPrefetchBatchNum;
+  }
+
+  public void setResultPrefetchBatchNum(int resultPrefetchBatchNum) {
+    this.resultPrefetchBatchNum = resultPrefetchBatchNum;
+  }
+
+  public long getResultPrefetchMaxBatchBytes() {
+    return resultPrefetchMaxBatchBytes;
+  }
+
+  public void setResultPrefetchMaxBatchBytes(long resultPrefetchMaxBatchBytes) {
+    this.resultPrefetchMaxBatchBytes = resultPrefetchMaxBatchBytes;
+  }
+
+  public int getResultPrefetchThreadNum() {
+    return resultPrefetchThreadNum;
+  }
+
+  public void setResultPrefetchThreadNum(int resultPrefetchThreadNum) {
+    this.resultPrefetchThreadNum = resultPrefetchThreadNum;
+  }
+
+  public boolean isEnableLastValueCache() {
+    return enableLastValueCache;
+  }
+
+  public void setEnableLastValueCache(boolean enableLastValueCache) {
+    this.enableLastValueCache = enableLastValueCache;
+  }
+
+  public int getLastValueCacheCapacity() {
+    return lastValueCacheCapacity;
+  }
+
+  public void setLastValueCacheCapacity(int lastValueCacheCapacity) {
+    this.lastValueCacheCapacity = lastValueCacheCapacity;
+  }
+
+  public long getLastValueCacheTtlMs() {
+    return lastValueCacheTtlMs;
+  }
+
+  public void setLastValueCacheTtlMs(long lastValueCacheTtlMs) {
+    this.lastValueCacheTtlMs = lastValueCacheTtlMs;
+  }
+
+  public boolean isEnableSchemaCatalog() {
+    return enableSchemaCatalog;
+  }
+
+  public void setEnableSchemaCatalog(boolean enableSchemaCatalog) {
+    this.enableSchemaCatalog = enableSchemaCatalog;
+  }
+
+  public long getSchemaCatalogTtlMs() {
+    return schemaCatalogTtlMs;
+  }
+
+  public void setSchemaCatalogTtlMs(long schemaCatalogTtlMs) {
+    this.schemaCatalogTtlMs = schemaCatalogTtlMs;
+  }
+
+  public int getSchemaCatalogThreadNum() {
+    return schemaCatalogThreadNum;
+  }
+
+  public void setSchemaCatalogThreadNum(int schemaCatalogThreadNum) {
+    this.schemaCatalogThreadNum = schemaCatalogThreadNum;
+  }
+
+  public int getParallelFragmentScanBatchSize() {
+    return parallelFragmentScanBatchSize;
+  }
+
+  public void setParallelFragmentScanBatchSize(int parallelFragmentScanBatchSize) {
+    this.parallelFragmentScanBatchSize = parallelFragmentScanBatchSize;
+  }
+
+  public int getParallelFragmentScanThreadNum() {
+    return parallelFragmentScanThreadNum;
+  }
+
+  public void setParallelFragmentScanThreadNum(int parallelFragmentScanThreadNum) {
+    this.parallelFragmentScanThreadNum = parallelFragmentScanThreadNum;
+  }
+
+  public boolean isEnableParallelFragmentScan() {
+    return enableParallelFragmentScan;
+  }
+
+  public void setEnableParallelFragmentScan(boolean enableParallelFragmentScan) {
+    this.enableParallelFragmentScan = enableParallelFragmentScan;
+  }
+
+  public boolean isEnableAdaptiveFragmentSplit() {
+    return enableAdaptiveFragmentSplit;
+  }
+
+  public void setEnableAdaptiveFragmentSplit(boolean enableAdaptiveFragmentSplit) {
+    this.enableAdaptiveFragmentSplit = enableAdaptiveFragmentSplit;
+  }
+
+  public long getFragmentSplitPointsThreshold() {
+    return fragmentSplitPointsThreshold;
+  }
+
+  public void setFragmentSplitPointsThreshold(long fragmentSplitPointsThreshold) {
+    this.fragmentSplitPointsThreshold = fragmentSplitPointsThreshold;
+  }
+
+  public long getFragmentSplitWritePointRate() {
+    return fragmentSplitWritePointRate;
+  }
+
+  public void setFragmentSplitWritePointRate(long fragmentSplitWritePointRate) {
+    this.fragmentSplitWritePointRate = fragmentSplitWritePointRate;
+  }
+
+  public int getFragmentSplitMaxColumnRanges() {
+    return fragmentSplitMaxColumnRanges;
+  }
+
+  public void setFragmentSplitMaxColumnRanges(int fragmentSplitMaxColumnRanges) {
+    this.fragmentSplitMaxColumnRanges = fragmentSplitMaxColumnRanges;
+  }
+
+  public long getFragmentMergePointsThreshold() {
+    return fragmentMergePointsThreshold;
+  }
+
+  public void setFragmentMergePointsThreshold(long fragmentMergePointsThreshold) {
+    this.fragmentMergePointsThreshold = fragmentMergePointsThreshold;
+  }
 }
@@ -228,10 +228,83 @@ public class ConfigDescriptor {
           Integer.parseInt(properties.getProperty("streamParallelGroupByWorkerNum", "5")));
       config.setBatchSizeImportCsv(
           Integer.parseInt(properties.getProperty("batchSizeImportCsv", "10000")));
+      config.setUdfInterpreterPoolSize(
+          Integer.parseInt(properties.getProperty("udfInterpreterPoolSize", "5")));
+      config.setEnableUDFInterpreterPoolWarmUp(
+          Boolean.parseBoolean(properties.getProperty("enableUDFInterpreterPoolWarmUp", "true")));
+      config.setEnableTransformPipeline(
+          Boolean.parseBoolean(properties.getProperty("enableTransformPipeline", "false")));
+      config.setTransformPipelineMaxInFlightBatches(
+          Integer.parseInt(properties.getProperty("transformPipelineMaxInFlightBatches", "4")));
+      config.setImportCsvParallelism(
+          Integer.parseInt(properties.getProperty("importCsvParallelism", "4")));
+      config.setMigrationParallelism(
+          Integer.parseInt(properties.getProperty("migrationParallelism", "4")));
+      config.setMigrationMaxInFlightBatches(
+          Integer.parseInt(properties.getProperty("migrationMaxInFlightBatches", "2")));
+      config.setMigrationMaxPointsPerSecond(
+          Long.parseLong(properties.getProperty("migrationMaxPointsPerSecond", "0")));
+      config.setEnableReplicaRead(
+          Boolean.parseBoolean(properties.getProperty("enableReplicaRead", "false")));
+      config.setEnableHedgedRead(
+          Boolean.parseBoolean(properties.getProperty("enableHedgedRead", "false")));
+      config.setHedgedReadMinDelayMs(
+          Long.parseLong(properties.getProperty("hedgedReadMinDelayMs", "20")));
+      config.setEnableColumnStatistics(
+          Boolean.parseBoolean(properties.getProperty("enableColumnStatistics", "false")));
+      config.setEnableMetrics(
+          Boolean.parseBoolean(properties.getProperty("enableMetrics", "true")));
+      config.setEnableQueryResultCache(
+          Boolean.parseBoolean(properties.getProperty("enableQueryResultCache", "false")));
+      config.setQueryResultCacheCapacity(
+          Long.parseLong(properties.getProperty("queryResultCacheCapacity", "268435456")));
+      config.setQueryResultCacheMaxEntrySize(
+          Long.parseLong(properties.getProperty("queryResultCacheMaxEntrySize", "16777216")));
+      config.setQueryResultCacheTtlMs(
+          Long.parseLong(properties.getProperty("queryResultCacheTtlMs", "60000")));
+      config.setContinuousAggregates(properties.getProperty("continuousAggregates", ""));
+      config.setContinuousAggregatePrefix(
+          properties.getProperty("continuousAggregatePrefix", "rollup"));
+      config.setEnableResultPrefetch(
+          Boolean.parseBoolean(properties.getProperty("enableResultPrefetch", "true")));
+      config.setResultPrefetchBatchNum(
+          Integer.parseInt(properties.getProperty("resultPrefetchBatchNum", "2")));
+      config.setResultPrefetchMaxBatchBytes(
+          Long.parseLong(properties.getProperty("resultPrefetchMaxBatchBytes", "4194304")));
+      config.setResultPrefetchThreadNum(
+          Integer.parseInt(properties.getProperty("resultPrefetchThreadNum", "8")));
+      config.setEnableLastValueCache(
+          Boolean.parseBoolean(properties.getProperty("enableLastValueCache", "false")));
+      config.setLastValueCacheCapacity(
+          Integer.parseInt(properties.getProperty("lastValueCacheCapacity", "100000")));
+      config.setLastValueCacheTtlMs(
+          Long.parseLong(properties.getProperty("lastValueCacheTtlMs", "60000")));
+      config.setEnableSchemaCatalog(
+          Boolean.parseBoolean(properties.getProperty("enableSchemaCatalog", "false")));
+      config.setSchemaCatalogTtlMs(
+          Long.parseLong(properties.getProperty("schemaCatalogTtlMs", "60000")));
+      config.setSchemaCatalogThreadNum(
+          Integer.parseInt(properties.getProperty("schemaCatalogThreadNum", "8")));
+      config.setParallelFragmentScanBatchSize(
+          Integer.parseInt(properties.getProperty("parallelFragmentScanBatchSize", "1024")));
+      config.setParallelFragmentScanThreadNum(
+          Integer.parseInt(properties.getProperty("parallelFragmentScanThreadNum", "16")));
+      config.setEnableParallelFragmentScan(
+          Boolean.parseBoolean(properties.getProperty("enableParallelFragmentScan", "false")));
+      config.setEnableAdaptiveFragmentSplit(
+          Boolean.parseBoolean(properties.getProperty("enableAdaptiveFragmentSplit", "false")));
+      config.setFragmentSplitPointsThreshold(
+          Long.parseLong(properties.getProperty("fragmentSplitPointsThreshold", "100000000")));
+      config.setFragmentSplitWritePointRate(
+          Long.parseLong(properties.getProperty("fragmentSplitWritePointRate", "100000")));
+      config.setFragmentSplitMaxColumnRanges(
+          Integer.parseInt(properties.getProperty("fragmentSplitMaxColumnRanges", "4")));
+      config.setFragmentMergePointsThreshold(
+          Long.parseLong(properties.getProperty("fragmentMergePointsThreshold", "1000000")));
       config.setRuleBasedOptimizer(
           properties.getProperty(
               "ruleBasedOptimizer",
-              "NotFilterRemoveRule=on,FragmentPruningByFilterRule=on,ColumnPruningRule=on,FragmentPruningByPatternRule=on"));
+              "NotFilterRemoveRule=on,FragmentPruningByFilterRule=on,ColumnPruningRule=on,FragmentPruningByPatternRule=on,CostBasedJoinRule=on"));
     } catch (IOException e) {
       config.setUTTestEnv(true);
       config.setNeedInitBasicUDFFunctions(false);
@@ -356,6 +429,83 @@ public class ConfigDescriptor {
     config.setBatchSizeImportCsv(
         EnvUtils.loadEnv("batchSizeImportCsv", config.getBatchSizeImportCsv()));
     config.setUTTestEnv(EnvUtils.loadEnv("utTestEnv", config.isUTTestEnv()));
+    config.setUdfInterpreterPoolSize(
+        EnvUtils.loadEnv("udfInterpreterPoolSize", config.getUdfInterpreterPoolSize()));
+    config.setEnableUDFInterpreterPoolWarmUp(
+        EnvUtils.loadEnv(
+            "enableUDFInterpreterPoolWarmUp", config.isEnableUDFInterpreterPoolWarmUp()));
+    config.setEnableTransformPipeline(
+        EnvUtils.loadEnv("enableTransformPipeline", config.isEnableTransformPipeline()));
+    config.setTransformPipelineMaxInFlightBatches(
+        EnvUtils.loadEnv(
+            "transformPipelineMaxInFlightBatches",
+            config.getTransformPipelineMaxInFlightBatches()));
+    config.setImportCsvParallelism(
+        EnvUtils.loadEnv("importCsvParallelism", config.getImportCsvParallelism()));
+    config.setMigrationParallelism(
+        EnvUtils.loadEnv("migrationParallelism", config.getMigrationParallelism()));
+    config.setMigrationMaxInFlightBatches(
+        EnvUtils.loadEnv("migrationMaxInFlightBatches", config.getMigrationMaxInFlightBatches()));
+    config.setMigrationMaxPointsPerSecond(
+        EnvUtils.loadEnv("migrationMaxPointsPerSecond", config.getMigrationMaxPointsPerSecond()));
+    config.setEnableReplicaRead(
+        EnvUtils.loadEnv("enableReplicaRead", config.isEnableReplicaRead()));
+    config.setEnableHedgedRead(EnvUtils.loadEnv("enableHedgedRead", config.isEnableHedgedRead()));
+    config.setHedgedReadMinDelayMs(
+        EnvUtils.loadEnv("hedgedReadMinDelayMs", config.getHedgedReadMinDelayMs()));
+    config.setEnableColumnStatistics(
+        EnvUtils.loadEnv("enableColumnStatistics", config.isEnableColumnStatistics()));
+    config.setEnableMetrics(EnvUtils.loadEnv("enableMetrics", config.isEnableMetrics()));
+    config.setEnableQueryResultCache(
+        EnvUtils.loadEnv("enableQueryResultCache", config.isEnableQueryResultCache()));
+    config.setQueryResultCacheCapacity(
+        EnvUtils.loadEnv("queryResultCacheCapacity", config.getQueryResultCacheCapacity()));
+    config.setQueryResultCacheMaxEntrySize(
+        EnvUtils.loadEnv("queryResultCacheMaxEntrySize", config.getQueryResultCacheMaxEntrySize()));
+    config.setQueryResultCacheTtlMs(
+        EnvUtils.loadEnv("queryResultCacheTtlMs", config.getQueryResultCacheTtlMs()));
+    config.setContinuousAggregates(
+        EnvUtils.loadEnv("continuousAggregates", config.getContinuousAggregates()));
+    config.setContinuousAggregatePrefix(
+        EnvUtils.loadEnv("continuousAggregatePrefix", config.getContinuousAggregatePrefix()));
+    config.setEnableResultPrefetch(
+        EnvUtils.loadEnv("enableResultPrefetch", config.isEnableResultPrefetch()));
+    config.setResultPrefetchBatchNum(
+        EnvUtils.loadEnv("resultPrefetchBatchNum", config.getResultPrefetchBatchNum()));
+    config.setResultPrefetchMaxBatchBytes(
+        EnvUtils.loadEnv("resultPrefetchMaxBatchBytes", config.getResultPrefetchMaxBatchBytes()));
+    config.setResultPrefetchThreadNum(
+        EnvUtils.loadEnv("resultPrefetchThreadNum", config.getResultPrefetchThreadNum()));
+    config.setEnableLastValueCache(
+        EnvUtils.loadEnv("enableLastValueCache", config.isEnableLastValueCache()));
+    config.setLastValueCacheCapacity(
+        EnvUtils.loadEnv("lastValueCacheCapacity", config.getLastValueCacheCapacity()));
+    config.setLastValueCacheTtlMs(
+        EnvUtils.loadEnv("lastValueCacheTtlMs", config.getLastValueCacheTtlMs()));
+    config.setEnableSchemaCatalog(
+        EnvUtils.loadEnv("enableSchemaCatalog", config.isEnableSchemaCatalog()));
+    config.setSchemaCatalogTtlMs(
+        EnvUtils.loadEnv("schemaCatalogTtlMs", config.getSchemaCatalogTtlMs()));
+    config.setSchemaCatalogThreadNum(
+        EnvUtils.loadEnv("schemaCatalogThreadNum", config.getSchemaCatalogThreadNum()));
+    config.setParallelFragmentScanBatchSize(
+        EnvUtils.loadEnv(
+            "parallelFragmentScanBatchSize", config.getParallelFragmentScanBatchSize()));
+    config.setParallelFragmentScanThreadNum(
+        EnvUtils.loadEnv(
+            "parallelFragmentScanThreadNum", config.getParallelFragmentScanThreadNum()));
+    config.setEnableParallelFragmentScan(
+        EnvUtils.loadEnv("enableParallelFragmentScan", config.isEnableParallelFragmentScan()));
+    config.setEnableAdaptiveFragmentSplit(
+        EnvUtils.loadEnv("enableAdaptiveFragmentSplit", config.isEnableAdaptiveFragmentSplit()));
+    config.setFragmentSplitPointsThreshold(
+        EnvUtils.loadEnv("fragmentSplitPointsThreshold", config.getFragmentSplitPointsThreshold()));
+    config.setFragmentSplitWritePointRate(
+        EnvUtils.loadEnv("fragmentSplitWritePointRate", config.getFragmentSplitWritePointRate()));
+    config.setFragmentSplitMaxColumnRanges(
+        EnvUtils.loadEnv("fragmentSplitMaxColumnRanges", config.getFragmentSplitMaxColumnRanges()));
+    config.setFragmentMergePointsThreshold(
+        EnvUtils.loadEnv("fragmentMergePointsThreshold", config.getFragmentMergePointsThreshold()));
     config.setRuleBasedOptimizer(
         EnvUtils.loadEnv("ruleBasedOptimizer", config.getRuleBasedOptimizer()));
   }
@@ -27,6 +27,7 @@ import static cn.edu.tsinghua.iginx.utils.StringUtils.tryParse2Key;
 
 import cn.edu.tsinghua.iginx.conf.Config;
 import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.logical.cache.LastValueCache;
 import cn.edu.tsinghua.iginx.engine.logical.constraint.ConstraintChecker;
 import cn.edu.tsinghua.iginx.engine.logical.constraint.ConstraintCheckerManager;
 import cn.edu.tsinghua.iginx.engine.logical.generator.*;
@@ -36,6 +37,7 @@ import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.stream.EmptyRowStream;
 import cn.edu.tsinghua.iginx.engine.physical.task.PhysicalTask;
+import cn.edu.tsinghua.iginx.engine.physical.task.visitor.TaskAnalyzeVisitor;
 import cn.edu.tsinghua.iginx.engine.physical.task.visitor.TaskInfoVisitor;
 import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
 import cn.edu.tsinghua.iginx.engine.shared.Result;
@@ -44,6 +46,7 @@ import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawDataType;
 import cn.edu.tsinghua.iginx.engine.shared.exception.StatementExecutionException;
 import cn.edu.tsinghua.iginx.engine.shared.file.FileType;
 import cn.edu.tsinghua.iginx.engine.shared.file.read.ImportCsv;
@@ -68,15 +71,22 @@ import cn.edu.tsinghua.iginx.thrift.DataType;
 import cn.edu.tsinghua.iginx.thrift.Status;
 import cn.edu.tsinghua.iginx.utils.*;
 import cn.hutool.core.io.CharsetDetector;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
-import java.nio.file.Files;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -101,6 +111,21 @@ public class StatementExecutor {
 
   private static final IMetaManager metaManager = DefaultMetaManager.getInstance();
 
+  private static final LastValueCache lastValueCache = LastValueCache.getInstance();
+
+  private static final int CSV_CHARSET_DETECT_BYTES = 1024 * 1024;
+
+  private static final ExecutorService importCsvPool =
+      Executors.newFixedThreadPool(
+          Math.max(1, config.getImportCsvParallelism()),
+          runnable -> {
+            // 导入线程不应阻止进程退出
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("import-csv-" + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+          });
+
   private static final Map<StatementType, List<LogicalGenerator>> generatorMap = new HashMap<>();
 
   private static final List<LogicalGenerator> queryGeneratorList = new ArrayList<>();
@@ -330,6 +355,13 @@ public class StatementExecutor {
 
   private void process(RequestContext ctx) throws StatementExecutionException, PhysicalException {
     StatementType type = ctx.getStatement().getType();
+    if (type == StatementType.SELECT) {
+      RowStream cachedStream = lastValueCache.get(ctx.getStatement());
+      if (cachedStream != null) {
+        setResult(ctx, cachedStream);
+        return;
+      }
+    }
     List<LogicalGenerator> generatorList = generatorMap.get(type);
     for (LogicalGenerator generator : generatorList) {
       before(ctx, preLogicalProcessors);
@@ -349,16 +381,46 @@ public class StatementExecutor {
           }
         }
 
+        boolean needAnalyzeExplain =
+            type == StatementType.SELECT
+                && ((SelectStatement) ctx.getStatement()).isNeedAnalyzeExplain();
+        if (needAnalyzeExplain) {
+          ctx.setProfiling(true);
+        }
+
+        LastValueCache.Warm warm =
+            type == StatementType.SELECT ? lastValueCache.startWarm(ctx.getStatement()) : null;
         before(ctx, prePhysicalProcessors);
         RowStream stream = engine.execute(ctx, root);
         after(ctx, postPhysicalProcessors);
 
+        switch (type) {
+          case SELECT:
+            stream = lastValueCache.cacheOnRead(warm, stream);
+            break;
+          case INSERT:
+            // 与 InsertGenerator 生成写入算子时使用的是同一个 RawData 实例
+            if (lastValueCache.isEnabled()) {
+              lastValueCache.update(((InsertStatement) ctx.getStatement()).getRawData());
+            }
+            break;
+          case DELETE:
+            lastValueCache.invalidate(((DeleteStatement) ctx.getStatement()).getPaths());
+            break;
+          default:
+            break;
+        }
+
         if (type == StatementType.SELECT) {
           SelectStatement selectStatement = (SelectStatement) ctx.getStatement();
           if (selectStatement.isNeedPhysicalExplain()) {
             processExplainPhysicalStatement(ctx);
             return;
           }
+          if (needAnalyzeExplain) {
+            processExplainAnalyzeStatement(ctx, stream);
+            return;
+          }
         }
 
         setResult(ctx, stream);
@@ -401,6 +463,41 @@ public class StatementExecutor {
     formatTree(ctx, header, visitor.getCache(), visitor.getMaxLen());
   }
 
+  private void processExplainAnalyzeStatement(RequestContext ctx, RowStream stream)
+      throws PhysicalException, StatementExecutionException {
+    // 先把结果流消费完，各个任务上的指标才是完整的
+    if (stream != null) {
+      try {
+        while (stream.hasNext()) {
+          stream.next();
+        }
+      } finally {
+        stream.close();
+      }
+    }
+
+    PhysicalTask root = ctx.getPhysicalTree();
+    List<Field> fields =
+        new ArrayList<>(
+            Arrays.asList(
+                new Field("Physical Tree", DataType.BINARY),
+                new Field("Task Type", DataType.BINARY),
+                new Field("Task Info", DataType.BINARY),
+                new Field("Execute Time", DataType.BINARY),
+                new Field("Queue Wait", DataType.BINARY),
+                new Field("Wall Time", DataType.BINARY),
+                new Field("CPU Time", DataType.BINARY),
+                new Field("Rows In", DataType.LONG),
+                new Field("Rows Out", DataType.LONG),
+                new Field("Bytes Fetched", DataType.LONG),
+                new Field("Allocated Bytes", DataType.LONG)));
+    Header header = new Header(fields);
+
+    TaskAnalyzeVisitor visitor = new TaskAnalyzeVisitor();
+    root.accept(visitor);
+    formatTree(ctx, header, visitor.getCache(), visitor.getMaxLen());
+  }
+
   private void formatTree(RequestContext ctx, Header header, List<Object[]> cache, int maxLen)
       throws PhysicalException, StatementExecutionException {
     List<Row> rows = new ArrayList<>();
@@ -476,17 +573,16 @@ public class StatementExecutor {
       String keyCol)
       throws IOException {
     final int BATCH_SIZE = config.getBatchSizeImportCsv();
-    File tmpCSV = File.createTempFile("temp", ".csv");
-
-    try (FileOutputStream fos = new FileOutputStream(tmpCSV)) {
-      fos.write(ctx.getLoadCSVFileByteBuffer().array());
-      fos.flush();
-    } catch (IOException e) {
-      throw new RuntimeException(
-          "Encounter an error when writing file "
-              + tmpCSV.getCanonicalPath()
-              + ", because "
-              + e.getMessage());
+    // 直接在内存中解析上传的文件，不再落盘成临时文件后重新读取
+    ByteBuffer buffer = ctx.getLoadCSVFileByteBuffer();
+    byte[] bytes = buffer.array();
+    int offset = buffer.arrayOffset() + buffer.position();
+    int length = buffer.remaining();
+    Charset charset =
+        CharsetDetector.detect(
+            new ByteArrayInputStream(bytes, offset, Math.min(length, CSV_CHARSET_DETECT_BYTES)));
+    if (charset == null) {
+      charset = StandardCharsets.UTF_8;
     }
 
     long count = 0;
@@ -496,8 +592,7 @@ public class StatementExecutor {
               .getCSVBuilder()
               .build()
               .parse(
-                  new InputStreamReader(
-                      Files.newInputStream(tmpCSV.toPath()), CharsetDetector.detect(tmpCSV)));
+                  new InputStreamReader(new ByteArrayInputStream(bytes, offset, length), charset));
 
       CSVRecord tmp;
       Iterator<CSVRecord> iterator = parser.stream().iterator();
@@ -551,140 +646,266 @@ public class StatementExecutor {
       // type must be fixed once set, just like paths
       List<DataType> types = null;
 
-      while (iterator.hasNext()) {
-        long KeyStart = keyBase + count;
-        List<CSVRecord> records = new ArrayList<>(BATCH_SIZE);
-        // 每次从文件中取出BATCH_SIZE行数据
-        for (int n = 0; n < BATCH_SIZE && iterator.hasNext(); n++) {
-          tmp = iterator.next();
-          // more values are OK; the extra ones are skipped
-          if (tmp.size() < pathSize + delta) {
-            throw new RuntimeException(
-                "The paths' size doesn't match csv data at line: " + tmp.getRecordNumber());
-          }
-          records.add(tmp);
-        }
-
-        int recordsSize = records.size();
-        Long[] keys = new Long[recordsSize];
-        Object[][] values = new Object[recordsSize][pathSize];
-        List<Bitmap> bitmaps = new ArrayList<>();
-
-        // 填充 types
-        // 类型推断一定可以在一个batch中完成
-        if (types == null) {
-          types = new ArrayList<>();
-          Set<Integer> dataTypeIndex = new HashSet<>();
-          for (int i = 0; i < pathSize; i++) {
-            types.add(null);
-          }
-          for (int i = 0; i < pathSize; i++) {
-            dataTypeIndex.add(i);
-          }
-
-          for (CSVRecord record : records) {
-            if (dataTypeIndex.isEmpty()) {
-              break;
-            }
-            for (int j = 0; j < pathSize; j++) {
-              if (!dataTypeIndex.contains(j)) {
-                continue;
-              }
-              DataType inferredDataType =
-                  DataTypeInferenceUtils.getInferredDataType(record.get(j + delta));
-              if (inferredDataType != null) { // 找到每一列第一个不为 null 的值进行类型推断
-                types.set(j, inferredDataType);
-                dataTypeIndex.remove(j);
-              }
-            }
-          }
-          if (!dataTypeIndex.isEmpty()) {
-            for (Integer index : dataTypeIndex) {
-              types.set(index, DataType.BINARY);
+      CsvBatchConverter converter = null;
+      CsvInsertPipeline pipeline = new CsvInsertPipeline(ctx.getSessionId());
+      try {
+        while (iterator.hasNext()) {
+          long keyStart = keyBase + count;
+          List<CSVRecord> records = new ArrayList<>(BATCH_SIZE);
+          // 每次从文件中取出BATCH_SIZE行数据
+          for (int n = 0; n < BATCH_SIZE && iterator.hasNext(); n++) {
+            tmp = iterator.next();
+            // more values are OK; the extra ones are skipped
+            if (tmp.size() < pathSize + delta) {
+              throw new RuntimeException(
+                  "The paths' size doesn't match csv data at line: " + tmp.getRecordNumber());
             }
+            records.add(tmp);
           }
-          // sort types by paths
-          List<DataType> sortedDataTypeList = new ArrayList<>();
-          for (int i = 0; i < idx.length; i++) {
-            sortedDataTypeList.add(types.get(idx[i]));
+
+          // 填充 types
+          // 类型推断一定可以在一个batch中完成
+          if (types == null) {
+            types = inferCsvDataTypes(records, pathSize, delta, idx);
+            converter =
+                new CsvBatchConverter(
+                    insertStatement, types, idx, pathSize, delta, keyInFile.get(), keyIdx, keyBase);
           }
-          types = sortedDataTypeList;
-        }
 
-        // 填充 keys, values 和 bitmaps
-        for (int i = 0; i < recordsSize; i++) {
-          CSVRecord record = records.get(i);
-          if (keyInFile.get()) keys[i] = Long.parseLong(record.get(keyIdx)) + keyBase; // 指定了同名key列
-          else if (keyIdx != -1) keys[i] = tryParse2Key(record.get(keyIdx)) + keyBase; // 指定了非同名key列
-          else keys[i] = (long) i + KeyStart; // 需要自增key列
-          Bitmap bitmap = new Bitmap(pathSize);
-
-          // 按照排好序的列来处理
-          for (int index = 0; index < pathSize; ) {
-            int j = idx[index];
-            if (!record.get(j + delta).equalsIgnoreCase("null")) {
-              bitmap.mark(index);
-              switch (types.get(index)) { // types已经排好序了
-                case BOOLEAN:
-                  values[i][index] = Boolean.parseBoolean(record.get(j + delta));
-                  index++;
-                  break;
-                case INTEGER:
-                  values[i][index] = Integer.parseInt(record.get(j + delta));
-                  index++;
-                  break;
-                case LONG:
-                  values[i][index] = Long.parseLong(record.get(j + delta));
-                  index++;
-                  break;
-                case FLOAT:
-                  values[i][index] = Float.parseFloat(record.get(j + delta));
-                  index++;
-                  break;
-                case DOUBLE:
-                  values[i][index] = Double.parseDouble(record.get(j + delta));
-                  index++;
-                  break;
-                case BINARY:
-                  values[i][index] = record.get(j + delta).getBytes();
-                  index++;
-                  break;
-                default:
-              }
-            }
+          // 类型转换与写入在后台线程中进行，与下一批数据的解析重叠
+          CsvBatchConverter finalConverter = converter;
+          if (!pipeline.submit(() -> finalConverter.convert(records, keyStart))) {
+            break;
           }
-          bitmaps.add(bitmap);
+          count += records.size();
         }
+      } finally {
+        pipeline.await();
+      }
 
-        insertStatement.setKeys(new ArrayList<>(Arrays.asList(keys)));
-        insertStatement.setValues(values);
-        insertStatement.setTypes(types);
-        insertStatement.setBitmaps(bitmaps);
-
-        // do the actual insert
-        RequestContext subInsertContext = new RequestContext(ctx.getSessionId(), insertStatement);
-        process(subInsertContext);
-
-        if (!subInsertContext.getResult().getStatus().equals(RpcUtils.SUCCESS)) {
-          ctx.setResult(new Result(RpcUtils.FAILURE));
-          return;
-        }
-        count += recordsSize;
+      if (pipeline.isFailed()) {
+        ctx.setResult(new Result(RpcUtils.FAILURE));
+        return;
       }
       ctx.setResult(new Result(RpcUtils.SUCCESS));
       ctx.getResult().setLoadCSVColumns(insertStatement.getPaths());
       ctx.getResult().setLoadCSVRecordNum(count);
     } catch (IOException e) {
       throw new RuntimeException(
-          "Encounter an error when reading csv file "
-              + tmpCSV.getCanonicalPath()
-              + ", because "
-              + e.getMessage());
+          "Encounter an error when reading csv file, because " + e.getMessage());
     } catch (StatementExecutionException | PhysicalException e) {
       throw new RuntimeException(e);
     }
+  }
+
+  private List<DataType> inferCsvDataTypes(
+      List<CSVRecord> records, int pathSize, int delta, Integer[] idx) {
+    List<DataType> types = new ArrayList<>();
+    Set<Integer> dataTypeIndex = new HashSet<>();
+    for (int i = 0; i < pathSize; i++) {
+      types.add(null);
+    }
+    for (int i = 0; i < pathSize; i++) {
+      dataTypeIndex.add(i);
+    }
+
+    for (CSVRecord record : records) {
+      if (dataTypeIndex.isEmpty()) {
+        break;
+      }
+      for (int j = 0; j < pathSize; j++) {
+        if (!dataTypeIndex.contains(j)) {
+          continue;
+        }
+        DataType inferredDataType =
+            DataTypeInferenceUtils.getInferredDataType(record.get(j + delta));
+        if (inferredDataType != null) { // 找到每一列第一个不为 null 的值进行类型推断
+          types.set(j, inferredDataType);
+          dataTypeIndex.remove(j);
+        }
+      }
+    }
+    if (!dataTypeIndex.isEmpty()) {
+      for (Integer index : dataTypeIndex) {
+        types.set(index, DataType.BINARY);
+      }
+    }
+    // sort types by paths
+    List<DataType> sortedDataTypeList = new ArrayList<>();
+    for (int i = 0; i < idx.length; i++) {
+      sortedDataTypeList.add(types.get(idx[i]));
+    }
+    return sortedDataTypeList;
+  }
+
+  /** 将一批 csv 记录转换为独立的 InsertStatement，多个批次可以在不同线程中同时转换 */
+  private static class CsvBatchConverter {
+
+    private final InsertStatement template;
+
+    private final List<DataType> types;
+
+    private final Integer[] idx;
+
+    private final int pathSize;
+
+    private final int delta;
+
+    private final boolean keyInFile;
+
+    private final int keyIdx;
+
+    private final long keyBase;
+
+    CsvBatchConverter(
+        InsertStatement template,
+        List<DataType> types,
+        Integer[] idx,
+        int pathSize,
+        int delta,
+        boolean keyInFile,
+        int keyIdx,
+        long keyBase) {
+      this.template = template;
+      this.types = types;
+      this.idx = idx;
+      this.pathSize = pathSize;
+      this.delta = delta;
+      this.keyInFile = keyInFile;
+      this.keyIdx = keyIdx;
+      this.keyBase = keyBase;
+    }
+
+    InsertStatement convert(List<CSVRecord> records, long keyStart) {
+      int recordsSize = records.size();
+      Long[] keys = new Long[recordsSize];
+      Object[][] values = new Object[recordsSize][pathSize];
+      List<Bitmap> bitmaps = new ArrayList<>();
+
+      // 填充 keys, values 和 bitmaps
+      for (int i = 0; i < recordsSize; i++) {
+        CSVRecord record = records.get(i);
+        if (keyInFile) keys[i] = Long.parseLong(record.get(keyIdx)) + keyBase; // 指定了同名key列
+        else if (keyIdx != -1) keys[i] = tryParse2Key(record.get(keyIdx)) + keyBase; // 指定了非同名key列
+        else keys[i] = (long) i + keyStart; // 需要自增key列
+        Bitmap bitmap = new Bitmap(pathSize);
+
+        // 按照排好序的列来处理
+        for (int index = 0; index < pathSize; index++) {
+          String value = record.get(idx[index] + delta);
+          if (value.equalsIgnoreCase("null")) {
+            continue;
+          }
+          bitmap.mark(index);
+          switch (types.get(index)) { // types已经排好序了
+            case BOOLEAN:
+              values[i][index] = Boolean.parseBoolean(value);
+              break;
+            case INTEGER:
+              values[i][index] = Integer.parseInt(value);
+              break;
+            case LONG:
+              values[i][index] = Long.parseLong(value);
+              break;
+            case FLOAT:
+              values[i][index] = Float.parseFloat(value);
+              break;
+            case DOUBLE:
+              values[i][index] = Double.parseDouble(value);
+              break;
+            case BINARY:
+              values[i][index] = value.getBytes();
+              break;
+            default:
+          }
+        }
+        bitmaps.add(bitmap);
+      }
+
+      InsertStatement statement = new InsertStatement(RawDataType.NonAlignedRow);
+      statement.setPrefixPath(template.getPrefixPath());
+      statement.setGlobalTags(template.getGlobalTags());
+      // 各批次并行写入，getRawData 会向 tagsList 追加全局 tag，因此每个批次都使用独立的列表
+      statement.setPaths(new ArrayList<>(template.getPaths()));
+      statement.setTagsList(new ArrayList<>(template.getTagsList()));
+      statement.setKeys(new ArrayList<>(Arrays.asList(keys)));
+      statement.setValues(values);
+      statement.setTypes(new ArrayList<>(types));
+      statement.setBitmaps(bitmaps);
+      return statement;
+    }
+  }
+
+  /** 限制同时在途的批次数，使 csv 解析、类型转换与写入存储相互重叠 */
+  private class CsvInsertPipeline {
+
+    private final long sessionId;
+
+    private final Semaphore inFlight = new Semaphore(Math.max(1, config.getImportCsvParallelism()));
+
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+
+    private final AtomicReference<Exception> error = new AtomicReference<>();
+
+    CsvInsertPipeline(long sessionId) {
+      this.sessionId = sessionId;
+    }
 
-    Files.delete(tmpCSV.toPath());
+    /** 提交一批数据，已有批次失败时返回 false */
+    boolean submit(Callable<InsertStatement> converter) throws PhysicalException {
+      try {
+        inFlight.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PhysicalException("interrupted when importing csv", e);
+      }
+      if (failed.get()) {
+        inFlight.release();
+        return false;
+      }
+      futures.add(
+          importCsvPool.submit(
+              () -> {
+                try {
+                  RequestContext subInsertContext =
+                      new RequestContext(sessionId, converter.call());
+                  process(subInsertContext);
+                  if (!subInsertContext.getResult().getStatus().equals(RpcUtils.SUCCESS)) {
+                    failed.set(true);
+                  }
+                } catch (Exception e) {
+                  LOGGER.error("encounter error when importing csv batch: ", e);
+                  error.compareAndSet(null, e);
+                  failed.set(true);
+                } finally {
+                  inFlight.release();
+                }
+              }));
+      return true;
+    }
+
+    void await() throws PhysicalException {
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new PhysicalException("interrupted when importing csv", e);
+        } catch (ExecutionException e) {
+          failed.set(true);
+        }
+      }
+    }
+
+    boolean isFailed() {
+      if (error.get() != null) {
+        // 与串行导入时一致，将转换过程中的异常抛给调用方
+        throw new RuntimeException(error.get());
+      }
+      return failed.get();
+    }
   }
 
   private void processInsertFromSelect(RequestContext ctx)
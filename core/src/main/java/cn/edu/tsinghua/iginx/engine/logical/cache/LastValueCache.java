@@ -0,0 +1,600 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.cache;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.BitmapView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.ColumnDataView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.DataView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawData;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RowDataView;
+import cn.edu.tsinghua.iginx.engine.shared.expr.BaseExpression;
+import cn.edu.tsinghua.iginx.engine.shared.expr.Expression;
+import cn.edu.tsinghua.iginx.engine.shared.expr.FuncExpression;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.Last;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.utils.ValueUtils;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.AndFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Filter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.KeyFilter;
+import cn.edu.tsinghua.iginx.metrics.Counter;
+import cn.edu.tsinghua.iginx.metrics.MetricsRegistry;
+import cn.edu.tsinghua.iginx.sql.statement.Statement;
+import cn.edu.tsinghua.iginx.sql.statement.frompart.FromPart;
+import cn.edu.tsinghua.iginx.sql.statement.frompart.FromPartType;
+import cn.edu.tsinghua.iginx.sql.statement.select.UnarySelectStatement;
+import cn.edu.tsinghua.iginx.sql.statement.select.UnarySelectStatement.QueryType;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.StringUtils;
+import cn.edu.tsinghua.iginx.utils.TagKVUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 序列最新点缓存：直接回答 lastQuery 以及只包含 LAST 函数、没有键上界过滤的查询，跳过逻辑与物理计划
+ *
+ * <p>缓存分为两部分：序列全名到最新点的映射，以及查询的路径模式到其结果序列集合的映射。两者都由首次未命中的查询在读完结果后填充，
+ * 之后由本节点的写入维护：已缓存序列的新点直接更新最新点，出现不在集合中的新序列时使对应的集合失效。删除会移除涉及的序列与全部集合。
+ *
+ * <p>查询读取期间发生的写入记录在该查询的 Warm 中，与读到的结果合并后再写入缓存，因此不会因并发写入缓存过期的值。
+ */
+public class LastValueCache {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private static final int MAX_PATTERN_SETS = 256;
+
+  private static final Header LAST_HEADER =
+      new Header(
+          Field.KEY,
+          Arrays.asList(new Field("path", DataType.BINARY), new Field("value", DataType.BINARY)));
+
+  private final boolean enabled;
+
+  private final int capacity;
+
+  private final long ttlMs;
+
+  // access order 即为 LRU 顺序
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final LinkedHashMap<String, PatternSet> patternSets =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private final Set<Warm> warms = new HashSet<>();
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private LastValueCache() {
+    this.enabled = config.isEnableLastValueCache();
+    this.capacity = Math.max(1, config.getLastValueCacheCapacity());
+    this.ttlMs = config.getLastValueCacheTtlMs();
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    this.hits = registry.counter("iginx_last_value_cache_hits_total", "Last value cache hits");
+    this.misses =
+        registry.counter("iginx_last_value_cache_misses_total", "Last value cache misses");
+  }
+
+  public static LastValueCache getInstance() {
+    return LastValueCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** 命中时返回与 Last 函数输出格式相同的结果，否则返回 null */
+  public RowStream get(Statement statement) {
+    if (!enabled) {
+      return null;
+    }
+    LastQuery query = LastQuery.parse(statement);
+    if (query == null) {
+      return null;
+    }
+    List<Row> rows = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      PatternSet set = patternSets.get(query.key);
+      if (set == null || set.query.lowerBound > query.lowerBound || now - set.createTime > ttlMs) {
+        misses.inc();
+        return null;
+      }
+      for (String column : set.columns) {
+        Entry entry = entries.get(column);
+        if (entry == null || now - entry.warmTime > ttlMs) {
+          misses.inc();
+          return null;
+        }
+        if (entry.key >= query.lowerBound) {
+          rows.add(
+              new Row(
+                  LAST_HEADER,
+                  entry.key,
+                  new Object[] {column.getBytes(StandardCharsets.UTF_8), entry.value}));
+        }
+      }
+    }
+    hits.inc();
+    rows.sort(ValueUtils.firstLastRowComparator());
+    return new Table(LAST_HEADER, rows);
+  }
+
+  /**
+   * 查询执行前调用，登记一次可能用于填充缓存的读取，语句不可缓存时返回 null
+   *
+   * <p>只有在执行计划之前登记，读取期间的写入才能被记录下来
+   */
+  public Warm startWarm(Statement statement) {
+    if (!enabled) {
+      return null;
+    }
+    LastQuery query = LastQuery.parse(statement);
+    if (query == null) {
+      return null;
+    }
+    Warm warm = new Warm(query);
+    synchronized (this) {
+      warms.add(warm);
+    }
+    return warm;
+  }
+
+  /** 在结果流被完整消费后用读到的最新点填充缓存 */
+  public RowStream cacheOnRead(Warm warm, RowStream stream) {
+    if (warm == null) {
+      return stream;
+    }
+    if (stream == null) {
+      finishWarm(warm, null);
+      return null;
+    }
+    return new WarmingRowStream(stream, this, warm);
+  }
+
+  void finishWarm(Warm warm, Map<String, Entry> results) {
+    synchronized (this) {
+      warms.remove(warm);
+      if (results == null || warm.invalid) {
+        return;
+      }
+      long now = System.currentTimeMillis();
+      for (Map.Entry<String, Entry> pending : warm.pending.entrySet()) {
+        results.merge(pending.getKey(), pending.getValue(), LastValueCache::later);
+      }
+      Set<String> columns = new HashSet<>();
+      for (Map.Entry<String, Entry> result : results.entrySet()) {
+        Entry entry = result.getValue();
+        if (entry.key < warm.query.lowerBound) {
+          continue;
+        }
+        columns.add(result.getKey());
+        Entry cached = entries.get(result.getKey());
+        Entry latest = cached == null ? entry : later(cached, entry);
+        entries.put(result.getKey(), new Entry(latest.key, latest.value, now));
+      }
+      patternSets.put(warm.query.key, new PatternSet(warm.query, columns, now));
+      evict(entries, capacity);
+      evict(patternSets, MAX_PATTERN_SETS);
+    }
+  }
+
+  /** 写入成功后调用，更新已缓存序列的最新点，并使因新序列而不再完整的集合失效 */
+  public void update(RawData rawData) {
+    if (!enabled || rawData == null || rawData.getKeys().isEmpty()) {
+      return;
+    }
+    Map<String, Entry> latest = new HashMap<>();
+    Map<String, String> columnPaths = new HashMap<>();
+    collectLatest(rawData, latest, columnPaths);
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      warms.removeIf(warm -> now - warm.startTime > ttlMs);
+      for (Map.Entry<String, Entry> update : latest.entrySet()) {
+        String column = update.getKey();
+        String path = columnPaths.get(column);
+        Entry entry = update.getValue();
+
+        Entry cached = entries.get(column);
+        if (cached != null && entry.key >= cached.key) {
+          entries.put(column, new Entry(entry.key, entry.value, cached.warmTime));
+        }
+        for (Warm warm : warms) {
+          if (warm.query.matches(path)) {
+            warm.pending.merge(column, entry, LastValueCache::later);
+          }
+        }
+        Iterator<PatternSet> it = patternSets.values().iterator();
+        while (it.hasNext()) {
+          PatternSet set = it.next();
+          if (!set.columns.contains(column)
+              && entry.key >= set.query.lowerBound
+              && set.query.matches(path)) {
+            it.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /** 删除涉及的路径执行后调用，移除匹配的序列与全部集合，并丢弃正在进行的填充 */
+  public void invalidate(List<String> patterns) {
+    if (!enabled) {
+      return;
+    }
+    List<Predicate<String>> matchers =
+        patterns.stream().map(StringUtils::toColumnMatcher).collect(Collectors.toList());
+    synchronized (this) {
+      warms.forEach(warm -> warm.invalid = true);
+      patternSets.clear();
+      entries
+          .keySet()
+          .removeIf(
+              column -> {
+                String path = TagKVUtils.fromFullName(column).k;
+                return matchers.stream().anyMatch(matcher -> matcher.test(path));
+              });
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    patternSets.clear();
+    warms.forEach(warm -> warm.invalid = true);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private static void collectLatest(
+      RawData rawData, Map<String, Entry> latest, Map<String, String> columnPaths) {
+    List<String> paths = rawData.getPaths();
+    DataView view =
+        rawData.isRowData()
+            ? new RowDataView(rawData, 0, paths.size(), 0, rawData.getKeys().size())
+            : new ColumnDataView(rawData, 0, paths.size(), 0, rawData.getKeys().size());
+    long[] latestKeys = new long[paths.size()];
+    Object[] latestValues = new Object[paths.size()];
+    boolean[] hasValue = new boolean[paths.size()];
+    if (view.isRowData()) {
+      for (int i = 0; i < view.getKeySize(); i++) {
+        BitmapView bitmapView = view.getBitmapView(i);
+        int index = 0;
+        for (int j = 0; j < view.getPathNum(); j++) {
+          if (bitmapView.get(j)) {
+            if (!hasValue[j] || view.getKey(i) >= latestKeys[j]) {
+              hasValue[j] = true;
+              latestKeys[j] = view.getKey(i);
+              latestValues[j] = view.getValue(i, index);
+            }
+            index++;
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < view.getPathNum(); i++) {
+        BitmapView bitmapView = view.getBitmapView(i);
+        int index = 0;
+        for (int j = 0; j < view.getKeySize(); j++) {
+          if (bitmapView.get(j)) {
+            if (!hasValue[i] || view.getKey(j) >= latestKeys[i]) {
+              hasValue[i] = true;
+              latestKeys[i] = view.getKey(j);
+              latestValues[i] = view.getValue(i, index);
+            }
+            index++;
+          }
+        }
+      }
+    }
+    for (int i = 0; i < paths.size(); i++) {
+      if (!hasValue[i]) {
+        continue;
+      }
+      String column = TagKVUtils.toFullName(paths.get(i), view.getTags(i));
+      byte[] value =
+          ValueUtils.toString(latestValues[i], view.getDataType(i))
+              .getBytes(StandardCharsets.UTF_8);
+      latest.put(column, new Entry(latestKeys[i], value, 0));
+      columnPaths.put(column, paths.get(i));
+    }
+  }
+
+  private static Entry later(Entry a, Entry b) {
+    return b.key >= a.key ? b : a;
+  }
+
+  private static <V> void evict(LinkedHashMap<String, V> map, int capacity) {
+    Iterator<String> it = map.keySet().iterator();
+    while (map.size() > capacity && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  static class Entry {
+
+    private final long key;
+
+    private final byte[] value;
+
+    private final long warmTime;
+
+    Entry(long key, byte[] value, long warmTime) {
+      this.key = key;
+      this.value = value;
+      this.warmTime = warmTime;
+    }
+  }
+
+  private static class PatternSet {
+
+    private final LastQuery query;
+
+    private final Set<String> columns;
+
+    private final long createTime;
+
+    private PatternSet(LastQuery query, Set<String> columns, long createTime) {
+      this.query = query;
+      this.columns = columns;
+      this.createTime = createTime;
+    }
+  }
+
+  /** 一次正在进行的缓存填充 */
+  public static class Warm {
+
+    private final LastQuery query;
+
+    private final long startTime = System.currentTimeMillis();
+
+    // 读取期间写入的最新点
+    private final Map<String, Entry> pending = new HashMap<>();
+
+    private boolean invalid = false;
+
+    private Warm(LastQuery query) {
+      this.query = query;
+    }
+  }
+
+  /** 可由缓存回答的 LAST 查询：路径模式、标签过滤与键下界 */
+  static class LastQuery {
+
+    private final String key;
+
+    private final List<Predicate<String>> matchers;
+
+    private final long lowerBound;
+
+    private LastQuery(Set<String> patterns, String tagFilter, long lowerBound) {
+      this.key = patterns + "|" + tagFilter;
+      this.matchers =
+          patterns.stream().map(StringUtils::toColumnMatcher).collect(Collectors.toList());
+      this.lowerBound = lowerBound;
+    }
+
+    boolean matches(String path) {
+      for (Predicate<String> matcher : matchers) {
+        if (matcher.test(path)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** 语句只包含 LAST 函数且过滤条件只有键下界时返回对应的查询，否则返回 null */
+    static LastQuery parse(Statement statement) {
+      if (!(statement instanceof UnarySelectStatement)) {
+        return null;
+      }
+      UnarySelectStatement select = (UnarySelectStatement) statement;
+      if (select.getQueryType() != QueryType.MappingQuery
+          || select.isSubQuery()
+          || select.isNeedLogicalExplain()
+          || select.isNeedPhysicalExplain()
+          || select.isNeedAnalyzeExplain()
+          || !select.getCteList().isEmpty()
+          || select.isDistinct()
+          || select.hasGroupBy()
+          || select.hasDownsample()
+          || select.hasJoinParts()
+          || select.hasValueToSelectedPath()
+          || !select.getOrderByExpressions().isEmpty()
+          || select.getLimit() != Integer.MAX_VALUE
+          || select.getOffset() != 0
+          || select.getHavingFilter() != null
+          || !select.getSelectSubQueryParts().isEmpty()
+          || !select.getWhereSubQueryParts().isEmpty()) {
+        return null;
+      }
+      for (FromPart fromPart : select.getFromParts()) {
+        if (fromPart.getType() != FromPartType.Path) {
+          return null;
+        }
+      }
+      List<Expression> expressions = select.getExpressions();
+      if (expressions.isEmpty()) {
+        return null;
+      }
+      for (Expression expression : expressions) {
+        if (!(expression instanceof FuncExpression)) {
+          return null;
+        }
+        FuncExpression func = (FuncExpression) expression;
+        if (!func.getFuncName().equalsIgnoreCase(Last.LAST)
+            || func.isDistinct()
+            || func.hasAlias()
+            || !func.getArgs().isEmpty()
+            || !func.getKvargs().isEmpty()
+            || func.getExpressions().size() != 1
+            || !(func.getExpressions().get(0) instanceof BaseExpression)) {
+          return null;
+        }
+      }
+      Set<String> patterns = new TreeSet<>(select.getPathSet());
+      Long lowerBound = getLowerBound(select.getFilter());
+      if (patterns.isEmpty() || lowerBound == null) {
+        return null;
+      }
+      String tagFilter = select.getTagFilter() == null ? "" : select.getTagFilter().toString();
+      return new LastQuery(patterns, tagFilter, lowerBound);
+    }
+
+    /** 返回过滤条件隐含的键下界，条件中包含键下界以外的限制时返回 null */
+    private static Long getLowerBound(Filter filter) {
+      if (filter == null) {
+        return Long.MIN_VALUE;
+      }
+      switch (filter.getType()) {
+        case Key:
+          KeyFilter keyFilter = (KeyFilter) filter;
+          long value = keyFilter.getValue();
+          switch (keyFilter.getOp()) {
+            case GE:
+            case GE_AND:
+              return value;
+            case G:
+            case G_AND:
+              return value == Long.MAX_VALUE ? null : value + 1;
+            case L:
+            case L_AND:
+              // lastQuery 会附加 key < Long.MAX_VALUE 的条件
+              return value == Long.MAX_VALUE ? Long.MIN_VALUE : null;
+            default:
+              return null;
+          }
+        case And:
+          long lowerBound = Long.MIN_VALUE;
+          for (Filter child : ((AndFilter) filter).getChildren()) {
+            Long childLowerBound = getLowerBound(child);
+            if (childLowerBound == null) {
+              return null;
+            }
+            lowerBound = Math.max(lowerBound, childLowerBound);
+          }
+          return lowerBound;
+        default:
+          return null;
+      }
+    }
+  }
+
+  /** 在下游消费的同时收集每个序列的最新点，完整读完后写入缓存 */
+  private static class WarmingRowStream implements RowStream {
+
+    private final RowStream stream;
+
+    private final LastValueCache cache;
+
+    private final Warm warm;
+
+    private Map<String, Entry> results = new HashMap<>();
+
+    private WarmingRowStream(RowStream stream, LastValueCache cache, Warm warm) {
+      this.stream = stream;
+      this.cache = cache;
+      this.warm = warm;
+    }
+
+    @Override
+    public Header getHeader() throws PhysicalException {
+      return stream.getHeader();
+    }
+
+    @Override
+    public void close() throws PhysicalException {
+      if (results != null) {
+        results = null;
+        cache.finishWarm(warm, null);
+      }
+      stream.close();
+    }
+
+    @Override
+    public boolean hasNext() throws PhysicalException {
+      boolean hasNext = stream.hasNext();
+      if (!hasNext && results != null) {
+        cache.finishWarm(warm, results);
+        results = null;
+      }
+      return hasNext;
+    }
+
+    @Override
+    public Row next() throws PhysicalException {
+      Row row = stream.next();
+      if (results != null) {
+        Object[] values = row.getValues();
+        if (values.length != 2
+            || !(values[0] instanceof byte[])
+            || !(values[1] instanceof byte[])) {
+          // 结果不是 Last 函数的输出格式，放弃填充
+          results = null;
+          cache.finishWarm(warm, null);
+        } else {
+          String column = new String((byte[]) values[0], StandardCharsets.UTF_8);
+          Entry entry = new Entry(row.getKey(), (byte[]) values[1], 0);
+          results.merge(column, entry, LastValueCache::later);
+        }
+      }
+      return row;
+    }
+
+    @Override
+    public void setContext(RequestContext context) {
+      stream.setContext(context);
+    }
+
+    @Override
+    public RequestContext getContext() {
+      return stream.getContext();
+    }
+  }
+
+  private static class LastValueCacheHolder {
+
+    private static final LastValueCache INSTANCE = new LastValueCache();
+
+    private LastValueCacheHolder() {}
+  }
+}
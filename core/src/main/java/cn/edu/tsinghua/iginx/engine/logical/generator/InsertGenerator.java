@@ -20,6 +20,7 @@
 package cn.edu.tsinghua.iginx.engine.logical.generator;
 
 import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.logical.rollup.ContinuousAggregateManager;
 import cn.edu.tsinghua.iginx.engine.shared.data.write.ColumnDataView;
 import cn.edu.tsinghua.iginx.engine.shared.data.write.DataView;
 import cn.edu.tsinghua.iginx.engine.shared.data.write.RawData;
@@ -49,6 +50,8 @@ public class InsertGenerator extends AbstractGenerator {
   private static final Logger LOGGER = LoggerFactory.getLogger(InsertGenerator.class);
   private static final InsertGenerator instance = new InsertGenerator();
   private static final IMetaManager metaManager = DefaultMetaManager.getInstance();
+  private static final ContinuousAggregateManager continuousAggregateManager =
+      ContinuousAggregateManager.getInstance();
   private final IPolicy policy =
       PolicyManager.getInstance()
           .getPolicy(ConfigDescriptor.getInstance().getConfig().getPolicyClassName());
@@ -64,7 +67,21 @@ public class InsertGenerator extends AbstractGenerator {
   @Override
   protected Operator generateRoot(Statement statement) {
     InsertStatement insertStatement = (InsertStatement) statement;
+    RawData rawData = insertStatement.getRawData();
+    List<Insert> insertList = generateInsertList(insertStatement, rawData);
+
+    // 持续聚合的部分结果与原始数据在同一个请求中写入
+    InsertStatement rollupStatement = continuousAggregateManager.buildRollupStatement(rawData);
+    if (rollupStatement != null) {
+      insertList.addAll(generateInsertList(rollupStatement, rollupStatement.getRawData()));
+    }
 
+    List<Source> sources = new ArrayList<>();
+    insertList.forEach(operator -> sources.add(new OperatorSource(operator)));
+    return new CombineNonQuery(sources);
+  }
+
+  private List<Insert> generateInsertList(InsertStatement insertStatement, RawData rawData) {
     policy.notify(insertStatement);
 
     List<String> pathList = new ArrayList<>(insertStatement.getPaths());
@@ -95,7 +112,6 @@ public class InsertGenerator extends AbstractGenerator {
           fragmentsAndStorageUnits.v, fragmentsAndStorageUnits.k);
     }
 
-    RawData rawData = insertStatement.getRawData();
     List<Insert> insertList = new ArrayList<>();
     fragments.forEach(
         (k, v) ->
@@ -106,10 +122,7 @@ public class InsertGenerator extends AbstractGenerator {
                     insertList.add(new Insert(new FragmentSource(fragmentMeta), section));
                   }
                 }));
-
-    List<Source> sources = new ArrayList<>();
-    insertList.forEach(operator -> sources.add(new OperatorSource(operator)));
-    return new CombineNonQuery(sources);
+    return insertList;
   }
 
   private DataView getDataSection(FragmentMeta meta, RawData rawData) {
@@ -19,11 +19,15 @@
  */
 package cn.edu.tsinghua.iginx.engine.logical.generator;
 
+import static cn.edu.tsinghua.iginx.constant.GlobalConstant.KEY_MIN_VAL;
 import static cn.edu.tsinghua.iginx.engine.shared.Constants.ALL_PATH_SUFFIX;
 
 import cn.edu.tsinghua.iginx.conf.Config;
 import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iginx.engine.logical.optimizer.LogicalOptimizerManager;
+import cn.edu.tsinghua.iginx.engine.logical.rollup.ContinuousAggregate;
+import cn.edu.tsinghua.iginx.engine.logical.rollup.ContinuousAggregateManager;
+import cn.edu.tsinghua.iginx.engine.logical.rollup.ContinuousAggregateRewriter;
 import cn.edu.tsinghua.iginx.engine.logical.utils.MetaUtils;
 import cn.edu.tsinghua.iginx.engine.logical.utils.OperatorUtils;
 import cn.edu.tsinghua.iginx.engine.shared.KeyRange;
@@ -57,6 +61,7 @@ import cn.edu.tsinghua.iginx.policy.PolicyManager;
 import cn.edu.tsinghua.iginx.sql.statement.Statement;
 import cn.edu.tsinghua.iginx.sql.statement.frompart.CteFromPart;
 import cn.edu.tsinghua.iginx.sql.statement.frompart.FromPart;
+import cn.edu.tsinghua.iginx.sql.statement.frompart.FromPartType;
 import cn.edu.tsinghua.iginx.sql.statement.frompart.PathFromPart;
 import cn.edu.tsinghua.iginx.sql.statement.frompart.ShowColumnsFromPart;
 import cn.edu.tsinghua.iginx.sql.statement.frompart.SubQueryFromPart;
@@ -86,6 +91,8 @@ public class QueryGenerator extends AbstractGenerator {
   private static final QueryGenerator instance = new QueryGenerator();
   private static final FunctionManager functionManager = FunctionManager.getInstance();
   private static final IMetaManager metaManager = DefaultMetaManager.getInstance();
+  private static final ContinuousAggregateManager continuousAggregateManager =
+      ContinuousAggregateManager.getInstance();
   private final IPolicy policy =
       PolicyManager.getInstance()
           .getPolicy(ConfigDescriptor.getInstance().getConfig().getPolicyClassName());
@@ -690,6 +697,10 @@ public class QueryGenerator extends AbstractGenerator {
     }
     List<FunctionCall> functionCallList =
         getFunctionCallList(selectStatement, MappingType.SetMapping);
+    Operator rollupRoot = buildContinuousAggregateQuery(selectStatement, root, functionCallList);
+    if (rollupRoot != null) {
+      return rollupRoot;
+    }
     return new Downsample(
         new OperatorSource(root),
         selectStatement.getPrecision(),
@@ -698,6 +709,79 @@ public class QueryGenerator extends AbstractGenerator {
         new KeyRange(selectStatement.getStartKey(), selectStatement.getEndKey()));
   }
 
+  /**
+   * 如果降采样查询可以由持续聚合回答，改写为对部分聚合结果再聚合的操作符树。持续聚合起始key之前的窗口仍由原始数据计算，两部分按key合并
+   *
+   * <p>只处理查询区间与聚合窗口对齐、仅含区间过滤、且只选择 max/min/sum/count(单个确定路径) 的查询
+   *
+   * @param selectStatement Select上下文
+   * @param root 读取原始数据的根节点
+   * @param functionCallList 原始数据上的降采样函数
+   * @return 改写后的根节点；无法改写时返回 null
+   */
+  private Operator buildContinuousAggregateQuery(
+      UnarySelectStatement selectStatement, Operator root, List<FunctionCall> functionCallList) {
+    long startKey = selectStatement.getStartKey();
+    long endKey = selectStatement.getEndKey();
+    long precision = selectStatement.getPrecision();
+    if (!continuousAggregateManager.isEnabled()
+        || precision != selectStatement.getSlideDistance()
+        || startKey == KEY_MIN_VAL
+        || selectStatement.hasJoinParts()
+        || !selectStatement.getWhereSubQueryParts().isEmpty()
+        || !selectStatement.getSelectSubQueryParts().isEmpty()
+        || !ContinuousAggregateRewriter.isKeyRangeFilter(selectStatement.getFilter())
+        || selectStatement.getFromParts().stream()
+            .anyMatch(fromPart -> fromPart.getType() != FromPartType.Path)) {
+      return null;
+    }
+
+    // <function, path>
+    List<Pair<String, String>> targets =
+        ContinuousAggregateRewriter.getTargets(selectStatement.getExpressions());
+    if (targets == null) {
+      return null;
+    }
+    ContinuousAggregate aggregate =
+        continuousAggregateManager.findAggregate(
+            targets.stream().map(target -> target.v).collect(Collectors.toSet()),
+            targets.stream().map(target -> target.k).collect(Collectors.toSet()),
+            startKey,
+            endKey,
+            precision);
+    if (aggregate == null) {
+      return null;
+    }
+    long splitKey = ContinuousAggregateRewriter.getSplitKey(aggregate, startKey, precision);
+    if (splitKey >= endKey) {
+      return null;
+    }
+
+    List<String> rollupPaths =
+        SortUtils.mergeAndSortPaths(ContinuousAggregateRewriter.getRollupPaths(aggregate, targets));
+    ColumnsInterval columnsInterval =
+        new ColumnsInterval(rollupPaths.get(0), rollupPaths.get(rollupPaths.size() - 1));
+    Map<KeyInterval, List<FragmentMeta>> fragments =
+        MetaUtils.getFragmentsByColumnsInterval(selectStatement, columnsInterval).k;
+    if (fragments.isEmpty()) {
+      return null;
+    }
+    Operator rollupRoot =
+        MetaUtils.mergeRawData(
+            fragments, Collections.emptyList(), rollupPaths, selectStatement.getTagFilter());
+    return ContinuousAggregateRewriter.rewrite(
+        aggregate,
+        targets,
+        rollupRoot,
+        root,
+        functionCallList,
+        startKey,
+        splitKey,
+        endKey,
+        precision,
+        selectStatement.getTagFilter());
+  }
+
   /**
    * 根据SelectStatement构建查询树的AddSequence操作符
    *
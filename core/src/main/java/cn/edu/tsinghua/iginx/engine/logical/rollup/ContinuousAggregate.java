@@ -0,0 +1,155 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.rollup;
+
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Count.COUNT;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Max.MAX;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Min.MIN;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Sum.SUM;
+
+import cn.edu.tsinghua.iginx.utils.StringUtils;
+import cn.edu.tsinghua.iginx.utils.TimeUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 持续降采样聚合的定义：路径模式、聚合函数与窗口长度
+ *
+ * <p>每个匹配的序列在每个窗口内的部分聚合结果写入 {prefix}.{name}.{function}.{原始路径}，
+ * key 为该批次落入窗口的最小原始 key。
+ * 同一窗口可能有多条部分结果（来自不同批次或不同节点），查询时需要再聚合一次：max/min 取 max/min，sum/count 取 sum
+ */
+public class ContinuousAggregate {
+
+  public static final List<String> SUPPORTED_FUNCTIONS = Arrays.asList(MAX, MIN, SUM, COUNT);
+
+  private static final long MIN_WINDOW = 1000;
+
+  private final String name;
+
+  private final String pattern;
+
+  private final List<String> functions;
+
+  private final long window;
+
+  private final long since;
+
+  private final String rollupPrefix;
+
+  public ContinuousAggregate(
+      String name, String pattern, List<String> functions, long window, long since, String prefix) {
+    this.name = name;
+    this.pattern = pattern;
+    this.functions = Collections.unmodifiableList(functions);
+    this.window = window;
+    this.since = since;
+    this.rollupPrefix = prefix + "." + name + ".";
+  }
+
+  /**
+   * 解析形如 name:pattern:functions:window[:since] 的定义
+   *
+   * @param definition 定义字符串，例如 hourly:root.sensor.*:max,min,sum,count:1h
+   * @param prefix 部分聚合结果的路径前缀
+   */
+  public static ContinuousAggregate parse(String definition, String prefix) {
+    String[] parts = definition.trim().split(":");
+    if (parts.length < 4 || parts.length > 5) {
+      throw new IllegalArgumentException("invalid continuous aggregate: " + definition);
+    }
+    String name = parts[0].trim();
+    if (name.isEmpty() || name.contains(".")) {
+      throw new IllegalArgumentException("invalid continuous aggregate name: " + name);
+    }
+    List<String> functions = new ArrayList<>();
+    for (String function : parts[2].split(",")) {
+      String identifier = function.trim().toLowerCase();
+      if (!SUPPORTED_FUNCTIONS.contains(identifier)) {
+        throw new IllegalArgumentException(
+            "unsupported function in continuous aggregate: " + function);
+      }
+      if (!functions.contains(identifier)) {
+        functions.add(identifier);
+      }
+    }
+    long window = parseDuration(parts[3].trim());
+    if (window < MIN_WINDOW) {
+      throw new IllegalArgumentException("window of continuous aggregate is too small: " + window);
+    }
+    long since = parts.length == 5 ? Long.parseLong(parts[4].trim()) : 0;
+    return new ContinuousAggregate(name, parts[1].trim(), functions, window, since, prefix);
+  }
+
+  private static long parseDuration(String duration) {
+    if (duration.chars().allMatch(Character::isDigit)) {
+      return Long.parseLong(duration);
+    }
+    return TimeUtils.convertTimeWithUnitStrToLong(0, duration);
+  }
+
+  public boolean matches(String path) {
+    return StringUtils.match(path, pattern);
+  }
+
+  public boolean isRollupPath(String path) {
+    return path.startsWith(rollupPrefix);
+  }
+
+  public String getRollupPath(String function, String path) {
+    return rollupPrefix + function + "." + path;
+  }
+
+  /** 再聚合部分结果时使用的函数 */
+  public static String getMergeFunction(String function) {
+    return function.equals(COUNT) ? SUM : function;
+  }
+
+  public long getWindowStart(long key) {
+    return Math.floorDiv(key, window) * window;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getPattern() {
+    return pattern;
+  }
+
+  public List<String> getFunctions() {
+    return functions;
+  }
+
+  public long getWindow() {
+    return window;
+  }
+
+  public long getSince() {
+    return since;
+  }
+
+  @Override
+  public String toString() {
+    return name + ":" + pattern + ":" + String.join(",", functions) + ":" + window + ":" + since;
+  }
+}
@@ -0,0 +1,389 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.rollup;
+
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Count.COUNT;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Max.MAX;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Min.MIN;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Sum.SUM;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.BitmapView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.ColumnDataView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.DataView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawData;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawDataType;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RowDataView;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.utils.ValueUtils;
+import cn.edu.tsinghua.iginx.sql.statement.InsertStatement;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.Bitmap;
+import cn.edu.tsinghua.iginx.utils.DataTypeUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 持续聚合管理器：写入时按批次计算各窗口的部分聚合结果并随原始数据一起写入，查询时为降采样查询寻找可用的持续聚合
+ *
+ * <p>部分结果不在内存中缓存。每个批次分配一个批次号，批次在某窗口内的部分结果写在窗口起点加上批次号对窗口长度取模的 key 上，
+ * 与原始数据的 key 无关，重复写入的原始点不会覆盖其他批次的部分结果（该点会被重复计入 sum/count）。
+ * 同一节点上一个窗口内的批次数不超过窗口长度时 key 互不相同；批次号的起点在每个节点每次启动时随机选取，
+ * 不同节点或重启前后的批次只有在各自的批次号对窗口取模后区间重叠时才可能冲突
+ */
+public class ContinuousAggregateManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ContinuousAggregateManager.class);
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private final List<ContinuousAggregate> aggregates = new ArrayList<>();
+
+  private final String rollupPrefix;
+
+  private final AtomicLong batchSequence;
+
+  private ContinuousAggregateManager() {
+    this(
+        config.getContinuousAggregatePrefix(),
+        Collections.emptyList(),
+        ThreadLocalRandom.current().nextLong());
+    for (String definition : config.getContinuousAggregates().split(";")) {
+      if (definition.trim().isEmpty()) {
+        continue;
+      }
+      try {
+        ContinuousAggregate aggregate =
+            ContinuousAggregate.parse(definition, config.getContinuousAggregatePrefix());
+        aggregates.add(aggregate);
+        LOGGER.info("register continuous aggregate {}", aggregate);
+      } catch (IllegalArgumentException e) {
+        LOGGER.error("ignore invalid continuous aggregate definition: {}", definition, e);
+      }
+    }
+  }
+
+  ContinuousAggregateManager(
+      String prefix, List<ContinuousAggregate> aggregates, long firstBatchId) {
+    this.rollupPrefix = prefix + ".";
+    this.aggregates.addAll(aggregates);
+    this.batchSequence = new AtomicLong(firstBatchId);
+  }
+
+  public static ContinuousAggregateManager getInstance() {
+    return ContinuousAggregateManagerHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return !aggregates.isEmpty();
+  }
+
+  public List<ContinuousAggregate> getAggregates() {
+    return Collections.unmodifiableList(aggregates);
+  }
+
+  /**
+   * 计算一次写入在各窗口内的部分聚合结果
+   *
+   * @param rawData 原始写入数据
+   * @return 写入部分聚合结果的语句；没有需要维护的序列时返回 null
+   */
+  public InsertStatement buildRollupStatement(RawData rawData) {
+    if (aggregates.isEmpty() || rawData.getKeys().isEmpty()) {
+      return null;
+    }
+    List<String> paths = rawData.getPaths();
+    DataView view =
+        rawData.isRowData()
+            ? new RowDataView(rawData, 0, paths.size(), 0, rawData.getKeys().size())
+            : new ColumnDataView(rawData, 0, paths.size(), 0, rawData.getKeys().size());
+
+    List<List<SeriesState>> states = new ArrayList<>(paths.size());
+    boolean matched = false;
+    for (int i = 0; i < paths.size(); i++) {
+      List<SeriesState> pathStates = new ArrayList<>();
+      String path = paths.get(i);
+      if (!path.startsWith(rollupPrefix)) {
+        for (ContinuousAggregate aggregate : aggregates) {
+          if (aggregate.matches(path)) {
+            pathStates.add(new SeriesState(aggregate));
+          }
+        }
+      }
+      matched |= !pathStates.isEmpty();
+      states.add(pathStates);
+    }
+    if (!matched) {
+      return null;
+    }
+
+    if (view.isRowData()) {
+      for (int i = 0; i < view.getKeySize(); i++) {
+        BitmapView bitmapView = view.getBitmapView(i);
+        int index = 0;
+        for (int j = 0; j < view.getPathNum(); j++) {
+          if (bitmapView.get(j)) {
+            accumulate(states.get(j), view.getKey(i), view.getValue(i, index), view.getDataType(j));
+            index++;
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < view.getPathNum(); i++) {
+        if (states.get(i).isEmpty()) {
+          continue;
+        }
+        BitmapView bitmapView = view.getBitmapView(i);
+        int index = 0;
+        for (int j = 0; j < view.getKeySize(); j++) {
+          if (bitmapView.get(j)) {
+            accumulate(states.get(i), view.getKey(j), view.getValue(i, index), view.getDataType(i));
+            index++;
+          }
+        }
+      }
+    }
+
+    long batchId = batchSequence.getAndIncrement();
+    List<RollupSeries> seriesList = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      DataType dataType = view.getDataType(i);
+      Map<String, String> tags = view.getTags(i);
+      for (SeriesState state : states.get(i)) {
+        if (state.windows.isEmpty()) {
+          continue;
+        }
+        ContinuousAggregate aggregate = state.aggregate;
+        for (String function : aggregate.getFunctions()) {
+          DataType rollupType = getRollupType(function, dataType);
+          if (rollupType == null) {
+            continue;
+          }
+          RollupSeries series =
+              new RollupSeries(aggregate.getRollupPath(function, paths.get(i)), tags, rollupType);
+          state.windows.forEach(
+              (windowStart, partial) ->
+                  series.values.put(
+                      windowStart + Math.floorMod(batchId, aggregate.getWindow()),
+                      partial.get(function)));
+          seriesList.add(series);
+        }
+      }
+    }
+    if (seriesList.isEmpty()) {
+      return null;
+    }
+    return toInsertStatement(seriesList);
+  }
+
+  /**
+   * 为降采样查询寻找可用的持续聚合：覆盖全部路径和函数，窗口能整除降采样精度，且查询区间与窗口边界对齐
+   *
+   * @return 满足条件且窗口最大的持续聚合；没有时返回 null
+   */
+  public ContinuousAggregate findAggregate(
+      Collection<String> paths,
+      Collection<String> functions,
+      long startKey,
+      long endKey,
+      long precision) {
+    ContinuousAggregate target = null;
+    for (ContinuousAggregate aggregate : aggregates) {
+      long window = aggregate.getWindow();
+      if (precision % window != 0
+          || Math.floorMod(startKey, window) != 0
+          || Math.floorMod(endKey, window) != 0
+          || !aggregate.getFunctions().containsAll(functions)
+          || !paths.stream().allMatch(aggregate::matches)) {
+        continue;
+      }
+      if (target == null || window > target.getWindow()) {
+        target = aggregate;
+      }
+    }
+    return target;
+  }
+
+  private static void accumulate(
+      List<SeriesState> pathStates, long key, Object value, DataType dataType) {
+    for (SeriesState state : pathStates) {
+      if (key < state.aggregate.getSince()) {
+        continue;
+      }
+      long windowStart = state.aggregate.getWindowStart(key);
+      state.windows.computeIfAbsent(windowStart, k -> new PartialState()).add(value, dataType);
+    }
+  }
+
+  private static DataType getRollupType(String function, DataType dataType) {
+    switch (function) {
+      case MAX:
+      case MIN:
+        return dataType;
+      case COUNT:
+        return DataType.LONG;
+      case SUM:
+        if (!DataTypeUtils.isNumber(dataType)) {
+          return null;
+        }
+        return DataTypeUtils.isWholeNumber(dataType) ? DataType.LONG : DataType.DOUBLE;
+      default:
+        return null;
+    }
+  }
+
+  private static InsertStatement toInsertStatement(List<RollupSeries> seriesList) {
+    seriesList.sort(Comparator.comparing(series -> series.path));
+    TreeSet<Long> keySet = new TreeSet<>();
+    seriesList.forEach(series -> keySet.addAll(series.values.keySet()));
+    List<Long> keys = new ArrayList<>(keySet);
+    Map<Long, Integer> keyIndex = new HashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      keyIndex.put(keys.get(i), i);
+    }
+
+    List<String> paths = new ArrayList<>();
+    List<Map<String, String>> tagsList = new ArrayList<>();
+    List<DataType> types = new ArrayList<>();
+    List<Bitmap> bitmaps = new ArrayList<>();
+    Object[] values = new Object[seriesList.size()];
+    for (int i = 0; i < seriesList.size(); i++) {
+      RollupSeries series = seriesList.get(i);
+      paths.add(series.path);
+      tagsList.add(series.tags == null ? new HashMap<>() : series.tags);
+      types.add(series.type);
+      Bitmap bitmap = new Bitmap(keys.size());
+      Object[] columnValues = new Object[series.values.size()];
+      int index = 0;
+      for (Map.Entry<Long, Object> entry : series.values.entrySet()) {
+        bitmap.mark(keyIndex.get(entry.getKey()));
+        columnValues[index++] = entry.getValue();
+      }
+      bitmaps.add(bitmap);
+      values[i] = columnValues;
+    }
+    return new InsertStatement(
+        RawDataType.NonAlignedColumn, paths, keys, values, types, bitmaps, tagsList);
+  }
+
+  private static class SeriesState {
+
+    private final ContinuousAggregate aggregate;
+
+    private final TreeMap<Long, PartialState> windows = new TreeMap<>();
+
+    SeriesState(ContinuousAggregate aggregate) {
+      this.aggregate = aggregate;
+    }
+  }
+
+  /** 单个窗口内的部分聚合状态 */
+  private static class PartialState {
+
+    private long count;
+
+    private long longSum;
+
+    private double doubleSum;
+
+    private Object max;
+
+    private Object min;
+
+    private DataType dataType;
+
+    void add(Object value, DataType dataType) {
+      this.dataType = dataType;
+      count++;
+      if (max == null || ValueUtils.compare(max, value, dataType) < 0) {
+        max = value;
+      }
+      if (min == null || ValueUtils.compare(min, value, dataType) > 0) {
+        min = value;
+      }
+      switch (dataType) {
+        case INTEGER:
+          longSum += (int) value;
+          break;
+        case LONG:
+          longSum += (long) value;
+          break;
+        case FLOAT:
+          doubleSum += (float) value;
+          break;
+        case DOUBLE:
+          doubleSum += (double) value;
+          break;
+        default:
+          break;
+      }
+    }
+
+    Object get(String function) {
+      switch (function) {
+        case MAX:
+          return max;
+        case MIN:
+          return min;
+        case COUNT:
+          return count;
+        case SUM:
+          return DataTypeUtils.isWholeNumber(dataType) ? longSum : doubleSum;
+        default:
+          throw new IllegalArgumentException("unsupported function: " + function);
+      }
+    }
+  }
+
+  private static class RollupSeries {
+
+    private final String path;
+
+    private final Map<String, String> tags;
+
+    private final DataType type;
+
+    private final TreeMap<Long, Object> values = new TreeMap<>();
+
+    RollupSeries(String path, Map<String, String> tags, DataType type) {
+      this.path = path;
+      this.tags = tags;
+      this.type = type;
+    }
+  }
+
+  private static class ContinuousAggregateManagerHolder {
+
+    private static final ContinuousAggregateManager INSTANCE = new ContinuousAggregateManager();
+
+    private ContinuousAggregateManagerHolder() {}
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.rollup;
+
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Count.COUNT;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Max.MAX;
+import static cn.edu.tsinghua.iginx.engine.shared.function.system.Min.MIN;
+
+import cn.edu.tsinghua.iginx.engine.shared.KeyRange;
+import cn.edu.tsinghua.iginx.engine.shared.expr.BaseExpression;
+import cn.edu.tsinghua.iginx.engine.shared.expr.Expression;
+import cn.edu.tsinghua.iginx.engine.shared.expr.FuncExpression;
+import cn.edu.tsinghua.iginx.engine.shared.function.Function;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionCall;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionParams;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.Count;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.Max;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.Min;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.Sum;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Downsample;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.PathUnion;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Rename;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Select;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.AndFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Filter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.KeyFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Op;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.TagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.source.OperatorSource;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 降采样查询到持续聚合的改写：识别可改写的查询，并在给定的原始数据与部分结果读取节点之上构建再聚合的操作符树
+ *
+ * <p>读取节点由 QueryGenerator 根据元数据生成，本类不访问元数据
+ */
+public class ContinuousAggregateRewriter {
+
+  private ContinuousAggregateRewriter() {}
+
+  /**
+   * 提取查询中的 (函数, 路径)，只接受对单个确定路径的 max/min/sum/count
+   *
+   * @return 无法改写时返回 null
+   */
+  public static List<Pair<String, String>> getTargets(List<Expression> expressions) {
+    List<Pair<String, String>> targets = new ArrayList<>();
+    for (Expression expression : expressions) {
+      if (!(expression instanceof FuncExpression)) {
+        return null;
+      }
+      FuncExpression funcExpression = (FuncExpression) expression;
+      String funcName = funcExpression.getFuncName().toLowerCase();
+      if (!ContinuousAggregate.SUPPORTED_FUNCTIONS.contains(funcName)
+          || funcExpression.isDistinct()
+          || !funcExpression.getArgs().isEmpty()
+          || !funcExpression.getKvargs().isEmpty()
+          || funcExpression.getExpressions().size() != 1
+          || !(funcExpression.getExpressions().get(0) instanceof BaseExpression)) {
+        return null;
+      }
+      String path = ((BaseExpression) funcExpression.getExpressions().get(0)).getPathName();
+      if (path.contains("*")) {
+        return null;
+      }
+      targets.add(new Pair<>(funcName, path));
+    }
+    return targets.isEmpty() ? null : targets;
+  }
+
+  /** 第一个完全位于持续聚合覆盖范围内的降采样窗口的起始 key */
+  public static long getSplitKey(ContinuousAggregate aggregate, long startKey, long precision) {
+    if (aggregate.getSince() <= startKey) {
+      return startKey;
+    }
+    long windowCount = (aggregate.getSince() - startKey + precision - 1) / precision;
+    return startKey + windowCount * precision;
+  }
+
+  public static List<String> getRollupPaths(
+      ContinuousAggregate aggregate, List<Pair<String, String>> targets) {
+    List<String> rollupPaths = new ArrayList<>();
+    for (Pair<String, String> target : targets) {
+      rollupPaths.add(aggregate.getRollupPath(target.k, target.v));
+    }
+    return rollupPaths;
+  }
+
+  /**
+   * 构建改写后的操作符树：[splitKey, endKey) 由部分结果再聚合得到（count 通过 sum 合并）并重命名回原列名；
+   * [startKey, splitKey) 仍由原始数据计算，两部分按 key 合并
+   *
+   * @param rollupRoot 读取部分结果的节点
+   * @param rawRoot 读取原始数据的节点，splitKey 等于 startKey 时不会使用
+   * @param rawFunctionCalls 原始数据上的降采样函数
+   */
+  public static Operator rewrite(
+      ContinuousAggregate aggregate,
+      List<Pair<String, String>> targets,
+      Operator rollupRoot,
+      Operator rawRoot,
+      List<FunctionCall> rawFunctionCalls,
+      long startKey,
+      long splitKey,
+      long endKey,
+      long precision,
+      TagFilter tagFilter) {
+    List<FunctionCall> rollupCalls = new ArrayList<>();
+    List<Pair<String, String>> aliasList = new ArrayList<>();
+    for (Pair<String, String> target : targets) {
+      String rollupPath = aggregate.getRollupPath(target.k, target.v);
+      String mergeFunction = ContinuousAggregate.getMergeFunction(target.k);
+      rollupCalls.add(
+          new FunctionCall(
+              getFunction(mergeFunction), new FunctionParams(new BaseExpression(rollupPath))));
+      aliasList.add(
+          new Pair<>(mergeFunction + "(" + rollupPath + ")", target.k + "(" + target.v + ")"));
+    }
+    Operator root =
+        new Select(
+            new OperatorSource(rollupRoot), createKeyRangeFilter(splitKey, endKey), tagFilter);
+    root =
+        new Downsample(
+            new OperatorSource(root),
+            precision,
+            precision,
+            rollupCalls,
+            new KeyRange(splitKey, endKey));
+    root = new Rename(new OperatorSource(root), aliasList);
+    if (splitKey == startKey) {
+      return root;
+    }
+
+    Operator rawPart =
+        new Select(
+            new OperatorSource(rawRoot), createKeyRangeFilter(startKey, splitKey), tagFilter);
+    rawPart =
+        new Downsample(
+            new OperatorSource(rawPart),
+            precision,
+            precision,
+            rawFunctionCalls,
+            new KeyRange(startKey, splitKey));
+    return new PathUnion(new OperatorSource(rawPart), new OperatorSource(root));
+  }
+
+  /** 判断过滤条件是否只有降采样子句生成的 [startKey, endKey) 区间 */
+  public static boolean isKeyRangeFilter(Filter filter) {
+    if (!(filter instanceof AndFilter)) {
+      return false;
+    }
+    List<Filter> children = ((AndFilter) filter).getChildren();
+    return children.size() == 2 && children.stream().allMatch(child -> child instanceof KeyFilter);
+  }
+
+  private static Filter createKeyRangeFilter(long startKey, long endKey) {
+    return new AndFilter(
+        new ArrayList<>(
+            Arrays.asList(new KeyFilter(Op.GE, startKey), new KeyFilter(Op.L, endKey))));
+  }
+
+  private static Function getFunction(String identifier) {
+    switch (identifier) {
+      case MAX:
+        return Max.getInstance();
+      case MIN:
+        return Min.getInstance();
+      case COUNT:
+        return Count.getInstance();
+      default:
+        return Sum.getInstance();
+    }
+  }
+}
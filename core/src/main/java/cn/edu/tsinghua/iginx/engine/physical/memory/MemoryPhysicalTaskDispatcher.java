@@ -26,6 +26,12 @@ import cn.edu.tsinghua.iginx.engine.physical.memory.queue.MemoryPhysicalTaskQueu
 import cn.edu.tsinghua.iginx.engine.physical.memory.queue.MemoryPhysicalTaskQueueImpl;
 import cn.edu.tsinghua.iginx.engine.physical.task.MemoryPhysicalTask;
 import cn.edu.tsinghua.iginx.engine.physical.task.TaskExecuteResult;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskMetrics;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskType;
+import cn.edu.tsinghua.iginx.metrics.Histogram;
+import cn.edu.tsinghua.iginx.metrics.MetricsRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.slf4j.Logger;
@@ -43,12 +49,41 @@ public class MemoryPhysicalTaskDispatcher {
 
   private final ExecutorService taskExecuteThreadPool;
 
+  private final boolean enableMetrics =
+      ConfigDescriptor.getInstance().getConfig().isEnableMetrics();
+
+  // 按任务类型缓存耗时直方图，避免每个任务都格式化标签并查表
+  private final Map<TaskType, Histogram> taskDurations = new ConcurrentHashMap<>();
+
   private MemoryPhysicalTaskDispatcher() {
     taskQueue = new MemoryPhysicalTaskQueueImpl();
     taskExecuteThreadPool =
         new MemoryTaskThreadPoolExecutor(
             ConfigDescriptor.getInstance().getConfig().getMemoryTaskThreadPoolSize());
     taskDispatcher = Executors.newSingleThreadExecutor();
+    if (enableMetrics) {
+      MetricsRegistry.getInstance()
+          .gauge(
+              "iginx_memory_task_queue_size",
+              "Number of memory tasks waiting to be dispatched",
+              taskQueue::size);
+    }
+  }
+
+  private Histogram taskDuration(TaskType type) {
+    Histogram duration = taskDurations.get(type);
+    if (duration != null) {
+      return duration;
+    }
+    return taskDurations.computeIfAbsent(
+        type,
+        t ->
+            MetricsRegistry.getInstance()
+                .histogram(
+                    "iginx_memory_task_duration_seconds",
+                    "Memory task execution latency",
+                    "type",
+                    t.toString()));
   }
 
   public static MemoryPhysicalTaskDispatcher getInstance() {
@@ -56,6 +91,9 @@ public class MemoryPhysicalTaskDispatcher {
   }
 
   public boolean addMemoryTask(MemoryPhysicalTask task) {
+    if (task.isProfiling()) {
+      task.getMetrics().markEnqueued();
+    }
     return taskQueue.addTask(task);
   }
 
@@ -75,13 +113,32 @@ public class MemoryPhysicalTaskDispatcher {
                     while (currentTask != null) {
                       TaskExecuteResult result;
                       long startTime = System.currentTimeMillis();
+                      long startNanos = System.nanoTime();
+                      boolean profiling = currentTask.isProfiling();
+                      long startCpuNanos = 0;
+                      long startAllocatedBytes = 0;
+                      if (profiling) {
+                        currentTask.getMetrics().markStarted();
+                        startCpuNanos = TaskMetrics.currentThreadCpuNanos();
+                        startAllocatedBytes = TaskMetrics.currentThreadAllocatedBytes();
+                      }
                       try {
                         result = currentTask.execute();
                       } catch (Exception e) {
                         LOGGER.error("execute memory task failure: ", e);
                         result = new TaskExecuteResult(new PhysicalException(e));
                       }
+                      if (profiling) {
+                        TaskMetrics metrics = currentTask.getMetrics();
+                        metrics.addExecuteCpuNanos(
+                            TaskMetrics.currentThreadCpuNanos() - startCpuNanos);
+                        metrics.addAllocatedBytes(
+                            TaskMetrics.currentThreadAllocatedBytes() - startAllocatedBytes);
+                      }
                       long span = System.currentTimeMillis() - startTime;
+                      if (enableMetrics) {
+                        taskDuration(currentTask.getType()).record(System.nanoTime() - startNanos);
+                      }
                       currentTask.setSpan(span);
                       currentTask.setResult(result);
                       if (currentTask.getFollowerTask() != null) { // 链式执行可以被执行的任务
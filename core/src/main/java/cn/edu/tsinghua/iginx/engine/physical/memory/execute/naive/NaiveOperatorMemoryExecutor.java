@@ -31,7 +31,6 @@ import static cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtil
 import static cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtils.isValueEqualRow;
 import static cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtils.removeDuplicateRows;
 import static cn.edu.tsinghua.iginx.engine.shared.Constants.*;
-import static cn.edu.tsinghua.iginx.engine.shared.function.FunctionUtils.isCanUseSetQuantifierFunction;
 import static cn.edu.tsinghua.iginx.engine.shared.function.system.utils.ValueUtils.getHash;
 import static cn.edu.tsinghua.iginx.sql.SQLConstant.DOT;
 
@@ -43,6 +42,8 @@ import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalTaskExecuteFailur
 import cn.edu.tsinghua.iginx.engine.physical.exception.UnexpectedOperatorException;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.OperatorMemoryExecutor;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.CompiledFilter;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterCompiler;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterUtils;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.HeaderUtils;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtils;
@@ -95,6 +96,7 @@ import cn.edu.tsinghua.iginx.utils.Pair;
 import cn.edu.tsinghua.iginx.utils.StringUtils;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -259,7 +261,8 @@ public class NaiveOperatorMemoryExecutor implements OperatorMemoryExecutor {
     Filter filter = select.getFilter();
     List<Row> rows = table.getRows();
 
-    List<Row> targetRows = RowUtils.cacheFilterResult(rows, filter);
+    List<Row> targetRows =
+        RowUtils.cacheFilterResult(rows, FilterCompiler.compile(filter, table.getHeader()));
     return new Table(table.getHeader(), targetRows);
   }
 
@@ -309,34 +312,25 @@ public class NaiveOperatorMemoryExecutor implements OperatorMemoryExecutor {
       Table functable = RowUtils.preRowTransform(table, rowTransformMap, functionCall);
       TreeMap<Long, List<Row>> groups = RowUtils.computeDownsampleGroup(downsample, functable);
 
+      RowUtils.checkSetQuantifier(function, params);
+      // 每个窗口一个任务，python udf 会在解释器池中并行执行
+      List<Long> windowStartKeys = new ArrayList<>(groups.keySet());
+      List<Callable<Row>> tasks = new ArrayList<>(groups.size());
+      for (List<Row> group : groups.values()) {
+        tasks.add(
+            () ->
+                RowUtils.applySetMappingFunction(function, params, functable.getHeader(), group));
+      }
+      List<Row> windowRows = RowUtils.invokeSetMappingTasks(function, tasks);
+
       // <<window_start, window_end> row>
       List<Pair<Pair<Long, Long>, Row>> transformedRawRows = new ArrayList<>();
-      for (Map.Entry<Long, List<Row>> entry : groups.entrySet()) {
-        long windowStartKey = entry.getKey();
-        long windowEndKey = windowStartKey + precision - 1;
-        List<Row> group = entry.getValue();
-
-        if (params.isDistinct()) {
-          if (!isCanUseSetQuantifierFunction(function.getIdentifier())) {
-            throw new IllegalArgumentException(
-                "function " + function.getIdentifier() + " can't use DISTINCT");
-          }
-          // min和max无需去重
-          if (!function.getIdentifier().equals(Max.MAX)
-              && !function.getIdentifier().equals(Min.MIN)) {
-            group = removeDuplicateRows(group);
-          }
-        }
-
-        try {
-          Row row = function.transform(new Table(functable.getHeader(), group), params);
-          if (row != null) {
-            transformedRawRows.add(new Pair<>(new Pair<>(windowStartKey, windowEndKey), row));
-          }
-        } catch (Exception e) {
-          throw new PhysicalTaskExecuteFailureException(
-              "encounter error when execute set mapping function " + function.getIdentifier() + ".",
-              e);
+      for (int i = 0; i < windowRows.size(); i++) {
+        Row row = windowRows.get(i);
+        if (row != null) {
+          long windowStartKey = windowStartKeys.get(i);
+          long windowEndKey = windowStartKey + precision - 1;
+          transformedRawRows.add(new Pair<>(new Pair<>(windowStartKey, windowEndKey), row));
         }
       }
       if (transformedRawRows.isEmpty()) {
@@ -940,10 +934,6 @@ public class NaiveOperatorMemoryExecutor implements OperatorMemoryExecutor {
     boolean needTypeCast =
         checkNeedTypeCast(tableA.getRows(), tableB.getRows(), joinPathA, joinPathB);
 
-    // 扫描右表建立哈希表
-    HashMap<Integer, List<Row>> rowsBHashMap =
-        establishHashMap(tableB.getRows(), joinPathB, needTypeCast);
-
     // 计算连接之后的header
     Header newHeader =
         constructNewHead(
@@ -955,8 +945,35 @@ public class NaiveOperatorMemoryExecutor implements OperatorMemoryExecutor {
             joinColumns,
             extraJoinPaths);
 
+    // 连接后的行都使用 newHeader，过滤条件只需编译一次
+    CompiledFilter joinFilter =
+        innerJoin.getFilter() == null
+            ? null
+            : FilterCompiler.compile(innerJoin.getFilter(), newHeader);
+
+    List<Row> rowsA = tableA.getRows();
+    List<Row> rowsB = tableB.getRows();
+    if (rowsA.size() < rowsB.size()) {
+      return new Table(
+          newHeader,
+          executeHashInnerJoinBuildLeft(
+              innerJoin,
+              joinFilter,
+              newHeader,
+              rowsA,
+              rowsB,
+              joinPathA,
+              joinPathB,
+              needTypeCast,
+              joinColumns,
+              extraJoinPaths));
+    }
+
+    // 扫描右表建立哈希表
+    HashMap<Integer, List<Row>> rowsBHashMap = establishHashMap(rowsB, joinPathB, needTypeCast);
+
     List<Row> transformedRows = new ArrayList<>();
-    for (Row rowA : tableA.getRows()) {
+    for (Row rowA : rowsA) {
       Value value = rowA.getAsValue(joinPathA);
       if (value.isNull()) {
         continue;
@@ -965,34 +982,102 @@ public class NaiveOperatorMemoryExecutor implements OperatorMemoryExecutor {
 
       if (rowsBHashMap.containsKey(hash)) {
         for (Row rowB : rowsBHashMap.get(hash)) {
-          if (!equalOnSpecificPaths(rowA, rowB, extraJoinPaths)) {
-            continue;
-          } else if (!equalOnSpecificPaths(
-              rowA, rowB, innerJoin.getPrefixA(), innerJoin.getPrefixB(), joinColumns)) {
-            continue;
-          }
           Row joinedRow =
-              RowUtils.constructNewRow(
-                  newHeader,
-                  rowA,
-                  rowB,
-                  innerJoin.getPrefixA(),
-                  innerJoin.getPrefixB(),
-                  true,
-                  joinColumns,
-                  extraJoinPaths);
-          if (innerJoin.getFilter() != null) {
-            if (!FilterUtils.validate(innerJoin.getFilter(), joinedRow)) {
-              continue;
-            }
+              tryJoinRows(
+                  innerJoin, joinFilter, newHeader, rowA, rowB, joinColumns, extraJoinPaths);
+          if (joinedRow != null) {
+            transformedRows.add(joinedRow);
           }
-          transformedRows.add(joinedRow);
         }
       }
     }
     return new Table(newHeader, transformedRows);
   }
 
+  /**
+   * 左表较小时在左表上建立哈希表并扫描右表。匹配到的行号对按 (左表行号, 右表行号) 排序后再拼接，
+   * 因此输出顺序与在右表上建立哈希表时完全一致。
+   */
+  private List<Row> executeHashInnerJoinBuildLeft(
+      InnerJoin innerJoin,
+      CompiledFilter joinFilter,
+      Header newHeader,
+      List<Row> rowsA,
+      List<Row> rowsB,
+      String joinPathA,
+      String joinPathB,
+      boolean needTypeCast,
+      List<String> joinColumns,
+      List<String> extraJoinPaths)
+      throws PhysicalException {
+    HashMap<Integer, List<Integer>> rowsAHashMap =
+        RowUtils.establishIndexHashMap(rowsA, joinPathA, needTypeCast);
+
+    long[] matchedPairs = new long[16];
+    int matchedCount = 0;
+    for (int indexB = 0; indexB < rowsB.size(); indexB++) {
+      Value value = rowsB.get(indexB).getAsValue(joinPathB);
+      if (value.isNull()) {
+        continue;
+      }
+      List<Integer> indicesA = rowsAHashMap.get(getHash(value, needTypeCast));
+      if (indicesA == null) {
+        continue;
+      }
+      for (int indexA : indicesA) {
+        if (matchedCount == matchedPairs.length) {
+          matchedPairs = Arrays.copyOf(matchedPairs, matchedCount * 2);
+        }
+        matchedPairs[matchedCount++] = ((long) indexA << 32) | indexB;
+      }
+    }
+    Arrays.sort(matchedPairs, 0, matchedCount);
+
+    List<Row> transformedRows = new ArrayList<>();
+    for (int i = 0; i < matchedCount; i++) {
+      Row rowA = rowsA.get((int) (matchedPairs[i] >>> 32));
+      Row rowB = rowsB.get((int) matchedPairs[i]);
+      Row joinedRow =
+          tryJoinRows(innerJoin, joinFilter, newHeader, rowA, rowB, joinColumns, extraJoinPaths);
+      if (joinedRow != null) {
+        transformedRows.add(joinedRow);
+      }
+    }
+    return transformedRows;
+  }
+
+  /** 检查两行在连接列上是否相等并拼接，不满足连接条件时返回 null */
+  private Row tryJoinRows(
+      InnerJoin innerJoin,
+      CompiledFilter joinFilter,
+      Header newHeader,
+      Row rowA,
+      Row rowB,
+      List<String> joinColumns,
+      List<String> extraJoinPaths)
+      throws PhysicalException {
+    if (!equalOnSpecificPaths(rowA, rowB, extraJoinPaths)) {
+      return null;
+    } else if (!equalOnSpecificPaths(
+        rowA, rowB, innerJoin.getPrefixA(), innerJoin.getPrefixB(), joinColumns)) {
+      return null;
+    }
+    Row joinedRow =
+        RowUtils.constructNewRow(
+            newHeader,
+            rowA,
+            rowB,
+            innerJoin.getPrefixA(),
+            innerJoin.getPrefixB(),
+            true,
+            joinColumns,
+            extraJoinPaths);
+    if (joinFilter != null && !joinFilter.validate(joinedRow)) {
+      return null;
+    }
+    return joinedRow;
+  }
+
   private RowStream executeSortedMergeInnerJoin(InnerJoin innerJoin, Table tableA, Table tableB)
       throws PhysicalException {
     Filter filter = innerJoin.getFilter();
@@ -34,10 +34,15 @@ import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStreamWrapper;
 import cn.edu.tsinghua.iginx.engine.shared.function.FunctionCall;
 import cn.edu.tsinghua.iginx.engine.shared.function.FunctionParams;
 import cn.edu.tsinghua.iginx.engine.shared.function.SetMappingFunction;
+import cn.edu.tsinghua.iginx.engine.shared.function.manager.PythonInterpreterPool;
 import cn.edu.tsinghua.iginx.engine.shared.operator.Downsample;
 import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class DownsampleLazyStream extends UnaryLazyStream {
 
@@ -53,11 +58,16 @@ public class DownsampleLazyStream extends UnaryLazyStream {
 
   private Header header;
 
+  private final boolean usePool;
+
+  private final Deque<Row> bufferedRows = new ArrayDeque<>();
+
   public DownsampleLazyStream(Downsample downsample, RowStream stream) {
     super(stream);
     this.wrapper = new RowStreamWrapper(stream);
     this.downsample = downsample;
     this.functionCallList = downsample.getFunctionCallList();
+    this.usePool = RowUtils.isPooledUDFApplicable(functionCallList);
   }
 
   private void initialize() throws PhysicalException {
@@ -86,47 +96,71 @@ public class DownsampleLazyStream extends UnaryLazyStream {
     if (nextTarget != null) {
       return nextTarget;
     }
+    if (usePool) {
+      while (bufferedRows.isEmpty() && wrapper.hasNext()) {
+        loadWindowsInPool();
+      }
+      return bufferedRows.poll();
+    }
     Row row = null;
-    long windowStartKey = 0;
+    while (row == null && wrapper.hasNext()) {
+      Pair<Long, Table> window = nextWindow();
+      row = computeWindow(window.k, window.v);
+    }
+    return row;
+  }
+
+  private Pair<Long, Table> nextWindow() throws PhysicalException {
     long bias = downsample.getKeyRange().getActualBeginKey();
-    long endKey = downsample.getKeyRange().getActualEndKey();
     long precision = downsample.getPrecision();
-    long slideDistance = downsample.getSlideDistance();
-    // startKey + (n - 1) * slideDistance + precision - 1 >= endKey
-    int n = (int) (Math.ceil((double) (endKey - bias - precision + 1) / slideDistance) + 1);
-    while (row == null && wrapper.hasNext()) {
-      windowStartKey = wrapper.nextTimestamp() - (wrapper.nextTimestamp() - bias) % precision;
-      List<Row> rows = new ArrayList<>();
-      while (wrapper.hasNext() && wrapper.nextTimestamp() < windowStartKey + precision) {
-        rows.add(wrapper.next());
-      }
-      Table table = new Table(rows.get(0).getHeader(), rows);
-
-      List<Row> subRowList = new ArrayList<>();
-      for (FunctionCall functionCall : functionCallList) {
-        FunctionParams params = functionCall.getParams();
-        SetMappingFunction function = (SetMappingFunction) functionCall.getFunction();
-        try {
-          subRowList.add(function.transform(table, params));
-        } catch (Exception e) {
-          throw new PhysicalTaskExecuteFailureException(
-              "encounter error when execute set mapping function " + function.getIdentifier() + ".",
-              e);
-        }
+    long windowStartKey = wrapper.nextTimestamp() - (wrapper.nextTimestamp() - bias) % precision;
+    List<Row> rows = new ArrayList<>();
+    while (wrapper.hasNext() && wrapper.nextTimestamp() < windowStartKey + precision) {
+      rows.add(wrapper.next());
+    }
+    return new Pair<>(windowStartKey, new Table(rows.get(0).getHeader(), rows));
+  }
+
+  private Row computeWindow(long windowStartKey, Table table) throws PhysicalException {
+    List<Row> subRowList = new ArrayList<>();
+    for (FunctionCall functionCall : functionCallList) {
+      FunctionParams params = functionCall.getParams();
+      SetMappingFunction function = (SetMappingFunction) functionCall.getFunction();
+      try {
+        subRowList.add(function.transform(table, params));
+      } catch (Exception e) {
+        throw new PhysicalTaskExecuteFailureException(
+            "encounter error when execute set mapping function " + function.getIdentifier() + ".",
+            e);
       }
-      row = RowUtils.combineMultipleColumns(subRowList);
     }
+    Row row = RowUtils.combineMultipleColumns(subRowList);
     if (row == null) {
       return null;
-    } else {
-      List<Field> fields = row.getHeader().getFields();
-      fields.add(0, new Field(WINDOW_START_COL, DataType.LONG));
-      fields.add(1, new Field(WINDOW_END_COL, DataType.LONG));
-      Object[] values = new Object[row.getValues().length + 2];
-      values[0] = windowStartKey;
-      values[1] = windowStartKey + precision - 1;
-      System.arraycopy(row.getValues(), 0, values, 2, row.getValues().length);
-      return new Row(new Header(Field.KEY, fields), windowStartKey, values);
+    }
+    long precision = downsample.getPrecision();
+    List<Field> fields = row.getHeader().getFields();
+    fields.add(0, new Field(WINDOW_START_COL, DataType.LONG));
+    fields.add(1, new Field(WINDOW_END_COL, DataType.LONG));
+    Object[] values = new Object[row.getValues().length + 2];
+    values[0] = windowStartKey;
+    values[1] = windowStartKey + precision - 1;
+    System.arraycopy(row.getValues(), 0, values, 2, row.getValues().length);
+    return new Row(new Header(Field.KEY, fields), windowStartKey, values);
+  }
+
+  /** 一次取出与解释器池并行度相同数量的窗口，每个窗口作为一个任务提交到解释器池 */
+  private void loadWindowsInPool() throws PhysicalException {
+    int batchSize = PythonInterpreterPool.getInstance().getParallelism();
+    List<Callable<Row>> tasks = new ArrayList<>(batchSize);
+    while (tasks.size() < batchSize && wrapper.hasNext()) {
+      Pair<Long, Table> window = nextWindow();
+      tasks.add(() -> computeWindow(window.k, window.v));
+    }
+    for (Row row : PythonInterpreterPool.getInstance().invokeAll(tasks)) {
+      if (row != null) {
+        bufferedRows.add(row);
+      }
     }
   }
 
@@ -0,0 +1,403 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.memory.execute.stream;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.AbstractTaskThreadPoolExecutor;
+import cn.edu.tsinghua.iginx.engine.physical.exception.InvalidOperatorParameterException;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 并行分片扫描：同时从多个分片的结果中读取数据，语义与多个 PathUnion 级联相同
+ *
+ * <p>每个子结果集在后台线程中按批次读取，消费一个批次时即调度读取下一个批次，因此每个子结果集至多缓存一个预取批次，消费方读取较慢时生产方随之停顿。
+ * 子结果集带 key 时按 key 进行多路归并，key 相同时先返回排在前面的子结果集的行；不带 key 时依次拼接各子结果集。
+ *
+ * <p>子结果集本身也可能是并行扫描（例如持续聚合改写后 PathUnion 的两侧）。直接作为子结果集的并行扫描会被展开，
+ * 其子结果集并入当前扫描；子结果集的表头也在扫描线程中随第一个批次一起获取，因此经过其他算子间接嵌套的扫描只会在扫描线程中初始化，
+ * 并在扫描线程中直接读取而不再向线程池提交任务，不依赖任务在线程池中的排队顺序，避免扫描线程互相等待而死锁。
+ */
+public class ParallelScanRowStream implements RowStream {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelScanRowStream.class);
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  /** 当前线程是否正在执行扫描任务 */
+  private static final ThreadLocal<Boolean> IN_SCAN_TASK = ThreadLocal.withInitial(() -> false);
+
+  private final List<RowStream> streams;
+
+  private final ExecutorService executor;
+
+  private final int batchSize;
+
+  private RequestContext context;
+
+  private boolean hasInitialized = false;
+
+  private Header header;
+
+  private List<Cursor> cursors;
+
+  /** 带 key 时按当前行的 key 排序的游标，不带 key 时不使用 */
+  private PriorityQueue<Cursor> mergeQueue;
+
+  /** 不带 key 时当前正在拼接的游标下标 */
+  private int concatIndex = 0;
+
+  private volatile boolean closed = false;
+
+  public ParallelScanRowStream(List<RowStream> streams) {
+    this(streams, ParallelScanExecutorHolder.INSTANCE);
+  }
+
+  ParallelScanRowStream(List<RowStream> streams, ExecutorService executor) {
+    this.streams = flatten(streams);
+    this.executor = executor;
+    this.batchSize = Math.max(1, config.getParallelFragmentScanBatchSize());
+  }
+
+  /** 展开直接嵌套且尚未开始读取的并行扫描，保持子结果集的先后顺序 */
+  private static List<RowStream> flatten(List<RowStream> streams) {
+    List<RowStream> flattened = new ArrayList<>(streams.size());
+    for (RowStream stream : streams) {
+      if (stream instanceof ParallelScanRowStream
+          && !((ParallelScanRowStream) stream).hasInitialized) {
+        flattened.addAll(((ParallelScanRowStream) stream).streams);
+      } else {
+        flattened.add(stream);
+      }
+    }
+    return flattened;
+  }
+
+  private void initialize() throws PhysicalException {
+    if (hasInitialized) {
+      return;
+    }
+    // 第一个批次连同子结果集的表头一起在扫描线程中读取
+    cursors = new ArrayList<>(streams.size());
+    for (int i = 0; i < streams.size(); i++) {
+      Cursor cursor = new Cursor(i, streams.get(i));
+      cursors.add(cursor);
+      cursor.prefetch();
+    }
+    for (Cursor cursor : cursors) {
+      cursor.start();
+    }
+
+    boolean hasKey = cursors.get(0).streamHeader.hasKey();
+    Set<Field> targetFieldSet = new LinkedHashSet<>();
+    for (Cursor cursor : cursors) {
+      if (cursor.streamHeader.hasKey() ^ hasKey) {
+        throw new InvalidOperatorParameterException("row stream to be union must have same fields");
+      }
+      targetFieldSet.addAll(cursor.streamHeader.getFields());
+    }
+    List<Field> targetFields = new ArrayList<>(targetFieldSet);
+    header = hasKey ? new Header(Field.KEY, targetFields) : new Header(targetFields);
+    for (Cursor cursor : cursors) {
+      cursor.resolve(header);
+    }
+    if (hasKey) {
+      mergeQueue =
+          new PriorityQueue<>(
+              Comparator.comparingLong((Cursor cursor) -> cursor.current().getKey())
+                  .thenComparingInt(cursor -> cursor.index));
+      for (Cursor cursor : cursors) {
+        if (cursor.advance()) {
+          mergeQueue.add(cursor);
+        }
+      }
+    }
+    hasInitialized = true;
+  }
+
+  @Override
+  public Header getHeader() throws PhysicalException {
+    if (!hasInitialized) {
+      initialize();
+    }
+    return header;
+  }
+
+  @Override
+  public boolean hasNext() throws PhysicalException {
+    if (!hasInitialized) {
+      initialize();
+    }
+    if (header.hasKey()) {
+      return !mergeQueue.isEmpty();
+    }
+    while (concatIndex < cursors.size()) {
+      Cursor cursor = cursors.get(concatIndex);
+      if (cursor.current() != null || cursor.advance()) {
+        return true;
+      }
+      concatIndex++;
+    }
+    return false;
+  }
+
+  @Override
+  public Row next() throws PhysicalException {
+    if (!hasNext()) {
+      throw new IllegalStateException("row stream doesn't have more data!");
+    }
+    Cursor cursor;
+    if (header.hasKey()) {
+      cursor = mergeQueue.poll();
+    } else {
+      cursor = cursors.get(concatIndex);
+    }
+    Row row = cursor.transform(cursor.current());
+    cursor.clearCurrent();
+    if (header.hasKey()) {
+      if (cursor.advance()) {
+        mergeQueue.add(cursor);
+      }
+      Cursor nextCursor = mergeQueue.peek();
+      if (context != null
+          && nextCursor != null
+          && nextCursor.current().getKey() == row.getKey()) {
+        context.setWarningMsg("The query results contain overlapped keys.");
+      }
+    }
+    return row;
+  }
+
+  @Override
+  public void close() throws PhysicalException {
+    closed = true;
+    PhysicalException exception = null;
+    for (int i = 0; i < streams.size(); i++) {
+      if (cursors != null) {
+        cursors.get(i).cancel();
+      }
+      RowStream stream = streams.get(i);
+      synchronized (stream) {
+        try {
+          stream.close();
+        } catch (PhysicalException e) {
+          LOGGER.error("unexpected error when close row stream: ", e);
+          exception = e;
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  @Override
+  public void setContext(RequestContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public RequestContext getContext() {
+    return context;
+  }
+
+  /** 单个子结果集的读取状态，只在消费线程中访问 */
+  private class Cursor {
+
+    private final int index;
+
+    private final RowStream stream;
+
+    private Header streamHeader;
+
+    /** 目标表头中每一列在子结果集中的下标，-1 表示子结果集中不存在该列 */
+    private int[] fieldIndexes;
+
+    private Future<Batch> pending;
+
+    private List<Row> rows;
+
+    private int offset = 0;
+
+    private boolean last = false;
+
+    private Row current;
+
+    Cursor(int index, RowStream stream) {
+      this.index = index;
+      this.stream = stream;
+    }
+
+    /** 等待第一个批次，得到子结果集的表头 */
+    void start() throws PhysicalException {
+      Batch batch = await();
+      streamHeader = batch.header;
+      accept(batch);
+    }
+
+    void resolve(Header targetHeader) {
+      this.fieldIndexes = new int[targetHeader.getFieldSize()];
+      for (int i = 0; i < fieldIndexes.length; i++) {
+        fieldIndexes[i] = streamHeader.indexOf(targetHeader.getField(i));
+      }
+    }
+
+    Row current() {
+      return current;
+    }
+
+    void clearCurrent() {
+      current = null;
+    }
+
+    /** 将游标移动到下一行，没有更多数据时返回 false */
+    boolean advance() throws PhysicalException {
+      while (rows == null || offset == rows.size()) {
+        if (last) {
+          rows = null;
+          return false;
+        }
+        accept(await());
+      }
+      current = rows.get(offset);
+      rows.set(offset++, null);
+      return true;
+    }
+
+    private void accept(Batch batch) throws PhysicalException {
+      rows = batch.rows;
+      offset = 0;
+      last = batch.last;
+      if (!last) {
+        prefetch();
+      }
+    }
+
+    Row transform(Row row) {
+      Object[] values = new Object[fieldIndexes.length];
+      for (int i = 0; i < fieldIndexes.length; i++) {
+        if (fieldIndexes[i] != -1) {
+          values[i] = row.getValue(fieldIndexes[i]);
+        }
+      }
+      return header.hasKey() ? new Row(header, row.getKey(), values) : new Row(header, values);
+    }
+
+    void prefetch() throws PhysicalException {
+      if (IN_SCAN_TASK.get()) {
+        // 嵌套在其他扫描任务中，由 await 在当前线程直接读取
+        pending = null;
+        return;
+      }
+      try {
+        pending =
+            executor.submit(
+                () -> {
+                  IN_SCAN_TASK.set(true);
+                  try {
+                    return readBatch();
+                  } finally {
+                    IN_SCAN_TASK.set(false);
+                  }
+                });
+      } catch (RejectedExecutionException e) {
+        throw new PhysicalException("fail to schedule parallel scan task", e);
+      }
+    }
+
+    void cancel() {
+      if (pending != null) {
+        pending.cancel(false);
+      }
+    }
+
+    private Batch await() throws PhysicalException {
+      if (pending == null) {
+        return readBatch();
+      }
+      try {
+        return pending.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PhysicalException("interrupted when waiting for parallel scan task", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof PhysicalException) {
+          throw (PhysicalException) e.getCause();
+        }
+        throw new PhysicalException("fail to read row stream in parallel scan", e.getCause());
+      }
+    }
+
+    private Batch readBatch() throws PhysicalException {
+      List<Row> batch = new ArrayList<>();
+      synchronized (stream) {
+        if (closed) {
+          return new Batch(Header.EMPTY_HEADER, batch, true);
+        }
+        Header header = stream.getHeader();
+        while (batch.size() < batchSize && stream.hasNext()) {
+          batch.add(stream.next());
+        }
+        return new Batch(header, batch, !stream.hasNext());
+      }
+    }
+  }
+
+  private static class Batch {
+
+    private final Header header;
+
+    private final List<Row> rows;
+
+    private final boolean last;
+
+    private Batch(Header header, List<Row> rows, boolean last) {
+      this.header = header;
+      this.rows = rows;
+      this.last = last;
+    }
+  }
+
+  private static class ParallelScanExecutorHolder {
+
+    // 子结果集中可能包含 Python UDF，使用能为每个线程维护 interpreter 的线程池
+    private static final AbstractTaskThreadPoolExecutor INSTANCE =
+        new AbstractTaskThreadPoolExecutor(Math.max(1, config.getParallelFragmentScanThreadNum()));
+
+    private ParallelScanExecutorHolder() {}
+  }
+}
@@ -20,6 +20,8 @@
 package cn.edu.tsinghua.iginx.engine.physical.memory.execute.stream;
 
 import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.CompiledFilter;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterCompiler;
 import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtils;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
@@ -38,6 +40,8 @@ public class SelectLazyStream extends UnaryLazyStream {
 
   private List<Row> nextBatchCache = new ArrayList<>();
 
+  private CompiledFilter compiledFilter;
+
   public SelectLazyStream(Select select, RowStream stream) {
     super(stream);
     this.select = select;
@@ -63,7 +67,10 @@ public class SelectLazyStream extends UnaryLazyStream {
       rows.add(stream.next());
       rowCnt++;
     }
-    nextBatchCache = RowUtils.cacheFilterResult(rows, select.getFilter());
+    if (compiledFilter == null) {
+      compiledFilter = FilterCompiler.compile(select.getFilter(), stream.getHeader());
+    }
+    nextBatchCache = RowUtils.cacheFilterResult(rows, compiledFilter);
     cacheIndex = 0;
   }
 
@@ -0,0 +1,406 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils;
+
+import cn.edu.tsinghua.iginx.engine.shared.data.Value;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.utils.ValueUtils;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.AndFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.BoolFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Filter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.FilterType;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.InFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.KeyFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.NotFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Op;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.OrFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.PathFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.ValueFilter;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 将 Filter 针对给定的 Header 编译为 CompiledFilter
+ *
+ * <p>编译时完成列下标解析、按列类型选择比较方式、预编译 LIKE 的正则表达式以及常量子条件的折叠，逐行求值时不再查找列名、不再创建 Value。
+ * 语义与 FilterUtils.validate 保持一致，无法特化的条件（表达式、带通配符的 IN 等）回退到 FilterUtils.validate。
+ *
+ * <p>传入的行的 Header 与编译时不是同一个对象时，同样回退到 FilterUtils.validate。
+ */
+public class FilterCompiler {
+
+  private static final CompiledFilter ALWAYS_TRUE = row -> true;
+
+  private static final CompiledFilter ALWAYS_FALSE = row -> false;
+
+  private FilterCompiler() {}
+
+  public static CompiledFilter compile(Filter filter, Header header) {
+    if (filter.getType() == FilterType.Bool) {
+      return ((BoolFilter) filter).isTrue() ? ALWAYS_TRUE : ALWAYS_FALSE;
+    }
+    CompiledFilter compiled = compileFilter(filter, header);
+    return row ->
+        row.getHeader() == header ? compiled.validate(row) : FilterUtils.validate(filter, row);
+  }
+
+  private static CompiledFilter compileFilter(Filter filter, Header header) {
+    switch (filter.getType()) {
+      case Bool:
+        return ((BoolFilter) filter).isTrue() ? ALWAYS_TRUE : ALWAYS_FALSE;
+      case And:
+        return compileAnd((AndFilter) filter, header);
+      case Or:
+        return compileOr((OrFilter) filter, header);
+      case Not:
+        CompiledFilter child = compileFilter(((NotFilter) filter).getChild(), header);
+        if (child == ALWAYS_TRUE) {
+          return ALWAYS_FALSE;
+        } else if (child == ALWAYS_FALSE) {
+          return ALWAYS_TRUE;
+        }
+        return row -> !child.validate(row);
+      case Key:
+        return compileKeyFilter((KeyFilter) filter);
+      case Value:
+        return compileValueFilter((ValueFilter) filter, header);
+      case Path:
+        return compilePathFilter((PathFilter) filter, header);
+      case In:
+        return compileInFilter((InFilter) filter, header);
+      default:
+        return interpret(filter);
+    }
+  }
+
+  private static CompiledFilter interpret(Filter filter) {
+    return row -> FilterUtils.validate(filter, row);
+  }
+
+  private static CompiledFilter compileAnd(AndFilter andFilter, Header header) {
+    List<CompiledFilter> children = new ArrayList<>();
+    for (Filter childFilter : andFilter.getChildren()) {
+      CompiledFilter child = compileFilter(childFilter, header);
+      if (child == ALWAYS_FALSE) {
+        return ALWAYS_FALSE;
+      } else if (child != ALWAYS_TRUE) {
+        children.add(child);
+      }
+    }
+    if (children.isEmpty()) {
+      return ALWAYS_TRUE;
+    } else if (children.size() == 1) {
+      return children.get(0);
+    }
+    CompiledFilter[] childArray = children.toArray(new CompiledFilter[0]);
+    return row -> {
+      for (CompiledFilter child : childArray) {
+        if (!child.validate(row)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  private static CompiledFilter compileOr(OrFilter orFilter, Header header) {
+    List<CompiledFilter> children = new ArrayList<>();
+    for (Filter childFilter : orFilter.getChildren()) {
+      CompiledFilter child = compileFilter(childFilter, header);
+      if (child == ALWAYS_TRUE) {
+        return ALWAYS_TRUE;
+      } else if (child != ALWAYS_FALSE) {
+        children.add(child);
+      }
+    }
+    if (children.isEmpty()) {
+      return ALWAYS_FALSE;
+    } else if (children.size() == 1) {
+      return children.get(0);
+    }
+    CompiledFilter[] childArray = children.toArray(new CompiledFilter[0]);
+    return row -> {
+      for (CompiledFilter child : childArray) {
+        if (child.validate(row)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  private static CompiledFilter compileKeyFilter(KeyFilter keyFilter) {
+    long target = keyFilter.getValue();
+    switch (keyFilter.getOp()) {
+      case E:
+      case E_AND:
+        return row -> row.getKey() != Row.NON_EXISTED_KEY && row.getKey() == target;
+      case G:
+      case G_AND:
+        return row -> row.getKey() != Row.NON_EXISTED_KEY && row.getKey() > target;
+      case L:
+      case L_AND:
+        return row -> row.getKey() != Row.NON_EXISTED_KEY && row.getKey() < target;
+      case GE:
+      case GE_AND:
+        return row -> row.getKey() != Row.NON_EXISTED_KEY && row.getKey() >= target;
+      case LE:
+      case LE_AND:
+        return row -> row.getKey() != Row.NON_EXISTED_KEY && row.getKey() <= target;
+      case NE:
+      case NE_AND:
+        return row -> row.getKey() != Row.NON_EXISTED_KEY && row.getKey() != target;
+      default:
+        return ALWAYS_FALSE;
+    }
+  }
+
+  private static CompiledFilter compileValueFilter(ValueFilter valueFilter, Header header) {
+    Value target = valueFilter.getValue();
+    if (target.isNull()) { // targetValue是空值，则认为不可比较
+      return ALWAYS_FALSE;
+    }
+    Op op = valueFilter.getOp();
+    List<Integer> indices = header.patternIndexOf(valueFilter.getPath());
+    List<CompiledFilter> comparisons = new ArrayList<>();
+    for (int index : indices) {
+      if (index != -1) {
+        comparisons.add(compileCompare(op, index, header.getField(index).getType(), target));
+      }
+    }
+    if (comparisons.isEmpty()) {
+      return ALWAYS_FALSE;
+    } else if (comparisons.size() == 1) {
+      return comparisons.get(0);
+    } else if (!Op.isOrOp(op) && !Op.isAndOp(op)) {
+      return interpret(valueFilter);
+    }
+    // 多列时，任一列为空值对 or 语义视为不满足、对 and 语义直接返回 false，与比较结果为 false 一致
+    CompiledFilter[] comparisonArray = comparisons.toArray(new CompiledFilter[0]);
+    if (Op.isOrOp(op)) {
+      return row -> {
+        for (CompiledFilter comparison : comparisonArray) {
+          if (comparison.validate(row)) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+    return row -> {
+      for (CompiledFilter comparison : comparisonArray) {
+        if (!comparison.validate(row)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  /** 比较某一列与常量，该列为空值时返回 false */
+  private static CompiledFilter compileCompare(Op op, int index, DataType type, Value target) {
+    DataType targetType = target.getDataType();
+    if (isRegexOp(op)) {
+      if (type != DataType.BINARY || targetType != DataType.BINARY) {
+        return row -> {
+          Value value = row.getAsValue(index);
+          return !value.isNull() && FilterUtils.validateValueCompare(op, value, target);
+        };
+      }
+      Pattern pattern;
+      try {
+        pattern = Pattern.compile(target.getBinaryVAsString());
+      } catch (PatternSyntaxException e) {
+        return row -> {
+          Value value = row.getAsValue(index);
+          return !value.isNull() && FilterUtils.validateValueCompare(op, value, target);
+        };
+      }
+      boolean negate = op == Op.NOT_LIKE || op == Op.NOT_LIKE_AND;
+      return row -> {
+        Object value = row.getValue(index);
+        return value != null && negate ^ pattern.matcher(new String((byte[]) value)).matches();
+      };
+    }
+
+    if (type == targetType) {
+      switch (type) {
+        case INTEGER:
+          int intTarget = target.getIntV();
+          return row -> {
+            Object value = row.getValue(index);
+            return value != null && test(op, Integer.compare((Integer) value, intTarget));
+          };
+        case LONG:
+          long longTarget = target.getLongV();
+          return row -> {
+            Object value = row.getValue(index);
+            return value != null && test(op, Long.compare((Long) value, longTarget));
+          };
+        case FLOAT:
+          float floatTarget = target.getFloatV();
+          return row -> {
+            Object value = row.getValue(index);
+            return value != null && test(op, Float.compare((Float) value, floatTarget));
+          };
+        case DOUBLE:
+          double doubleTarget = target.getDoubleV();
+          return row -> {
+            Object value = row.getValue(index);
+            return value != null && test(op, Double.compare((Double) value, doubleTarget));
+          };
+        case BOOLEAN:
+          boolean boolTarget = target.getBoolV();
+          return row -> {
+            Object value = row.getValue(index);
+            return value != null && test(op, Boolean.compare((Boolean) value, boolTarget));
+          };
+        case BINARY:
+          String stringTarget = target.getBinaryVAsString();
+          return row -> {
+            Object value = row.getValue(index);
+            return value != null && test(op, new String((byte[]) value).compareTo(stringTarget));
+          };
+        default:
+          return row -> {
+            Value value = row.getAsValue(index);
+            return !value.isNull() && FilterUtils.validateValueCompare(op, value, target);
+          };
+      }
+    } else if (ValueUtils.isNumericType(type) && ValueUtils.isNumericType(targetType)) {
+      double doubleTarget = toDouble(target.getValue(), targetType);
+      return row -> {
+        Object value = row.getValue(index);
+        return value != null && test(op, Double.compare(toDouble(value, type), doubleTarget));
+      };
+    }
+    // 数值类型和非数值类型无法比较
+    return ALWAYS_FALSE;
+  }
+
+  private static CompiledFilter compilePathFilter(PathFilter pathFilter, Header header) {
+    int indexA = header.indexOf(pathFilter.getPathA());
+    int indexB = header.indexOf(pathFilter.getPathB());
+    if (indexA == -1 || indexB == -1) {
+      return ALWAYS_FALSE;
+    }
+    Op op = pathFilter.getOp();
+    DataType typeA = header.getField(indexA).getType();
+    DataType typeB = header.getField(indexB).getType();
+    if (isRegexOp(op)) {
+      return interpret(pathFilter);
+    }
+    if (typeA == typeB) {
+      return row -> {
+        Object valueA = row.getValue(indexA);
+        Object valueB = row.getValue(indexB);
+        return valueA != null
+            && valueB != null
+            && test(op, ValueUtils.compare(valueA, valueB, typeA));
+      };
+    } else if (ValueUtils.isNumericType(typeA) && ValueUtils.isNumericType(typeB)) {
+      return row -> {
+        Object valueA = row.getValue(indexA);
+        Object valueB = row.getValue(indexB);
+        return valueA != null
+            && valueB != null
+            && test(op, Double.compare(toDouble(valueA, typeA), toDouble(valueB, typeB)));
+      };
+    }
+    return ALWAYS_FALSE;
+  }
+
+  private static CompiledFilter compileInFilter(InFilter inFilter, Header header) {
+    String path = inFilter.getPath();
+    if (path.contains("*")) {
+      return interpret(inFilter);
+    }
+    int index = header.indexOf(path);
+    if (index == -1) {
+      return ALWAYS_FALSE;
+    }
+    Set<Value> values = inFilter.getValues();
+    boolean isNot = inFilter.getInOp().isNotOp();
+    return row -> {
+      Value value = row.getAsValue(index);
+      return !value.isNull() && isNot ^ values.contains(value);
+    };
+  }
+
+  private static boolean isRegexOp(Op op) {
+    switch (op) {
+      case LIKE:
+      case LIKE_AND:
+      case NOT_LIKE:
+      case NOT_LIKE_AND:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** 根据比较结果判断是否满足比较运算符 */
+  private static boolean test(Op op, int compareResult) {
+    switch (op) {
+      case E:
+      case E_AND:
+        return compareResult == 0;
+      case G:
+      case G_AND:
+        return compareResult > 0;
+      case L:
+      case L_AND:
+        return compareResult < 0;
+      case GE:
+      case GE_AND:
+        return compareResult >= 0;
+      case LE:
+      case LE_AND:
+        return compareResult <= 0;
+      case NE:
+      case NE_AND:
+        return compareResult != 0;
+      default:
+        return false;
+    }
+  }
+
+  /** 与 ValueUtils.transformToDouble 的转换方式保持一致 */
+  private static double toDouble(Object value, DataType type) {
+    switch (type) {
+      case INTEGER:
+        return ((Integer) value).doubleValue();
+      case LONG:
+        return ((Long) value).doubleValue();
+      case FLOAT:
+        return new BigDecimal(value.toString()).doubleValue();
+      case DOUBLE:
+        return (Double) value;
+      default:
+        throw new IllegalArgumentException("Unexpected dataType: " + type);
+    }
+  }
+}
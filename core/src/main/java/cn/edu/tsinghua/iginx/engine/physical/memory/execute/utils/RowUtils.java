@@ -38,10 +38,12 @@ import cn.edu.tsinghua.iginx.engine.shared.expr.Expression;
 import cn.edu.tsinghua.iginx.engine.shared.expr.KeyExpression;
 import cn.edu.tsinghua.iginx.engine.shared.function.FunctionCall;
 import cn.edu.tsinghua.iginx.engine.shared.function.FunctionParams;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionType;
 import cn.edu.tsinghua.iginx.engine.shared.function.FunctionUtils;
 import cn.edu.tsinghua.iginx.engine.shared.function.MappingFunction;
 import cn.edu.tsinghua.iginx.engine.shared.function.RowMappingFunction;
 import cn.edu.tsinghua.iginx.engine.shared.function.SetMappingFunction;
+import cn.edu.tsinghua.iginx.engine.shared.function.manager.PythonInterpreterPool;
 import cn.edu.tsinghua.iginx.engine.shared.function.system.First;
 import cn.edu.tsinghua.iginx.engine.shared.function.system.Last;
 import cn.edu.tsinghua.iginx.engine.shared.function.system.Max;
@@ -55,6 +57,7 @@ import cn.edu.tsinghua.iginx.thrift.DataType;
 import cn.edu.tsinghua.iginx.utils.Pair;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
@@ -78,6 +81,26 @@ public class RowUtils {
     }
   }
 
+  /** 按值的类型估算一行的大小，binary 取实际长度 */
+  public static long estimateSize(Row row) {
+    long size = Long.BYTES;
+    for (Object value : row.getValues()) {
+      if (value == null) {
+        continue;
+      }
+      if (value instanceof byte[]) {
+        size += ((byte[]) value).length;
+      } else if (value instanceof Long || value instanceof Double) {
+        size += Long.BYTES;
+      } else if (value instanceof Integer || value instanceof Float) {
+        size += Integer.BYTES;
+      } else {
+        size += 1;
+      }
+    }
+    return size;
+  }
+
   public static Row transform(Row row, Header targetHeader) {
     Object[] values = new Object[targetHeader.getFieldSize()];
     for (int i = 0; i < targetHeader.getFieldSize(); i++) {
@@ -208,6 +231,23 @@ public class RowUtils {
     return hashMap;
   }
 
+  /** 与 establishHashMap 相同，但哈希表中记录的是行在 rows 中的下标 */
+  public static HashMap<Integer, List<Integer>> establishIndexHashMap(
+      List<Row> rows, String joinPath, boolean needTypeCast) {
+    HashMap<Integer, List<Integer>> hashMap = new HashMap<>();
+    for (int i = 0; i < rows.size(); i++) {
+      Value value = rows.get(i).getAsValue(joinPath);
+      if (value == null || value.getValue() == null) {
+        continue;
+      }
+      int hash = getHash(value, needTypeCast);
+
+      List<Integer> l = hashMap.computeIfAbsent(hash, k -> new ArrayList<>());
+      l.add(i);
+    }
+    return hashMap;
+  }
+
   /**
    * @return <tt>-1</tt>: not sorted <tt>0</tt>: all rows equal <tt>1</tt>: ascending sorted
    *     <tt>2</tt>: descending sorted
@@ -644,10 +684,15 @@ public class RowUtils {
       GroupBy groupBy, List<Field> fields, Header header, Map<GroupByKey, List<Row>> groups)
       throws PhysicalException {
 
-    if (groups.size() > config.getParallelApplyFuncGroupsThreshold()) {
-      parallelApplyFunc(groupBy, fields, header, groups);
-    } else {
-      seqApplyFunc(groupBy, fields, header, groups);
+    for (FunctionCall functionCall : groupBy.getFunctionCallList()) {
+      if (groups.size() > 1 && isPooledUDF(functionCall)) {
+        // python udf 无法在 ForkJoinPool 中执行，交由解释器池按分组并行
+        pooledApplyFunc(functionCall, fields, header, groups);
+      } else if (groups.size() > config.getParallelApplyFuncGroupsThreshold()) {
+        parallelApplyFunc(functionCall, fields, header, groups);
+      } else {
+        seqApplyFunc(functionCall, fields, header, groups);
+      }
     }
 
     Header newHeader = new Header(fields);
@@ -670,141 +715,250 @@ public class RowUtils {
   }
 
   public static void seqApplyFunc(
-      GroupBy groupBy, List<Field> fields, Header header, Map<GroupByKey, List<Row>> groups)
+      FunctionCall functionCall,
+      List<Field> fields,
+      Header header,
+      Map<GroupByKey, List<Row>> groups)
       throws PhysicalException {
-    List<FunctionCall> functionCallList = groupBy.getFunctionCallList();
-    for (FunctionCall functionCall : functionCallList) {
-      SetMappingFunction function = (SetMappingFunction) functionCall.getFunction();
-      FunctionParams params = functionCall.getParams();
+    SetMappingFunction function = (SetMappingFunction) functionCall.getFunction();
+    FunctionParams params = functionCall.getParams();
 
-      Header tmpHeader = header;
-      boolean hasAddedFields = false;
-      for (Map.Entry<GroupByKey, List<Row>> entry : groups.entrySet()) {
-        List<Row> group = entry.getValue();
-        List<Row> transformedGroup;
-        if (functionCall.isNeedPreRowTransform()) {
-          List<FunctionCall> list = FunctionUtils.getArithFunctionCalls(params.getExpressions());
-          Table tmp = RowUtils.calRowTransform(new Table(header, group), list);
-          tmpHeader = tmp.getHeader();
-          transformedGroup = tmp.getRows();
-        } else {
-          transformedGroup = group;
-        }
+    Header tmpHeader = header;
+    boolean hasAddedFields = false;
+    for (Map.Entry<GroupByKey, List<Row>> entry : groups.entrySet()) {
+      List<Row> group = entry.getValue();
+      List<Row> transformedGroup;
+      if (functionCall.isNeedPreRowTransform()) {
+        List<FunctionCall> list = FunctionUtils.getArithFunctionCalls(params.getExpressions());
+        Table tmp = RowUtils.calRowTransform(new Table(header, group), list);
+        tmpHeader = tmp.getHeader();
+        transformedGroup = tmp.getRows();
+      } else {
+        transformedGroup = group;
+      }
 
-        if (params.isDistinct()) {
-          if (!isCanUseSetQuantifierFunction(function.getIdentifier())) {
-            throw new IllegalArgumentException(
-                "function " + function.getIdentifier() + " can't use DISTINCT");
-          }
-          // min和max无需去重
-          if (!function.getIdentifier().equals(Max.MAX)
-              && !function.getIdentifier().equals(Min.MIN)) {
-            transformedGroup = removeDuplicateRows(transformedGroup);
-          }
+      if (params.isDistinct()) {
+        if (!isCanUseSetQuantifierFunction(function.getIdentifier())) {
+          throw new IllegalArgumentException(
+              "function " + function.getIdentifier() + " can't use DISTINCT");
+        }
+        // min和max无需去重
+        if (!function.getIdentifier().equals(Max.MAX)
+            && !function.getIdentifier().equals(Min.MIN)) {
+          transformedGroup = removeDuplicateRows(transformedGroup);
         }
+      }
 
-        try {
-          Row row = function.transform(new Table(tmpHeader, transformedGroup), params);
-          if (row != null) {
-            entry.getKey().getFuncRet().addAll(Arrays.asList(row.getValues()));
-            if (!hasAddedFields) {
-              fields.addAll(row.getHeader().getFields());
-              hasAddedFields = true;
-            }
+      try {
+        Row row = function.transform(new Table(tmpHeader, transformedGroup), params);
+        if (row != null) {
+          entry.getKey().getFuncRet().addAll(Arrays.asList(row.getValues()));
+          if (!hasAddedFields) {
+            fields.addAll(row.getHeader().getFields());
+            hasAddedFields = true;
           }
-        } catch (Exception e) {
-          throw new PhysicalTaskExecuteFailureException(
-              "encounter error when execute set mapping function " + function.getIdentifier() + ".",
-              e);
         }
+      } catch (Exception e) {
+        throw new PhysicalTaskExecuteFailureException(
+            "encounter error when execute set mapping function " + function.getIdentifier() + ".",
+            e);
       }
     }
   }
 
-  private static void parallelApplyFunc(
-      GroupBy groupBy, List<Field> fields, Header header, Map<GroupByKey, List<Row>> groups)
+  /** 是否存在需要交由 Python 解释器池并行执行的 UDF */
+  public static boolean isPooledUDFApplicable(List<FunctionCall> functionCallList) {
+    for (FunctionCall functionCall : functionCallList) {
+      if (isPooledUDF(functionCall)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** 该函数是否为需要交由 Python 解释器池并行执行的 UDF */
+  public static boolean isPooledUDF(FunctionCall functionCall) {
+    return functionCall.getFunction().getFunctionType() == FunctionType.UDF
+        && PythonInterpreterPool.getInstance().isParallelEnabled();
+  }
+
+  private static void pooledApplyFunc(
+      FunctionCall functionCall,
+      List<Field> fields,
+      Header header,
+      Map<GroupByKey, List<Row>> groups)
       throws PhysicalException {
-    List<FunctionCall> functionCallList = groupBy.getFunctionCallList();
+    List<Map.Entry<GroupByKey, List<Row>>> entries = new ArrayList<>(groups.entrySet());
+    SetMappingFunction function = (SetMappingFunction) functionCall.getFunction();
+    FunctionParams params = functionCall.getParams();
+    checkSetQuantifier(function, params);
+
+    List<Callable<Row>> tasks = new ArrayList<>(entries.size());
+    for (Map.Entry<GroupByKey, List<Row>> entry : entries) {
+      List<Row> group = entry.getValue();
+      tasks.add(
+          () -> {
+            Table groupTable = new Table(header, group);
+            if (functionCall.isNeedPreRowTransform()) {
+              List<FunctionCall> list =
+                  FunctionUtils.getArithFunctionCalls(params.getExpressions());
+              groupTable = RowUtils.calRowTransform(groupTable, list);
+            }
+            return applySetMappingFunction(
+                function, params, groupTable.getHeader(), groupTable.getRows());
+          });
+    }
 
-    for (FunctionCall functionCall : functionCallList) {
-      CountDownLatch latch = new CountDownLatch(1);
-      SetMappingFunction function = (SetMappingFunction) functionCall.getFunction();
-      FunctionParams params = functionCall.getParams();
+    List<Row> rows = invokeSetMappingTasks(function, tasks);
+    boolean hasAddedFields = false;
+    for (int i = 0; i < rows.size(); i++) {
+      Row row = rows.get(i);
+      if (row == null) {
+        continue;
+      }
+      entries.get(i).getKey().getFuncRet().addAll(Arrays.asList(row.getValues()));
+      if (!hasAddedFields) {
+        fields.addAll(row.getHeader().getFields());
+        hasAddedFields = true;
+      }
+    }
+  }
 
-      AtomicBoolean hasAddedFields = new AtomicBoolean(false);
-      ForkJoinPool pool = null;
+  /** 检查函数能否使用 DISTINCT 修饰 */
+  public static void checkSetQuantifier(SetMappingFunction function, FunctionParams params) {
+    if (params.isDistinct() && !isCanUseSetQuantifierFunction(function.getIdentifier())) {
+      throw new IllegalArgumentException(
+          "function " + function.getIdentifier() + " can't use DISTINCT");
+    }
+  }
+
+  /** 在单个分组（窗口）上执行集合映射函数，必要时先对分组去重 */
+  public static Row applySetMappingFunction(
+      SetMappingFunction function, FunctionParams params, Header header, List<Row> group)
+      throws PhysicalException {
+    // min和max无需去重
+    if (params.isDistinct()
+        && !function.getIdentifier().equals(Max.MAX)
+        && !function.getIdentifier().equals(Min.MIN)) {
+      group = removeDuplicateRows(group);
+    }
+    try {
+      return function.transform(new Table(header, group), params);
+    } catch (Exception e) {
+      throw new PhysicalTaskExecuteFailureException(
+          "encounter error when execute set mapping function " + function.getIdentifier() + ".",
+          e);
+    }
+  }
+
+  /**
+   * 执行按分组拆分好的集合映射任务，返回结果与任务一一对应。Python UDF 分发到解释器池中并行执行，其余函数在当前线程串行执行
+   */
+  public static List<Row> invokeSetMappingTasks(
+      SetMappingFunction function, List<Callable<Row>> tasks) throws PhysicalException {
+    if (function.getFunctionType() == FunctionType.UDF
+        && tasks.size() > 1
+        && PythonInterpreterPool.getInstance().isParallelEnabled()) {
+      return PythonInterpreterPool.getInstance().invokeAll(tasks);
+    }
+    List<Row> rows = new ArrayList<>(tasks.size());
+    for (Callable<Row> task : tasks) {
       try {
-        // 我们可能需要一种退化情况：获取不到线程池的时候，直接串行执行
-        pool = poolQueue.take();
-        pool.submit(
-            () -> {
-              groups
-                  .entrySet()
-                  .parallelStream()
-                  .forEach(
-                      entry -> {
-                        List<Row> group = entry.getValue();
-                        Header tmpHeader = header;
-                        List<Row> transformedGroup = new ArrayList<>();
-                        if (functionCall.isNeedPreRowTransform()) {
-                          List<FunctionCall> list =
-                              FunctionUtils.getArithFunctionCalls(params.getExpressions());
+        rows.add(task.call());
+      } catch (PhysicalException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new PhysicalTaskExecuteFailureException(
+            "encounter error when execute set mapping function " + function.getIdentifier() + ".",
+            e);
+      }
+    }
+    return rows;
+  }
+
+  private static void parallelApplyFunc(
+      FunctionCall functionCall,
+      List<Field> fields,
+      Header header,
+      Map<GroupByKey, List<Row>> groups)
+      throws PhysicalException {
+    CountDownLatch latch = new CountDownLatch(1);
+    SetMappingFunction function = (SetMappingFunction) functionCall.getFunction();
+    FunctionParams params = functionCall.getParams();
+
+    AtomicBoolean hasAddedFields = new AtomicBoolean(false);
+    ForkJoinPool pool = null;
+    try {
+      // 我们可能需要一种退化情况：获取不到线程池的时候，直接串行执行
+      pool = poolQueue.take();
+      pool.submit(
+          () -> {
+            groups
+                .entrySet()
+                .parallelStream()
+                .forEach(
+                    entry -> {
+                      List<Row> group = entry.getValue();
+                      Header tmpHeader = header;
+                      List<Row> transformedGroup = new ArrayList<>();
+                      if (functionCall.isNeedPreRowTransform()) {
+                        List<FunctionCall> list =
+                            FunctionUtils.getArithFunctionCalls(params.getExpressions());
+                        try {
+                          Table tmp = RowUtils.calRowTransform(new Table(header, group), list);
+                          tmpHeader = tmp.getHeader();
+                          transformedGroup.addAll(tmp.getRows());
+                        } catch (PhysicalException e) {
+                          LOGGER.error(
+                              "encounter error when execute set mapping function parameters");
+                        }
+                      } else {
+                        transformedGroup = group;
+                      }
+
+                      if (params.isDistinct()) {
+                        if (!isCanUseSetQuantifierFunction(function.getIdentifier())) {
+                          throw new IllegalArgumentException(
+                              "function " + function.getIdentifier() + " can't use DISTINCT");
+                        }
+                        // min和max无需去重
+                        if (!function.getIdentifier().equals(Max.MAX)
+                            && !function.getIdentifier().equals(Min.MIN)) {
                           try {
-                            Table tmp = RowUtils.calRowTransform(new Table(header, group), list);
-                            tmpHeader = tmp.getHeader();
-                            transformedGroup.addAll(tmp.getRows());
+                            transformedGroup = removeDuplicateRows(transformedGroup);
                           } catch (PhysicalException e) {
                             LOGGER.error(
-                                "encounter error when execute set mapping function parameters");
-                          }
-                        } else {
-                          transformedGroup = group;
-                        }
-
-                        if (params.isDistinct()) {
-                          if (!isCanUseSetQuantifierFunction(function.getIdentifier())) {
-                            throw new IllegalArgumentException(
-                                "function " + function.getIdentifier() + " can't use DISTINCT");
-                          }
-                          // min和max无需去重
-                          if (!function.getIdentifier().equals(Max.MAX)
-                              && !function.getIdentifier().equals(Min.MIN)) {
-                            try {
-                              transformedGroup = removeDuplicateRows(transformedGroup);
-                            } catch (PhysicalException e) {
-                              LOGGER.error(
-                                  "encounter error when execute distinct in set mapping function");
-                            }
+                                "encounter error when execute distinct in set mapping function");
                           }
                         }
-
-                        try {
-                          Row row =
-                              function.transform(new Table(tmpHeader, transformedGroup), params);
-                          if (row != null) {
-                            entry.getKey().getFuncRet().addAll(Arrays.asList(row.getValues()));
-                            if (hasAddedFields.compareAndSet(false, true)) {
-                              fields.addAll(row.getHeader().getFields());
-                            }
+                      }
+
+                      try {
+                        Row row =
+                            function.transform(new Table(tmpHeader, transformedGroup), params);
+                        if (row != null) {
+                          entry.getKey().getFuncRet().addAll(Arrays.asList(row.getValues()));
+                          if (hasAddedFields.compareAndSet(false, true)) {
+                            fields.addAll(row.getHeader().getFields());
                           }
-                        } catch (Exception e) {
-                          LOGGER.error("encounter error when execute set mapping function ");
                         }
-                      });
-              latch.countDown();
-            });
+                      } catch (Exception e) {
+                        LOGGER.error("encounter error when execute set mapping function ");
+                      }
+                    });
+            latch.countDown();
+          });
 
-        try {
-          latch.await();
-        } catch (InterruptedException e) {
-          throw new PhysicalException("Interrupt when latch await ", e);
-        }
+      try {
+        latch.await();
       } catch (InterruptedException e) {
-        throw new PhysicalException("Interrupt when parallel apply func", e);
-      } finally {
-        if (pool != null) {
-          poolQueue.add(pool);
-        }
+        throw new PhysicalException("Interrupt when latch await ", e);
+      }
+    } catch (InterruptedException e) {
+      throw new PhysicalException("Interrupt when parallel apply func", e);
+    } finally {
+      if (pool != null) {
+        poolQueue.add(pool);
       }
     }
   }
@@ -867,6 +1021,14 @@ public class RowUtils {
 
   public static List<Row> cacheFilterResult(List<Row> rows, Filter filter)
       throws PhysicalException {
+    if (rows.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return cacheFilterResult(rows, FilterCompiler.compile(filter, rows.get(0).getHeader()));
+  }
+
+  public static List<Row> cacheFilterResult(List<Row> rows, CompiledFilter filter)
+      throws PhysicalException {
     if (rows.size() > config.getParallelFilterThreshold()) {
       ForkJoinPool pool = null;
       try {
@@ -875,7 +1037,7 @@ public class RowUtils {
             .filter(
                 row -> {
                   try {
-                    return FilterUtils.validate(filter, row);
+                    return filter.validate(row);
                   } catch (PhysicalException e) {
                     LOGGER.error("execute parallel filter error, cause by: ", e);
                     return false;
@@ -894,7 +1056,7 @@ public class RowUtils {
           .filter(
               row -> {
                 try {
-                  return FilterUtils.validate(filter, row);
+                  return filter.validate(row);
                 } catch (PhysicalException e) {
                   LOGGER.error("execute sequence filter error, cause by: ", e);
                   return false;
@@ -37,4 +37,7 @@ public interface MemoryPhysicalTaskQueue {
    * @return 距今最久的未执行的计划
    */
   MemoryPhysicalTask getTask();
+
+  /** 队列中等待调度的任务数 */
+  int size();
 }
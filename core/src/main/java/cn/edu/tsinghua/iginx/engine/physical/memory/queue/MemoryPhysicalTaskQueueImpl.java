@@ -45,4 +45,9 @@ public class MemoryPhysicalTaskQueueImpl implements MemoryPhysicalTaskQueue {
     }
     return null;
   }
+
+  @Override
+  public int size() {
+    return tasks.size();
+  }
 }
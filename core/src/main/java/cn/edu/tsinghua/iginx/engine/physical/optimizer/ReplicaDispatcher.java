@@ -24,4 +24,14 @@ import cn.edu.tsinghua.iginx.engine.physical.task.StoragePhysicalTask;
 public interface ReplicaDispatcher {
 
   String chooseReplica(StoragePhysicalTask task);
+
+  /** 为查询选择发送对冲请求的副本，返回 null 表示不发送对冲请求 */
+  default String chooseHedgeReplica(StoragePhysicalTask task, String primaryReplica) {
+    return null;
+  }
+
+  /** 发送对冲请求前等待的时间（毫秒） */
+  default long getHedgeDelayMs(StoragePhysicalTask task, String primaryReplica) {
+    return Long.MAX_VALUE;
+  }
 }
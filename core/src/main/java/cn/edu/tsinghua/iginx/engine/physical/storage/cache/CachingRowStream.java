@@ -0,0 +1,94 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.storage.cache;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtils;
+import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/** 在下游消费的同时收集结果，只有完整读完且未超过单条缓存大小上限时才写入缓存 */
+class CachingRowStream implements RowStream {
+
+  private final RowStream stream;
+
+  private final QueryResultCache cache;
+
+  private final QueryResultCache.Key key;
+
+  private List<Row> rows = new ArrayList<>();
+
+  private long weight = 0;
+
+  CachingRowStream(RowStream stream, QueryResultCache cache, QueryResultCache.Key key) {
+    this.stream = stream;
+    this.cache = cache;
+    this.key = key;
+  }
+
+  @Override
+  public Header getHeader() throws PhysicalException {
+    return stream.getHeader();
+  }
+
+  @Override
+  public void close() throws PhysicalException {
+    rows = null;
+    stream.close();
+  }
+
+  @Override
+  public boolean hasNext() throws PhysicalException {
+    boolean hasNext = stream.hasNext();
+    if (!hasNext && rows != null) {
+      cache.put(key, stream.getHeader(), rows, weight);
+      rows = null;
+    }
+    return hasNext;
+  }
+
+  @Override
+  public Row next() throws PhysicalException {
+    Row row = stream.next();
+    if (rows != null) {
+      weight += RowUtils.estimateSize(row) + QueryResultCache.ROW_OVERHEAD;
+      if (weight > cache.getMaxEntrySize()) {
+        rows = null;
+      } else {
+        rows.add(row);
+      }
+    }
+    return row;
+  }
+
+  @Override
+  public void setContext(RequestContext context) {
+    stream.setContext(context);
+  }
+
+  @Override
+  public RequestContext getContext() {
+    return stream.getContext();
+  }
+}
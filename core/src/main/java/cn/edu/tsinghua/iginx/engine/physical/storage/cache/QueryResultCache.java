@@ -0,0 +1,276 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.storage.cache;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskExecuteResult;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Project;
+import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.metrics.Counter;
+import cn.edu.tsinghua.iginx.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分片级别的查询结果缓存
+ *
+ * <p>只缓存已封闭分片（键区间有上界）上 Project 或 Project + Select 的存储任务结果，键为分片标识与规范化后的算子描述。最新分片上的查询每次都会重新读取，
+ * 而其余分片的结果可以直接复用。本节点执行的写入与删除会使涉及的分片缓存失效；其他节点的写入感知不到，依靠有效期兜底。
+ */
+public class QueryResultCache {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  // Row 对象与值数组本身的开销
+  static final long ROW_OVERHEAD = 48;
+
+  private final boolean enabled;
+
+  private final long capacity;
+
+  private final long maxEntrySize;
+
+  private final long ttlMs;
+
+  // access order 即为 LRU 顺序
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long size = 0;
+
+  // 分片标识 -> 版本号，写入或删除后递增，用于丢弃与写入并发的读取结果
+  private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private final Counter evictions;
+
+  private QueryResultCache() {
+    this.enabled = config.isEnableQueryResultCache();
+    this.capacity = config.getQueryResultCacheCapacity();
+    this.maxEntrySize = Math.min(config.getQueryResultCacheMaxEntrySize(), capacity);
+    this.ttlMs = config.getQueryResultCacheTtlMs();
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    this.hits = registry.counter("iginx_query_result_cache_hits_total", "Query result cache hits");
+    this.misses =
+        registry.counter("iginx_query_result_cache_misses_total", "Query result cache misses");
+    this.evictions =
+        registry.counter(
+            "iginx_query_result_cache_evictions_total", "Query result cache evictions");
+    registry.gauge(
+        "iginx_query_result_cache_bytes", "Estimated size of cached query results", this::size);
+  }
+
+  public static QueryResultCache getInstance() {
+    return QueryResultCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * 为存储任务生成缓存键，任务不可缓存时返回 null
+   *
+   * <p>需要在任务开始读取数据之前调用，以便记录当时的分片版本
+   */
+  public Key createKey(FragmentMeta fragment, List<Operator> operators) {
+    if (!enabled || fragment == null || fragment.getKeyInterval().getEndKey() == Long.MAX_VALUE) {
+      return null;
+    }
+    StringBuilder builder = new StringBuilder(fragment.getFragmentId());
+    for (Operator operator : operators) {
+      builder.append('|');
+      if (operator.getType() == OperatorType.Project) {
+        Project project = (Project) operator;
+        builder
+            .append("Project")
+            .append(project.getPatterns())
+            .append(project.getTagFilter())
+            .append(project.isRemainKey())
+            .append(project.isNeedSelectedPath());
+      } else if (operator.getType() == OperatorType.Select) {
+        builder.append("Select ").append(operator.getInfo());
+      } else {
+        return null;
+      }
+    }
+    String fragmentId = fragment.getFragmentId();
+    return new Key(builder.toString(), fragment, getVersion(fragmentId).get());
+  }
+
+  private AtomicLong getVersion(String fragmentId) {
+    return versions.computeIfAbsent(fragmentId, k -> new AtomicLong());
+  }
+
+  /** 命中时返回缓存结果的一个新的结果流 */
+  public RowStream get(Key key) {
+    if (key == null) {
+      return null;
+    }
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key.key);
+      if (entry != null && System.currentTimeMillis() - entry.createTime > ttlMs) {
+        remove(key.key);
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.inc();
+      return null;
+    }
+    hits.inc();
+    // Header 内部缓存了模式匹配结果且不是线程安全的，每次命中都使用新的 Header，不与其他查询共享
+    Header header = new Header(entry.header.getKey(), new ArrayList<>(entry.header.getFields()));
+    List<Row> rows = new ArrayList<>(entry.rows.size());
+    for (Row row : entry.rows) {
+      rows.add(new Row(header, row.getKey(), row.getValues()));
+    }
+    return new Table(header, rows);
+  }
+
+  /** 在结果流被完整消费后将结果写入缓存 */
+  public TaskExecuteResult cacheOnRead(Key key, TaskExecuteResult result) {
+    if (key == null || result.getException() != null) {
+      return result;
+    }
+    RowStream stream = result.getRowStream();
+    if (stream != null) {
+      result.setRowStream(new CachingRowStream(stream, this, key));
+    }
+    return result;
+  }
+
+  long getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  void put(Key key, Header header, List<Row> rows, long weight) {
+    if (weight > maxEntrySize) {
+      return;
+    }
+    synchronized (this) {
+      // 读取期间分片被写入过，结果可能不完整
+      if (getVersion(key.fragment.getFragmentId()).get() != key.version) {
+        return;
+      }
+      remove(key.key);
+      entries.put(key.key, new Entry(key.fragment, header, rows, weight));
+      size += weight;
+      Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+      while (size > capacity && it.hasNext()) {
+        size -= it.next().getValue().weight;
+        it.remove();
+        evictions.inc();
+      }
+    }
+  }
+
+  /** 写入或删除涉及该分片后调用，移除键区间与列区间有重叠的分片上的缓存 */
+  public void invalidate(FragmentMeta fragment) {
+    if (!enabled || fragment == null) {
+      return;
+    }
+    getVersion(fragment.getFragmentId()).incrementAndGet();
+    synchronized (this) {
+      Iterator<Entry> it = entries.values().iterator();
+      while (it.hasNext()) {
+        Entry entry = it.next();
+        if (entry.fragment.getKeyInterval().isIntersect(fragment.getKeyInterval())
+            && entry.fragment.getColumnsInterval().isIntersect(fragment.getColumnsInterval())) {
+          size -= entry.weight;
+          it.remove();
+        }
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  public synchronized long size() {
+    return size;
+  }
+
+  private void remove(String key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      size -= entry.weight;
+    }
+  }
+
+  public static class Key {
+
+    private final String key;
+
+    private final FragmentMeta fragment;
+
+    private final long version;
+
+    private Key(String key, FragmentMeta fragment, long version) {
+      this.key = key;
+      this.fragment = fragment;
+      this.version = version;
+    }
+  }
+
+  private static class Entry {
+
+    private final FragmentMeta fragment;
+
+    private final Header header;
+
+    private final List<Row> rows;
+
+    private final long weight;
+
+    private final long createTime = System.currentTimeMillis();
+
+    private Entry(FragmentMeta fragment, Header header, List<Row> rows, long weight) {
+      this.fragment = fragment;
+      this.header = header;
+      this.rows = rows;
+      this.weight = weight;
+    }
+  }
+
+  private static class QueryResultCacheHolder {
+
+    private static final QueryResultCache INSTANCE = new QueryResultCache();
+
+    private QueryResultCacheHolder() {}
+  }
+}
@@ -0,0 +1,371 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.storage.cache;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.storage.IStorage;
+import cn.edu.tsinghua.iginx.engine.physical.storage.domain.Column;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.DataView;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.TagFilter;
+import cn.edu.tsinghua.iginx.metadata.entity.StorageEngineMeta;
+import cn.edu.tsinghua.iginx.metrics.Counter;
+import cn.edu.tsinghua.iginx.metrics.MetricsRegistry;
+import cn.edu.tsinghua.iginx.utils.StringUtils;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * 存储引擎列信息目录
+ *
+ * <p>每个存储引擎的全部列在首次 SHOW COLUMNS 时加载一次，按路径分段组织成前缀树，之后在有效期内直接在本地匹配：模式中第一个含有 * 的分段之前的部分沿树定位，
+ * 只对剩余子树做通配匹配。本节点写入的新列会增量加入目录，删除会使对应存储引擎的目录失效。加载期间发生的写入会被记录并合并进新目录。
+ *
+ * <p>目录同时维护标签倒排索引，带有标签过滤的匹配先由索引得到候选列，再对候选列做路径匹配，而不必遍历全部列。
+ */
+public class SchemaCatalog {
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private final boolean enabled;
+
+  private final long ttlMs;
+
+  private final Map<Long, EngineCatalog> catalogs = new ConcurrentHashMap<>();
+
+  private final ExecutorService refreshPool;
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private SchemaCatalog() {
+    this.enabled = config.isEnableSchemaCatalog();
+    this.ttlMs = config.getSchemaCatalogTtlMs();
+    this.refreshPool =
+        Executors.newFixedThreadPool(Math.max(1, config.getSchemaCatalogThreadNum()));
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    this.hits = registry.counter("iginx_schema_catalog_hits_total", "Schema catalog hits");
+    this.misses = registry.counter("iginx_schema_catalog_misses_total", "Schema catalog misses");
+  }
+
+  public static SchemaCatalog getInstance() {
+    return SchemaCatalogHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** 并行获取各存储引擎列信息使用的线程池 */
+  public ExecutorService getRefreshPool() {
+    return refreshPool;
+  }
+
+  /**
+   * 获取存储引擎上与模式和标签过滤匹配的列，返回的列可以被调用方修改
+   *
+   * @param patterns 已去掉 schemaPrefix 并与 dataPrefix 求交的模式，为空表示所有列
+   */
+  public List<Column> getColumns(
+      StorageEngineMeta meta, IStorage storage, Set<String> patterns, TagFilter tagFilter)
+      throws PhysicalException {
+    if (!enabled) {
+      return storage.getColumns(patterns, tagFilter);
+    }
+    EngineCatalog catalog = catalogs.computeIfAbsent(meta.getId(), k -> new EngineCatalog());
+    synchronized (catalog) {
+      if (catalog.root != null && System.currentTimeMillis() - catalog.loadTime <= ttlMs) {
+        hits.inc();
+        return catalog.match(patterns, tagFilter);
+      }
+    }
+    misses.inc();
+    load(meta, storage, catalog);
+    synchronized (catalog) {
+      if (catalog.root == null) {
+        // 加载期间目录被删除操作置为失效，直接查询数据源
+        return storage.getColumns(patterns, tagFilter);
+      }
+      return catalog.match(patterns, tagFilter);
+    }
+  }
+
+  /**
+   * 利用目录将查询的模式和标签过滤解析为确切的列路径（不含 dummy 列），用于缩小下推到存储引擎的 Project 的范围
+   *
+   * @return 目录未启用、未加载或已过期时返回 null，此时由存储引擎自行解析
+   */
+  public Set<String> resolvePaths(
+      long storageId, Collection<String> patterns, TagFilter tagFilter) {
+    if (!enabled) {
+      return null;
+    }
+    EngineCatalog catalog = catalogs.get(storageId);
+    if (catalog == null) {
+      return null;
+    }
+    List<Column> columns;
+    synchronized (catalog) {
+      if (catalog.root == null || System.currentTimeMillis() - catalog.loadTime > ttlMs) {
+        return null;
+      }
+      columns = catalog.match(new HashSet<>(patterns), tagFilter);
+    }
+    Set<String> paths = new LinkedHashSet<>();
+    for (Column column : columns) {
+      if (!column.isDummy()) {
+        paths.add(column.getPath());
+      }
+    }
+    return paths;
+  }
+
+  private void load(StorageEngineMeta meta, IStorage storage, EngineCatalog catalog)
+      throws PhysicalException {
+    synchronized (catalog.loadLock) {
+      synchronized (catalog) {
+        // 等待加载锁期间其他查询已完成加载
+        if (catalog.root != null && System.currentTimeMillis() - catalog.loadTime <= ttlMs) {
+          return;
+        }
+        catalog.pending = new ArrayList<>();
+        catalog.invalidated = false;
+      }
+      Set<String> loadPatterns =
+          StringUtils.intersectDataPrefix(meta.getDataPrefix(), Collections.singleton("*"));
+      if (loadPatterns.contains("*")) {
+        loadPatterns = Collections.emptySet();
+      }
+      long loadTime = System.currentTimeMillis();
+      List<Column> columns;
+      try {
+        columns = storage.getColumns(loadPatterns, null);
+      } catch (PhysicalException e) {
+        synchronized (catalog) {
+          catalog.pending = null;
+        }
+        throw e;
+      }
+      synchronized (catalog) {
+        if (!catalog.invalidated) {
+          catalog.rebuild(columns, loadTime);
+        }
+        catalog.pending = null;
+      }
+    }
+  }
+
+  /** 写入成功后调用，将数据中的新列加入对应存储引擎的目录 */
+  public void onInsert(long storageId, DataView data) {
+    if (!enabled) {
+      return;
+    }
+    EngineCatalog catalog = catalogs.get(storageId);
+    if (catalog == null) {
+      return;
+    }
+    synchronized (catalog) {
+      if (catalog.root == null && catalog.pending == null) {
+        return;
+      }
+      for (int i = 0; i < data.getPathNum(); i++) {
+        Column column = new Column(data.getPath(i), data.getDataType(i), data.getTags(i));
+        if (catalog.root != null) {
+          catalog.add(column);
+        }
+        if (catalog.pending != null) {
+          catalog.pending.add(column);
+        }
+      }
+    }
+  }
+
+  /** 删除数据或列后调用，下次查询时重新加载该存储引擎的目录 */
+  public void invalidate(long storageId) {
+    if (!enabled) {
+      return;
+    }
+    EngineCatalog catalog = catalogs.get(storageId);
+    if (catalog == null) {
+      return;
+    }
+    synchronized (catalog) {
+      catalog.clear();
+      catalog.invalidated = true;
+    }
+  }
+
+  public void clear() {
+    catalogs.keySet().forEach(this::invalidate);
+  }
+
+  private static Column copy(Column column) {
+    return new Column(
+        column.getPath(), column.getDataType(), column.getTags(), column.isDummy());
+  }
+
+  /** 单个存储引擎的列目录，所有字段都在对象锁内访问 */
+  private static class EngineCatalog {
+
+    // 保证同一存储引擎同时只有一个加载任务
+    private final Object loadLock = new Object();
+
+    private Node root;
+
+    // 列的物理路径（包含标签），用于判断写入的列是否已存在
+    private Set<String> physicalPaths;
+
+    // 按编号排列的列，编号即列在标签倒排索引中的位置
+    private List<Column> columns;
+
+    private TagIndex tagIndex;
+
+    private long loadTime;
+
+    // 加载期间写入的列，为 null 表示当前没有加载任务
+    private List<Column> pending;
+
+    private boolean invalidated;
+
+    private void rebuild(List<Column> columns, long loadTime) {
+      this.root = new Node();
+      this.physicalPaths = new HashSet<>();
+      this.columns = new ArrayList<>(columns.size());
+      this.tagIndex = new TagIndex();
+      this.loadTime = loadTime;
+      columns.forEach(this::add);
+      pending.forEach(this::add);
+    }
+
+    private void clear() {
+      this.root = null;
+      this.physicalPaths = null;
+      this.columns = null;
+      this.tagIndex = null;
+    }
+
+    private void add(Column column) {
+      if (!physicalPaths.add(column.getPhysicalPath())) {
+        return;
+      }
+      Node node = root;
+      for (String segment : column.getPath().split("\\.")) {
+        node = node.children.computeIfAbsent(segment, k -> new Node());
+      }
+      node.columns.add(column);
+      tagIndex.add(columns.size(), column.getTags());
+      columns.add(column);
+    }
+
+    private List<Column> match(Set<String> patterns, TagFilter tagFilter) {
+      if (tagFilter != null) {
+        return matchByTags(patterns, tagFilter);
+      }
+      Set<Column> matched = new LinkedHashSet<>();
+      if (patterns.isEmpty()) {
+        collect(root, null, matched);
+      }
+      for (String pattern : patterns) {
+        String[] segments = pattern.split("\\.");
+        Node node = root;
+        int index = 0;
+        while (node != null && index < segments.length && !segments[index].contains("*")) {
+          node = node.children.get(segments[index]);
+          index++;
+        }
+        if (node == null) {
+          continue;
+        }
+        if (index == segments.length) {
+          // 不含通配符的模式只匹配该路径本身
+          matched.addAll(node.columns);
+        } else {
+          collect(node, StringUtils.toColumnMatcher(pattern), matched);
+        }
+      }
+      List<Column> result = new ArrayList<>(matched.size());
+      matched.forEach(column -> result.add(copy(column)));
+      return result;
+    }
+
+    /** 先由标签倒排索引得到候选列，再对候选列做路径匹配 */
+    private List<Column> matchByTags(Set<String> patterns, TagFilter tagFilter) {
+      Set<String> exactPaths = new HashSet<>();
+      List<Predicate<String>> matchers = new ArrayList<>();
+      for (String pattern : patterns) {
+        if (StringUtils.isPattern(pattern)) {
+          matchers.add(StringUtils.toColumnMatcher(pattern));
+        } else {
+          exactPaths.add(pattern);
+        }
+      }
+      List<Column> result = new ArrayList<>();
+      BitSet ids = tagIndex.evaluate(tagFilter);
+      for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+        Column column = columns.get(id);
+        if (patterns.isEmpty()
+            || exactPaths.contains(column.getPath())
+            || matchers.stream().anyMatch(matcher -> matcher.test(column.getPath()))) {
+          result.add(copy(column));
+        }
+      }
+      return result;
+    }
+
+    private static void collect(Node node, Predicate<String> matcher, Set<Column> matched) {
+      for (Column column : node.columns) {
+        if (matcher == null || matcher.test(column.getPath())) {
+          matched.add(column);
+        }
+      }
+      for (Node child : node.children.values()) {
+        collect(child, matcher, matched);
+      }
+    }
+  }
+
+  private static class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+
+    private final List<Column> columns = new ArrayList<>(1);
+  }
+
+  private static class SchemaCatalogHolder {
+
+    private static final SchemaCatalog INSTANCE = new SchemaCatalog();
+
+    private SchemaCatalogHolder() {}
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.storage.cache;
+
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.AndTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.BasePreciseTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.BaseTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.OrTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.PreciseTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.TagFilter;
+import cn.edu.tsinghua.iginx.utils.StringUtils;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 标签倒排索引：tagKey -> tagValue -> 列编号位图
+ *
+ * <p>标签过滤按位图求交/并计算，结果与 TagKVUtils.match 的语义一致。列编号由调用方分配，索引只增不减，删除由调用方整体重建处理。
+ */
+class TagIndex {
+
+  private final Map<String, Map<String, BitSet>> postings = new HashMap<>();
+
+  // 带有标签的列
+  private final BitSet tagged = new BitSet();
+
+  // 没有标签的列
+  private final BitSet untagged = new BitSet();
+
+  // 每个列的标签数，用于精确匹配
+  private final Map<Integer, BitSet> tagCounts = new HashMap<>();
+
+  void add(int id, Map<String, String> tags) {
+    if (tags == null || tags.isEmpty()) {
+      untagged.set(id);
+      return;
+    }
+    tagged.set(id);
+    tagCounts.computeIfAbsent(tags.size(), k -> new BitSet()).set(id);
+    tags.forEach(
+        (key, value) ->
+            postings
+                .computeIfAbsent(key, k -> new HashMap<>())
+                .computeIfAbsent(value, k -> new BitSet())
+                .set(id));
+  }
+
+  /** 返回满足标签过滤的列编号，返回的位图可以被调用方修改 */
+  BitSet evaluate(TagFilter tagFilter) {
+    switch (tagFilter.getType()) {
+      case And:
+        return evaluateAnd(((AndTagFilter) tagFilter).getChildren());
+      case Or:
+        return evaluateOr(((OrTagFilter) tagFilter).getChildren());
+      case Base:
+        return evaluate((BaseTagFilter) tagFilter);
+      case Precise:
+        return evaluateOr(((PreciseTagFilter) tagFilter).getChildren());
+      case BasePrecise:
+        return evaluate((BasePreciseTagFilter) tagFilter);
+      case WithoutTag:
+        return (BitSet) untagged.clone();
+    }
+    return new BitSet();
+  }
+
+  private BitSet evaluateAnd(List<? extends TagFilter> children) {
+    // 与 TagKVUtils 一致：复合过滤条件不匹配没有标签的列
+    BitSet result = (BitSet) tagged.clone();
+    for (TagFilter child : children) {
+      if (result.isEmpty()) {
+        break;
+      }
+      result.and(evaluate(child));
+    }
+    return result;
+  }
+
+  private BitSet evaluateOr(List<? extends TagFilter> children) {
+    BitSet result = new BitSet();
+    for (TagFilter child : children) {
+      result.or(evaluate(child));
+    }
+    result.and(tagged);
+    return result;
+  }
+
+  private BitSet evaluate(BaseTagFilter tagFilter) {
+    BitSet result = new BitSet();
+    Map<String, BitSet> values = postings.get(tagFilter.getTagKey());
+    if (values == null) {
+      return result;
+    }
+    String expectedValue = tagFilter.getTagValue();
+    if (!StringUtils.isPattern(expectedValue)) {
+      BitSet ids = values.get(expectedValue);
+      if (ids != null) {
+        result.or(ids);
+      }
+      return result;
+    }
+    Pattern pattern = Pattern.compile(StringUtils.reformatPath(expectedValue));
+    values.forEach(
+        (value, ids) -> {
+          if (pattern.matcher(value).matches()) {
+            result.or(ids);
+          }
+        });
+    return result;
+  }
+
+  private BitSet evaluate(BasePreciseTagFilter tagFilter) {
+    Map<String, String> tags = tagFilter.getTags();
+    BitSet result = new BitSet();
+    if (tags == null || tags.isEmpty() || !tagCounts.containsKey(tags.size())) {
+      return result;
+    }
+    result.or(tagCounts.get(tags.size()));
+    for (Map.Entry<String, String> entry : tags.entrySet()) {
+      Map<String, BitSet> values = postings.get(entry.getKey());
+      BitSet ids = values == null ? null : values.get(entry.getValue());
+      if (ids == null) {
+        return new BitSet();
+      }
+      result.and(ids);
+    }
+    return result;
+  }
+}
@@ -31,6 +31,8 @@ import cn.edu.tsinghua.iginx.engine.physical.memory.execute.OperatorMemoryExecut
 import cn.edu.tsinghua.iginx.engine.physical.optimizer.ReplicaDispatcher;
 import cn.edu.tsinghua.iginx.engine.physical.storage.IStorage;
 import cn.edu.tsinghua.iginx.engine.physical.storage.StorageManager;
+import cn.edu.tsinghua.iginx.engine.physical.storage.cache.QueryResultCache;
+import cn.edu.tsinghua.iginx.engine.physical.storage.cache.SchemaCatalog;
 import cn.edu.tsinghua.iginx.engine.physical.storage.domain.Column;
 import cn.edu.tsinghua.iginx.engine.physical.storage.domain.DataArea;
 import cn.edu.tsinghua.iginx.engine.physical.storage.queue.StoragePhysicalTaskQueue;
@@ -38,6 +40,7 @@ import cn.edu.tsinghua.iginx.engine.physical.task.GlobalPhysicalTask;
 import cn.edu.tsinghua.iginx.engine.physical.task.MemoryPhysicalTask;
 import cn.edu.tsinghua.iginx.engine.physical.task.StoragePhysicalTask;
 import cn.edu.tsinghua.iginx.engine.physical.task.TaskExecuteResult;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskMetrics;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
 import cn.edu.tsinghua.iginx.engine.shared.operator.*;
 import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
@@ -48,15 +51,22 @@ import cn.edu.tsinghua.iginx.metadata.entity.StorageEngineMeta;
 import cn.edu.tsinghua.iginx.metadata.entity.StorageUnitMeta;
 import cn.edu.tsinghua.iginx.metadata.hook.StorageEngineChangeHook;
 import cn.edu.tsinghua.iginx.metadata.hook.StorageUnitHook;
-import cn.edu.tsinghua.iginx.monitor.HotSpotMonitor;
-import cn.edu.tsinghua.iginx.monitor.RequestsMonitor;
+import cn.edu.tsinghua.iginx.metadata.statistics.DataStatisticsManager;
+import cn.edu.tsinghua.iginx.metrics.Counter;
+import cn.edu.tsinghua.iginx.metrics.Histogram;
+import cn.edu.tsinghua.iginx.metrics.MetricsRegistry;
+import cn.edu.tsinghua.iginx.monitor.FragmentHeatTracker;
 import cn.edu.tsinghua.iginx.utils.Pair;
 import cn.edu.tsinghua.iginx.utils.StringUtils;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,6 +86,10 @@ public class StoragePhysicalTaskExecutor {
 
   private final Map<String, ExecutorService> dispatchers = new ConcurrentHashMap<>();
 
+  private final QueryResultCache resultCache = QueryResultCache.getInstance();
+
+  private final SchemaCatalog schemaCatalog = SchemaCatalog.getInstance();
+
   private ReplicaDispatcher replicaDispatcher;
 
   private MemoryPhysicalTaskDispatcher memoryTaskExecutor;
@@ -83,6 +97,15 @@ public class StoragePhysicalTaskExecutor {
   private final int maxCachedPhysicalTaskPerStorage =
       ConfigDescriptor.getInstance().getConfig().getMaxCachedPhysicalTaskPerStorage();
 
+  private final boolean enableMetrics =
+      ConfigDescriptor.getInstance().getConfig().isEnableMetrics();
+
+  private final Map<String, StorageUnitMetrics> storageUnitMetrics = new ConcurrentHashMap<>();
+
+  // 用于延迟发送对冲查询
+  private final ScheduledExecutorService hedgeScheduler =
+      Executors.newSingleThreadScheduledExecutor();
+
   private StoragePhysicalTaskExecutor() {
     StorageUnitHook storageUnitHook =
         (before, after) -> {
@@ -97,6 +120,8 @@ public class StoragePhysicalTaskExecutor {
             // 为拥有该分片的存储创建一个调度线程，用于调度任务执行
             ExecutorService dispatcher = Executors.newSingleThreadExecutor();
             long storageId = after.getStorageEngineId();
+            StorageUnitMetrics unitMetrics =
+                enableMetrics ? registerMetrics(id, getEngineType(storageId)) : null;
             dispatchers.put(id, dispatcher);
             dispatcher.submit(
                 () -> {
@@ -118,8 +143,10 @@ public class StoragePhysicalTaskExecutor {
                       task.setStorageUnit(id);
                       task.setDummyStorageUnit(isDummy);
                       if (pair.v.getQueue().size() > maxCachedPhysicalTaskPerStorage) {
-                        task.setResult(
-                            new TaskExecuteResult(new TooManyPhysicalTasksException(storageId)));
+                        if (task.markFinished()) {
+                          task.setResult(
+                              new TaskExecuteResult(new TooManyPhysicalTasksException(storageId)));
+                        }
                         continue;
                       }
                       if (isCancelled(task.getSessionId())) {
@@ -130,8 +157,14 @@ public class StoragePhysicalTaskExecutor {
                       pair.v.submit(
                           () -> {
                             TaskExecuteResult result = null;
-                            long taskId = System.nanoTime();
                             long startTime = System.currentTimeMillis();
+                            long startNanos = System.nanoTime();
+                            boolean profiling = task.isProfiling();
+                            long startCpuNanos = 0;
+                            if (profiling) {
+                              task.getMetrics().markStarted();
+                              startCpuNanos = TaskMetrics.currentThreadCpuNanos();
+                            }
                             try {
                               List<Operator> operators = task.getOperators();
                               if (operators.size() < 1) {
@@ -151,6 +184,19 @@ public class StoragePhysicalTaskExecutor {
 
                               switch (op.getType()) {
                                 case Project:
+                                  QueryResultCache.Key cacheKey =
+                                      isDummyStorageUnit
+                                          ? null
+                                          : resultCache.createKey(fragmentMeta, operators);
+                                  RowStream cachedStream = resultCache.get(cacheKey);
+                                  if (cachedStream != null) {
+                                    result = new TaskExecuteResult(cachedStream);
+                                    break;
+                                  }
+                                  Project project =
+                                      isDummyStorageUnit
+                                          ? (Project) op
+                                          : narrowProject(storageId, (Project) op, fragmentMeta);
                                   boolean needSelectPushDown =
                                       pair.k.isSupportProjectWithSelect()
                                           && operators.size() == 2
@@ -167,27 +213,27 @@ public class StoragePhysicalTaskExecutor {
                                     if (needSelectPushDown) {
                                       result =
                                           pair.k.executeProjectDummyWithSelect(
-                                              (Project) op, (Select) operators.get(1), dataArea);
+                                              project, (Select) operators.get(1), dataArea);
                                     } else if (needSetTransformPushDown) {
                                       throw new IllegalStateException();
                                     } else {
-                                      result = pair.k.executeProjectDummy((Project) op, dataArea);
+                                      result = pair.k.executeProjectDummy(project, dataArea);
                                     }
                                   } else {
                                     if (needSelectPushDown) {
                                       result =
                                           pair.k.executeProjectWithSelect(
-                                              (Project) op, (Select) operators.get(1), dataArea);
+                                              project, (Select) operators.get(1), dataArea);
                                     } else if (needSetTransformPushDown) {
                                       if (canSetTransformPushDown) {
                                         result =
                                             pair.k.executeProjectWithSetTransform(
-                                                (Project) op,
+                                                project,
                                                 (SetTransform) operators.get(1),
                                                 dataArea);
                                       } else {
                                         TaskExecuteResult tempResult =
-                                            pair.k.executeProject((Project) op, dataArea);
+                                            pair.k.executeProject(project, dataArea);
                                         if (tempResult.getException() != null) {
                                           result = tempResult;
                                         } else {
@@ -209,15 +255,33 @@ public class StoragePhysicalTaskExecutor {
                                         }
                                       }
                                     } else {
-                                      result = pair.k.executeProject((Project) op, dataArea);
+                                      result = pair.k.executeProject(project, dataArea);
                                     }
                                   }
+                                  result = resultCache.cacheOnRead(cacheKey, result);
                                   break;
                                 case Insert:
                                   result = pair.k.executeInsert((Insert) op, dataArea);
+                                  resultCache.invalidate(fragmentMeta);
+                                  if (result.getException() == null) {
+                                    schemaCatalog.onInsert(storageId, ((Insert) op).getData());
+                                  }
+                                  // 只在主副本上统计，避免广播到从副本的写入被重复计数
+                                  if (result.getException() == null
+                                      && storageUnit.equals(
+                                          fragmentMeta.getMasterStorageUnitId())) {
+                                    DataStatisticsManager.getInstance()
+                                        .recordInsert(fragmentMeta, ((Insert) op).getData());
+                                  }
+                                  if (result.getException() == null && unitMetrics != null) {
+                                    unitMetrics.insertedRows.inc(
+                                        ((Insert) op).getData().getKeySize());
+                                  }
                                   break;
                                 case Delete:
                                   result = pair.k.executeDelete((Delete) op, dataArea);
+                                  resultCache.invalidate(fragmentMeta);
+                                  schemaCatalog.invalidate(storageId);
                                   break;
                                 default:
                                   result =
@@ -230,28 +294,32 @@ public class StoragePhysicalTaskExecutor {
                               result = new TaskExecuteResult(new PhysicalException(e));
                             }
                             try {
-                              HotSpotMonitor.getInstance()
-                                  .recordAfter(
-                                      taskId,
+                              FragmentHeatTracker.getInstance()
+                                  .record(
                                       task.getTargetFragment(),
-                                      task.getOperators().get(0).getType());
-                              RequestsMonitor.getInstance()
-                                  .record(task.getTargetFragment(), task.getOperators().get(0));
+                                      task.getOperators().get(0),
+                                      System.nanoTime() - startNanos);
                             } catch (Exception e) {
                               LOGGER.error("Monitor catch error:", e);
                             }
+                            if (profiling) {
+                              task.getMetrics()
+                                  .addExecuteCpuNanos(
+                                      TaskMetrics.currentThreadCpuNanos() - startCpuNanos);
+                            }
+                            if (unitMetrics != null) {
+                              unitMetrics.record(
+                                  task.getOperators().get(0).getType(),
+                                  System.nanoTime() - startNanos,
+                                  result.getException() != null);
+                            }
                             long span = System.currentTimeMillis() - startTime;
-                            task.setSpan(span);
-                            task.setResult(result);
-                            if (task.getFollowerTask() != null
-                                && task.isSync()) { // 只有同步任务才会影响后续任务的执行
-                              MemoryPhysicalTask followerTask =
-                                  (MemoryPhysicalTask) task.getFollowerTask();
-                              boolean isFollowerTaskReady = followerTask.notifyParentReady();
-                              if (isFollowerTaskReady) {
-                                memoryTaskExecutor.addMemoryTask(followerTask);
-                              }
+                            if (task.getOperators().get(0).getType() == OperatorType.Project
+                                && result.getException() == null) {
+                              StorageUnitLoadTracker.getInstance()
+                                  .recordReadLatency(task.getStorageUnit(), span);
                             }
+                            finishTask(task, result, span);
                             if (task.isNeedBroadcasting()) { // 需要传播
                               if (result.getException() != null) {
                                 LOGGER.error(
@@ -304,6 +372,11 @@ public class StoragePhysicalTaskExecutor {
                     "Fail to release deleted storage engine. Please look into server log.");
               }
               LOGGER.info("Release storage with id={} succeeded.", before.getId());
+              if (before.isHasData()) {
+                unregisterMetrics(before.getDummyStorageUnit().getId());
+              }
+              resultCache.clear();
+              schemaCatalog.invalidate(before.getId());
             } catch (PhysicalException e) {
               LOGGER.error(
                   "unexpected exception during in releasing storage engine, please contact developer to check: ",
@@ -321,6 +394,38 @@ public class StoragePhysicalTaskExecutor {
     }
   }
 
+  /**
+   * 带有标签过滤的查询在目录可用时，先由标签倒排索引解析出确切的列，存储引擎只需处理这些列而不必遍历全部列名
+   *
+   * <p>目录只会增量加入本节点写入的新列，集群中有其他节点时，它们在有效期内新建的列不在目录中，因此只在单节点时缩小范围。
+   * 无法解析或没有匹配的列时同样保持原样，由存储引擎自行处理
+   */
+  private Project narrowProject(long storageId, Project project, FragmentMeta fragmentMeta) {
+    if (project.getTagFilter() == null || metaManager.getIginxList().size() != 1) {
+      return project;
+    }
+    Set<String> paths =
+        schemaCatalog.resolvePaths(storageId, project.getPatterns(), project.getTagFilter());
+    if (paths == null) {
+      return project;
+    }
+    List<String> patterns = new ArrayList<>();
+    for (String path : paths) {
+      if (fragmentMeta.getColumnsInterval().isContain(path)) {
+        patterns.add(path);
+      }
+    }
+    if (patterns.isEmpty()) {
+      return project;
+    }
+    return new Project(
+        project.getSource(),
+        patterns,
+        project.getTagFilter(),
+        project.isNeedSelectedPath(),
+        project.isRemainKey());
+  }
+
   private boolean isCancelled(long sessionId) {
     if (sessionId == 0) { // empty ctx
       return false;
@@ -328,6 +433,31 @@ public class StoragePhysicalTaskExecutor {
     return SessionManager.getInstance().isSessionClosed(sessionId);
   }
 
+  private String getEngineType(long storageId) {
+    StorageEngineMeta meta = metaManager.getStorageEngine(storageId);
+    return meta == null ? "unknown" : meta.getStorageEngine().toString();
+  }
+
+  private StorageUnitMetrics registerMetrics(String storageUnit, String engineType) {
+    MetricsRegistry.getInstance()
+        .gauge(
+            "iginx_storage_task_queue_size",
+            "Number of storage tasks waiting to be dispatched",
+            storageTaskQueues.get(storageUnit)::size,
+            "storage_unit",
+            storageUnit);
+    StorageUnitMetrics unitMetrics = new StorageUnitMetrics(engineType, storageUnit);
+    storageUnitMetrics.put(storageUnit, unitMetrics);
+    return unitMetrics;
+  }
+
+  private void unregisterMetrics(String storageUnit) {
+    if (storageUnitMetrics.remove(storageUnit) != null) {
+      MetricsRegistry.getInstance()
+          .removeGauge("iginx_storage_task_queue_size", "storage_unit", storageUnit);
+    }
+  }
+
   public static StoragePhysicalTaskExecutor getInstance() {
     return INSTANCE;
   }
@@ -336,6 +466,83 @@ public class StoragePhysicalTaskExecutor {
     commit(Collections.singletonList(task));
   }
 
+  private void finishTask(StoragePhysicalTask task, TaskExecuteResult result, long span) {
+    StoragePhysicalTask targetTask = task;
+    if (task.getHedgedTask() != null) {
+      // 对冲查询只在成功时替代原始任务的结果
+      targetTask = result.getException() == null ? task.getHedgedTask() : null;
+    }
+    if (targetTask == null || !targetTask.markFinished()) {
+      // 原始任务与对冲任务中较慢的一方，直接丢弃其结果
+      closeResult(result);
+      return;
+    }
+    targetTask.setSpan(span);
+    targetTask.setResult(result);
+    if (targetTask.getFollowerTask() != null
+        && targetTask.isSync()) { // 只有同步任务才会影响后续任务的执行
+      MemoryPhysicalTask followerTask = (MemoryPhysicalTask) targetTask.getFollowerTask();
+      boolean isFollowerTaskReady = followerTask.notifyParentReady();
+      if (isFollowerTaskReady) {
+        memoryTaskExecutor.addMemoryTask(followerTask);
+      }
+    }
+  }
+
+  private void closeResult(TaskExecuteResult result) {
+    if (result == null || result.getRowStream() == null) {
+      return;
+    }
+    try {
+      result.getRowStream().close();
+    } catch (PhysicalException e) {
+      LOGGER.error("encounter error when close discarded row stream: ", e);
+    }
+  }
+
+  /** 在一段时间后原始查询仍未返回时，向另一个副本发送相同的查询 */
+  private void scheduleHedgedTask(StoragePhysicalTask task, String primaryReplica) {
+    String hedgeReplica = replicaDispatcher.chooseHedgeReplica(task, primaryReplica);
+    if (hedgeReplica == null
+        || hedgeReplica.equals(primaryReplica)
+        || !storageTaskQueues.containsKey(hedgeReplica)) {
+      return;
+    }
+    long delayMs = replicaDispatcher.getHedgeDelayMs(task, primaryReplica);
+    hedgeScheduler.schedule(
+        () -> {
+          if (task.isFinished()) {
+            return;
+          }
+          StoragePhysicalTask hedgeTask =
+              new StoragePhysicalTask(
+                  task.getOperators(), task.getTargetFragment(), true, false, task.getContext());
+          hedgeTask.setHedgedTask(task);
+          storageTaskQueues.get(hedgeReplica).addTask(hedgeTask);
+          LOGGER.debug("send hedged task {} to {}", task, hedgeReplica);
+        },
+        delayMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** 存储单元当前堆积的任务数，包括调度队列与所在存储引擎线程池中的任务 */
+  public int getPendingTaskCount(String storageUnitId) {
+    int count = 0;
+    StoragePhysicalTaskQueue taskQueue = storageTaskQueues.get(storageUnitId);
+    if (taskQueue != null) {
+      count += taskQueue.size();
+    }
+    StorageUnitMeta storageUnit = metaManager.getStorageUnit(storageUnitId);
+    if (storageUnit != null) {
+      Pair<IStorage, ThreadPoolExecutor> pair =
+          storageManager.getStorage(storageUnit.getStorageEngineId());
+      if (pair != null) {
+        count += pair.v.getQueue().size() + pair.v.getActiveCount();
+      }
+    }
+    return count;
+  }
+
   public void commitWithTargetStorageUnitId(StoragePhysicalTask task, String storageUnitId) {
     storageTaskQueues.get(storageUnitId).addTask(task);
   }
@@ -365,43 +572,60 @@ public class StoragePhysicalTaskExecutor {
   public TaskExecuteResult executeShowColumns(ShowColumns showColumns) {
     List<StorageEngineMeta> storageList = metaManager.getStorageEngineList();
     TreeSet<Column> targetColumns = new TreeSet<>(Comparator.comparing(Column::getPhysicalPath));
+    // 各存储引擎的列信息互不依赖，并行获取
+    List<Future<List<Column>>> futures = new ArrayList<>();
     for (StorageEngineMeta storage : storageList) {
       long id = storage.getId();
       Pair<IStorage, ThreadPoolExecutor> pair = storageManager.getStorage(id);
       if (pair == null) {
         continue;
       }
-      try {
-        Set<String> patterns = showColumns.getPathRegexSet();
-        String schemaPrefix = storage.getSchemaPrefix();
-        // schemaPrefix是在IGinX中定义的，数据源的路径中没有该前缀，因此需要剪掉patterns中前缀是schemaPrefix的部分
-        patterns = StringUtils.cutSchemaPrefix(schemaPrefix, patterns);
-        if (patterns.isEmpty()) {
-          continue;
-        }
-        // 求patterns与dataPrefix的交集
-        patterns = StringUtils.intersectDataPrefix(storage.getDataPrefix(), patterns);
-        if (patterns.isEmpty()) {
-          continue;
-        }
-        if (patterns.contains("*")) {
-          patterns = Collections.emptySet();
-        }
-        List<Column> columnList = pair.k.getColumns(patterns, showColumns.getTagFilter());
-
-        // 列名前加上schemaPrefix
-        if (schemaPrefix != null) {
-          columnList.forEach(
-              column -> {
-                column.setPath(schemaPrefix + "." + column.getPath());
-                targetColumns.add(column);
-              });
-        } else {
-          targetColumns.addAll(columnList);
-        }
-      } catch (PhysicalException e) {
-        return new TaskExecuteResult(e);
+      Set<String> patterns = showColumns.getPathRegexSet();
+      String schemaPrefix = storage.getSchemaPrefix();
+      // schemaPrefix是在IGinX中定义的，数据源的路径中没有该前缀，因此需要剪掉patterns中前缀是schemaPrefix的部分
+      patterns = StringUtils.cutSchemaPrefix(schemaPrefix, patterns);
+      if (patterns.isEmpty()) {
+        continue;
       }
+      // 求patterns与dataPrefix的交集
+      patterns = StringUtils.intersectDataPrefix(storage.getDataPrefix(), patterns);
+      if (patterns.isEmpty()) {
+        continue;
+      }
+      if (patterns.contains("*")) {
+        patterns = Collections.emptySet();
+      }
+      Set<String> storagePatterns = patterns;
+      futures.add(
+          schemaCatalog
+              .getRefreshPool()
+              .submit(
+                  () -> {
+                    List<Column> columnList =
+                        schemaCatalog.getColumns(
+                            storage, pair.k, storagePatterns, showColumns.getTagFilter());
+                    // 列名前加上schemaPrefix
+                    if (schemaPrefix != null) {
+                      columnList.forEach(
+                          column -> column.setPath(schemaPrefix + "." + column.getPath()));
+                    }
+                    return columnList;
+                  }));
+    }
+    try {
+      for (Future<List<Column>> future : futures) {
+        targetColumns.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      return new TaskExecuteResult(new PhysicalException("interrupted when show columns", e));
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof PhysicalException) {
+        return new TaskExecuteResult((PhysicalException) e.getCause());
+      }
+      return new TaskExecuteResult(new PhysicalException(e.getCause()));
     }
 
     int limit = showColumns.getLimit();
@@ -432,9 +656,13 @@ public class StoragePhysicalTaskExecutor {
             .get(task.getTargetFragment().getMasterStorageUnitId())
             .addTask(task); // 默认情况下，异步写备，查询只查主
       } else {
-        storageTaskQueues
-            .get(replicaDispatcher.chooseReplica(task))
-            .addTask(task); // 在优化策略提供了选择器的情况下，利用选择器提供的结果
+        // 在优化策略提供了选择器的情况下，利用选择器提供的结果
+        String storageUnitId = replicaDispatcher.chooseReplica(task);
+        if (storageUnitId == null || !storageTaskQueues.containsKey(storageUnitId)) {
+          storageUnitId = task.getTargetFragment().getMasterStorageUnitId();
+        }
+        storageTaskQueues.get(storageUnitId).addTask(task);
+        scheduleHedgedTask(task, storageUnitId);
       }
     }
   }
@@ -448,4 +676,62 @@ public class StoragePhysicalTaskExecutor {
   public StorageManager getStorageManager() {
     return storageManager;
   }
+
+  /** 缓存单个存储单元上的指标，避免每个任务都格式化标签并查表 */
+  private static class StorageUnitMetrics {
+
+    private final String engineType;
+
+    private final String storageUnit;
+
+    private final Map<OperatorType, Histogram> durations = new ConcurrentHashMap<>();
+
+    private final Counter errors;
+
+    private final Counter insertedRows;
+
+    private StorageUnitMetrics(String engineType, String storageUnit) {
+      this.engineType = engineType;
+      this.storageUnit = storageUnit;
+      MetricsRegistry registry = MetricsRegistry.getInstance();
+      this.errors =
+          registry.counter(
+              "iginx_storage_task_errors_total",
+              "Number of failed storage tasks",
+              "engine",
+              engineType,
+              "storage_unit",
+              storageUnit);
+      this.insertedRows =
+          registry.counter(
+              "iginx_storage_inserted_rows_total",
+              "Number of rows written to storage engines, replicas included",
+              "engine",
+              engineType);
+    }
+
+    private void record(OperatorType type, long nanos, boolean failed) {
+      Histogram duration = durations.get(type);
+      if (duration == null) {
+        duration =
+            durations.computeIfAbsent(
+                type,
+                t ->
+                    MetricsRegistry.getInstance()
+                        .histogram(
+                            "iginx_storage_task_duration_seconds",
+                            "Storage task execution latency",
+                            "engine",
+                            engineType,
+                            "storage_unit",
+                            storageUnit,
+                            "operator",
+                            t.toString()));
+      }
+      duration.record(nanos);
+      if (failed) {
+        errors.inc();
+      }
+    }
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.storage.execute;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** 记录每个存储单元近期的查询延迟，供副本选择与对冲查询使用 */
+public class StorageUnitLoadTracker {
+
+  private static final StorageUnitLoadTracker INSTANCE = new StorageUnitLoadTracker();
+
+  private static final double EWMA_ALPHA = 0.2;
+
+  private static final int LATENCY_WINDOW_SIZE = 128;
+
+  private final Map<String, LatencyStatistics> statisticsMap = new ConcurrentHashMap<>();
+
+  private StorageUnitLoadTracker() {}
+
+  public static StorageUnitLoadTracker getInstance() {
+    return INSTANCE;
+  }
+
+  public void recordReadLatency(String storageUnitId, long latencyMs) {
+    statisticsMap
+        .computeIfAbsent(storageUnitId, id -> new LatencyStatistics())
+        .record(latencyMs);
+  }
+
+  /** 查询延迟的指数加权移动平均值，没有记录时返回 -1 */
+  public double getLatencyEwma(String storageUnitId) {
+    LatencyStatistics statistics = statisticsMap.get(storageUnitId);
+    return statistics == null ? -1 : statistics.getEwma();
+  }
+
+  /** 最近若干次查询延迟的 p95，没有记录时返回 -1 */
+  public long getP95Latency(String storageUnitId) {
+    LatencyStatistics statistics = statisticsMap.get(storageUnitId);
+    return statistics == null ? -1 : statistics.getP95();
+  }
+
+  private static class LatencyStatistics {
+
+    private double ewma = -1;
+
+    private final long[] window = new long[LATENCY_WINDOW_SIZE];
+
+    private int count = 0;
+
+    private int next = 0;
+
+    synchronized void record(long latencyMs) {
+      ewma = ewma < 0 ? latencyMs : EWMA_ALPHA * latencyMs + (1 - EWMA_ALPHA) * ewma;
+      window[next] = latencyMs;
+      next = (next + 1) % window.length;
+      count = Math.min(count + 1, window.length);
+    }
+
+    synchronized double getEwma() {
+      return ewma;
+    }
+
+    synchronized long getP95() {
+      if (count == 0) {
+        return -1;
+      }
+      long[] latencies = Arrays.copyOf(window, count);
+      Arrays.sort(latencies);
+      return latencies[(int) Math.ceil(count * 0.95) - 1];
+    }
+  }
+}
@@ -36,6 +36,9 @@ public class StoragePhysicalTaskQueue {
   }
 
   public void addTask(StoragePhysicalTask task) {
+    if (task.isProfiling()) {
+      task.getMetrics().markEnqueued();
+    }
     try {
       tasks.put(task);
     } catch (InterruptedException e) {
@@ -51,4 +54,8 @@ public class StoragePhysicalTaskQueue {
     }
     return null;
   }
+
+  public int size() {
+    return tasks.size();
+  }
 }
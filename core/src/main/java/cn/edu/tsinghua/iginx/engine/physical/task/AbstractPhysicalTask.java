@@ -20,6 +20,8 @@
 package cn.edu.tsinghua.iginx.engine.physical.task;
 
 import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.ProfiledRowStream;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
 import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -44,6 +46,8 @@ public abstract class AbstractPhysicalTask implements PhysicalTask {
 
   private long span = 0;
 
+  private final TaskMetrics metrics = new TaskMetrics();
+
   public AbstractPhysicalTask(TaskType type, List<Operator> operators, RequestContext context) {
     this.type = type;
     this.operators = operators;
@@ -90,6 +94,12 @@ public abstract class AbstractPhysicalTask implements PhysicalTask {
 
   @Override
   public void setResult(TaskExecuteResult result) {
+    if (isProfiling()) {
+      RowStream stream = result.getRowStream();
+      if (stream != null) {
+        result.setRowStream(new ProfiledRowStream(stream, metrics, type == TaskType.Storage));
+      }
+    }
     this.result = result;
     this.resultLatch.countDown();
     this.affectRows = result.getAffectRows();
@@ -105,6 +115,16 @@ public abstract class AbstractPhysicalTask implements PhysicalTask {
     this.span = span;
   }
 
+  /** 是否在 EXPLAIN ANALYZE 中执行，只有此时才统计运行时指标 */
+  public boolean isProfiling() {
+    return context != null && context.isProfiling();
+  }
+
+  @Override
+  public TaskMetrics getMetrics() {
+    return metrics;
+  }
+
   @Override
   public int getAffectedRows() {
     return affectRows;
@@ -21,8 +21,10 @@ package cn.edu.tsinghua.iginx.engine.physical.task;
 
 import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
 import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalTaskExecuteFailureException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.stream.ParallelScanRowStream;
 import cn.edu.tsinghua.iginx.engine.physical.task.visitor.TaskVisitor;
 import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
 import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
 import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
 import java.util.ArrayList;
@@ -30,7 +32,11 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** 目前专门用于 CombineNonQuery 操作符 */
+/**
+ * 用于 CombineNonQuery 操作符，以及由多个 PathUnion 展开得到的并行分片扫描
+ *
+ * <p>并行分片扫描时 operators 中为展开前最顶层的 PathUnion，parentTasks 为展开后的各个子任务
+ */
 public class MultipleMemoryPhysicalTask extends MemoryPhysicalTask {
   @SuppressWarnings("unused")
   private static final Logger LOGGER = LoggerFactory.getLogger(MultipleMemoryPhysicalTask.class);
@@ -55,6 +61,9 @@ public class MultipleMemoryPhysicalTask extends MemoryPhysicalTask {
           new PhysicalException("unexpected multiple memory physical task"));
     }
     Operator operator = operators.get(0);
+    if (operator.getType() == OperatorType.PathUnion) {
+      return executeParallelScan();
+    }
     if (operator.getType() != OperatorType.CombineNonQuery) {
       return new TaskExecuteResult(
           new PhysicalException("unexpected multiple memory physical task"));
@@ -80,6 +89,24 @@ public class MultipleMemoryPhysicalTask extends MemoryPhysicalTask {
     return new TaskExecuteResult();
   }
 
+  private TaskExecuteResult executeParallelScan() {
+    List<RowStream> streams = new ArrayList<>(parentTasks.size());
+    for (PhysicalTask parentTask : parentTasks) {
+      TaskExecuteResult parentResult = parentTask.getResult();
+      if (parentResult == null) {
+        return new TaskExecuteResult(
+            new PhysicalException("unexpected parent task execute result for " + this + ": null"));
+      }
+      if (parentResult.getException() != null) {
+        return parentResult;
+      }
+      streams.add(parentResult.getRowStream());
+    }
+    RowStream stream = new ParallelScanRowStream(streams);
+    stream.setContext(getContext());
+    return new TaskExecuteResult(stream);
+  }
+
   @Override
   public boolean notifyParentReady() {
     return parentReadyCount.incrementAndGet() == parentTasks.size();
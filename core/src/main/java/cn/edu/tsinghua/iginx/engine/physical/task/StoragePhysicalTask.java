@@ -26,6 +26,7 @@ import cn.edu.tsinghua.iginx.engine.shared.operator.UnaryOperator;
 import cn.edu.tsinghua.iginx.engine.shared.source.FragmentSource;
 import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class StoragePhysicalTask extends AbstractPhysicalTask {
 
@@ -35,6 +36,9 @@ public class StoragePhysicalTask extends AbstractPhysicalTask {
   private String storageUnit;
   private long storage;
   private boolean dummyStorageUnit;
+  // 对冲查询所对应的原始任务，对冲查询先返回时由它完成原始任务
+  private StoragePhysicalTask hedgedTask;
+  private final AtomicBoolean finished = new AtomicBoolean(false);
 
   public StoragePhysicalTask(List<Operator> operators, RequestContext context) {
     this(
@@ -103,6 +107,23 @@ public class StoragePhysicalTask extends AbstractPhysicalTask {
     return needBroadcasting;
   }
 
+  public StoragePhysicalTask getHedgedTask() {
+    return hedgedTask;
+  }
+
+  public void setHedgedTask(StoragePhysicalTask hedgedTask) {
+    this.hedgedTask = hedgedTask;
+  }
+
+  public boolean isFinished() {
+    return finished.get();
+  }
+
+  /** 标记任务已完成，只有第一次调用返回 true，用于保证原始任务与对冲任务只有一个能设置结果 */
+  public boolean markFinished() {
+    return finished.compareAndSet(false, true);
+  }
+
   @Override
   public String toString() {
     return "StoragePhysicalTask{targetFragment="
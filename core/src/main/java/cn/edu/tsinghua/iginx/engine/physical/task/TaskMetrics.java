@@ -0,0 +1,133 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.task;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 物理任务的运行时指标，供 EXPLAIN ANALYZE 使用
+ *
+ * <p>排队时间在任何情况下都会记录；结果流上的行数、耗时与字节数只有在请求开启了 profiling 时才会由 ProfiledRowStream 统计。
+ * 结果流上的耗时是包含上游任务结果流的累计值，报告时再减去子任务的部分。
+ */
+public class TaskMetrics {
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private static final boolean CPU_TIME_SUPPORTED =
+      THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+  private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN =
+      THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean
+              && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN)
+                  .isThreadAllocatedMemorySupported()
+          ? (com.sun.management.ThreadMXBean) THREAD_MX_BEAN
+          : null;
+
+  private volatile long enqueueNanos = 0;
+
+  private volatile long queueWaitNanos = 0;
+
+  private final LongAdder rowsOut = new LongAdder();
+
+  private final LongAdder executeCpuNanos = new LongAdder();
+
+  private final LongAdder consumeWallNanos = new LongAdder();
+
+  private final LongAdder consumeCpuNanos = new LongAdder();
+
+  private final LongAdder allocatedBytes = new LongAdder();
+
+  private final LongAdder bytesFetched = new LongAdder();
+
+  public void markEnqueued() {
+    enqueueNanos = System.nanoTime();
+  }
+
+  /** 任务开始执行时调用，计算从入队到开始执行之间的等待时间 */
+  public void markStarted() {
+    if (enqueueNanos != 0) {
+      queueWaitNanos = System.nanoTime() - enqueueNanos;
+    }
+  }
+
+  public long getQueueWaitNanos() {
+    return queueWaitNanos;
+  }
+
+  public void addRowsOut(long rows) {
+    rowsOut.add(rows);
+  }
+
+  public long getRowsOut() {
+    return rowsOut.sum();
+  }
+
+  public void addExecuteCpuNanos(long cpuNanos) {
+    executeCpuNanos.add(cpuNanos);
+  }
+
+  public long getExecuteCpuNanos() {
+    return executeCpuNanos.sum();
+  }
+
+  public void addConsumeTime(long wallNanos, long cpuNanos) {
+    consumeWallNanos.add(wallNanos);
+    consumeCpuNanos.add(cpuNanos);
+  }
+
+  public long getConsumeWallNanos() {
+    return consumeWallNanos.sum();
+  }
+
+  public long getConsumeCpuNanos() {
+    return consumeCpuNanos.sum();
+  }
+
+  public void addAllocatedBytes(long bytes) {
+    allocatedBytes.add(bytes);
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes.sum();
+  }
+
+  public void addBytesFetched(long bytes) {
+    bytesFetched.add(bytes);
+  }
+
+  public long getBytesFetched() {
+    return bytesFetched.sum();
+  }
+
+  /** 当前线程已消耗的 CPU 时间，JVM 不支持时返回 0 */
+  public static long currentThreadCpuNanos() {
+    return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+  }
+
+  /** 当前线程累计分配的堆内存字节数，JVM 不支持时返回 0 */
+  public static long currentThreadAllocatedBytes() {
+    return ALLOCATION_MX_BEAN == null
+        ? 0
+        : ALLOCATION_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.task.visitor;
+
+import cn.edu.tsinghua.iginx.engine.physical.task.BinaryMemoryPhysicalTask;
+import cn.edu.tsinghua.iginx.engine.physical.task.GlobalPhysicalTask;
+import cn.edu.tsinghua.iginx.engine.physical.task.MultipleMemoryPhysicalTask;
+import cn.edu.tsinghua.iginx.engine.physical.task.PhysicalTask;
+import cn.edu.tsinghua.iginx.engine.physical.task.StoragePhysicalTask;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskMetrics;
+import cn.edu.tsinghua.iginx.engine.physical.task.UnaryMemoryPhysicalTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 收集 EXPLAIN ANALYZE 的结果，需要在结果流被消费完之后调用
+ *
+ * <p>上游任务的结果流在下游任务执行或被消费时才会被拉取，因此下游任务上统计的耗时包含了上游任务的部分，这里减去直接子任务的耗时得到任务自身的耗时。
+ */
+public class TaskAnalyzeVisitor implements TaskVisitor {
+
+  private final List<PhysicalTask> tasks = new ArrayList<>();
+
+  private final List<Integer> depths = new ArrayList<>();
+
+  private int depth = -1;
+
+  private int maxLen = 0;
+
+  public List<Object[]> getCache() {
+    List<Object[]> cache = new ArrayList<>(tasks.size());
+    for (int i = 0; i < tasks.size(); i++) {
+      cache.add(analyze(i));
+    }
+    return cache;
+  }
+
+  public int getMaxLen() {
+    return maxLen;
+  }
+
+  @Override
+  public void enter() {
+    depth++;
+  }
+
+  @Override
+  public void leave() {
+    depth--;
+  }
+
+  @Override
+  public void visit(BinaryMemoryPhysicalTask task) {
+    collectTask(task);
+  }
+
+  @Override
+  public void visit(UnaryMemoryPhysicalTask task) {
+    collectTask(task);
+  }
+
+  @Override
+  public void visit(MultipleMemoryPhysicalTask task) {
+    collectTask(task);
+  }
+
+  @Override
+  public void visit(StoragePhysicalTask task) {
+    collectTask(task);
+  }
+
+  @Override
+  public void visit(GlobalPhysicalTask task) {
+    collectTask(task);
+  }
+
+  private void collectTask(PhysicalTask task) {
+    tasks.add(task);
+    depths.add(depth);
+    // 与 TaskInfoVisitor 的缩进方式一致
+    int len = task.getType().toString().length() + (depth == 0 ? 0 : depth * 2 + 3);
+    maxLen = Math.max(maxLen, len);
+  }
+
+  private Object[] analyze(int index) {
+    PhysicalTask task = tasks.get(index);
+    int taskDepth = depths.get(index);
+    TaskMetrics metrics = task.getMetrics();
+
+    long rowsIn = 0;
+    long childrenWallNanos = 0;
+    long childrenCpuNanos = 0;
+    for (int i = index + 1; i < tasks.size() && depths.get(i) > taskDepth; i++) {
+      if (depths.get(i) != taskDepth + 1) {
+        continue;
+      }
+      TaskMetrics childMetrics = tasks.get(i).getMetrics();
+      rowsIn += childMetrics.getRowsOut();
+      childrenWallNanos += childMetrics.getConsumeWallNanos();
+      childrenCpuNanos += childMetrics.getConsumeCpuNanos();
+    }
+    long wallNanos =
+        TimeUnit.MILLISECONDS.toNanos(task.getSpan())
+            + metrics.getConsumeWallNanos()
+            - childrenWallNanos;
+    long cpuNanos =
+        metrics.getExecuteCpuNanos() + metrics.getConsumeCpuNanos() - childrenCpuNanos;
+
+    StringBuilder builder = new StringBuilder();
+    if (taskDepth != 0) {
+      for (int i = 0; i < taskDepth; i++) {
+        builder.append("  ");
+      }
+      builder.append("+--");
+    }
+    builder.append(task.getType());
+
+    Object[] values = new Object[11];
+    values[0] = builder.toString();
+    values[1] = task.getType().toString().getBytes();
+    values[2] = task.getInfo().getBytes();
+    values[3] = (task.getSpan() + "ms").getBytes();
+    values[4] = formatNanos(metrics.getQueueWaitNanos());
+    values[5] = formatNanos(Math.max(0, wallNanos));
+    values[6] = formatNanos(Math.max(0, cpuNanos));
+    values[7] = rowsIn;
+    values[8] = metrics.getRowsOut();
+    values[9] = metrics.getBytesFetched();
+    values[10] = metrics.getAllocatedBytes();
+    return values;
+  }
+
+  private static byte[] formatNanos(long nanos) {
+    return String.format("%.3fms", nanos / 1_000_000.0).getBytes();
+  }
+}
@@ -66,6 +66,9 @@ public class RequestContext {
 
   private String warningMsg;
 
+  /** EXPLAIN ANALYZE 时开启，物理任务会统计结果流上的运行时指标 */
+  private boolean profiling;
+
   private void init() {
     this.id = SnowFlakeUtils.getInstance().nextId();
     this.startTime = System.currentTimeMillis();
@@ -19,16 +19,16 @@
  */
 package cn.edu.tsinghua.iginx.engine.shared;
 
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
-import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
 import cn.edu.tsinghua.iginx.engine.shared.file.CSVFile;
 import cn.edu.tsinghua.iginx.engine.shared.file.write.ExportCsv;
 import cn.edu.tsinghua.iginx.exception.StatusCode;
 import cn.edu.tsinghua.iginx.thrift.*;
-import cn.edu.tsinghua.iginx.utils.Bitmap;
 import cn.edu.tsinghua.iginx.utils.ByteUtils;
 import cn.edu.tsinghua.iginx.utils.RpcUtils;
 import java.nio.ByteBuffer;
@@ -42,6 +42,8 @@ public class Result {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Result.class);
 
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
   private Status status;
   private List<String> paths;
   private List<Map<String, String>> tagsList;
@@ -64,6 +66,7 @@ public class Result {
   private long queryId;
   private JobState jobState;
   private RowStream resultStream;
+  private ResultPrefetcher prefetcher;
 
   private long jobId;
   private Map<JobState, List<Long>> jobStateMap;
@@ -245,26 +248,15 @@ public class Result {
       int cnt = 0;
       boolean hasKey = resultStream.getHeader().hasKey();
       while (resultStream.hasNext() && cnt < fetchSize) {
-        Row row = resultStream.next();
-
-        Object[] rawValues = row.getValues();
-        Object[] rowValues = rawValues;
-        if (hasKey) {
-          rowValues = new Object[rawValues.length + 1];
-          rowValues[0] = row.getKey();
-          System.arraycopy(rawValues, 0, rowValues, 1, rawValues.length);
-        }
-        valuesList.add(ByteUtils.getRowByteBuffer(rowValues, types));
-
-        Bitmap bitmap = new Bitmap(rowValues.length);
-        for (int i = 0; i < rowValues.length; i++) {
-          if (rowValues[i] != null) {
-            bitmap.mark(i);
-          }
-        }
-        bitmapList.add(ByteBuffer.wrap(bitmap.getBytes()));
+        ResultPrefetcher.serializeRow(resultStream.next(), hasKey, types, valuesList, bitmapList);
         cnt++;
       }
+      boolean hasMoreResults = resultStream.hasNext();
+      if (config.isEnableResultPrefetch() && hasMoreResults) {
+        prefetcher = new ResultPrefetcher(resultStream, types, hasKey, fetchSize);
+        prefetcher.start();
+      }
+      resp.setHasMoreResults(hasMoreResults);
       resp.setColumns(paths);
       resp.setTagsList(tagsList);
       resp.setDataTypeList(types);
@@ -321,6 +313,9 @@ public class Result {
     if (status != RpcUtils.SUCCESS && status.code != StatusCode.PARTIAL_SUCCESS.getStatusCode()) {
       return resp;
     }
+    if (prefetcher != null) {
+      return fetchPrefetched(fetchSize);
+    }
     try {
       List<DataType> types = new ArrayList<>();
 
@@ -338,24 +333,7 @@ public class Result {
       int cnt = 0;
       boolean hasKey = resultStream.getHeader().hasKey();
       while (resultStream.hasNext() && cnt < fetchSize) {
-        Row row = resultStream.next();
-
-        Object[] rawValues = row.getValues();
-        Object[] rowValues = rawValues;
-        if (hasKey) {
-          rowValues = new Object[rawValues.length + 1];
-          rowValues[0] = row.getKey();
-          System.arraycopy(rawValues, 0, rowValues, 1, rawValues.length);
-        }
-        valuesList.add(ByteUtils.getRowByteBuffer(rowValues, types));
-
-        Bitmap bitmap = new Bitmap(rowValues.length);
-        for (int i = 0; i < rowValues.length; i++) {
-          if (rowValues[i] != null) {
-            bitmap.mark(i);
-          }
-        }
-        bitmapList.add(ByteBuffer.wrap(bitmap.getBytes()));
+        ResultPrefetcher.serializeRow(resultStream.next(), hasKey, types, valuesList, bitmapList);
         cnt++;
       }
       resp.setHasMoreResults(resultStream.hasNext());
@@ -366,4 +344,33 @@ public class Result {
     }
     return resp;
   }
+
+  private FetchResultsResp fetchPrefetched(int fetchSize) {
+    FetchResultsResp resp = new FetchResultsResp(status, false);
+    List<ByteBuffer> valuesList = new ArrayList<>();
+    List<ByteBuffer> bitmapList = new ArrayList<>();
+    try {
+      resp.setHasMoreResults(prefetcher.fetch(fetchSize, valuesList, bitmapList));
+      resp.setQueryDataSet(new QueryDataSetV2(valuesList, bitmapList));
+    } catch (PhysicalException e) {
+      LOGGER.error("unexpected error when fetch prefetched result: ", e);
+      resp.setStatus(RpcUtils.status(StatusCode.STATEMENT_EXECUTION_ERROR, e.getMessage()));
+    }
+    return resp;
+  }
+
+  /** 释放查询结果占用的资源，关闭预取任务与结果流 */
+  public void close() {
+    if (prefetcher != null) {
+      prefetcher.close();
+      return;
+    }
+    if (resultStream != null) {
+      try {
+        resultStream.close();
+      } catch (PhysicalException e) {
+        LOGGER.error("unexpected error when close row stream: ", e);
+      }
+    }
+  }
 }
@@ -0,0 +1,258 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.AbstractTaskThreadPoolExecutor;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.Bitmap;
+import cn.edu.tsinghua.iginx.utils.ByteUtils;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 流式查询结果的预取器：在客户端消费当前批次时，于后台线程中从 RowStream 读取并序列化后续批次，最多缓存 batchNum 个批次
+ *
+ * <p>每个批次的行数不超过客户端的 fetchSize，且序列化后的字节数不超过 maxBatchBytes，因此行越宽单批的行数越少。
+ * 队列满时生产任务直接退出、不占用线程，客户端取走批次后再重新调度，同一时刻每个查询至多有一个生产任务读取 RowStream。
+ */
+public class ResultPrefetcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResultPrefetcher.class);
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private final RowStream stream;
+
+  private final List<DataType> types;
+
+  private final boolean hasKey;
+
+  private final int fetchSize;
+
+  private final int batchNum;
+
+  private final long maxBatchBytes;
+
+  private final BlockingQueue<Batch> batches;
+
+  private final AtomicBoolean producing = new AtomicBoolean(false);
+
+  private volatile boolean finished = false;
+
+  private volatile boolean closed = false;
+
+  /** 客户端请求的行数小于预取批次时，剩余的行留到下次 fetch 返回 */
+  private Batch current;
+
+  private int offset;
+
+  public ResultPrefetcher(RowStream stream, List<DataType> types, boolean hasKey, int fetchSize) {
+    this.stream = stream;
+    this.types = types;
+    this.hasKey = hasKey;
+    this.fetchSize = Math.max(1, fetchSize);
+    this.batchNum = Math.max(1, config.getResultPrefetchBatchNum());
+    this.maxBatchBytes = Math.max(1, config.getResultPrefetchMaxBatchBytes());
+    this.batches = new LinkedBlockingQueue<>();
+  }
+
+  public void start() {
+    schedule();
+  }
+
+  /**
+   * 取出不超过 fetchSize 行的数据，必要时阻塞等待生产任务
+   *
+   * @param valuesList 序列化后的行
+   * @param bitmapList 每行的空值位图
+   * @return 之后是否还有数据
+   */
+  public synchronized boolean fetch(
+      int fetchSize, List<ByteBuffer> valuesList, List<ByteBuffer> bitmapList)
+      throws PhysicalException {
+    if (current == null || offset == current.valuesList.size()) {
+      if (current != null && current.last) {
+        return false;
+      }
+      try {
+        current = batches.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PhysicalException("interrupted when waiting for prefetched batch", e);
+      }
+      offset = 0;
+      schedule();
+      if (current.error != null) {
+        throw current.error;
+      }
+    }
+    int end = Math.min(current.valuesList.size(), offset + Math.max(1, fetchSize));
+    valuesList.addAll(current.valuesList.subList(offset, end));
+    bitmapList.addAll(current.bitmapList.subList(offset, end));
+    offset = end;
+    return offset < current.valuesList.size() || !current.last;
+  }
+
+  public void close() {
+    closed = true;
+    synchronized (stream) {
+      try {
+        stream.close();
+      } catch (PhysicalException e) {
+        LOGGER.error("unexpected error when close row stream: ", e);
+      }
+    }
+    batches.clear();
+    // 唤醒可能仍在等待批次的 fetch
+    batches.add(Batch.failed(new PhysicalException("query result has been closed")));
+  }
+
+  private void schedule() {
+    if (finished || closed || batches.size() >= batchNum) {
+      return;
+    }
+    if (!producing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      PrefetchExecutorHolder.INSTANCE.execute(this::produce);
+    } catch (RejectedExecutionException e) {
+      producing.set(false);
+      LOGGER.error("fail to schedule result prefetch task: ", e);
+      batches.add(Batch.failed(new PhysicalException("fail to schedule result prefetch task", e)));
+      finished = true;
+    }
+  }
+
+  private void produce() {
+    try {
+      while (!finished && !closed && batches.size() < batchNum) {
+        Batch batch;
+        synchronized (stream) {
+          if (closed) {
+            break;
+          }
+          batch = readBatch();
+        }
+        if (batch.last || batch.error != null) {
+          finished = true;
+        }
+        batches.add(batch);
+      }
+    } finally {
+      producing.set(false);
+    }
+    // 生产任务退出与客户端取走批次可能并发发生，重新检查一次避免漏调度
+    schedule();
+  }
+
+  private Batch readBatch() {
+    List<ByteBuffer> valuesList = new ArrayList<>();
+    List<ByteBuffer> bitmapList = new ArrayList<>();
+    try {
+      long bytes = 0;
+      while (valuesList.size() < fetchSize && bytes < maxBatchBytes && stream.hasNext()) {
+        bytes += serializeRow(stream.next(), hasKey, types, valuesList, bitmapList);
+      }
+      return new Batch(valuesList, bitmapList, !stream.hasNext(), null);
+    } catch (PhysicalException e) {
+      LOGGER.error("unexpected error when prefetch row stream: ", e);
+      return Batch.failed(e);
+    } catch (Exception e) {
+      LOGGER.error("unexpected error when prefetch row stream: ", e);
+      return Batch.failed(new PhysicalException("fail to prefetch row stream", e));
+    }
+  }
+
+  /** 将一行序列化后追加到 valuesList 与 bitmapList，返回该行占用的字节数 */
+  static int serializeRow(
+      Row row,
+      boolean hasKey,
+      List<DataType> types,
+      List<ByteBuffer> valuesList,
+      List<ByteBuffer> bitmapList) {
+    Object[] rawValues = row.getValues();
+    Object[] rowValues = rawValues;
+    if (hasKey) {
+      rowValues = new Object[rawValues.length + 1];
+      rowValues[0] = row.getKey();
+      System.arraycopy(rawValues, 0, rowValues, 1, rawValues.length);
+    }
+    ByteBuffer values = ByteUtils.getRowByteBuffer(rowValues, types);
+    valuesList.add(values);
+
+    Bitmap bitmap = new Bitmap(rowValues.length);
+    for (int i = 0; i < rowValues.length; i++) {
+      if (rowValues[i] != null) {
+        bitmap.mark(i);
+      }
+    }
+    byte[] bitmapBytes = bitmap.getBytes();
+    bitmapList.add(ByteBuffer.wrap(bitmapBytes));
+    return values.capacity() + bitmapBytes.length;
+  }
+
+  private static class Batch {
+
+    private final List<ByteBuffer> valuesList;
+
+    private final List<ByteBuffer> bitmapList;
+
+    private final boolean last;
+
+    private final PhysicalException error;
+
+    private Batch(
+        List<ByteBuffer> valuesList,
+        List<ByteBuffer> bitmapList,
+        boolean last,
+        PhysicalException error) {
+      this.valuesList = valuesList;
+      this.bitmapList = bitmapList;
+      this.last = last;
+      this.error = error;
+    }
+
+    private static Batch failed(PhysicalException error) {
+      return new Batch(new ArrayList<>(), new ArrayList<>(), true, error);
+    }
+  }
+
+  private static class PrefetchExecutorHolder {
+
+    // RowStream 中可能包含 Python UDF，使用能为每个线程维护 interpreter 的线程池
+    private static final AbstractTaskThreadPoolExecutor INSTANCE =
+        new AbstractTaskThreadPoolExecutor(Math.max(1, config.getResultPrefetchThreadNum()));
+
+    private PrefetchExecutorHolder() {}
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.data.read;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtils;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskMetrics;
+import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
+
+/** 统计结果流被消费时的行数、耗时、CPU 时间与内存分配量，用于 EXPLAIN ANALYZE */
+public class ProfiledRowStream implements RowStream {
+
+  private final RowStream stream;
+
+  private final TaskMetrics metrics;
+
+  private final boolean countBytes;
+
+  private long startWallNanos;
+
+  private long startCpuNanos;
+
+  private long startAllocatedBytes;
+
+  /**
+   * @param countBytes 是否估算流经的字节数，只对直接读取存储引擎的结果流开启
+   */
+  public ProfiledRowStream(RowStream stream, TaskMetrics metrics, boolean countBytes) {
+    this.stream = stream;
+    this.metrics = metrics;
+    this.countBytes = countBytes;
+  }
+
+  @Override
+  public Header getHeader() throws PhysicalException {
+    begin();
+    try {
+      return stream.getHeader();
+    } finally {
+      end();
+    }
+  }
+
+  @Override
+  public void close() throws PhysicalException {
+    stream.close();
+  }
+
+  @Override
+  public boolean hasNext() throws PhysicalException {
+    begin();
+    try {
+      return stream.hasNext();
+    } finally {
+      end();
+    }
+  }
+
+  @Override
+  public Row next() throws PhysicalException {
+    begin();
+    Row row;
+    try {
+      row = stream.next();
+    } finally {
+      end();
+    }
+    metrics.addRowsOut(1);
+    if (countBytes) {
+      metrics.addBytesFetched(RowUtils.estimateSize(row));
+    }
+    return row;
+  }
+
+  @Override
+  public void setContext(RequestContext context) {
+    stream.setContext(context);
+  }
+
+  @Override
+  public RequestContext getContext() {
+    return stream.getContext();
+  }
+
+  private void begin() {
+    startWallNanos = System.nanoTime();
+    startCpuNanos = TaskMetrics.currentThreadCpuNanos();
+    startAllocatedBytes = TaskMetrics.currentThreadAllocatedBytes();
+  }
+
+  private void end() {
+    metrics.addConsumeTime(
+        System.nanoTime() - startWallNanos, TaskMetrics.currentThreadCpuNanos() - startCpuNanos);
+    metrics.addAllocatedBytes(TaskMetrics.currentThreadAllocatedBytes() - startAllocatedBytes);
+  }
+}
@@ -57,7 +57,16 @@ public class FunctionUtils {
 
   private static final Set<String> sysSetToRowFunctionSet =
       new HashSet<>(
-          Arrays.asList("min", "max", "sum", "avg", "count", "first_value", "last_value"));
+          Arrays.asList(
+              "min",
+              "max",
+              "sum",
+              "avg",
+              "count",
+              "first_value",
+              "last_value",
+              "percentile",
+              "approx_count_distinct"));
 
   private static final Set<String> sysSetToSetFunctionSet =
       new HashSet<>(Arrays.asList("first", "last"));
@@ -161,6 +170,8 @@ public class FunctionUtils {
     functionFieldTypeMap.put("min", (dataType) -> dataType);
     functionFieldTypeMap.put(
         "sum", (dataType) -> isWholeNumber(dataType) ? DataType.LONG : DataType.DOUBLE);
+    functionFieldTypeMap.put("percentile", (dataType) -> DataType.DOUBLE);
+    functionFieldTypeMap.put("approx_count_distinct", (dataType) -> DataType.LONG);
   }
 
   static Map<String, Integer> expectedParamNumMap = new HashMap<>(); // 此Map用于存储function期望的参数个数
@@ -178,6 +189,8 @@ public class FunctionUtils {
     expectedParamNumMap.put("extract", 1);
     expectedParamNumMap.put("ratio", 2);
     expectedParamNumMap.put("substring", 1);
+    expectedParamNumMap.put("percentile", 1);
+    expectedParamNumMap.put("approx_count_distinct", 1);
   }
 
   public static int getExpectedParamNum(String identifier) {
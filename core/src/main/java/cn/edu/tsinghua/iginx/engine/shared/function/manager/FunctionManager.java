@@ -101,6 +101,8 @@ public class FunctionManager {
     registerFunction(Extract.getInstance());
     registerFunction(Ratio.getInstance());
     registerFunction(SubString.getInstance());
+    registerFunction(Percentile.getInstance());
+    registerFunction(ApproxCountDistinct.getInstance());
   }
 
   private void initBasicUDFFunctions() {
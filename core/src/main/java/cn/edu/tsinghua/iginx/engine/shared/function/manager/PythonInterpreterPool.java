@@ -0,0 +1,205 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.manager;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.AbstractTaskThreadPoolExecutor;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalTaskExecuteFailureException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Python 解释器池：每个工作线程持有一个独立的 pemja interpreter，UDAF/UDSF 按分组（窗口）拆分成任务提交到工作队列并行执行
+ *
+ * <p>interpreter 的创建与回收复用 AbstractTaskThreadPoolExecutor 的逻辑，本类只负责分发任务与统计排队/执行耗时
+ */
+public class PythonInterpreterPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PythonInterpreterPool.class);
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private static final long WARM_UP_TIMEOUT_SECONDS = 60;
+
+  private final int parallelism;
+
+  private final AbstractTaskThreadPoolExecutor executor;
+
+  private final LongAdder submittedTaskCount = new LongAdder();
+
+  private final LongAdder failedTaskCount = new LongAdder();
+
+  private final LongAdder queueWaitNanos = new LongAdder();
+
+  private final LongAdder executeNanos = new LongAdder();
+
+  private PythonInterpreterPool() {
+    this.parallelism = Math.max(1, config.getUdfInterpreterPoolSize());
+    this.executor = new AbstractTaskThreadPoolExecutor(parallelism);
+  }
+
+  public static PythonInterpreterPool getInstance() {
+    return PythonInterpreterPoolHolder.INSTANCE;
+  }
+
+  /** 在服务启动时调用：按配置预热所有 interpreter，并在进程退出时关闭解释器池 */
+  public void start() {
+    if (parallelism > 1 && config.isEnableUDFInterpreterPoolWarmUp()) {
+      warmUp();
+    }
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  LOGGER.info("Stopping python interpreter pool...");
+                  shutdown();
+                }));
+  }
+
+  /** 解释器池大小大于 1 时才值得将分组拆分到池中执行 */
+  public boolean isParallelEnabled() {
+    return parallelism > 1;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * 将任务全部提交到解释器池，并按提交顺序返回结果
+   *
+   * @param tasks 每个任务在执行线程上都可以通过 ThreadInterpreterManager 获取 interpreter
+   */
+  public <T> List<T> invokeAll(List<Callable<T>> tasks) throws PhysicalException {
+    List<Future<T>> futures = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      long submitTime = System.nanoTime();
+      submittedTaskCount.increment();
+      futures.add(
+          executor.submit(
+              () -> {
+                long startTime = System.nanoTime();
+                queueWaitNanos.add(startTime - submitTime);
+                try {
+                  return task.call();
+                } catch (Exception e) {
+                  failedTaskCount.increment();
+                  throw e;
+                } finally {
+                  executeNanos.add(System.nanoTime() - startTime);
+                }
+              }));
+    }
+
+    List<T> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new PhysicalTaskExecuteFailureException("interrupted when waiting for python udf", e);
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      throw new PhysicalTaskExecuteFailureException(
+          "encounter error when execute python udf in interpreter pool", e.getCause());
+    }
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(
+          "interpreter pool finished {} tasks, total: {}, failed: {}, avg wait: {}us, avg exec: {}us",
+          tasks.size(),
+          getSubmittedTaskCount(),
+          getFailedTaskCount(),
+          getAvgQueueWaitMicros(),
+          getAvgExecuteMicros());
+    }
+    return results;
+  }
+
+  /** 让每个工作线程各执行一个任务，从而提前创建好所有 interpreter，避免首个查询承担启动开销 */
+  private void warmUp() {
+    executor.prestartAllCoreThreads();
+    CountDownLatch latch = new CountDownLatch(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      executor.execute(
+          () -> {
+            ThreadInterpreterManager.executeWithInterpreter(interpreter -> interpreter.exec("1"));
+            latch.countDown();
+            try {
+              // 占住当前线程，保证剩余的预热任务落在其他线程上
+              latch.await(WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          });
+    }
+    try {
+      if (!latch.await(WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.warn("python interpreter pool warm up timeout, interpreters are created lazily.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public long getSubmittedTaskCount() {
+    return submittedTaskCount.sum();
+  }
+
+  public long getFailedTaskCount() {
+    return failedTaskCount.sum();
+  }
+
+  public int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  public long getAvgQueueWaitMicros() {
+    long count = submittedTaskCount.sum();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum() / count);
+  }
+
+  public long getAvgExecuteMicros() {
+    long count = submittedTaskCount.sum();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(executeNanos.sum() / count);
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private static class PythonInterpreterPoolHolder {
+
+    private static final PythonInterpreterPool INSTANCE = new PythonInterpreterPool();
+
+    private PythonInterpreterPoolHolder() {}
+  }
+}
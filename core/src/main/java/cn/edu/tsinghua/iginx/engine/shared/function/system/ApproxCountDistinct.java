@@ -0,0 +1,81 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.system;
+
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.function.*;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.utils.HyperLogLog;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.List;
+
+/** 基于 HyperLogLog 估计不同值的个数，无需像 count(distinct) 一样物化所有去重后的行 */
+public class ApproxCountDistinct implements SetMappingFunction {
+
+  public static final String APPROX_COUNT_DISTINCT = "approx_count_distinct";
+
+  private static final ApproxCountDistinct INSTANCE = new ApproxCountDistinct();
+
+  private ApproxCountDistinct() {}
+
+  public static ApproxCountDistinct getInstance() {
+    return INSTANCE;
+  }
+
+  @Override
+  public FunctionType getFunctionType() {
+    return FunctionType.System;
+  }
+
+  @Override
+  public MappingType getMappingType() {
+    return MappingType.SetMapping;
+  }
+
+  @Override
+  public String getIdentifier() {
+    return APPROX_COUNT_DISTINCT;
+  }
+
+  @Override
+  public Row transform(Table table, FunctionParams params) throws Exception {
+    Pair<List<Field>, List<Integer>> pair = FunctionUtils.getFieldAndIndices(table, params, this);
+    List<Field> targetFields = pair.k;
+    List<Integer> indices = pair.v;
+
+    HyperLogLog[] sketches = new HyperLogLog[indices.size()];
+    for (int i = 0; i < sketches.length; i++) {
+      sketches[i] = new HyperLogLog();
+    }
+    for (Row row : table.getRows()) {
+      Object[] values = row.getValues();
+      for (int i = 0; i < indices.size(); i++) {
+        sketches[i].add(values[indices.get(i)]);
+      }
+    }
+    Object[] targetValues = new Object[targetFields.size()];
+    for (int i = 0; i < sketches.length; i++) {
+      targetValues[i] = sketches[i].cardinality();
+    }
+    return new Row(new Header(targetFields), targetValues);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.system;
+
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.function.*;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.utils.TDigest;
+import cn.edu.tsinghua.iginx.engine.shared.function.system.utils.ValueUtils;
+import cn.edu.tsinghua.iginx.utils.DataTypeUtils;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.ArrayList;
+import java.util.List;
+
+/** 基于 t-digest 计算分位数，用法为 percentile(path, q)，其中 q 取值范围为 [0, 1] */
+public class Percentile implements SetMappingFunction {
+
+  public static final String PERCENTILE = "percentile";
+
+  private static final Percentile INSTANCE = new Percentile();
+
+  private Percentile() {}
+
+  public static Percentile getInstance() {
+    return INSTANCE;
+  }
+
+  @Override
+  public FunctionType getFunctionType() {
+    return FunctionType.System;
+  }
+
+  @Override
+  public MappingType getMappingType() {
+    return MappingType.SetMapping;
+  }
+
+  @Override
+  public String getIdentifier() {
+    return PERCENTILE;
+  }
+
+  @Override
+  public Row transform(Table table, FunctionParams params) throws Exception {
+    if (params.getArgs() == null
+        || params.getArgs().size() != 1
+        || !(params.getArgs().get(0) instanceof Number)) {
+      throw new IllegalArgumentException("percentile expects a number in [0, 1] as the 2nd arg");
+    }
+    Object quantileArg = params.getArgs().get(0);
+    double quantile = ((Number) quantileArg).doubleValue();
+    if (quantile < 0 || quantile > 1) {
+      throw new IllegalArgumentException("the 2nd arg of percentile should be in [0, 1]");
+    }
+
+    Pair<List<Field>, List<Integer>> pair = FunctionUtils.getFieldAndIndices(table, params, this);
+    List<Field> fields = table.getHeader().getFields();
+    List<Integer> indices = pair.v;
+    // 输出列名需要带上分位点参数，与 FuncExpression 的列名保持一致
+    String suffix = ", " + ValueUtils.toString(quantileArg) + ")";
+    List<Field> targetFields = new ArrayList<>();
+    for (int i = 0; i < indices.size(); i++) {
+      Field field = fields.get(indices.get(i));
+      if (!DataTypeUtils.isNumber(field.getType())) {
+        throw new IllegalArgumentException("only number can calculate percentile");
+      }
+      targetFields.add(
+          new Field(
+              PERCENTILE + "(" + field.getName() + suffix,
+              PERCENTILE + "(" + field.getFullName() + suffix,
+              pair.k.get(i).getType()));
+    }
+
+    TDigest[] digests = new TDigest[indices.size()];
+    for (int i = 0; i < digests.length; i++) {
+      digests[i] = new TDigest();
+    }
+    for (Row row : table.getRows()) {
+      for (int i = 0; i < indices.size(); i++) {
+        Object value = row.getValue(indices.get(i));
+        if (value != null) {
+          digests[i].add(((Number) value).doubleValue());
+        }
+      }
+    }
+    Object[] targetValues = new Object[targetFields.size()];
+    for (int i = 0; i < digests.length; i++) {
+      if (digests[i].size() != 0) {
+        targetValues[i] = digests[i].quantile(quantile);
+      }
+    }
+    return new Row(new Header(targetFields), targetValues);
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.system.utils;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 用于估计不同值个数的 HyperLogLog
+ *
+ * <p>基数较小时直接保存值的 64 位哈希，结果是精确的（仅受哈希冲突影响）；超过阈值后转换为寄存器表示，内存占用固定为 2^precision 字节。
+ * 不同分片/窗口上的结果可以序列化后再合并。
+ */
+public class HyperLogLog {
+
+  public static final int DEFAULT_PRECISION = 14;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private static final byte EXACT_MODE = 0;
+
+  private static final byte DENSE_MODE = 1;
+
+  private final int precision;
+
+  private final int registerCount;
+
+  private final int exactThreshold;
+
+  private Set<Long> exactHashes = new HashSet<>();
+
+  private byte[] registers;
+
+  public HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  public HyperLogLog(int precision) {
+    if (precision < 4 || precision > 18) {
+      throw new IllegalArgumentException("precision of hyperloglog should be in [4, 18]");
+    }
+    this.precision = precision;
+    this.registerCount = 1 << precision;
+    // 精确模式下每个哈希值约占用数十字节，超过寄存器内存的数倍之前就转换
+    this.exactThreshold = registerCount / 8;
+  }
+
+  public void add(Object value) {
+    if (value != null) {
+      addHash(hash(value));
+    }
+  }
+
+  private void addHash(long hash) {
+    if (registers == null) {
+      exactHashes.add(hash);
+      if (exactHashes.size() > exactThreshold) {
+        toDense();
+      }
+      return;
+    }
+    int index = (int) (hash >>> (64 - precision));
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+    if (registers[index] < rank) {
+      registers[index] = rank;
+    }
+  }
+
+  private void toDense() {
+    registers = new byte[registerCount];
+    Set<Long> hashes = exactHashes;
+    exactHashes = null;
+    for (long hash : hashes) {
+      addHash(hash);
+    }
+  }
+
+  /** 将另一个 HyperLogLog 合并到当前对象中，两者的精度必须相同 */
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("can not merge hyperloglog with different precision");
+    }
+    if (other.registers == null) {
+      for (long hash : other.exactHashes) {
+        addHash(hash);
+      }
+      return;
+    }
+    if (registers == null) {
+      toDense();
+    }
+    for (int i = 0; i < registerCount; i++) {
+      if (registers[i] < other.registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  public long cardinality() {
+    if (registers == null) {
+      return exactHashes.size();
+    }
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += Math.scalb(1.0, -register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double alpha = 0.7213 / (1 + 1.079 / registerCount);
+    double estimate = alpha * registerCount * registerCount / sum;
+    // 小基数时使用线性计数修正
+    if (estimate <= 2.5 * registerCount && zeros > 0) {
+      estimate = registerCount * Math.log((double) registerCount / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  private static long hash(Object value) {
+    if (value instanceof byte[]) {
+      return HASH_FUNCTION.hashBytes((byte[]) value).asLong();
+    } else if (value instanceof Float || value instanceof Double) {
+      double doubleValue = ((Number) value).doubleValue();
+      return HASH_FUNCTION.hashLong(Double.doubleToLongBits(doubleValue)).asLong();
+    } else if (value instanceof Number) {
+      return HASH_FUNCTION.hashLong(((Number) value).longValue()).asLong();
+    } else if (value instanceof Boolean) {
+      return HASH_FUNCTION.hashInt((Boolean) value ? 1 : 0).asLong();
+    } else {
+      return HASH_FUNCTION.hashUnencodedChars(value.toString()).asLong();
+    }
+  }
+
+  public byte[] serialize() {
+    ByteBuffer buffer;
+    if (registers == null) {
+      buffer = ByteBuffer.allocate(2 + Integer.BYTES + exactHashes.size() * Long.BYTES);
+      buffer.put((byte) precision);
+      buffer.put(EXACT_MODE);
+      buffer.putInt(exactHashes.size());
+      exactHashes.forEach(buffer::putLong);
+    } else {
+      buffer = ByteBuffer.allocate(2 + registerCount);
+      buffer.put((byte) precision);
+      buffer.put(DENSE_MODE);
+      buffer.put(registers);
+    }
+    return buffer.array();
+  }
+
+  public static HyperLogLog deserialize(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    HyperLogLog hll = new HyperLogLog(buffer.get());
+    if (buffer.get() == EXACT_MODE) {
+      int size = buffer.getInt();
+      for (int i = 0; i < size; i++) {
+        hll.exactHashes.add(buffer.getLong());
+      }
+    } else {
+      hll.exactHashes = null;
+      hll.registers = new byte[hll.registerCount];
+      buffer.get(hll.registers);
+    }
+    return hll;
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.system.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 合并式 t-digest，用有限个质心近似描述数值分布，用于计算分位数
+ *
+ * <p>质心大小受 k1 尺度函数约束，靠近两端的质心更小，因此尾部分位数更精确；数据量远小于 compression 时每个点都是独立的质心，结果与精确计算一致。
+ * 不同分片/窗口上计算得到的 digest 可以序列化后再合并。
+ */
+public class TDigest {
+
+  public static final double DEFAULT_COMPRESSION = 100;
+
+  private final double compression;
+
+  private double[] means = new double[0];
+
+  private double[] weights = new double[0];
+
+  private int centroidCount = 0;
+
+  private final double[] bufferMeans;
+
+  private final double[] bufferWeights;
+
+  private int bufferCount = 0;
+
+  private double totalWeight = 0;
+
+  private double min = Double.POSITIVE_INFINITY;
+
+  private double max = Double.NEGATIVE_INFINITY;
+
+  public TDigest() {
+    this(DEFAULT_COMPRESSION);
+  }
+
+  public TDigest(double compression) {
+    if (compression < 10) {
+      throw new IllegalArgumentException("compression of t-digest should not be less than 10");
+    }
+    this.compression = compression;
+    int bufferSize = (int) Math.ceil(compression) * 5;
+    this.bufferMeans = new double[bufferSize];
+    this.bufferWeights = new double[bufferSize];
+  }
+
+  public void add(double value) {
+    add(value, 1);
+  }
+
+  private void add(double value, double weight) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (bufferCount == bufferMeans.length) {
+      compress();
+    }
+    bufferMeans[bufferCount] = value;
+    bufferWeights[bufferCount] = weight;
+    bufferCount++;
+    totalWeight += weight;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /** 将另一个 digest 合并到当前 digest 中 */
+  public void merge(TDigest other) {
+    other.compress();
+    for (int i = 0; i < other.centroidCount; i++) {
+      add(other.means[i], other.weights[i]);
+    }
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  public long size() {
+    return (long) totalWeight;
+  }
+
+  /**
+   * 计算分位数，在相邻质心之间线性插值
+   *
+   * @param q 分位点，取值范围为 [0, 1]
+   * @return 分位数，没有任何数据时返回 NaN
+   */
+  public double quantile(double q) {
+    if (q < 0 || q > 1) {
+      throw new IllegalArgumentException("quantile should be in [0, 1], but got " + q);
+    }
+    compress();
+    if (centroidCount == 0) {
+      return Double.NaN;
+    }
+    // 将所有点按从小到大排列后，目标位置的下标；每个质心代表的点集中在其中心位置
+    double index = q * (totalWeight - 1);
+    double prevPosition = 0;
+    double prevValue = min;
+    double cumulative = 0;
+    for (int i = 0; i < centroidCount; i++) {
+      double center = cumulative + (weights[i] - 1) / 2;
+      if (index <= center) {
+        return interpolate(prevPosition, prevValue, center, means[i], index);
+      }
+      prevPosition = center;
+      prevValue = means[i];
+      cumulative += weights[i];
+    }
+    return interpolate(prevPosition, prevValue, totalWeight - 1, max, index);
+  }
+
+  private static double interpolate(double x0, double y0, double x1, double y1, double x) {
+    if (x1 <= x0) {
+      return y1;
+    }
+    return y0 + (y1 - y0) * (x - x0) / (x1 - x0);
+  }
+
+  /** 将缓冲区中的点与已有质心一起排序，再按尺度函数贪心地合并相邻质心 */
+  private void compress() {
+    if (bufferCount == 0) {
+      return;
+    }
+    int n = centroidCount + bufferCount;
+    double[] inMeans = Arrays.copyOf(means, n);
+    double[] inWeights = Arrays.copyOf(weights, n);
+    System.arraycopy(bufferMeans, 0, inMeans, centroidCount, bufferCount);
+    System.arraycopy(bufferWeights, 0, inWeights, centroidCount, bufferCount);
+    bufferCount = 0;
+
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(inMeans[a], inMeans[b]));
+
+    double[] outMeans = new double[n];
+    double[] outWeights = new double[n];
+    int count = 0;
+    double currentMean = inMeans[order[0]];
+    double currentWeight = inWeights[order[0]];
+    double weightSoFar = 0;
+    double kLower = scale(0);
+    for (int i = 1; i < n; i++) {
+      double mean = inMeans[order[i]];
+      double weight = inWeights[order[i]];
+      double proposedWeight = currentWeight + weight;
+      if (scale((weightSoFar + proposedWeight) / totalWeight) - kLower <= 1) {
+        currentMean += (mean - currentMean) * weight / proposedWeight;
+        currentWeight = proposedWeight;
+      } else {
+        outMeans[count] = currentMean;
+        outWeights[count] = currentWeight;
+        count++;
+        weightSoFar += currentWeight;
+        kLower = scale(weightSoFar / totalWeight);
+        currentMean = mean;
+        currentWeight = weight;
+      }
+    }
+    outMeans[count] = currentMean;
+    outWeights[count] = currentWeight;
+    count++;
+
+    means = Arrays.copyOf(outMeans, count);
+    weights = Arrays.copyOf(outWeights, count);
+    centroidCount = count;
+  }
+
+  /** k1 尺度函数 */
+  private double scale(double q) {
+    q = Math.min(1, Math.max(0, q));
+    return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+  }
+
+  public byte[] serialize() {
+    compress();
+    ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES * 3 + Integer.BYTES + centroidCount * 16);
+    buffer.putDouble(compression);
+    buffer.putDouble(min);
+    buffer.putDouble(max);
+    buffer.putInt(centroidCount);
+    for (int i = 0; i < centroidCount; i++) {
+      buffer.putDouble(means[i]);
+      buffer.putDouble(weights[i]);
+    }
+    return buffer.array();
+  }
+
+  public static TDigest deserialize(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    TDigest digest = new TDigest(buffer.getDouble());
+    digest.min = buffer.getDouble();
+    digest.max = buffer.getDouble();
+    int count = buffer.getInt();
+    digest.means = new double[count];
+    digest.weights = new double[count];
+    for (int i = 0; i < count; i++) {
+      digest.means[i] = buffer.getDouble();
+      digest.weights[i] = buffer.getDouble();
+      digest.totalWeight += digest.weights[i];
+    }
+    digest.centroidCount = count;
+    return digest;
+  }
+}
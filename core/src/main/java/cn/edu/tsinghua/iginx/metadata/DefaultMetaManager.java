@@ -34,10 +34,12 @@ import cn.edu.tsinghua.iginx.metadata.entity.*;
 import cn.edu.tsinghua.iginx.metadata.exception.MetaStorageException;
 import cn.edu.tsinghua.iginx.metadata.hook.StorageEngineChangeHook;
 import cn.edu.tsinghua.iginx.metadata.hook.StorageUnitHook;
+import cn.edu.tsinghua.iginx.metadata.statistics.DataStatisticsManager;
 import cn.edu.tsinghua.iginx.metadata.storage.IMetaStorage;
 import cn.edu.tsinghua.iginx.metadata.storage.etcd.ETCDMetaStorage;
 import cn.edu.tsinghua.iginx.metadata.storage.zk.ZooKeeperMetaStorage;
 import cn.edu.tsinghua.iginx.metadata.utils.ReshardStatus;
+import cn.edu.tsinghua.iginx.metrics.TimedProxy;
 import cn.edu.tsinghua.iginx.monitor.HotSpotMonitor;
 import cn.edu.tsinghua.iginx.monitor.RequestsMonitor;
 import cn.edu.tsinghua.iginx.policy.simple.ColumnCalDO;
@@ -84,7 +86,7 @@ public class DefaultMetaManager implements IMetaManager {
     switch (ConfigDescriptor.getInstance().getConfig().getMetaStorage()) {
       case Constants.ZOOKEEPER_META:
         LOGGER.info("use zookeeper as meta storage.");
-        storage = ZooKeeperMetaStorage.getInstance();
+        storage = instrument(ZooKeeperMetaStorage.getInstance());
         break;
       case Constants.FILE_META:
         LOGGER.error("file as meta storage has depreciated.");
@@ -93,7 +95,7 @@ public class DefaultMetaManager implements IMetaManager {
         break;
       case Constants.ETCD_META:
         LOGGER.info("use etcd as meta storage");
-        storage = ETCDMetaStorage.getInstance();
+        storage = instrument(ETCDMetaStorage.getInstance());
         break;
       default:
         // without configuration, file storage should be the safe choice
@@ -124,6 +126,14 @@ public class DefaultMetaManager implements IMetaManager {
     }
   }
 
+  /** 统计每一种元数据读写操作的耗时，元数据同步慢时可以从 /metrics 直接看出是哪类操作 */
+  private static IMetaStorage instrument(IMetaStorage storage) {
+    if (!ConfigDescriptor.getInstance().getConfig().isEnableMetrics()) {
+      return storage;
+    }
+    return TimedProxy.wrap(IMetaStorage.class, storage, "iginx_meta_storage", "Meta storage");
+  }
+
   public static DefaultMetaManager getInstance() {
     if (INSTANCE == null) {
       synchronized (DefaultMetaManager.class) {
@@ -748,6 +758,7 @@ public class DefaultMetaManager implements IMetaManager {
         }
         cache.addFragment(fragmentMeta);
         storage.addFragment(fragmentMeta);
+        DataStatisticsManager.getInstance().trackNewFragment(fragmentMeta);
       }
       return true;
     } catch (MetaStorageException e) {
@@ -811,6 +822,7 @@ public class DefaultMetaManager implements IMetaManager {
       }
       cache.addFragment(toAddFragment);
       storage.addFragment(toAddFragment);
+      DataStatisticsManager.getInstance().trackNewFragment(toAddFragment);
     } catch (MetaStorageException e) {
       LOGGER.error("create fragment error: ", e);
     } finally {
@@ -825,12 +837,120 @@ public class DefaultMetaManager implements IMetaManager {
     return fragment;
   }
 
+  /** 在元数据存储中检查分片是否仍是其列区间上未结束的最新分片，需要持有分片锁 */
+  private boolean isLatestFragmentInStorage(FragmentMeta fragment) {
+    ColumnsInterval columnsInterval = fragment.getColumnsInterval();
+    long startKey = fragment.getKeyInterval().getStartKey();
+    Map<ColumnsInterval, List<FragmentMeta>> fragmentMap =
+        storage.getFragmentMapByColumnsIntervalAndKeyInterval(
+            columnsInterval, new KeyInterval(startKey, Long.MAX_VALUE));
+    if (fragmentMap == null || !fragmentMap.containsKey(columnsInterval)) {
+      return false;
+    }
+    boolean found = false;
+    for (FragmentMeta storedFragment : fragmentMap.get(columnsInterval)) {
+      long storedStartKey = storedFragment.getKeyInterval().getStartKey();
+      if (storedStartKey > startKey) {
+        return false;
+      }
+      if (storedStartKey == startKey) {
+        found = storedFragment.getKeyInterval().getEndKey() == Long.MAX_VALUE;
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public FragmentMeta splitFragmentAndStorageUnits(
+      List<StorageUnitMeta> toAddStorageUnits,
+      List<FragmentMeta> toAddFragments,
+      FragmentMeta fragment) {
+    long splitKey = toAddFragments.get(0).getKeyInterval().getStartKey();
+    try {
+      storage.lockFragment();
+      storage.lockStorageUnit();
+
+      // 其他节点可能已经切分过该分片。其他节点的修改通过 watch 异步到达本地缓存，持有锁时以元数据存储中的分片为准
+      if (!isLatestFragmentInStorage(fragment)) {
+        LOGGER.info("fragment {} has been changed in meta storage, skip splitting it", fragment);
+        return null;
+      }
+      FragmentMeta latestFragment = getLatestFragmentMap().get(fragment.getColumnsInterval());
+      if (latestFragment == null
+          || latestFragment.getKeyInterval().getStartKey()
+              != fragment.getKeyInterval().getStartKey()
+          || latestFragment.getKeyInterval().getEndKey() != Long.MAX_VALUE
+          || splitKey <= latestFragment.getKeyInterval().getStartKey()) {
+        LOGGER.info("fragment {} has been changed, skip splitting it", fragment);
+        return null;
+      }
+
+      // 更新du
+      Map<String, StorageUnitMeta> fakeIdToStorageUnit = new HashMap<>();
+      for (StorageUnitMeta masterStorageUnit : toAddStorageUnits) {
+        masterStorageUnit.setCreatedBy(id);
+        String fakeName = masterStorageUnit.getId();
+        String actualName = storage.addStorageUnit();
+        StorageUnitMeta actualMasterStorageUnit =
+            masterStorageUnit.renameStorageUnitMeta(actualName, actualName);
+        cache.updateStorageUnit(actualMasterStorageUnit);
+        for (StorageUnitHook hook : storageUnitHooks) {
+          hook.onChange(null, actualMasterStorageUnit);
+        }
+        storage.updateStorageUnit(actualMasterStorageUnit);
+        fakeIdToStorageUnit.put(fakeName, actualMasterStorageUnit);
+        for (StorageUnitMeta slaveStorageUnit : masterStorageUnit.getReplicas()) {
+          slaveStorageUnit.setCreatedBy(id);
+          String slaveActualName = storage.addStorageUnit();
+          StorageUnitMeta actualSlaveStorageUnit =
+              slaveStorageUnit.renameStorageUnitMeta(slaveActualName, actualName);
+          actualMasterStorageUnit.addReplica(actualSlaveStorageUnit);
+          for (StorageUnitHook hook : storageUnitHooks) {
+            hook.onChange(null, actualSlaveStorageUnit);
+          }
+          cache.updateStorageUnit(actualSlaveStorageUnit);
+          storage.updateStorageUnit(actualSlaveStorageUnit);
+        }
+      }
+
+      // 结束旧分片
+      cache.deleteFragmentByColumnsInterval(latestFragment.getColumnsInterval(), latestFragment);
+      fragment = latestFragment.endFragmentMeta(splitKey);
+      cache.addFragment(fragment);
+      fragment.setUpdatedBy(id);
+      storage.updateFragment(fragment);
+
+      // 新分片在 key 上紧接旧分片，列区间合起来与旧分片相同
+      for (FragmentMeta toAddFragment : toAddFragments) {
+        toAddFragment.setCreatedBy(id);
+        toAddFragment.setInitialFragment(false);
+        toAddFragment.setMasterStorageUnit(
+            fakeIdToStorageUnit.get(toAddFragment.getFakeStorageUnitId()));
+        cache.addFragment(toAddFragment);
+        storage.addFragment(toAddFragment);
+        DataStatisticsManager.getInstance().trackNewFragment(toAddFragment);
+      }
+      return fragment;
+    } catch (MetaStorageException e) {
+      LOGGER.error("split fragment error: ", e);
+    } finally {
+      try {
+        storage.releaseFragment();
+        storage.releaseStorageUnit();
+      } catch (MetaStorageException e) {
+        LOGGER.error("release fragment lock error: ", e);
+      }
+    }
+    return null;
+  }
+
   @Override
   public void removeFragment(FragmentMeta fragmentMeta) {
     try {
       storage.lockFragment();
       cache.deleteFragmentByColumnsInterval(fragmentMeta.getColumnsInterval(), fragmentMeta);
       storage.removeFragment(fragmentMeta);
+      DataStatisticsManager.getInstance().removeFragment(fragmentMeta);
     } catch (MetaStorageException e) {
       LOGGER.error("remove fragment error: ", e);
     } finally {
@@ -1070,6 +1190,7 @@ public class DefaultMetaManager implements IMetaManager {
           fragmentMeta.setMasterStorageUnit(getStorageUnit(storageUnit.getMasterId()));
         }
         storage.addFragment(fragmentMeta);
+        DataStatisticsManager.getInstance().trackNewFragment(fragmentMeta);
       }
       Map<String, StorageUnitMeta> loadedStorageUnits = storage.loadStorageUnit();
       newStorageUnits.addAll(loadedStorageUnits.values());
@@ -121,6 +121,16 @@ public interface IMetaManager {
   FragmentMeta splitFragmentAndStorageUnit(
       StorageUnitMeta toAddStorageUnit, FragmentMeta toAddFragment, FragmentMeta fragment);
 
+  /**
+   * 用于自适应分片，在新分片的起始 key 处结束仍在写入的分片，并在其后按列区间创建多个新分片和du
+   *
+   * @return 结束后的旧分片，分片已被其他节点切分或切分失败时返回 null
+   */
+  FragmentMeta splitFragmentAndStorageUnits(
+      List<StorageUnitMeta> toAddStorageUnits,
+      List<FragmentMeta> toAddFragments,
+      FragmentMeta fragment);
+
   /** 是否已经创建过分片 */
   boolean hasFragment();
 
@@ -207,6 +207,14 @@ public class MetaManagerMock implements IMetaManager {
     return null;
   }
 
+  @Override
+  public FragmentMeta splitFragmentAndStorageUnits(
+      List<StorageUnitMeta> toAddStorageUnits,
+      List<FragmentMeta> toAddFragments,
+      FragmentMeta fragment) {
+    return null;
+  }
+
   @Override
   public boolean hasFragment() {
     return false;
@@ -202,6 +202,14 @@ public class MetaManagerWrapper implements IMetaManager {
     return metaManager.splitFragmentAndStorageUnit(toAddStorageUnit, toAddFragment, fragment);
   }
 
+  @Override
+  public FragmentMeta splitFragmentAndStorageUnits(
+      List<StorageUnitMeta> toAddStorageUnits,
+      List<FragmentMeta> toAddFragments,
+      FragmentMeta fragment) {
+    return metaManager.splitFragmentAndStorageUnits(toAddStorageUnits, toAddFragments, fragment);
+  }
+
   @Override
   public boolean hasFragment() {
     return metaManager.hasFragment();
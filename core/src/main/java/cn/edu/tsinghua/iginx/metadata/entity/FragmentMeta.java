@@ -60,6 +60,8 @@ public final class FragmentMeta {
 
   private boolean valid = true;
 
+  private transient String fragmentId;
+
   public FragmentMeta(String startPrefix, String endPrefix, long startKey, long endKey) {
     this.keyInterval = new KeyInterval(startKey, endKey);
     this.columnsInterval = new ColumnsInterval(startPrefix, endPrefix);
@@ -224,6 +226,14 @@ public final class FragmentMeta {
     return Objects.hash(keyInterval, columnsInterval);
   }
 
+  /** 由列区间与键区间确定的分片标识，与元数据存储中分片统计信息的路径一致 */
+  public String getFragmentId() {
+    if (fragmentId == null) {
+      fragmentId = columnsInterval + "/" + keyInterval;
+    }
+    return fragmentId;
+  }
+
   public boolean isInitialFragment() {
     return initialFragment;
   }
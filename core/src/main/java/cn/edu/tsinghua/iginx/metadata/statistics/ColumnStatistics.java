@@ -0,0 +1,75 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.metadata.statistics;
+
+import cn.edu.tsinghua.iginx.engine.shared.function.system.utils.HyperLogLog;
+
+/** 单个序列的统计信息：非空值个数、空值个数、数值类型的最小/最大值以及不同值个数的估计 */
+public class ColumnStatistics {
+
+  // 统计信息常驻内存，使用较低的精度控制每个序列的内存占用
+  private static final int NDV_PRECISION = 12;
+
+  private long nonNullCount = 0;
+
+  private long nullCount = 0;
+
+  private double min = Double.POSITIVE_INFINITY;
+
+  private double max = Double.NEGATIVE_INFINITY;
+
+  private final HyperLogLog ndvSketch = new HyperLogLog(NDV_PRECISION);
+
+  public synchronized void update(Object value) {
+    if (value == null) {
+      nullCount++;
+      return;
+    }
+    nonNullCount++;
+    if (value instanceof Number) {
+      double doubleValue = ((Number) value).doubleValue();
+      min = Math.min(min, doubleValue);
+      max = Math.max(max, doubleValue);
+    }
+    ndvSketch.add(value);
+  }
+
+  public synchronized long getNonNullCount() {
+    return nonNullCount;
+  }
+
+  public synchronized double getNullFraction() {
+    long total = nonNullCount + nullCount;
+    return total == 0 ? 0 : (double) nullCount / total;
+  }
+
+  /** 数值类型序列的最小值，非数值类型或没有数据时返回 null */
+  public synchronized Double getMin() {
+    return min == Double.POSITIVE_INFINITY ? null : min;
+  }
+
+  public synchronized Double getMax() {
+    return max == Double.NEGATIVE_INFINITY ? null : max;
+  }
+
+  public synchronized long getNdv() {
+    return ndvSketch.cardinality();
+  }
+}
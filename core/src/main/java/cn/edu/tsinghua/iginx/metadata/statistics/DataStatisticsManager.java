@@ -0,0 +1,134 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.metadata.statistics;
+
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.BitmapView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.DataView;
+import cn.edu.tsinghua.iginx.metadata.DefaultMetaManager;
+import cn.edu.tsinghua.iginx.metadata.entity.ColumnsInterval;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据统计信息，在写入路径上维护，供基于代价的优化使用
+ *
+ * <p>分片行数按写入的键的个数累计，重复写入同一个键时会高估；序列统计信息在所有分片之间共享。统计信息只保存在当前节点的内存中，重启后重新累计。
+ *
+ * <p>分片结束时会生成新的 FragmentMeta 对象，因此分片行数按列区间与起始 key 记录，而不是按 FragmentMeta 对象记录。
+ */
+public class DataStatisticsManager {
+
+  private static final DataStatisticsManager INSTANCE = new DataStatisticsManager();
+
+  private final boolean enableColumnStatistics =
+      ConfigDescriptor.getInstance().getConfig().isEnableColumnStatistics();
+
+  private final Map<Pair<ColumnsInterval, Long>, LongAdder> fragmentRowCounts =
+      new ConcurrentHashMap<>();
+
+  private final Map<String, ColumnStatistics> columnStatistics = new ConcurrentHashMap<>();
+
+  // 由本节点在本次运行中创建的分片，其行数从创建起完整累计
+  private final Set<Pair<ColumnsInterval, Long>> trackedFragments = ConcurrentHashMap.newKeySet();
+
+  private DataStatisticsManager() {}
+
+  public static DataStatisticsManager getInstance() {
+    return INSTANCE;
+  }
+
+  public void recordInsert(FragmentMeta fragment, DataView data) {
+    fragmentRowCounts
+        .computeIfAbsent(keyOf(fragment), k -> new LongAdder())
+        .add(data.getKeySize());
+    if (!enableColumnStatistics) {
+      return;
+    }
+    ColumnStatistics[] statistics = new ColumnStatistics[data.getPathNum()];
+    for (int i = 0; i < statistics.length; i++) {
+      statistics[i] =
+          columnStatistics.computeIfAbsent(data.getPath(i), path -> new ColumnStatistics());
+    }
+    if (data.isRowData()) {
+      for (int i = 0; i < data.getKeySize(); i++) {
+        BitmapView bitmapView = data.getBitmapView(i);
+        int index = 0;
+        for (int j = 0; j < statistics.length; j++) {
+          statistics[j].update(bitmapView.get(j) ? data.getValue(i, index++) : null);
+        }
+      }
+    } else {
+      for (int i = 0; i < statistics.length; i++) {
+        BitmapView bitmapView = data.getBitmapView(i);
+        int index = 0;
+        for (int j = 0; j < data.getKeySize(); j++) {
+          statistics[i].update(bitmapView.get(j) ? data.getValue(i, index++) : null);
+        }
+      }
+    }
+  }
+
+  /** 本节点创建新分片时调用，此后该分片的行数从 0 开始累计 */
+  public void trackNewFragment(FragmentMeta fragment) {
+    Pair<ColumnsInterval, Long> key = keyOf(fragment);
+    fragmentRowCounts.putIfAbsent(key, new LongAdder());
+    trackedFragments.add(key);
+  }
+
+  /**
+   * 分片的行数是否可信：分片由本节点在本次运行中创建，且集群中只有本节点
+   *
+   * <p>多节点部署时其他节点的写入不会计入本节点的统计，重启前创建的分片只记录了重启后的写入，这些行数都只是下界
+   */
+  public boolean isRowCountAuthoritative(FragmentMeta fragment) {
+    return trackedFragments.contains(keyOf(fragment))
+        && DefaultMetaManager.getInstance().getIginxList().size() == 1;
+  }
+
+  /** 分片中已写入的行数，没有记录时返回 -1 */
+  public long getFragmentRowCount(FragmentMeta fragment) {
+    LongAdder rowCount = fragmentRowCounts.get(keyOf(fragment));
+    return rowCount == null ? -1 : rowCount.sum();
+  }
+
+  /** 序列的统计信息，没有记录时返回 null */
+  public ColumnStatistics getColumnStatistics(String path) {
+    return columnStatistics.get(path);
+  }
+
+  public void removeFragment(FragmentMeta fragment) {
+    Pair<ColumnsInterval, Long> key = keyOf(fragment);
+    fragmentRowCounts.remove(key);
+    trackedFragments.remove(key);
+  }
+
+  private static Pair<ColumnsInterval, Long> keyOf(FragmentMeta fragment) {
+    // 列区间可能被原地修改，复制一份作为 key
+    ColumnsInterval columnsInterval = fragment.getColumnsInterval();
+    return new Pair<>(
+        new ColumnsInterval(columnsInterval.getStartColumn(), columnsInterval.getEndColumn()),
+        fragment.getKeyInterval().getStartKey());
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图，桶的上界按 2 的幂次从 1us 增长到约 67s，相对误差不超过一倍
+ *
+ * <p>每个桶都是独立的 LongAdder，记录时只需计算桶下标，不需要加锁
+ */
+public class Histogram {
+
+  static final int BUCKET_NUM = 27;
+
+  private static final long MAX_BOUND_MICROS = 1L << (BUCKET_NUM - 1);
+
+  private final LongAdder[] buckets = new LongAdder[BUCKET_NUM + 1];
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sumNanos = new LongAdder();
+
+  public Histogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets[bucketIndex(nanos / 1000)].increment();
+    count.increment();
+    sumNanos.add(nanos);
+  }
+
+  /** 返回第一个上界不小于 micros 的桶，超过最大上界时落入 +Inf 桶 */
+  static int bucketIndex(long micros) {
+    if (micros <= 1) {
+      return 0;
+    }
+    if (micros > MAX_BOUND_MICROS) {
+      return BUCKET_NUM;
+    }
+    return 64 - Long.numberOfLeadingZeros(micros - 1);
+  }
+
+  /** 第 index 个桶的上界，单位为秒 */
+  static double upperBoundSeconds(int index) {
+    return (1L << index) / 1_000_000.0;
+  }
+
+  /** 各个桶的累计计数，最后一个元素对应 +Inf */
+  long[] cumulativeCounts() {
+    long[] counts = new long[buckets.length];
+    long total = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      total += buckets[i].sum();
+      counts[i] = total;
+    }
+    return counts;
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public double getSumSeconds() {
+    return sumNanos.sum() / 1_000_000_000.0;
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的运行指标注册表，由 rest 服务的 /metrics 以 Prometheus 文本格式输出
+ *
+ * <p>标签以 name, value 交替的形式传入。标签固定的指标应当在调用方缓存返回的 Counter/Histogram，避免每次记录都查表。
+ */
+public class MetricsRegistry {
+
+  private final Map<String, Family<?>> families = new ConcurrentSkipListMap<>();
+
+  private MetricsRegistry() {}
+
+  public static MetricsRegistry getInstance() {
+    return MetricsRegistryHolder.INSTANCE;
+  }
+
+  public Counter counter(String name, String help, String... labels) {
+    return family(name, help, "counter", Counter.class).get(labels, k -> new Counter());
+  }
+
+  public Histogram histogram(String name, String help, String... labels) {
+    return family(name, help, "histogram", Histogram.class).get(labels, k -> new Histogram());
+  }
+
+  /** 注册一个读取时才取值的指标，例如队列长度；同名同标签重复注册时以最后一次为准 */
+  public void gauge(String name, String help, LongSupplier supplier, String... labels) {
+    family(name, help, "gauge", LongSupplier.class).put(labels, supplier);
+  }
+
+  public void removeGauge(String name, String... labels) {
+    Family<?> family = families.get(name);
+    if (family != null) {
+      family.metrics.remove(formatLabels(labels));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Family<T> family(String name, String help, String type, Class<T> clazz) {
+    Family<?> family = families.computeIfAbsent(name, k -> new Family<>(name, help, type));
+    if (!family.type.equals(type)) {
+      throw new IllegalArgumentException(
+          String.format("metric %s is already registered as %s", name, family.type));
+    }
+    return (Family<T>) family;
+  }
+
+  /** 输出 Prometheus text format (version 0.0.4) */
+  public String scrape() {
+    StringBuilder builder = new StringBuilder();
+    for (Family<?> family : families.values()) {
+      if (family.metrics.isEmpty()) {
+        continue;
+      }
+      builder.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      builder.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+      for (Map.Entry<String, ?> entry : family.metrics.entrySet()) {
+        String labels = entry.getKey();
+        Object metric = entry.getValue();
+        if (metric instanceof Counter) {
+          appendSample(builder, family.name, labels, ((Counter) metric).get());
+        } else if (metric instanceof LongSupplier) {
+          appendSample(builder, family.name, labels, ((LongSupplier) metric).getAsLong());
+        } else if (metric instanceof Histogram) {
+          appendHistogram(builder, family.name, labels, (Histogram) metric);
+        }
+      }
+    }
+    return builder.toString();
+  }
+
+  private static void appendHistogram(
+      StringBuilder builder, String name, String labels, Histogram histogram) {
+    long[] counts = histogram.cumulativeCounts();
+    String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+    for (int i = 0; i < Histogram.BUCKET_NUM; i++) {
+      builder
+          .append(name)
+          .append("_bucket")
+          .append(prefix)
+          .append("le=\"")
+          .append(Histogram.upperBoundSeconds(i))
+          .append("\"} ")
+          .append(counts[i])
+          .append('\n');
+    }
+    long total = counts[Histogram.BUCKET_NUM];
+    builder.append(name).append("_bucket").append(prefix).append("le=\"+Inf\"} ");
+    builder.append(total).append('\n');
+    builder.append(name).append("_sum").append(labels).append(' ');
+    builder.append(histogram.getSumSeconds()).append('\n');
+    appendSample(builder, name + "_count", labels, total);
+  }
+
+  private static void appendSample(StringBuilder builder, String name, String labels, long value) {
+    builder.append(name).append(labels).append(' ').append(value).append('\n');
+  }
+
+  static String formatLabels(String... labels) {
+    if (labels.length == 0) {
+      return "";
+    }
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("labels should be name and value pairs");
+    }
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      builder.append(labels[i]).append("=\"");
+      String value = labels[i + 1] == null ? "" : labels[i + 1];
+      for (int j = 0; j < value.length(); j++) {
+        char c = value.charAt(j);
+        if (c == '\\' || c == '"') {
+          builder.append('\\').append(c);
+        } else if (c == '\n') {
+          builder.append("\\n");
+        } else {
+          builder.append(c);
+        }
+      }
+      builder.append('"');
+    }
+    return builder.append('}').toString();
+  }
+
+  private static class Family<T> {
+
+    private final String name;
+
+    private final String help;
+
+    private final String type;
+
+    private final Map<String, T> metrics = new ConcurrentHashMap<>();
+
+    private Family(String name, String help, String type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+    }
+
+    private T get(String[] labels, Function<String, T> creator) {
+      String key = formatLabels(labels);
+      T metric = metrics.get(key);
+      return metric != null ? metric : metrics.computeIfAbsent(key, creator);
+    }
+
+    private void put(String[] labels, T metric) {
+      metrics.put(formatLabels(labels), metric);
+    }
+  }
+
+  private static class MetricsRegistryHolder {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private MetricsRegistryHolder() {}
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.server.ServerContext;
+import org.apache.thrift.server.TServerEventHandler;
+import org.apache.thrift.transport.TTransport;
+
+/** 统计 thrift 服务的连接数与处理的请求数 */
+public class ThriftServerMetricsHandler implements TServerEventHandler {
+
+  private final AtomicLong activeConnections = new AtomicLong();
+
+  private final Counter connections;
+
+  private final Counter requests;
+
+  public ThriftServerMetricsHandler() {
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    registry.gauge(
+        "iginx_thrift_active_connections",
+        "Number of open thrift connections",
+        activeConnections::get);
+    connections =
+        registry.counter("iginx_thrift_connections_total", "Number of accepted thrift connections");
+    requests = registry.counter("iginx_thrift_requests_total", "Number of thrift requests");
+  }
+
+  @Override
+  public void preServe() {}
+
+  @Override
+  public ServerContext createContext(TProtocol input, TProtocol output) {
+    connections.inc();
+    activeConnections.incrementAndGet();
+    return null;
+  }
+
+  @Override
+  public void deleteContext(ServerContext serverContext, TProtocol input, TProtocol output) {
+    activeConnections.decrementAndGet();
+  }
+
+  @Override
+  public void processContext(
+      ServerContext serverContext, TTransport inputTransport, TTransport outputTransport) {
+    requests.inc();
+  }
+}
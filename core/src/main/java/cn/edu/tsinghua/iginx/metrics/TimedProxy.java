@@ -0,0 +1,89 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 为接口的每个方法记录调用耗时与抛出异常的次数，用于 rpc 接口与元数据存储这类方法较多、逐个埋点不现实的场景
+ *
+ * <p>生成的指标为 {prefix}_duration_seconds 与 {prefix}_errors_total，以方法名作为 method 标签
+ */
+public class TimedProxy implements InvocationHandler {
+
+  private final Object target;
+
+  private final Map<Method, Histogram> durations = new HashMap<>();
+
+  private final Map<Method, Counter> errors = new HashMap<>();
+
+  private TimedProxy(Class<?> iface, Object target, String prefix, String help) {
+    this.target = target;
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    for (Method method : iface.getMethods()) {
+      durations.put(
+          method,
+          registry.histogram(
+              prefix + "_duration_seconds", help + " latency", "method", method.getName()));
+      errors.put(
+          method,
+          registry.counter(
+              prefix + "_errors_total", help + " failures", "method", method.getName()));
+    }
+  }
+
+  public static <T> T wrap(Class<T> iface, T target, String prefix, String help) {
+    return iface.cast(
+        Proxy.newProxyInstance(
+            iface.getClassLoader(),
+            new Class<?>[] {iface},
+            new TimedProxy(iface, target, prefix, help)));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    Histogram histogram = durations.get(method);
+    if (histogram == null) { // Object 上的方法
+      return invokeTarget(method, args);
+    }
+    long startTime = System.nanoTime();
+    try {
+      return invokeTarget(method, args);
+    } catch (Throwable e) {
+      errors.get(method).inc();
+      throw e;
+    } finally {
+      histogram.record(System.nanoTime() - startTime);
+    }
+  }
+
+  private Object invokeTarget(Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
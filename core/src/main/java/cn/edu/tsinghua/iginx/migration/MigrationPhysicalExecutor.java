@@ -19,8 +19,11 @@
  */
 package cn.edu.tsinghua.iginx.migration;
 
+import cn.edu.tsinghua.iginx.conf.Config;
 import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.PhysicalEngine;
 import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalTaskExecuteFailureException;
 import cn.edu.tsinghua.iginx.engine.physical.storage.execute.StoragePhysicalTaskExecutor;
 import cn.edu.tsinghua.iginx.engine.physical.task.MemoryPhysicalTask;
 import cn.edu.tsinghua.iginx.engine.physical.task.StoragePhysicalTask;
@@ -46,18 +49,64 @@ import cn.edu.tsinghua.iginx.thrift.DataType;
 import cn.edu.tsinghua.iginx.utils.Bitmap;
 import cn.edu.tsinghua.iginx.utils.ByteUtils;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MigrationPhysicalExecutor {
 
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
   private static final MigrationPhysicalExecutor INSTANCE = new MigrationPhysicalExecutor();
 
+  // 多个分片的迁移任务在该线程池中并行执行
+  private final ExecutorService fragmentMigrationPool =
+      Executors.newFixedThreadPool(
+          Math.max(1, config.getMigrationParallelism()),
+          runnable -> {
+            // 迁移线程不应阻止进程退出
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("fragment-migration-" + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+          });
+
   public static MigrationPhysicalExecutor getInstance() {
     return INSTANCE;
   }
 
+  /** 并行迁移多个分片，全部完成后返回；任一分片迁移失败时取消其余任务并抛出异常 */
+  public void executeAll(PhysicalEngine physicalEngine, List<Migration> migrations)
+      throws PhysicalException {
+    List<Future<RowStream>> futures = new ArrayList<>(migrations.size());
+    for (Migration migration : migrations) {
+      futures.add(
+          fragmentMigrationPool.submit(
+              () -> physicalEngine.execute(new RequestContext(), migration)));
+    }
+    try {
+      for (Future<RowStream> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new PhysicalTaskExecuteFailureException("interrupted when migrating fragments", e);
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof PhysicalException) {
+        throw (PhysicalException) e.getCause();
+      }
+      throw new PhysicalTaskExecuteFailureException("fail to migrate fragments", e.getCause());
+    }
+  }
+
   public RowStream execute(
       RequestContext ctx, Migration migration, StoragePhysicalTaskExecutor storageTaskExecutor)
       throws PhysicalException {
@@ -98,74 +147,107 @@ public class MigrationPhysicalExecutor {
               selectResultTypes.add(field.getType());
             });
 
+    long batchSize = config.getMigrationBatchSize();
+    int maxInFlightBatches = Math.max(1, config.getMigrationMaxInFlightBatches());
+    // 已提交但尚未完成的写入任务，读取下一批数据的同时前面的批次仍在写入
+    Deque<StoragePhysicalTask> inFlightInserts = new ArrayDeque<>();
+
     List<Long> timestampList = new ArrayList<>();
     List<ByteBuffer> valuesList = new ArrayList<>();
     List<Bitmap> bitmapList = new ArrayList<>();
     List<ByteBuffer> bitmapBufferList = new ArrayList<>();
+    long points = 0;
 
     boolean hasTimestamp = selectRowStream.getHeader().hasKey();
-    while (selectRowStream.hasNext()) {
-      Row row = selectRowStream.next();
-      Object[] rowValues = row.getValues();
-      valuesList.add(ByteUtils.getRowByteBuffer(rowValues, selectResultTypes));
-      Bitmap bitmap = new Bitmap(rowValues.length);
-      for (int i = 0; i < rowValues.length; i++) {
-        if (rowValues[i] != null) {
-          bitmap.mark(i);
+    try {
+      while (selectRowStream.hasNext()) {
+        Row row = selectRowStream.next();
+        Object[] rowValues = row.getValues();
+        valuesList.add(ByteUtils.getRowByteBuffer(rowValues, selectResultTypes));
+        Bitmap bitmap = new Bitmap(rowValues.length);
+        for (int i = 0; i < rowValues.length; i++) {
+          if (rowValues[i] != null) {
+            bitmap.mark(i);
+            points++;
+          }
+        }
+        bitmapBufferList.add(ByteBuffer.wrap(bitmap.getBytes()));
+        bitmapList.add(bitmap);
+        if (hasTimestamp) {
+          timestampList.add(row.getKey());
         }
-      }
-      bitmapBufferList.add(ByteBuffer.wrap(bitmap.getBytes()));
-      bitmapList.add(bitmap);
-      if (hasTimestamp) {
-        timestampList.add(row.getKey());
-      }
 
-      // 按行批量插入数据
-      if (timestampList.size()
-          == ConfigDescriptor.getInstance().getConfig().getMigrationBatchSize()) {
-        insertDataByBatch(
-            ctx,
-            timestampList,
-            valuesList,
-            bitmapList,
-            bitmapBufferList,
-            toMigrateFragment,
-            selectResultPaths,
-            selectResultTypes,
-            targetStorageUnitMeta.getId(),
-            storageTaskExecutor);
-        timestampList.clear();
-        valuesList.clear();
-        bitmapList.clear();
-        bitmapBufferList.clear();
+        // 按行批量插入数据
+        if (timestampList.size() == batchSize) {
+          if (inFlightInserts.size() >= maxInFlightBatches) {
+            waitForInsert(inFlightInserts.poll());
+          }
+          inFlightInserts.add(
+              insertDataByBatch(
+                  ctx,
+                  timestampList,
+                  valuesList,
+                  bitmapList,
+                  bitmapBufferList,
+                  points,
+                  toMigrateFragment,
+                  selectResultPaths,
+                  selectResultTypes,
+                  targetStorageUnitMeta.getId(),
+                  storageTaskExecutor));
+          // 已提交的批次仍在被异步写入，不能复用其中的列表
+          timestampList = new ArrayList<>();
+          valuesList = new ArrayList<>();
+          bitmapList = new ArrayList<>();
+          bitmapBufferList = new ArrayList<>();
+          points = 0;
+        }
       }
+      inFlightInserts.add(
+          insertDataByBatch(
+              ctx,
+              timestampList,
+              valuesList,
+              bitmapList,
+              bitmapBufferList,
+              points,
+              toMigrateFragment,
+              selectResultPaths,
+              selectResultTypes,
+              targetStorageUnitMeta.getId(),
+              storageTaskExecutor));
+      drainInserts(inFlightInserts);
+    } catch (PhysicalException | RuntimeException e) {
+      // 读取失败时也要等待已提交的写入结束，再抛出原始异常
+      try {
+        drainInserts(inFlightInserts);
+      } catch (PhysicalException insertException) {
+        e.addSuppressed(insertException);
+      }
+      throw e;
     }
-    insertDataByBatch(
-        ctx,
-        timestampList,
-        valuesList,
-        bitmapList,
-        bitmapBufferList,
-        toMigrateFragment,
-        selectResultPaths,
-        selectResultTypes,
-        targetStorageUnitMeta.getId(),
-        storageTaskExecutor);
     return selectResult.getRowStream();
   }
 
-  private void insertDataByBatch(
+  private StoragePhysicalTask insertDataByBatch(
       RequestContext ctx,
       List<Long> timestampList,
       List<ByteBuffer> valuesList,
       List<Bitmap> bitmapList,
       List<ByteBuffer> bitmapBufferList,
+      long points,
       FragmentMeta toMigrateFragment,
       List<String> selectResultPaths,
       List<DataType> selectResultTypes,
       String storageUnitId,
       StoragePhysicalTaskExecutor storageTaskExecutor)
       throws PhysicalException {
+    try {
+      MigrationThrottler.getInstance().acquire(points);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PhysicalTaskExecuteFailureException("interrupted when throttling migration", e);
+    }
     // 按行批量插入数据
     RawData rowData =
         new RawData(
@@ -182,6 +264,27 @@ public class MigrationPhysicalExecutor {
     insertOperators.add(new Insert(new FragmentSource(toMigrateFragment), rowDataView));
     StoragePhysicalTask insertPhysicalTask = new StoragePhysicalTask(insertOperators, ctx);
     storageTaskExecutor.commitWithTargetStorageUnitId(insertPhysicalTask, storageUnitId);
+    return insertPhysicalTask;
+  }
+
+  /** 等待所有已提交的写入结束，返回第一个写入异常 */
+  private void drainInserts(Deque<StoragePhysicalTask> inFlightInserts) throws PhysicalException {
+    PhysicalException insertException = null;
+    while (!inFlightInserts.isEmpty()) {
+      try {
+        waitForInsert(inFlightInserts.poll());
+      } catch (PhysicalException e) {
+        if (insertException == null) {
+          insertException = e;
+        }
+      }
+    }
+    if (insertException != null) {
+      throw insertException;
+    }
+  }
+
+  private void waitForInsert(StoragePhysicalTask insertPhysicalTask) throws PhysicalException {
     TaskExecuteResult insertResult = insertPhysicalTask.getResult();
     if (insertResult.getException() != null) {
       throw insertResult.getException();
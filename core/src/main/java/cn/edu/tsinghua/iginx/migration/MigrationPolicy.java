@@ -82,6 +82,10 @@ public abstract class MigrationPolicy {
     this.migrationLogger = migrationLogger;
   }
 
+  /**
+   * 按给定的分片读写负载执行迁移。当前代码中没有按负载发起迁移的触发入口，因此 FragmentHeatTracker
+   * 维护的实时热度暂不接入此处；待触发入口实现后，再由其传入热度快照。
+   */
   public abstract void migrate(
       List<MigrationTask> migrationTasks,
       Map<Long, List<FragmentMeta>> nodeFragmentMap,
@@ -557,13 +561,14 @@ public abstract class MigrationPolicy {
       }
       StorageUnitMeta targetStorageUnit =
           DefaultMetaManager.getInstance().getStorageUnit(targetStorageUnitId);
-      // 开始迁移数据
+      // 开始迁移数据，各分片并行迁移
+      List<Migration> migrations = new ArrayList<>();
       for (FragmentMeta fragmentMeta : fragmentMetas) {
-        Migration migration =
+        migrations.add(
             new Migration(
-                new GlobalSource(), fragmentMeta, new ArrayList<>(pathSet), targetStorageUnit);
-        physicalEngine.execute(new RequestContext(), migration);
+                new GlobalSource(), fragmentMeta, new ArrayList<>(pathSet), targetStorageUnit));
       }
+      MigrationPhysicalExecutor.getInstance().executeAll(physicalEngine, migrations);
       return true;
     } catch (Exception e) {
       logger.error(
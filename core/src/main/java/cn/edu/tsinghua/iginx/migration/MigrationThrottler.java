@@ -0,0 +1,67 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.migration;
+
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 迁移限流器：所有迁移任务共享同一个令牌桶，按每秒写入的数据点数限制迁移带宽，避免迁移挤占前台读写资源
+ *
+ * <p>令牌桶容量为一秒的额度；额度不足时先预支，由申请方睡眠到额度补齐为止，因此单个大批次也不会被永久阻塞
+ */
+public class MigrationThrottler {
+
+  private static final MigrationThrottler INSTANCE = new MigrationThrottler();
+
+  private double availablePoints = 0;
+
+  private long lastRefillNanos = System.nanoTime();
+
+  private MigrationThrottler() {}
+
+  public static MigrationThrottler getInstance() {
+    return INSTANCE;
+  }
+
+  /** 申请写入 points 个数据点的额度，额度不足时阻塞等待 */
+  public void acquire(long points) throws InterruptedException {
+    long maxPointsPerSecond =
+        ConfigDescriptor.getInstance().getConfig().getMigrationMaxPointsPerSecond();
+    if (maxPointsPerSecond <= 0 || points <= 0) {
+      return;
+    }
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      availablePoints =
+          Math.min(
+              maxPointsPerSecond,
+              availablePoints + (now - lastRefillNanos) * maxPointsPerSecond / 1e9);
+      lastRefillNanos = now;
+      availablePoints -= points;
+      waitNanos =
+          availablePoints >= 0 ? 0 : (long) (-availablePoints * 1e9 / maxPointsPerSecond);
+    }
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+}
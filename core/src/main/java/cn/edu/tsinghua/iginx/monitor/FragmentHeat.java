@@ -0,0 +1,52 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.monitor;
+
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+
+/** 一个分片的读写热度 */
+public class FragmentHeat {
+
+  private volatile FragmentMeta fragment;
+
+  private final HeatMeter read = new HeatMeter();
+
+  private final HeatMeter write = new HeatMeter();
+
+  FragmentHeat(FragmentMeta fragment) {
+    this.fragment = fragment;
+  }
+
+  public FragmentMeta getFragment() {
+    return fragment;
+  }
+
+  void setFragment(FragmentMeta fragment) {
+    this.fragment = fragment;
+  }
+
+  public HeatMeter getRead() {
+    return read;
+  }
+
+  public HeatMeter getWrite() {
+    return write;
+  }
+}
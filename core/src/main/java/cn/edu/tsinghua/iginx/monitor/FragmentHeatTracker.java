@@ -0,0 +1,160 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.monitor;
+
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Insert;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.monitor.HeatMeter.Window;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * 本节点上各个分片的读写热度，以分片标识为键
+ *
+ * <p>开启监控时存储任务执行完成后记录一次，热度随时间衰减，分片合并与切分可以随时读取当前的快照；HotSpotMonitor 与 RequestsMonitor
+ * 上报到元数据存储的数据也来自这里。
+ */
+public class FragmentHeatTracker {
+
+  // 近一分钟内平均每分钟至少有一次访问才认为分片仍然活跃
+  private static final double ACTIVE_REQUEST_RATE = 1.0 / 60;
+
+  private static final long EXPIRE_NANOS = TimeUnit.MINUTES.toNanos(15);
+
+  private final boolean isEnableMonitor =
+      ConfigDescriptor.getInstance().getConfig().isEnableMonitor();
+
+  private final Map<String, FragmentHeat> heats = new ConcurrentHashMap<>();
+
+  private volatile long lastExpireTime = System.nanoTime();
+
+  private FragmentHeatTracker() {}
+
+  public static FragmentHeatTracker getInstance() {
+    return FragmentHeatTrackerHolder.INSTANCE;
+  }
+
+  public void record(FragmentMeta fragment, Operator operator, long nanos) {
+    if (!isEnableMonitor || fragment == null) {
+      return;
+    }
+    if (operator.getType() == OperatorType.Project) {
+      getOrCreate(fragment).getRead().record(1, nanos);
+    } else if (operator.getType() == OperatorType.Insert) {
+      Insert insert = (Insert) operator;
+      long points = (long) insert.getData().getPathNum() * insert.getData().getKeySize();
+      getOrCreate(fragment).getWrite().record(points, nanos);
+    }
+  }
+
+  private FragmentHeat getOrCreate(FragmentMeta fragment) {
+    String id = fragment.getFragmentId();
+    FragmentHeat heat = heats.get(id);
+    if (heat == null) {
+      expireIfNecessary();
+      heat = heats.computeIfAbsent(id, k -> new FragmentHeat(fragment));
+    } else if (heat.getFragment() != fragment) {
+      // 保留最新的分片对象，其 masterStorageUnit 等信息可能已经更新
+      heat.setFragment(fragment);
+    }
+    return heat;
+  }
+
+  public FragmentHeat getHeat(FragmentMeta fragment) {
+    return heats.get(fragment.getFragmentId());
+  }
+
+  public Collection<FragmentHeat> getHeats() {
+    return Collections.unmodifiableCollection(heats.values());
+  }
+
+  /** 分片近一分钟内是否仍有读写 */
+  public boolean isActive(FragmentMeta fragment) {
+    FragmentHeat heat = getHeat(fragment);
+    return heat != null
+        && (heat.getRead().getRequestRate(Window.ONE_MINUTE) >= ACTIVE_REQUEST_RATE
+            || heat.getWrite().getRequestRate(Window.ONE_MINUTE) >= ACTIVE_REQUEST_RATE);
+  }
+
+  Map<FragmentMeta, Long> getPendingWriteLatencyMap() {
+    return snapshot(heat -> heat.getWrite().getPendingLatencyMillis());
+  }
+
+  Map<FragmentMeta, Long> getPendingReadLatencyMap() {
+    return snapshot(heat -> heat.getRead().getPendingLatencyMillis());
+  }
+
+  Map<FragmentMeta, Long> getPendingWritePointsMap() {
+    return snapshot(heat -> heat.getWrite().getPendingPoints());
+  }
+
+  Map<FragmentMeta, Long> getPendingReadRequestsMap() {
+    return snapshot(heat -> heat.getRead().getPendingPoints());
+  }
+
+  private Map<FragmentMeta, Long> snapshot(ToLongFunction<FragmentHeat> value) {
+    Map<FragmentMeta, Long> snapshot = new HashMap<>();
+    for (FragmentHeat heat : heats.values()) {
+      long v = value.applyAsLong(heat);
+      if (v > 0) {
+        snapshot.put(heat.getFragment(), v);
+      }
+    }
+    return snapshot;
+  }
+
+  /** 上报完成后清空待上报的累计值 */
+  void clearPending() {
+    for (FragmentHeat heat : heats.values()) {
+      heat.getRead().clearPending();
+      heat.getWrite().clearPending();
+    }
+  }
+
+  /** 分片被合并、迁移后旧的标识不会再被访问，新分片出现时顺带移除 15 分钟内没有任何访问的分片 */
+  private void expireIfNecessary() {
+    long now = System.nanoTime();
+    if (now - lastExpireTime < EXPIRE_NANOS) {
+      return;
+    }
+    lastExpireTime = now;
+    heats
+        .values()
+        .removeIf(
+            heat ->
+                heat.getRead().getIdleNanos() > EXPIRE_NANOS
+                    && heat.getWrite().getIdleNanos() > EXPIRE_NANOS);
+  }
+
+  private static class FragmentHeatTrackerHolder {
+
+    private static final FragmentHeatTracker INSTANCE = new FragmentHeatTracker();
+
+    private FragmentHeatTrackerHolder() {}
+  }
+}
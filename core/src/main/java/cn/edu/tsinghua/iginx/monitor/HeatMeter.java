@@ -0,0 +1,203 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.monitor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个分片一类访问（读或写）的热度
+ *
+ * <p>记录时只累加 LongAdder，每隔 5s 在记录或读取时顺带把这段时间的增量折算进 1/5/15 分钟的指数衰减平均值（与 Unix load average
+ * 的算法相同），因此不需要后台线程，也不需要周期性地整体清空。
+ */
+public class HeatMeter {
+
+  public enum Window {
+    ONE_MINUTE(1),
+    FIVE_MINUTES(5),
+    FIFTEEN_MINUTES(15);
+
+    private final int minutes;
+
+    Window(int minutes) {
+      this.minutes = minutes;
+    }
+
+    public long getSeconds() {
+      return TimeUnit.MINUTES.toSeconds(minutes);
+    }
+  }
+
+  private static final long TICK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private final AtomicLong lastTick;
+
+  private volatile long lastRecordTime;
+
+  private final LongAdder requests = new LongAdder();
+
+  private final LongAdder latencyNanos = new LongAdder();
+
+  // 上一次上报（MonitorManager 清空监控数据）之后的累计值
+  private final LongAdder pendingPoints = new LongAdder();
+
+  private final LongAdder pendingLatencyNanos = new LongAdder();
+
+  private final Ewma[] requestRates = new Ewma[Window.values().length];
+
+  private final Ewma[] pointRates = new Ewma[Window.values().length];
+
+  private final Ewma[] latencyRates = new Ewma[Window.values().length];
+
+  public HeatMeter() {
+    for (Window window : Window.values()) {
+      requestRates[window.ordinal()] = new Ewma(window);
+      pointRates[window.ordinal()] = new Ewma(window);
+      latencyRates[window.ordinal()] = new Ewma(window);
+    }
+    lastTick = new AtomicLong(System.nanoTime());
+    lastRecordTime = lastTick.get();
+  }
+
+  /**
+   * @param points 写入的数据点数，查询记为 1
+   * @param nanos 任务执行耗时
+   */
+  public void record(long points, long nanos) {
+    tickIfNecessary();
+    lastRecordTime = System.nanoTime();
+    requests.increment();
+    latencyNanos.add(nanos);
+    pendingPoints.add(points);
+    pendingLatencyNanos.add(nanos);
+    for (int i = 0; i < requestRates.length; i++) {
+      requestRates[i].update(1);
+      pointRates[i].update(points);
+      latencyRates[i].update(nanos);
+    }
+  }
+
+  private void tickIfNecessary() {
+    long oldTick = lastTick.get();
+    long newTick = System.nanoTime();
+    long age = newTick - oldTick;
+    if (age > TICK_INTERVAL_NANOS) {
+      long newIntervalStartTick = newTick - age % TICK_INTERVAL_NANOS;
+      if (lastTick.compareAndSet(oldTick, newIntervalStartTick)) {
+        long requiredTicks = age / TICK_INTERVAL_NANOS;
+        for (long i = 0; i < requiredTicks; i++) {
+          for (int j = 0; j < requestRates.length; j++) {
+            requestRates[j].tick();
+            pointRates[j].tick();
+            latencyRates[j].tick();
+          }
+        }
+      }
+    }
+  }
+
+  /** 每秒请求数 */
+  public double getRequestRate(Window window) {
+    tickIfNecessary();
+    return requestRates[window.ordinal()].getRatePerSecond();
+  }
+
+  /** 每秒数据点数，对查询而言与每秒请求数相同 */
+  public double getPointRate(Window window) {
+    tickIfNecessary();
+    return pointRates[window.ordinal()].getRatePerSecond();
+  }
+
+  /** 窗口内平均每秒花在该分片上的执行时间（ms） */
+  public double getBusyMillisPerSecond(Window window) {
+    tickIfNecessary();
+    return latencyRates[window.ordinal()].getRatePerSecond() / 1_000_000.0;
+  }
+
+  /** 窗口内的平均执行耗时（ms） */
+  public double getAvgLatencyMillis(Window window) {
+    double requestRate = getRequestRate(window);
+    return requestRate == 0 ? 0 : getBusyMillisPerSecond(window) / requestRate;
+  }
+
+  /** 距离上一次记录经过的时间 */
+  public long getIdleNanos() {
+    return System.nanoTime() - lastRecordTime;
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public long getLatencyMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(latencyNanos.sum());
+  }
+
+  public long getPendingPoints() {
+    return pendingPoints.sum();
+  }
+
+  public long getPendingLatencyMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(pendingLatencyNanos.sum());
+  }
+
+  public void clearPending() {
+    pendingPoints.reset();
+    pendingLatencyNanos.reset();
+  }
+
+  /** 指数衰减平均，只在 tick 时由单个线程更新 rate */
+  private static class Ewma {
+
+    private final double alpha;
+
+    private final LongAdder uncounted = new LongAdder();
+
+    private volatile boolean initialized = false;
+
+    private volatile double rate = 0.0;
+
+    private Ewma(Window window) {
+      double tickSeconds = TimeUnit.NANOSECONDS.toSeconds(TICK_INTERVAL_NANOS);
+      this.alpha = 1 - Math.exp(-tickSeconds / window.getSeconds());
+    }
+
+    private void update(long n) {
+      uncounted.add(n);
+    }
+
+    private void tick() {
+      long count = uncounted.sumThenReset();
+      double instantRate = (double) count / TICK_INTERVAL_NANOS;
+      if (initialized) {
+        rate += alpha * (instantRate - rate);
+      } else {
+        rate = instantRate;
+        initialized = true;
+      }
+    }
+
+    private double getRatePerSecond() {
+      return rate * TimeUnit.SECONDS.toNanos(1);
+    }
+  }
+}
@@ -19,53 +19,30 @@
  */
 package cn.edu.tsinghua.iginx.monitor;
 
-import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
-import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
 import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/** 上一次上报之后各分片的读写总耗时（ms），数据由 FragmentHeatTracker 记录 */
 public class HotSpotMonitor implements IMonitor {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(HotSpotMonitor.class);
-
-  private final boolean isEnableMonitor =
-      ConfigDescriptor.getInstance().getConfig().isEnableMonitor();
-  private final Map<FragmentMeta, Long> writeHotspotMap =
-      new ConcurrentHashMap<>(); // 数据分区->写入总请求时间
-  private final Map<FragmentMeta, Long> readHotspotMap = new ConcurrentHashMap<>(); // 数据分区->查询总请求时间
   private static final HotSpotMonitor instance = new HotSpotMonitor();
 
+  private final FragmentHeatTracker tracker = FragmentHeatTracker.getInstance();
+
   public static HotSpotMonitor getInstance() {
     return instance;
   }
 
   public Map<FragmentMeta, Long> getWriteHotspotMap() {
-    return writeHotspotMap;
+    return tracker.getPendingWriteLatencyMap();
   }
 
   public Map<FragmentMeta, Long> getReadHotspotMap() {
-    return readHotspotMap;
-  }
-
-  public void recordAfter(long taskId, FragmentMeta fragmentMeta, OperatorType operatorType) {
-    if (isEnableMonitor) {
-      long duration = (System.nanoTime() - taskId) / 1000000;
-      if (operatorType == OperatorType.Project) {
-        long prevDuration = readHotspotMap.getOrDefault(fragmentMeta, 0L);
-        readHotspotMap.put(fragmentMeta, prevDuration + duration);
-      } else if (operatorType == OperatorType.Insert) {
-        long prevDuration = writeHotspotMap.getOrDefault(fragmentMeta, 0L);
-        writeHotspotMap.put(fragmentMeta, prevDuration + duration);
-      }
-    }
+    return tracker.getPendingReadLatencyMap();
   }
 
   @Override
   public void clear() {
-    writeHotspotMap.clear();
-    readHotspotMap.clear();
+    tracker.clearPending();
   }
 }
@@ -24,6 +24,7 @@ import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iginx.metadata.DefaultMetaManager;
 import cn.edu.tsinghua.iginx.metadata.IMetaManager;
 import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.policy.AdaptiveFragmentSplitter;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,7 @@ public class MonitorManager implements Runnable {
 
   private final IMetaManager metaManager = DefaultMetaManager.getInstance();
   private final CompactionManager compactionManager = CompactionManager.getInstance();
+  private final AdaptiveFragmentSplitter fragmentSplitter = AdaptiveFragmentSplitter.getInstance();
   private static MonitorManager INSTANCE;
 
   public static MonitorManager getInstance() {
@@ -56,6 +58,12 @@ public class MonitorManager implements Runnable {
       try {
         // 清空节点信息
         compactionManager.clearFragment();
+        // 切分过大或过热的分片，失败时不能跳过后续的等待
+        try {
+          fragmentSplitter.splitIfNecessary();
+        } catch (Exception e) {
+          LOGGER.error("adaptive fragment split error ", e);
+        }
         metaManager.clearMonitors();
         Thread.sleep(interval * 1000L);
 
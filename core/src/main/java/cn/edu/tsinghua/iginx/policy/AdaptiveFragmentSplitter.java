@@ -0,0 +1,241 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.policy;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.storage.cache.SchemaCatalog;
+import cn.edu.tsinghua.iginx.metadata.DefaultMetaManager;
+import cn.edu.tsinghua.iginx.metadata.IMetaManager;
+import cn.edu.tsinghua.iginx.metadata.entity.ColumnsInterval;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.metadata.entity.StorageEngineMeta;
+import cn.edu.tsinghua.iginx.metadata.entity.StorageUnitMeta;
+import cn.edu.tsinghua.iginx.monitor.FragmentHeat;
+import cn.edu.tsinghua.iginx.monitor.FragmentHeatTracker;
+import cn.edu.tsinghua.iginx.monitor.HeatMeter.Window;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 自适应分片切分：由监控线程周期调用，切分点数过多或写入过热的仍在写入的分片
+ *
+ * <p>切分发生在当前最大写入 key 之后，旧分片在该处结束、保留已有数据，之后的写入进入新分片，因此不需要迁移数据，也不会阻塞写入。
+ * 新分片按存储引擎近期的读写负载由低到高分配；写入过热的分片还会按列拆成多个区间，分散到多个存储引擎上。
+ *
+ * <p>分片点数取自元数据存储中各节点汇总的结果，写入速率则取自本节点的 FragmentHeatTracker，只反映经过本节点的写入。
+ * 多节点部署时写入分散在各节点上，单个节点看到的速率偏低，“写入过热”的判断相应偏保守；各节点独立判断，同一分片只会被先拿到锁的节点切分。
+ */
+public class AdaptiveFragmentSplitter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveFragmentSplitter.class);
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  // 新分片的写入速率需要一个完整的统计窗口才能反映真实负载，窗口内不再切分同一列区间
+  private static final long SPLIT_COOL_DOWN_MILLIS =
+      TimeUnit.SECONDS.toMillis(Window.FIVE_MINUTES.getSeconds());
+
+  private final IMetaManager metaManager = DefaultMetaManager.getInstance();
+
+  private final FragmentHeatTracker heatTracker = FragmentHeatTracker.getInstance();
+
+  private final Map<ColumnsInterval, Long> lastSplitTimes = new ConcurrentHashMap<>();
+
+  private AdaptiveFragmentSplitter() {}
+
+  public static AdaptiveFragmentSplitter getInstance() {
+    return AdaptiveFragmentSplitterHolder.INSTANCE;
+  }
+
+  public void splitIfNecessary() throws Exception {
+    if (!config.isEnableAdaptiveFragmentSplit()) {
+      return;
+    }
+    List<Long> storageEngineIds = new ArrayList<>();
+    for (StorageEngineMeta storageEngine : metaManager.getWritableStorageEngineList()) {
+      storageEngineIds.add(storageEngine.getId());
+    }
+    if (storageEngineIds.isEmpty()) {
+      return;
+    }
+    Map<FragmentMeta, Long> fragmentPointsMap = metaManager.loadFragmentPoints();
+    Map<Long, Double> storageEngineLoads = loadStorageEngineLoads();
+
+    long now = System.currentTimeMillis();
+    lastSplitTimes.values().removeIf(time -> now - time > SPLIT_COOL_DOWN_MILLIS);
+    for (FragmentMeta fragment : metaManager.getFragments()) {
+      if (fragment.isDummyFragment()
+          || fragment.getKeyInterval().getEndKey() != Long.MAX_VALUE
+          || lastSplitTimes.containsKey(fragment.getColumnsInterval())) {
+        continue;
+      }
+      long points = fragmentPointsMap.getOrDefault(fragment, 0L);
+      FragmentHeat heat = heatTracker.getHeat(fragment);
+      double writePointRate =
+          heat == null ? 0 : heat.getWrite().getPointRate(Window.FIVE_MINUTES);
+      boolean tooLarge = points >= config.getFragmentSplitPointsThreshold();
+      boolean tooHot = writePointRate >= config.getFragmentSplitWritePointRate();
+      if (!tooLarge && !tooHot) {
+        continue;
+      }
+      LOGGER.info(
+          "start to split fragment {}, points: {}, write point rate: {}",
+          fragment,
+          points,
+          writePointRate);
+      if (split(fragment, tooHot, storageEngineIds, storageEngineLoads)) {
+        lastSplitTimes.put(fragment.getColumnsInterval(), now);
+      }
+    }
+  }
+
+  private boolean split(
+      FragmentMeta fragment,
+      boolean tooHot,
+      List<Long> storageEngineIds,
+      Map<Long, Double> storageEngineLoads) {
+    long splitKey = metaManager.getMaxActiveEndKey();
+    if (splitKey <= fragment.getKeyInterval().getStartKey()) {
+      return false;
+    }
+    ColumnsInterval columnsInterval = fragment.getColumnsInterval();
+    List<String> borders = Collections.emptyList();
+    if (tooHot && config.getFragmentSplitMaxColumnRanges() > 1) {
+      Set<String> paths =
+          SchemaCatalog.getInstance()
+              .resolvePaths(
+                  fragment.getMasterStorageUnit().getStorageEngineId(),
+                  Collections.emptySet(),
+                  null);
+      if (paths != null) {
+        int rangeNum = Math.min(config.getFragmentSplitMaxColumnRanges(), storageEngineIds.size());
+        borders = selectColumnBorders(columnsInterval, paths, rangeNum);
+      }
+    }
+
+    List<String> starts = new ArrayList<>();
+    List<String> ends = new ArrayList<>();
+    starts.add(columnsInterval.getStartColumn());
+    for (String border : borders) {
+      ends.add(border);
+      starts.add(border);
+    }
+    ends.add(columnsInterval.getEndColumn());
+
+    int replicaNum = Math.min(1 + config.getReplicaNum(), storageEngineIds.size());
+    double fragmentLoad = getLoad(heatTracker.getHeat(fragment)) / starts.size();
+    List<FragmentMeta> fragments = new ArrayList<>();
+    List<StorageUnitMeta> storageUnits = new ArrayList<>();
+    for (int i = 0; i < starts.size(); i++) {
+      List<Long> targets =
+          rankStorageEngines(storageEngineIds, storageEngineLoads).subList(0, replicaNum);
+      Pair<FragmentMeta, StorageUnitMeta> pair =
+          PolicyManager.getInstance()
+              .getPolicy(config.getPolicyClassName())
+              .generateFragmentAndStorageUnitByColumnsIntervalAndKeyInterval(
+                  starts.get(i), ends.get(i), splitKey, Long.MAX_VALUE, targets);
+      fragments.add(pair.k);
+      storageUnits.add(pair.v);
+      // 计入即将转移过去的负载，使多个新分片分散到不同的存储引擎
+      storageEngineLoads.merge(targets.get(0), fragmentLoad, Double::sum);
+    }
+
+    FragmentMeta endedFragment =
+        metaManager.splitFragmentAndStorageUnits(storageUnits, fragments, fragment);
+    if (endedFragment == null) {
+      return false;
+    }
+    LOGGER.info("fragment {} is split into {} at key {}", fragment, fragments, splitKey);
+    return true;
+  }
+
+  /** 以本节点近 5 分钟的分片读写执行时间作为各存储引擎的负载 */
+  private Map<Long, Double> loadStorageEngineLoads() {
+    Map<Long, Double> storageEngineLoads = new HashMap<>();
+    for (FragmentHeat heat : heatTracker.getHeats()) {
+      StorageUnitMeta storageUnit = heat.getFragment().getMasterStorageUnit();
+      if (storageUnit != null) {
+        storageEngineLoads.merge(storageUnit.getStorageEngineId(), getLoad(heat), Double::sum);
+      }
+    }
+    return storageEngineLoads;
+  }
+
+  private static double getLoad(FragmentHeat heat) {
+    if (heat == null) {
+      return 0;
+    }
+    return heat.getRead().getBusyMillisPerSecond(Window.FIVE_MINUTES)
+        + heat.getWrite().getBusyMillisPerSecond(Window.FIVE_MINUTES);
+  }
+
+  /** 按负载由低到高排列存储引擎，负载相同时按 id 排列 */
+  static List<Long> rankStorageEngines(
+      Collection<Long> storageEngineIds, Map<Long, Double> storageEngineLoads) {
+    List<Long> ranked = new ArrayList<>(storageEngineIds);
+    ranked.sort(
+        Comparator.comparingDouble((Long id) -> storageEngineLoads.getOrDefault(id, 0.0))
+            .thenComparing(Comparator.naturalOrder()));
+    return ranked;
+  }
+
+  /**
+   * 在分片的列区间内选出将其按列数均分为 rangeNum 个区间的边界
+   *
+   * @return 升序排列的边界，列数不足 rangeNum 时返回的边界少于 rangeNum - 1 个
+   */
+  static List<String> selectColumnBorders(
+      ColumnsInterval columnsInterval, Collection<String> paths, int rangeNum) {
+    TreeSet<String> columns = new TreeSet<>();
+    for (String path : paths) {
+      if (columnsInterval.isContain(path)) {
+        columns.add(path);
+      }
+    }
+    List<String> sortedColumns = new ArrayList<>(columns);
+    rangeNum = Math.min(rangeNum, sortedColumns.size());
+    List<String> borders = new ArrayList<>();
+    // 边界取自第二列之后，因此每个区间至少包含一列
+    for (int i = 1; i < rangeNum; i++) {
+      borders.add(sortedColumns.get(i * sortedColumns.size() / rangeNum));
+    }
+    return borders;
+  }
+
+  private static class AdaptiveFragmentSplitterHolder {
+
+    private static final AdaptiveFragmentSplitter INSTANCE = new AdaptiveFragmentSplitter();
+
+    private AdaptiveFragmentSplitterHolder() {}
+  }
+}
@@ -44,7 +44,10 @@ public class QueryResourceManager {
   }
 
   public void releaseQuery(long queryId) {
-    queries.remove(queryId);
+    RequestContext context = queries.remove(queryId);
+    if (context != null && context.getResult() != null) {
+      context.getResult().close();
+    }
   }
 
   private static class QueryManagerHolder {
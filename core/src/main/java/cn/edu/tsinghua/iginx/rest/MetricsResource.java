@@ -25,6 +25,7 @@ import static cn.edu.tsinghua.iginx.rest.RestUtils.*;
 import cn.edu.tsinghua.iginx.conf.Config;
 import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iginx.engine.shared.exception.StatementExecutionException;
+import cn.edu.tsinghua.iginx.metrics.MetricsRegistry;
 import cn.edu.tsinghua.iginx.rest.bean.*;
 import cn.edu.tsinghua.iginx.rest.insert.InsertWorker;
 import cn.edu.tsinghua.iginx.rest.query.QueryExecutor;
@@ -69,6 +70,8 @@ public class MetricsResource {
   private static final String GRAFANA_QUERY = "query";
   private static final String GRAFANA_STRING = "annotations";
   private static final String ERROR_PATH = "{string : .+}";
+  private static final String PROMETHEUS_URL = "metrics";
+  private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
 
   private static final Config config = ConfigDescriptor.getInstance().getConfig();
   private static final ExecutorService threadPool =
@@ -83,6 +86,18 @@ public class MetricsResource {
     return setHeaders(Response.status(Status.OK)).build();
   }
 
+  @GET
+  @Path(PROMETHEUS_URL)
+  public Response prometheusMetrics() {
+    if (!config.isEnableMetrics()) {
+      return setHeaders(Response.status(Status.NOT_FOUND)).build();
+    }
+    return Response.status(Status.OK)
+        .type(PROMETHEUS_CONTENT_TYPE)
+        .entity(MetricsRegistry.getInstance().scrape())
+        .build();
+  }
+
   @POST
   @Path(GRAFANA_QUERY)
   public Response grafanaQuery(String jsonStr) {
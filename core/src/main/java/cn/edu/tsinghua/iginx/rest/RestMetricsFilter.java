@@ -0,0 +1,61 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.rest;
+
+import cn.edu.tsinghua.iginx.metrics.MetricsRegistry;
+import java.lang.reflect.Method;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+
+/** 统计 rest 请求的耗时，以处理请求的资源方法名与响应状态码分类 */
+public class RestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+  private static final String START_TIME_PROPERTY = "iginx.metrics.startTime";
+
+  @Context private ResourceInfo resourceInfo;
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) {
+    requestContext.setProperty(START_TIME_PROPERTY, System.nanoTime());
+  }
+
+  @Override
+  public void filter(
+      ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+    Object startTime = requestContext.getProperty(START_TIME_PROPERTY);
+    if (!(startTime instanceof Long)) {
+      return;
+    }
+    Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+    MetricsRegistry.getInstance()
+        .histogram(
+            "iginx_rest_request_duration_seconds",
+            "Rest request latency",
+            "method",
+            method == null ? "unmatched" : method.getName(),
+            "status",
+            String.valueOf(responseContext.getStatus()))
+        .record(System.nanoTime() - (Long) startTime);
+  }
+}
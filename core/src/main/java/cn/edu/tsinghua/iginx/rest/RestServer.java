@@ -44,6 +44,9 @@ public class RestServer implements Runnable {
     config = ConfigDescriptor.getInstance().getConfig();
     baseURI = getbaseuri();
     final ResourceConfig rc = new ResourceConfig().packages("cn.edu.tsinghua.iginx.rest");
+    if (config.isEnableMetrics()) {
+      rc.register(RestMetricsFilter.class);
+    }
     return GrizzlyHttpServerFactory.createHttpServer(baseURI, rc);
   }
 
@@ -335,6 +335,8 @@ public class IginXSqlVisitor extends SqlBaseVisitor<Statement> {
     if (ctx.EXPLAIN() != null) {
       if (ctx.PHYSICAL() != null) {
         selectStatement.setNeedPhysicalExplain(true);
+      } else if (ctx.ANALYZE() != null) {
+        selectStatement.setNeedAnalyzeExplain(true);
       } else {
         selectStatement.setNeedLogicalExplain(true);
       }
@@ -39,6 +39,8 @@ public class InsertStatement extends DataStatement {
   private List<DataType> types;
   private List<Bitmap> bitmaps;
 
+  private RawData rawData;
+
   public InsertStatement(RawDataType rawDataType) {
     this.statementType = StatementType.INSERT;
     this.rawDataType = rawDataType;
@@ -199,13 +201,17 @@ public class InsertStatement extends DataStatement {
     tagsList = sortedTagsList;
   }
 
+  /** 语句构造完成后获取写入数据，只在第一次调用时组装（会把 globalTags 追加到 tagsList 中），之后返回同一个实例 */
   public RawData getRawData() {
-    List<Map<String, String>> tagsList = this.tagsList;
-    if (globalTags != null) {
-      for (int i = 0; i < paths.size(); i++) {
-        tagsList.add(globalTags);
+    if (rawData == null) {
+      List<Map<String, String>> tagsList = this.tagsList;
+      if (globalTags != null) {
+        for (int i = 0; i < paths.size(); i++) {
+          tagsList.add(globalTags);
+        }
       }
+      rawData = new RawData(paths, tagsList, keys, values, types, bitmaps, rawDataType);
     }
-    return new RawData(paths, tagsList, keys, values, types, bitmaps, rawDataType);
+    return rawData;
   }
 }
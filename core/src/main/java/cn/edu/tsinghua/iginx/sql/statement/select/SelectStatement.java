@@ -39,6 +39,7 @@ public abstract class SelectStatement extends DataStatement {
   protected SelectStatementType selectStatementType;
   protected boolean needLogicalExplain = false;
   protected boolean needPhysicalExplain = false;
+  protected boolean needAnalyzeExplain = false;
   protected final boolean isSubQuery;
   private List<CommonTableExpression> cteList;
 
@@ -76,6 +77,14 @@ public abstract class SelectStatement extends DataStatement {
     this.needPhysicalExplain = needPhysicalExplain;
   }
 
+  public boolean isNeedAnalyzeExplain() {
+    return needAnalyzeExplain;
+  }
+
+  public void setNeedAnalyzeExplain(boolean needAnalyzeExplain) {
+    this.needAnalyzeExplain = needAnalyzeExplain;
+  }
+
   public boolean isSubQuery() {
     return isSubQuery;
   }
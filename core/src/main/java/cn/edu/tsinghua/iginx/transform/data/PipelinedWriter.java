@@ -0,0 +1,132 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.transform.data;
+
+import cn.edu.tsinghua.iginx.engine.physical.AbstractTaskThreadPoolExecutor;
+import cn.edu.tsinghua.iginx.transform.api.Writer;
+import cn.edu.tsinghua.iginx.transform.driver.PemjaDriver;
+import cn.edu.tsinghua.iginx.transform.exception.WriteBatchException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 将下游 Writer 放到独立线程（持有独立的 Python interpreter）上异步执行，使相邻的 Python 任务之间形成流水线。
+ *
+ * <p>同一时刻最多有 maxInFlightBatches 个批次在排队或处理中，上游写入超过该数量时会阻塞，从而限制内存占用。
+ *
+ * <p>执行线程及其 Python interpreter 在关闭后归还到空闲池中，供之后的任务（包括定时任务的下一次执行）复用。
+ */
+public class PipelinedWriter implements Writer {
+
+  // 空闲的单线程执行器，线程上的 interpreter 随执行器一起复用
+  private static final BlockingQueue<AbstractTaskThreadPoolExecutor> IDLE_EXECUTORS =
+      new LinkedBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+  private final Writer writer;
+
+  private final int maxInFlightBatches;
+
+  private final Semaphore inFlight;
+
+  private final AbstractTaskThreadPoolExecutor executor;
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  public PipelinedWriter(Writer writer, int maxInFlightBatches) {
+    this.writer = writer;
+    this.maxInFlightBatches = Math.max(1, maxInFlightBatches);
+    this.inFlight = new Semaphore(this.maxInFlightBatches);
+    // 单线程保证批次按写入顺序交给下游
+    AbstractTaskThreadPoolExecutor idle = IDLE_EXECUTORS.poll();
+    this.executor =
+        idle != null ? idle : new AbstractTaskThreadPoolExecutor(1, PemjaDriver.getPythonConfig());
+  }
+
+  @Override
+  public void writeBatch(BatchData batchData) throws WriteBatchException {
+    checkFailure();
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WriteBatchException("interrupted when waiting for pipeline slot", e);
+    }
+    executor.execute(
+        () -> {
+          try {
+            if (failure.get() == null) {
+              writer.writeBatch(batchData);
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            inFlight.release();
+          }
+        });
+  }
+
+  /** 等待所有已提交的批次被下游处理完毕 */
+  public void flush() throws WriteBatchException {
+    try {
+      inFlight.acquire(maxInFlightBatches);
+      inFlight.release(maxInFlightBatches);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WriteBatchException("interrupted when flushing pipeline", e);
+    }
+    checkFailure();
+  }
+
+  private void checkFailure() throws WriteBatchException {
+    Throwable e = failure.get();
+    if (e != null) {
+      throw new WriteBatchException("pipelined writer fail to write batch", e);
+    }
+  }
+
+  @Override
+  public void reset() {
+    failure.set(null);
+    writer.reset();
+  }
+
+  /** 等待已提交的批次处理完毕后归还执行线程，空闲池已满或等待超时时关闭执行线程 */
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    boolean drained = false;
+    try {
+      drained = inFlight.tryAcquire(maxInFlightBatches, 1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (drained && IDLE_EXECUTORS.offer(executor)) {
+      return;
+    }
+    executor.shutdownNow();
+  }
+}
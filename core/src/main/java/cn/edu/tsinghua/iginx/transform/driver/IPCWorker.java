@@ -32,6 +32,8 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowStreamReader;
@@ -59,6 +61,8 @@ public class IPCWorker extends Thread {
 
   private final ExecutorService threadPool = Executors.newFixedThreadPool(5);
 
+  private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+
   public IPCWorker(
       long pid,
       int javaPort,
@@ -90,15 +94,19 @@ public class IPCWorker extends Thread {
   }
 
   public void process(Socket socket) {
-    RootAllocator allocator = new RootAllocator(Long.MAX_VALUE);
-    try (ArrowStreamReader reader = new ArrowStreamReader(socket.getInputStream(), allocator)) {
+    // all connections of this worker share one root allocator, each connection only holds a child
+    try (BufferAllocator connectionAllocator =
+            allocator.newChildAllocator("ipc-worker-" + pid, 0, Long.MAX_VALUE);
+        ArrowStreamReader reader =
+            new ArrowStreamReader(socket.getInputStream(), connectionAllocator)) {
       VectorSchemaRoot readBatch = reader.getVectorSchemaRoot();
-      reader.loadNextBatch();
-
-      Reader arrowReader = new ArrowReader(readBatch, config.getBatchSize());
-      while (arrowReader.hasNextBatch()) {
-        BatchData batchData = arrowReader.loadNextBatch();
-        writer.writeBatch(batchData);
+      // consume every record batch sent on this connection instead of only the first one
+      while (reader.loadNextBatch()) {
+        Reader arrowReader = new ArrowReader(readBatch, config.getBatchSize());
+        while (arrowReader.hasNextBatch()) {
+          BatchData batchData = arrowReader.loadNextBatch();
+          writer.writeBatch(batchData);
+        }
       }
 
       reader.close();
@@ -121,6 +129,13 @@ public class IPCWorker extends Thread {
       }
     }
     threadPool.shutdown();
+    try {
+      if (threadPool.awaitTermination(1, TimeUnit.MINUTES)) {
+        allocator.close();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   public long getPid() {
@@ -25,6 +25,7 @@ import cn.edu.tsinghua.iginx.conf.Config;
 import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
 import cn.edu.tsinghua.iginx.constant.GlobalConstant;
 import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.function.manager.ThreadInterpreterManager;
 import cn.edu.tsinghua.iginx.transform.api.Writer;
 import cn.edu.tsinghua.iginx.transform.data.BatchData;
 import cn.edu.tsinghua.iginx.transform.data.PemjaReader;
@@ -63,7 +64,7 @@ public class PemjaWorker {
     this.writer = writer;
   }
 
-  public void process(BatchData batchData) {
+  public void process(BatchData batchData) throws WriteBatchException {
     List<List<Object>> data = new ArrayList<>();
 
     List<Object> headerRow = new ArrayList<>();
@@ -88,10 +89,16 @@ public class PemjaWorker {
               }
             });
 
-    // no need to use a new thread because the whole job is running on a seperated
-    // thread(scheduler).
+    // the worker may run on a pipeline thread that owns its own interpreter, otherwise the
+    // whole job is running on a seperated thread(scheduler) with the interpreter from driver.
+    PythonInterpreter interpreter =
+        ThreadInterpreterManager.isInterpreterSet()
+            ? ThreadInterpreterManager.getInterpreter()
+            : this.interpreter;
     // reload module in case of script modification
-    interpreter.exec("import importlib;importlib.reload(" + moduleName + ")");
+    interpreter.exec(
+        String.format(
+            "import %s; import importlib; importlib.reload(%s)", moduleName, moduleName));
     // use unique name in shared interpreter
     String obj = (moduleName + className).replace(".", "a");
     interpreter.exec(String.format("%s = %s.%s()", obj, moduleName, className));
@@ -105,8 +112,10 @@ public class PemjaWorker {
       }
     } catch (WriteBatchException e) {
       LOGGER.error("PemjaWorker identifier={} fail to writer data.", identifier, e);
+      throw e;
     } catch (ReadBatchException e) {
       LOGGER.error("Failed to read data from python transformer.", e);
+      throw new WriteBatchException("Failed to read data from python transformer.", e);
     }
   }
 
@@ -61,6 +61,8 @@ public class StreamStageRunner implements Runner {
 
   private final List<PemjaWorker> pemjaWorkerList;
 
+  private final List<PipelinedWriter> pipelinedWriterList;
+
   private final PemjaDriver driver = PemjaDriver.getInstance();
 
   private final StatementExecutor executor = StatementExecutor.getInstance();
@@ -73,6 +75,7 @@ public class StreamStageRunner implements Runner {
     this.streamStage = stage;
     this.batchSize = config.getBatchSize();
     this.pemjaWorkerList = new ArrayList<>();
+    this.pipelinedWriterList = new ArrayList<>();
     this.writer = streamStage.getExportWriter();
     this.mutex = ((ExportWriter) writer).getMutex();
   }
@@ -91,13 +94,25 @@ public class StreamStageRunner implements Runner {
 
     List<Task> taskList = streamStage.getTaskList();
     pemjaWorkerList.clear();
+    closePipelines();
     this.writer = streamStage.getExportWriter();
+    if (config.isEnableTransformPipeline() && taskList.stream().anyMatch(Task::isPythonTask)) {
+      // the export writer is called from a pipeline thread, so it takes the mutex itself.
+      this.writer = new MutexWriter(writer, mutex);
+    }
     for (int i = taskList.size() - 1; i >= 0; i--) {
       Task task = taskList.get(i);
       if (task.isPythonTask()) {
         PemjaWorker pemjaWorker = driver.createWorker((PythonTask) task, writer);
         pemjaWorkerList.add(0, pemjaWorker);
         writer = new PemjaWriter(pemjaWorker);
+        if (config.isEnableTransformPipeline()) {
+          // every python task runs on its own thread, so reading and all tasks overlap.
+          PipelinedWriter pipelinedWriter =
+              new PipelinedWriter(writer, config.getTransformPipelineMaxInFlightBatches());
+          pipelinedWriterList.add(0, pipelinedWriter);
+          writer = pipelinedWriter;
+        }
       }
     }
   }
@@ -141,10 +156,20 @@ public class StreamStageRunner implements Runner {
 
   @Override
   public void run() throws WriteBatchException {
+    if (!pipelinedWriterList.isEmpty()) {
+      runPipelined();
+      return;
+    }
     while (reader.hasNextBatch()) {
       mutex.lock();
       BatchData batchData = reader.loadNextBatch();
-      writer.writeBatch(batchData);
+      try {
+        writer.writeBatch(batchData);
+      } catch (WriteBatchException | RuntimeException e) {
+        // release the mutex so that further scheduled runs are not blocked.
+        mutex.unlock();
+        throw e;
+      }
     }
 
     // wait for last batch finished.
@@ -155,11 +180,33 @@ public class StreamStageRunner implements Runner {
     writer.reset();
   }
 
+  private void runPipelined() throws WriteBatchException {
+    while (reader.hasNextBatch()) {
+      writer.writeBatch(reader.loadNextBatch());
+    }
+
+    // drain pipelines from upstream to downstream, so every batch reaches the export writer.
+    for (PipelinedWriter pipelinedWriter : pipelinedWriterList) {
+      pipelinedWriter.flush();
+    }
+
+    // wait for last batch finished, then unlock for further scheduled runs.
+    mutex.lock();
+    mutex.unlock();
+    writer.reset();
+  }
+
+  private void closePipelines() {
+    pipelinedWriterList.forEach(PipelinedWriter::close);
+    pipelinedWriterList.clear();
+  }
+
   @Override
   public void close() {
     if (reader != null) {
       reader.close();
     }
+    closePipelines();
     if (pemjaWorkerList.size() > 0) {
       pemjaWorkerList.forEach(PemjaWorker::close);
     }
@@ -170,4 +217,34 @@ public class StreamStageRunner implements Runner {
   public boolean scheduled() {
     return false;
   }
+
+  /** Takes the export writer's mutex before each batch, as the sequential run loop does. */
+  private static class MutexWriter implements Writer {
+
+    private final Writer writer;
+
+    private final Mutex mutex;
+
+    MutexWriter(Writer writer, Mutex mutex) {
+      this.writer = writer;
+      this.mutex = mutex;
+    }
+
+    @Override
+    public void writeBatch(BatchData batchData) throws WriteBatchException {
+      mutex.lock();
+      try {
+        // export writer unlocks the mutex after the batch is written.
+        writer.writeBatch(batchData);
+      } catch (WriteBatchException | RuntimeException e) {
+        mutex.unlock();
+        throw e;
+      }
+    }
+
+    @Override
+    public void reset() {
+      writer.reset();
+    }
+  }
 }
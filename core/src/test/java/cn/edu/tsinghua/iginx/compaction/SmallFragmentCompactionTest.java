@@ -0,0 +1,94 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.compaction;
+
+import static org.junit.Assert.assertEquals;
+
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.PhysicalEngine;
+import cn.edu.tsinghua.iginx.metadata.IMetaManager;
+import cn.edu.tsinghua.iginx.metadata.MetaManagerMock;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.metadata.entity.StorageUnitMeta;
+import cn.edu.tsinghua.iginx.utils.SnowFlakeUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SmallFragmentCompactionTest {
+
+  private List<FragmentMeta> fragmentMetaSet = new ArrayList<>();
+  private Map<FragmentMeta, Long> fragmentMetaPointsMap = new HashMap<>();
+  private PhysicalEngine physicalEngine = new PhysicalEngineMock();
+  private IMetaManager metaManager = MetaManagerMock.getInstance();
+  private SmallFragmentCompaction compaction =
+      new SmallFragmentCompaction(physicalEngine, metaManager);
+  private long originalThreshold;
+
+  @Before
+  public void setUp() {
+    SnowFlakeUtils.init(0);
+
+    StorageUnitMeta storageUnitMeta1 = new StorageUnitMeta("1", 1);
+    StorageUnitMeta storageUnitMeta2 = new StorageUnitMeta("2", 2);
+    FragmentMeta fragmentMeta1 =
+        new FragmentMeta("root.a.b", "root.z", 0L, 1000L, storageUnitMeta1);
+    FragmentMeta fragmentMeta2 =
+        new FragmentMeta("root.z", "root.z.a", 0L, 1000L, storageUnitMeta2);
+    FragmentMeta fragmentMeta3 =
+        new FragmentMeta("root.z.a", "root.z.z", 0L, 1000L, storageUnitMeta1);
+    FragmentMeta fragmentMeta4 = new FragmentMeta("root.z.z", null, 0L, 1000L, storageUnitMeta2);
+    // 仍在写入的分片不参与合并
+    FragmentMeta fragmentMeta5 =
+        new FragmentMeta("root.a.b", "root.z", 1000L, Long.MAX_VALUE, storageUnitMeta1);
+    fragmentMetaSet.add(fragmentMeta1);
+    fragmentMetaSet.add(fragmentMeta2);
+    fragmentMetaSet.add(fragmentMeta3);
+    fragmentMetaSet.add(fragmentMeta4);
+    fragmentMetaSet.add(fragmentMeta5);
+    fragmentMetaPointsMap.put(fragmentMeta1, 100L);
+    fragmentMetaPointsMap.put(fragmentMeta2, 50L);
+    fragmentMetaPointsMap.put(fragmentMeta3, 100L);
+    fragmentMetaPointsMap.put(fragmentMeta4, 10000L);
+
+    originalThreshold =
+        ConfigDescriptor.getInstance().getConfig().getFragmentMergePointsThreshold();
+    ConfigDescriptor.getInstance().getConfig().setFragmentMergePointsThreshold(1000);
+  }
+
+  @After
+  public void tearDown() {
+    ConfigDescriptor.getInstance().getConfig().setFragmentMergePointsThreshold(originalThreshold);
+  }
+
+  @Test
+  public void testFragmentSelection() {
+    List<List<FragmentMeta>> toCompactFragmentGroups =
+        compaction.judgeCompaction(fragmentMetaSet, fragmentMetaPointsMap);
+    assertEquals(1, toCompactFragmentGroups.size());
+    assertEquals(3, toCompactFragmentGroups.get(0).size());
+    assertEquals(
+        "root.a.b", toCompactFragmentGroups.get(0).get(0).getColumnsInterval().getStartColumn());
+  }
+}
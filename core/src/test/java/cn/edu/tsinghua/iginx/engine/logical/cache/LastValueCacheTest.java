@@ -0,0 +1,171 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawData;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawDataType;
+import cn.edu.tsinghua.iginx.sql.statement.select.UnarySelectStatement;
+import cn.edu.tsinghua.iginx.thrift.AggregateType;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.Bitmap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LastValueCacheTest {
+
+  private static final Header LAST_HEADER =
+      new Header(
+          Field.KEY,
+          Arrays.asList(new Field("path", DataType.BINARY), new Field("value", DataType.BINARY)));
+
+  private static LastValueCache cache;
+
+  @BeforeClass
+  public static void setUp() {
+    ConfigDescriptor.getInstance().getConfig().setEnableLastValueCache(true);
+    cache = LastValueCache.getInstance();
+  }
+
+  @Before
+  public void clear() {
+    cache.clear();
+  }
+
+  private static UnarySelectStatement lastQuery(long startKey, String... paths) {
+    return new UnarySelectStatement(
+        Arrays.asList(paths), startKey, Long.MAX_VALUE, AggregateType.LAST);
+  }
+
+  private static Row lastRow(long key, String path, String value) {
+    return new Row(
+        LAST_HEADER,
+        key,
+        new Object[] {
+          path.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8)
+        });
+  }
+
+  private static void warm(UnarySelectStatement statement, Row... rows) throws PhysicalException {
+    LastValueCache.Warm warm = cache.startWarm(statement);
+    assertNotNull(warm);
+    RowStream stream = cache.cacheOnRead(warm, new Table(LAST_HEADER, Arrays.asList(rows)));
+    while (stream.hasNext()) {
+      stream.next();
+    }
+  }
+
+  private static List<String> read(RowStream stream) throws PhysicalException {
+    List<String> results = new ArrayList<>();
+    while (stream.hasNext()) {
+      Row row = stream.next();
+      results.add(
+          row.getKey()
+              + " "
+              + new String((byte[]) row.getValue(0), StandardCharsets.UTF_8)
+              + " "
+              + new String((byte[]) row.getValue(1), StandardCharsets.UTF_8));
+    }
+    return results;
+  }
+
+  private static RawData rowData(String path, long key, long value) {
+    Bitmap bitmap = new Bitmap(1);
+    bitmap.mark(0);
+    return new RawData(
+        Collections.singletonList(path),
+        Collections.singletonList(Collections.emptyMap()),
+        Collections.singletonList(key),
+        new Object[] {new Object[] {value}},
+        Collections.singletonList(DataType.LONG),
+        Collections.singletonList(bitmap),
+        RawDataType.Row);
+  }
+
+  @Test
+  public void testParse() {
+    assertNotNull(LastValueCache.LastQuery.parse(lastQuery(0, "a.*")));
+    assertNull(
+        LastValueCache.LastQuery.parse(
+            new UnarySelectStatement(
+                Collections.singletonList("a.*"), 0, 100, AggregateType.LAST)));
+    assertNull(
+        LastValueCache.LastQuery.parse(
+            new UnarySelectStatement(
+                Collections.singletonList("a.*"), 0, Long.MAX_VALUE, AggregateType.MAX)));
+  }
+
+  @Test
+  public void testWarmAndUpdate() throws PhysicalException {
+    assertNull(cache.get(lastQuery(0, "a.*")));
+    warm(lastQuery(0, "a.*"), lastRow(5, "a.s1", "1"), lastRow(9, "a.s2", "2"));
+
+    assertEquals(Arrays.asList("5 a.s1 1", "9 a.s2 2"), read(cache.get(lastQuery(0, "a.*"))));
+    assertEquals(Collections.singletonList("9 a.s2 2"), read(cache.get(lastQuery(6, "a.*"))));
+    // 缓存的集合不包含键小于 0 的序列
+    assertNull(cache.get(lastQuery(Long.MIN_VALUE, "a.*")));
+
+    cache.update(rowData("a.s1", 10, 3));
+    assertEquals(Arrays.asList("9 a.s2 2", "10 a.s1 3"), read(cache.get(lastQuery(0, "a.*"))));
+
+    // 新序列使集合失效
+    cache.update(rowData("a.s3", 1, 4));
+    assertNull(cache.get(lastQuery(0, "a.*")));
+  }
+
+  @Test
+  public void testConcurrentWrite() throws PhysicalException {
+    UnarySelectStatement statement = lastQuery(0, "a.*");
+    LastValueCache.Warm warm = cache.startWarm(statement);
+    cache.update(rowData("a.s1", 20, 7));
+    cache.update(rowData("a.s2", 3, 8));
+    RowStream stream =
+        cache.cacheOnRead(
+            warm, new Table(LAST_HEADER, Collections.singletonList(lastRow(5, "a.s1", "1"))));
+    while (stream.hasNext()) {
+      stream.next();
+    }
+    assertEquals(Arrays.asList("3 a.s2 8", "20 a.s1 7"), read(cache.get(statement)));
+  }
+
+  @Test
+  public void testInvalidate() throws PhysicalException {
+    warm(lastQuery(0, "a.*"), lastRow(5, "a.s1", "1"));
+    assertNotNull(cache.get(lastQuery(0, "a.*")));
+    cache.invalidate(Collections.singletonList("a.s1"));
+    assertNull(cache.get(lastQuery(0, "a.*")));
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.rollup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawData;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawDataType;
+import cn.edu.tsinghua.iginx.sql.statement.InsertStatement;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.Bitmap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.Test;
+
+public class ContinuousAggregateManagerTest {
+
+  private static final String PATH = "root.sensor.s1";
+
+  private final ContinuousAggregateManager manager = newManager(0);
+
+  private static ContinuousAggregateManager newManager(long firstBatchId) {
+    return new ContinuousAggregateManager(
+        "rollup",
+        Collections.singletonList(
+            ContinuousAggregate.parse("a:root.sensor.*:max,sum,count:1000", "rollup")),
+        firstBatchId);
+  }
+
+  private static RawData column(String path, long... keys) {
+    List<Long> keyList = new ArrayList<>();
+    Object[] values = new Object[keys.length];
+    Bitmap bitmap = new Bitmap(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      keyList.add(keys[i]);
+      values[i] = keys[i];
+      bitmap.mark(i);
+    }
+    return new RawData(
+        Collections.singletonList(path),
+        Collections.singletonList(new HashMap<>()),
+        keyList,
+        new Object[] {values},
+        Collections.singletonList(DataType.LONG),
+        Collections.singletonList(bitmap),
+        RawDataType.Column);
+  }
+
+  @Test
+  public void testPartialKeyPerWindow() {
+    InsertStatement statement = manager.buildRollupStatement(column(PATH, 1000, 1500, 2500));
+    assertEquals(
+        Arrays.asList(
+            "rollup.a.count." + PATH, "rollup.a.max." + PATH, "rollup.a.sum." + PATH),
+        statement.getPaths());
+    assertEquals(Arrays.asList(1000L, 2000L), statement.getKeys());
+    assertEquals(
+        Arrays.asList(DataType.LONG, DataType.LONG, DataType.LONG), statement.getTypes());
+    Object[] values = statement.getValues();
+    assertEquals(Arrays.asList(2L, 1L), Arrays.asList((Object[]) values[0]));
+    assertEquals(Arrays.asList(1500L, 2500L), Arrays.asList((Object[]) values[1]));
+    assertEquals(Arrays.asList(2500L, 2500L), Arrays.asList((Object[]) values[2]));
+  }
+
+  @Test
+  public void testBatchesInSameWindowDoNotCollide() {
+    InsertStatement first = manager.buildRollupStatement(column(PATH, 1000, 1500));
+    InsertStatement second = manager.buildRollupStatement(column(PATH, 1200));
+    assertEquals(Collections.singletonList(1000L), first.getKeys());
+    assertEquals(Collections.singletonList(1001L), second.getKeys());
+
+    // 批次号对窗口长度取模
+    InsertStatement wrapped = newManager(-1).buildRollupStatement(column(PATH, 1700));
+    assertEquals(Collections.singletonList(1999L), wrapped.getKeys());
+  }
+
+  @Test
+  public void testResentPointKeepsEarlierPartial() {
+    InsertStatement first = manager.buildRollupStatement(column(PATH, 1000, 1500));
+    // 重新发送的点与前一批次的第一个点相同，不能覆盖前一批次的部分结果
+    InsertStatement resent = manager.buildRollupStatement(column(PATH, 1000));
+    assertEquals(Collections.singletonList(1000L), first.getKeys());
+    assertEquals(Collections.singletonList(1001L), resent.getKeys());
+    // count
+    assertEquals(Collections.singletonList(2L), Arrays.asList((Object[]) first.getValues()[0]));
+    assertEquals(Collections.singletonList(1L), Arrays.asList((Object[]) resent.getValues()[0]));
+    // sum
+    assertEquals(Collections.singletonList(2500L), Arrays.asList((Object[]) first.getValues()[2]));
+    assertEquals(Collections.singletonList(1000L), Arrays.asList((Object[]) resent.getValues()[2]));
+  }
+
+  @Test
+  public void testSkipUncoveredAndRollupPaths() {
+    assertNull(manager.buildRollupStatement(column("root.other.s1", 1000)));
+
+    // 部分结果本身不会再被聚合
+    ContinuousAggregate aggregate = ContinuousAggregate.parse("b:*:max:1000", "rollup");
+    ContinuousAggregateManager all =
+        new ContinuousAggregateManager("rollup", Collections.singletonList(aggregate), 0);
+    assertNull(all.buildRollupStatement(column("rollup.b.max." + PATH, 1000)));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.rollup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import cn.edu.tsinghua.iginx.engine.shared.KeyRange;
+import cn.edu.tsinghua.iginx.engine.shared.expr.BaseExpression;
+import cn.edu.tsinghua.iginx.engine.shared.expr.Expression;
+import cn.edu.tsinghua.iginx.engine.shared.expr.FuncExpression;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionCall;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Downsample;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.PathUnion;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Project;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Rename;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Select;
+import cn.edu.tsinghua.iginx.engine.shared.source.EmptySource;
+import cn.edu.tsinghua.iginx.engine.shared.source.OperatorSource;
+import cn.edu.tsinghua.iginx.engine.shared.source.Source;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class ContinuousAggregateRewriterTest {
+
+  private final ContinuousAggregate aggregate =
+      ContinuousAggregate.parse("a:root.sensor.*:max,count:1000:2500", "rollup");
+
+  private static Expression func(String name, String path) {
+    return new FuncExpression(
+        name, new ArrayList<>(Collections.singletonList(new BaseExpression(path))));
+  }
+
+  private static Operator child(Source source) {
+    return ((OperatorSource) source).getOperator();
+  }
+
+  @Test
+  public void testGetTargets() {
+    List<Pair<String, String>> targets =
+        ContinuousAggregateRewriter.getTargets(
+            Arrays.asList(func("MAX", "root.sensor.s1"), func("count", "root.sensor.s2")));
+    assertEquals(2, targets.size());
+    assertEquals("max", targets.get(0).k);
+    assertEquals("root.sensor.s1", targets.get(0).v);
+    assertEquals("count", targets.get(1).k);
+
+    assertNull(
+        ContinuousAggregateRewriter.getTargets(
+            Collections.singletonList(func("avg", "root.sensor.s1"))));
+    assertNull(
+        ContinuousAggregateRewriter.getTargets(
+            Collections.singletonList(func("max", "root.sensor.*"))));
+    assertNull(
+        ContinuousAggregateRewriter.getTargets(
+            Collections.singletonList(new BaseExpression("root.sensor.s1"))));
+  }
+
+  @Test
+  public void testGetSplitKey() {
+    assertEquals(3000, ContinuousAggregateRewriter.getSplitKey(aggregate, 1000, 1000));
+    assertEquals(4000, ContinuousAggregateRewriter.getSplitKey(aggregate, 0, 2000));
+    assertEquals(5000, ContinuousAggregateRewriter.getSplitKey(aggregate, 5000, 1000));
+  }
+
+  @Test
+  public void testRewrite() {
+    List<Pair<String, String>> targets =
+        ContinuousAggregateRewriter.getTargets(
+            Arrays.asList(func("max", "root.sensor.s1"), func("count", "root.sensor.s1")));
+    List<String> rollupPaths = ContinuousAggregateRewriter.getRollupPaths(aggregate, targets);
+    assertEquals(
+        Arrays.asList("rollup.a.max.root.sensor.s1", "rollup.a.count.root.sensor.s1"),
+        rollupPaths);
+
+    Operator rollupRoot = new Project(EmptySource.EMPTY_SOURCE, rollupPaths, null);
+    Operator rawRoot =
+        new Project(EmptySource.EMPTY_SOURCE, Collections.singletonList("root.sensor.s1"), null);
+    List<FunctionCall> rawCalls = new ArrayList<>();
+    Operator root =
+        ContinuousAggregateRewriter.rewrite(
+            aggregate, targets, rollupRoot, rawRoot, rawCalls, 0, 3000, 10000, 1000, null);
+
+    assertTrue(root instanceof PathUnion);
+    Downsample rawPart = (Downsample) child(((PathUnion) root).getSourceA());
+    assertEquals(new KeyRange(0, 3000), rawPart.getKeyRange());
+    assertSame(rawCalls, rawPart.getFunctionCallList());
+    assertSame(rawRoot, child(((Select) child(rawPart.getSource())).getSource()));
+
+    Rename rename = (Rename) child(((PathUnion) root).getSourceB());
+    assertEquals("sum(rollup.a.count.root.sensor.s1)", rename.getAliasList().get(1).k);
+    assertEquals("count(root.sensor.s1)", rename.getAliasList().get(1).v);
+    Downsample rollupPart = (Downsample) child(rename.getSource());
+    assertEquals(new KeyRange(3000, 10000), rollupPart.getKeyRange());
+    assertEquals(1000, rollupPart.getPrecision());
+    // count 的部分结果通过 sum 合并
+    assertEquals(
+        Arrays.asList("max", "sum"),
+        rollupPart.getFunctionCallList().stream()
+            .map(call -> call.getFunction().getIdentifier())
+            .collect(Collectors.toList()));
+    assertSame(rollupRoot, child(((Select) child(rollupPart.getSource())).getSource()));
+
+    // 查询区间完全被持续聚合覆盖时不再读取原始数据
+    root =
+        ContinuousAggregateRewriter.rewrite(
+            aggregate, targets, rollupRoot, rawRoot, rawCalls, 3000, 3000, 10000, 1000, null);
+    assertTrue(root instanceof Rename);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.logical.rollup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class ContinuousAggregateTest {
+
+  private static final long HOUR = 3_600_000_000_000L;
+
+  @Test
+  public void testParse() {
+    ContinuousAggregate aggregate =
+        ContinuousAggregate.parse("hourly:root.sensor.*:MAX,sum,count,max:1h", "rollup");
+    assertEquals("hourly", aggregate.getName());
+    assertEquals(Arrays.asList("max", "sum", "count"), aggregate.getFunctions());
+    assertEquals(HOUR, aggregate.getWindow());
+    assertEquals(0, aggregate.getSince());
+    assertTrue(aggregate.matches("root.sensor.s1"));
+    assertFalse(aggregate.matches("root.other.s1"));
+    assertEquals(
+        "rollup.hourly.max.root.sensor.s1", aggregate.getRollupPath("max", "root.sensor.s1"));
+    assertEquals("sum", ContinuousAggregate.getMergeFunction("count"));
+    assertEquals("min", ContinuousAggregate.getMergeFunction("min"));
+
+    aggregate = ContinuousAggregate.parse("daily:root.*:min:86400000:1000", "rollup");
+    assertEquals(86400000, aggregate.getWindow());
+    assertEquals(1000, aggregate.getSince());
+  }
+
+  @Test
+  public void testWindowStart() {
+    ContinuousAggregate aggregate = ContinuousAggregate.parse("a:root.*:max:1000", "rollup");
+    assertEquals(0, aggregate.getWindowStart(999));
+    assertEquals(1000, aggregate.getWindowStart(1000));
+    assertEquals(-1000, aggregate.getWindowStart(-1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedFunction() {
+    ContinuousAggregate.parse("a:root.*:avg:1h", "rollup");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidName() {
+    ContinuousAggregate.parse("a.b:root.*:max:1h", "rollup");
+  }
+}
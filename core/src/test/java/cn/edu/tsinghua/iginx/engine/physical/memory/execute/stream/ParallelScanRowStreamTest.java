@@ -0,0 +1,196 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.memory.execute.stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+
+public class ParallelScanRowStreamTest {
+
+  private static final Field A = new Field("a.a", DataType.LONG);
+
+  private static final Field B = new Field("a.b", DataType.LONG);
+
+  private static Table keyedTable(Field field, long from, long to, long step) {
+    Header header = new Header(Field.KEY, Collections.singletonList(field));
+    List<Row> rows = new ArrayList<>();
+    for (long key = from; key < to; key += step) {
+      rows.add(new Row(header, key, new Object[] {key}));
+    }
+    return new Table(header, rows);
+  }
+
+  @Test
+  public void testMergeByKey() throws PhysicalException {
+    // 行数超过单个预取批次，覆盖跨批次读取
+    List<RowStream> streams =
+        Arrays.asList(
+            keyedTable(A, 0, 3000, 2),
+            keyedTable(A, 1, 3000, 2),
+            keyedTable(B, 1000, 1010, 1),
+            keyedTable(B, 0, 0, 1));
+    ParallelScanRowStream stream = new ParallelScanRowStream(streams);
+
+    Header header = stream.getHeader();
+    assertEquals(Arrays.asList(A, B), header.getFields());
+
+    long lastKey = -1;
+    int count = 0;
+    while (stream.hasNext()) {
+      Row row = stream.next();
+      if (row.getValue(B) == null) {
+        // a.a 的两个分片交替出现，合并后 key 连续
+        assertEquals(lastKey + 1, row.getKey());
+        assertEquals(row.getKey(), row.getValue(A));
+      } else {
+        // key 相同时排在前面的分片先返回
+        assertEquals(lastKey, row.getKey());
+        assertNull(row.getValue(A));
+        assertEquals(row.getKey(), row.getValue(B));
+      }
+      lastKey = row.getKey();
+      count++;
+    }
+    assertEquals(3010, count);
+    stream.close();
+  }
+
+  @Test
+  public void testConcatWithoutKey() throws PhysicalException {
+    Header headerA = new Header(Collections.singletonList(A));
+    Header headerB = new Header(Collections.singletonList(B));
+    List<RowStream> streams =
+        Arrays.asList(
+            new Table(headerA, Collections.singletonList(new Row(headerA, new Object[] {1L}))),
+            new Table(headerB, Collections.emptyList()),
+            new Table(headerB, Collections.singletonList(new Row(headerB, new Object[] {2L}))));
+    ParallelScanRowStream stream = new ParallelScanRowStream(streams);
+
+    assertArrayEquals(new Object[] {1L, null}, stream.next().getValues());
+    Row row = stream.next();
+    assertNull(row.getValue(A));
+    assertEquals(2L, row.getValue(B));
+    assertFalse(stream.hasNext());
+    stream.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testNestedScanWithSingleThread() throws PhysicalException {
+    // 线程池只有一个线程时，外层扫描任务读取内层并行扫描不能等待排队中的任务
+    ExecutorService executor = Executors.newFixedThreadPool(1);
+    try {
+      RowStream inner =
+          new ParallelScanRowStream(
+              Arrays.asList(keyedTable(A, 0, 3000, 2), keyedTable(A, 1, 3000, 2)), executor);
+      ParallelScanRowStream stream =
+          new ParallelScanRowStream(Arrays.asList(inner, keyedTable(B, 0, 3000, 1)), executor);
+
+      for (long key = 0; key < 3000; key++) {
+        // key 相同时先返回内层扫描的行
+        Row row = stream.next();
+        assertEquals(key, row.getKey());
+        assertEquals(key, row.getValue(A));
+        assertNull(row.getValue(B));
+        row = stream.next();
+        assertEquals(key, row.getKey());
+        assertNull(row.getValue(A));
+        assertEquals(key, row.getValue(B));
+      }
+      assertFalse(stream.hasNext());
+      stream.close();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testIndirectlyNestedScanWithSingleThread() throws PhysicalException {
+    // 内层扫描包在其他结果集中无法展开，只能在外层扫描线程中初始化并直接读取
+    ExecutorService executor = Executors.newFixedThreadPool(1);
+    try {
+      RowStream inner =
+          new WrappedRowStream(
+              new ParallelScanRowStream(
+                  Arrays.asList(keyedTable(A, 0, 3000, 2), keyedTable(A, 1, 3000, 2)), executor));
+      ParallelScanRowStream stream =
+          new ParallelScanRowStream(Arrays.asList(keyedTable(B, 0, 3000, 1), inner), executor);
+
+      assertEquals(Arrays.asList(B, A), stream.getHeader().getFields());
+      for (long key = 0; key < 3000; key++) {
+        Row row = stream.next();
+        assertEquals(key, row.getKey());
+        assertEquals(key, row.getValue(B));
+        row = stream.next();
+        assertEquals(key, row.getKey());
+        assertEquals(key, row.getValue(A));
+      }
+      assertFalse(stream.hasNext());
+      stream.close();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static class WrappedRowStream implements RowStream {
+
+    private final RowStream stream;
+
+    WrappedRowStream(RowStream stream) {
+      this.stream = stream;
+    }
+
+    @Override
+    public Header getHeader() throws PhysicalException {
+      return stream.getHeader();
+    }
+
+    @Override
+    public void close() throws PhysicalException {
+      stream.close();
+    }
+
+    @Override
+    public boolean hasNext() throws PhysicalException {
+      return stream.hasNext();
+    }
+
+    @Override
+    public Row next() throws PhysicalException {
+      return stream.next();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.shared.data.Value;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.AndFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.BoolFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Filter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.KeyFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.NotFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Op;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.OrFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.PathFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.ValueFilter;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class FilterCompilerTest {
+
+  private static final Header HEADER =
+      new Header(
+          Field.KEY,
+          Arrays.asList(
+              new Field("t.i", DataType.INTEGER),
+              new Field("t.l", DataType.LONG),
+              new Field("t.f", DataType.FLOAT),
+              new Field("t.d", DataType.DOUBLE),
+              new Field("t.s", DataType.BINARY),
+              new Field("t.b", DataType.BOOLEAN)));
+
+  private static List<Row> buildRows() {
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      Object[] values =
+          new Object[] {
+            i % 7 == 0 ? null : i,
+            (long) i * 3,
+            i / 10.0f,
+            i % 5 == 0 ? null : i * 1.5,
+            ("v" + (i % 4)).getBytes(),
+            i % 2 == 0
+          };
+      rows.add(new Row(HEADER, i, values));
+    }
+    return rows;
+  }
+
+  private static List<Filter> buildFilters() {
+    List<Filter> filters = new ArrayList<>();
+    for (Op op : new Op[] {Op.E, Op.NE, Op.G, Op.GE, Op.L, Op.LE_AND}) {
+      filters.add(new ValueFilter("t.i", op, new Value(5)));
+      filters.add(new ValueFilter("t.l", op, new Value(9L)));
+      filters.add(new ValueFilter("t.i", op, new Value(5.5)));
+      filters.add(new ValueFilter("t.f", op, new Value(0.3)));
+      filters.add(new ValueFilter("t.f", op, new Value(0.3f)));
+      filters.add(new ValueFilter("t.d", op, new Value(6L)));
+      filters.add(new ValueFilter("t.s", op, new Value("v2")));
+      filters.add(new ValueFilter("t.s", op, new Value(2)));
+      filters.add(new ValueFilter("t.b", op, new Value(true)));
+      filters.add(new ValueFilter("t.*", op, new Value(3)));
+      filters.add(new PathFilter("t.i", op, "t.l"));
+      filters.add(new PathFilter("t.i", op, "t.d"));
+      filters.add(new KeyFilter(op, 10));
+    }
+    filters.add(new ValueFilter("t.s", Op.LIKE, new Value("v[12]")));
+    filters.add(new ValueFilter("t.s", Op.NOT_LIKE, new Value("v.*")));
+    filters.add(new ValueFilter("t.i", Op.NOT_LIKE, new Value("v.*")));
+    filters.add(new ValueFilter("t.i", Op.E, new Value(DataType.INTEGER, null)));
+    filters.add(new ValueFilter("t.x", Op.E, new Value(1)));
+    filters.add(
+        new AndFilter(
+            Arrays.asList(
+                new ValueFilter("t.i", Op.G, new Value(3)),
+                new BoolFilter(true),
+                new NotFilter(new ValueFilter("t.s", Op.E, new Value("v1"))))));
+    filters.add(
+        new OrFilter(
+            Arrays.asList(
+                new BoolFilter(false),
+                new KeyFilter(Op.L, 3),
+                new ValueFilter("t.d", Op.GE, new Value(20)))));
+    filters.add(new OrFilter(Arrays.asList(new BoolFilter(false), new BoolFilter(true))));
+    return filters;
+  }
+
+  @Test
+  public void testConsistentWithInterpreter() throws PhysicalException {
+    List<Row> rows = buildRows();
+    for (Filter filter : buildFilters()) {
+      CompiledFilter compiled = FilterCompiler.compile(filter, HEADER);
+      for (Row row : rows) {
+        assertEquals(
+            filter + " on " + row, FilterUtils.validate(filter, row), compiled.validate(row));
+      }
+    }
+  }
+
+  @Test
+  public void testFallbackOnDifferentHeader() throws PhysicalException {
+    Header other = new Header(Field.KEY, Arrays.asList(new Field("t.i", DataType.LONG)));
+    Filter filter = new ValueFilter("t.i", Op.E, new Value(5));
+    CompiledFilter compiled = FilterCompiler.compile(filter, HEADER);
+    Row row = new Row(other, 0, new Object[] {5L});
+    assertEquals(FilterUtils.validate(filter, row), compiled.validate(row));
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.storage.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.storage.IStorage;
+import cn.edu.tsinghua.iginx.engine.physical.storage.domain.Column;
+import cn.edu.tsinghua.iginx.engine.physical.storage.domain.DataArea;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskExecuteResult;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.ColumnDataView;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawData;
+import cn.edu.tsinghua.iginx.engine.shared.data.write.RawDataType;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Delete;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Insert;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Project;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Select;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.BaseTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.TagFilter;
+import cn.edu.tsinghua.iginx.metadata.entity.ColumnsInterval;
+import cn.edu.tsinghua.iginx.metadata.entity.KeyInterval;
+import cn.edu.tsinghua.iginx.metadata.entity.StorageEngineMeta;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.thrift.StorageEngineType;
+import cn.edu.tsinghua.iginx.utils.Bitmap;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SchemaCatalogTest {
+
+  private static SchemaCatalog catalog;
+
+  private final StorageEngineMeta meta =
+      new StorageEngineMeta(
+          1, "127.0.0.1", 6667, Collections.emptyMap(), StorageEngineType.iotdb12, 0);
+
+  private FakeStorage storage;
+
+  @BeforeClass
+  public static void setUp() {
+    ConfigDescriptor.getInstance().getConfig().setEnableSchemaCatalog(true);
+    catalog = SchemaCatalog.getInstance();
+  }
+
+  @Before
+  public void init() {
+    catalog.clear();
+    storage = new FakeStorage();
+    storage.columns.add(new Column("a.b.c", DataType.LONG));
+    storage.columns.add(new Column("a.b.d", DataType.DOUBLE));
+    storage.columns.add(
+        new Column("a.e", DataType.BINARY, Collections.singletonMap("host", "h1")));
+    storage.columns.add(new Column("x.c", DataType.LONG));
+  }
+
+  private List<String> show(String... patterns) throws PhysicalException {
+    return show(null, patterns);
+  }
+
+  private List<String> show(TagFilter tagFilter, String... patterns) throws PhysicalException {
+    return catalog
+        .getColumns(meta, storage, new HashSet<>(Arrays.asList(patterns)), tagFilter)
+        .stream()
+        .map(Column::getPath)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testMatch() throws PhysicalException {
+    assertEquals(Arrays.asList("a.b.c", "a.b.d", "a.e", "x.c"), show());
+    assertEquals(Arrays.asList("a.b.c", "a.b.d", "a.e"), show("a.*"));
+    assertEquals(Arrays.asList("a.b.c", "x.c"), show("*.c"));
+    assertEquals(Collections.singletonList("a.b.d"), show("a.b.d", "a.f"));
+    assertEquals(Collections.singletonList("a.b.c"), show("a.b*.c"));
+    assertEquals(Collections.singletonList("a.e"), show(new BaseTagFilter("host", "h*"), "a.*"));
+    assertEquals(
+        Collections.singleton("a.e"),
+        catalog.resolvePaths(
+            meta.getId(), Collections.singletonList("*"), new BaseTagFilter("host", "h1")));
+    assertEquals(1, storage.loadCount);
+  }
+
+  @Test
+  public void testInsertAndInvalidate() throws PhysicalException {
+    assertEquals(Collections.singletonList("x.c"), show("x.*"));
+
+    Bitmap bitmap = new Bitmap(1);
+    bitmap.mark(0);
+    RawData rawData =
+        new RawData(
+            Arrays.asList("x.c", "x.d"),
+            Arrays.asList(Collections.emptyMap(), Collections.emptyMap()),
+            Collections.singletonList(1L),
+            new Object[] {new Object[] {1L}, new Object[] {2L}},
+            Arrays.asList(DataType.LONG, DataType.LONG),
+            Arrays.asList(bitmap, bitmap),
+            RawDataType.Column);
+    catalog.onInsert(meta.getId(), new ColumnDataView(rawData, 0, 2, 0, 1));
+    assertEquals(Arrays.asList("x.c", "x.d"), show("x.*"));
+    assertEquals(1, storage.loadCount);
+
+    catalog.invalidate(meta.getId());
+    assertEquals(Collections.singletonList("x.c"), show("x.*"));
+    assertEquals(2, storage.loadCount);
+  }
+
+  private static class FakeStorage implements IStorage {
+
+    private final List<Column> columns = new ArrayList<>();
+
+    private int loadCount = 0;
+
+    @Override
+    public List<Column> getColumns(Set<String> patterns, TagFilter tagFilter) {
+      loadCount++;
+      List<Column> result = new ArrayList<>();
+      columns.forEach(
+          column ->
+              result.add(new Column(column.getPath(), column.getDataType(), column.getTags())));
+      return result;
+    }
+
+    @Override
+    public boolean testConnection(StorageEngineMeta meta) {
+      return true;
+    }
+
+    @Override
+    public TaskExecuteResult executeProject(Project project, DataArea dataArea) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TaskExecuteResult executeProjectDummy(Project project, DataArea dataArea) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isSupportProjectWithSelect() {
+      return false;
+    }
+
+    @Override
+    public TaskExecuteResult executeProjectWithSelect(
+        Project project, Select select, DataArea dataArea) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TaskExecuteResult executeProjectDummyWithSelect(
+        Project project, Select select, DataArea dataArea) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TaskExecuteResult executeDelete(Delete delete, DataArea dataArea) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TaskExecuteResult executeInsert(Insert insert, DataArea dataArea) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Pair<ColumnsInterval, KeyInterval> getBoundaryOfStorage(String prefix) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void release() {}
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.storage.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import cn.edu.tsinghua.iginx.engine.physical.storage.utils.TagKVUtils;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.AndTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.BasePreciseTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.BaseTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.OrTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.PreciseTagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.TagFilter;
+import cn.edu.tsinghua.iginx.engine.shared.operator.tag.WithoutTagFilter;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class TagIndexTest {
+
+  private static Map<String, String> tags(String... kvs) {
+    Map<String, String> tags = new HashMap<>();
+    for (int i = 0; i < kvs.length; i += 2) {
+      tags.put(kvs[i], kvs[i + 1]);
+    }
+    return tags;
+  }
+
+  @Test
+  public void testEvaluateConsistentWithMatch() {
+    List<Map<String, String>> columnTags =
+        Arrays.asList(
+            tags(),
+            tags("host", "h1"),
+            tags("host", "h2"),
+            tags("host", "h1", "dc", "bj"),
+            tags("host", "h10", "dc", "sh"),
+            tags("dc", "bj"));
+    TagIndex index = new TagIndex();
+    for (int i = 0; i < columnTags.size(); i++) {
+      index.add(i, columnTags.get(i));
+    }
+
+    List<TagFilter> filters =
+        Arrays.asList(
+            new BaseTagFilter("host", "h1"),
+            new BaseTagFilter("host", "h1*"),
+            new BaseTagFilter("rack", "r1"),
+            new WithoutTagFilter(),
+            new AndTagFilter(
+                Arrays.asList(new BaseTagFilter("host", "h1*"), new BaseTagFilter("dc", "bj"))),
+            new OrTagFilter(
+                Arrays.asList(new BaseTagFilter("host", "h2"), new WithoutTagFilter())),
+            new OrTagFilter(
+                Arrays.asList(new BaseTagFilter("dc", "sh"), new BaseTagFilter("host", "h2"))),
+            new AndTagFilter(Collections.singletonList(new WithoutTagFilter())),
+            new BasePreciseTagFilter(tags("host", "h1")),
+            new PreciseTagFilter(
+                Arrays.asList(
+                    new BasePreciseTagFilter(tags("dc", "bj")),
+                    new BasePreciseTagFilter(tags("host", "h1", "dc", "bj")))));
+
+    for (TagFilter filter : filters) {
+      BitSet expected = new BitSet();
+      for (int i = 0; i < columnTags.size(); i++) {
+        if (TagKVUtils.match(columnTags.get(i), filter)) {
+          expected.set(i);
+        }
+      }
+      assertEquals(filter.toString(), expected, index.evaluate(filter));
+    }
+  }
+}
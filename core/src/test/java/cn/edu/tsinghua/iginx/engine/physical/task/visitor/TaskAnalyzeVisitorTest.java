@@ -0,0 +1,138 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.physical.task.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.physical.task.StoragePhysicalTask;
+import cn.edu.tsinghua.iginx.engine.physical.task.TaskExecuteResult;
+import cn.edu.tsinghua.iginx.engine.physical.task.UnaryMemoryPhysicalTask;
+import cn.edu.tsinghua.iginx.engine.shared.RequestContext;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.ProfiledRowStream;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Limit;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Project;
+import cn.edu.tsinghua.iginx.engine.shared.source.FragmentSource;
+import cn.edu.tsinghua.iginx.engine.shared.source.OperatorSource;
+import cn.edu.tsinghua.iginx.metadata.entity.FragmentMeta;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import cn.edu.tsinghua.iginx.utils.SnowFlakeUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TaskAnalyzeVisitorTest {
+
+  private static final Field A = new Field("a.a", DataType.LONG);
+
+  @BeforeClass
+  public static void setUp() {
+    SnowFlakeUtils.init(0);
+  }
+
+  private static Table table(int size) {
+    Header header = new Header(Field.KEY, Collections.singletonList(A));
+    List<Row> rows = new ArrayList<>();
+    for (long key = 0; key < size; key++) {
+      rows.add(new Row(header, key, new Object[] {key}));
+    }
+    return new Table(header, rows);
+  }
+
+  /** 执行 Limit(offset 1, limit 2) <- Project 的小计划并读完结果，存储任务产出 3 行 */
+  private static UnaryMemoryPhysicalTask runPlan(boolean profiling) throws PhysicalException {
+    RequestContext context = new RequestContext(0L);
+    context.setProfiling(profiling);
+    FragmentMeta fragment = new FragmentMeta("a", "b", 0, 100);
+    Project project =
+        new Project(new FragmentSource(fragment), Collections.singletonList("a.a"), null);
+    StoragePhysicalTask storageTask =
+        new StoragePhysicalTask(Collections.singletonList(project), fragment, true, false, context);
+    UnaryMemoryPhysicalTask limitTask =
+        new UnaryMemoryPhysicalTask(
+            Collections.singletonList(new Limit(new OperatorSource(project), 2, 1)),
+            storageTask,
+            context);
+
+    storageTask.setSpan(3);
+    storageTask.setResult(new TaskExecuteResult(table(3)));
+    limitTask.setSpan(1);
+    limitTask.setResult(limitTask.execute());
+
+    RowStream stream = limitTask.getResult().getRowStream();
+    while (stream.hasNext()) {
+      stream.next();
+    }
+    stream.close();
+    return limitTask;
+  }
+
+  private static double parseMillis(Object value) {
+    String text = new String((byte[]) value);
+    assertTrue(text.endsWith("ms"));
+    return Double.parseDouble(text.substring(0, text.length() - 2));
+  }
+
+  @Test
+  public void testAnalyzeReportsRowsAndTimings() throws PhysicalException {
+    UnaryMemoryPhysicalTask limitTask = runPlan(true);
+    TaskAnalyzeVisitor visitor = new TaskAnalyzeVisitor();
+    limitTask.accept(visitor);
+    List<Object[]> cache = visitor.getCache();
+    assertEquals(2, cache.size());
+
+    Object[] limitRow = cache.get(0);
+    assertEquals("1ms", new String((byte[]) limitRow[3]));
+    assertEquals(3L, limitRow[7]);
+    assertEquals(2L, limitRow[8]);
+    assertEquals(0L, limitRow[9]);
+
+    Object[] storageRow = cache.get(1);
+    assertEquals("3ms", new String((byte[]) storageRow[3]));
+    assertEquals(0L, storageRow[7]);
+    assertEquals(3L, storageRow[8]);
+    assertTrue((long) storageRow[9] > 0);
+
+    for (Object[] row : cache) {
+      for (int i = 4; i <= 6; i++) {
+        assertTrue(parseMillis(row[i]) >= 0);
+      }
+    }
+    assertTrue(limitTask.getParentTask().getMetrics().getConsumeWallNanos() > 0);
+  }
+
+  @Test
+  public void testNoMetricsWithoutAnalyze() throws PhysicalException {
+    UnaryMemoryPhysicalTask limitTask = runPlan(false);
+    assertFalse(limitTask.getResult().getRowStream() instanceof ProfiledRowStream);
+    assertEquals(0, limitTask.getMetrics().getRowsOut());
+    assertEquals(0, limitTask.getParentTask().getMetrics().getRowsOut());
+    assertEquals(0, limitTask.getParentTask().getMetrics().getConsumeWallNanos());
+  }
+}
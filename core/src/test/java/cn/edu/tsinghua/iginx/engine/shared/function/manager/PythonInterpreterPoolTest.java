@@ -0,0 +1,177 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalTaskExecuteFailureException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.Table;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.GroupByKey;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.RowUtils;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Field;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.expr.BaseExpression;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionCall;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionParams;
+import cn.edu.tsinghua.iginx.engine.shared.function.FunctionType;
+import cn.edu.tsinghua.iginx.engine.shared.function.MappingType;
+import cn.edu.tsinghua.iginx.engine.shared.function.SetMappingFunction;
+import cn.edu.tsinghua.iginx.engine.shared.operator.GroupBy;
+import cn.edu.tsinghua.iginx.engine.shared.source.EmptySource;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PythonInterpreterPoolTest {
+
+  private static final PythonInterpreterPool pool = PythonInterpreterPool.getInstance();
+
+  @BeforeClass
+  public static void checkParallelism() {
+    Assume.assumeTrue(pool.isParallelEnabled());
+  }
+
+  @Test
+  public void testInvokeAllKeepsOrder() throws PhysicalException {
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      int value = i;
+      tasks.add(
+          () -> {
+            // 让先提交的任务更晚完成
+            Thread.sleep(20 - value);
+            return value;
+          });
+    }
+    List<Integer> results = pool.invokeAll(tasks);
+    for (int i = 0; i < 20; i++) {
+      assertEquals(i, (int) results.get(i));
+    }
+  }
+
+  @Test
+  public void testInvokeAllPropagatesFailure() {
+    List<Callable<Integer>> tasks =
+        Arrays.asList(
+            () -> 1,
+            () -> {
+              throw new IllegalStateException("udf failed");
+            });
+    try {
+      pool.invokeAll(tasks);
+      fail("expect failure of python udf to be propagated");
+    } catch (PhysicalException e) {
+      assertEquals(PhysicalTaskExecuteFailureException.class, e.getClass());
+      assertEquals(IllegalStateException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  public void testOnlyUDFRoutedToPool() throws PhysicalException {
+    Field groupField = new Field("g", DataType.LONG);
+    Field valueField = new Field("v", DataType.LONG);
+    Header header = new Header(Arrays.asList(groupField, valueField));
+    Map<GroupByKey, List<Row>> groups = new LinkedHashMap<>();
+    for (long g = 0; g < 4; g++) {
+      List<Row> rows = new ArrayList<>();
+      for (long v = 0; v <= g; v++) {
+        rows.add(new Row(header, new Object[] {g, v}));
+      }
+      groups.put(new GroupByKey(Collections.singletonList(g)), rows);
+    }
+
+    CountFunction udf = new CountFunction(FunctionType.UDF, "udf_count");
+    CountFunction system = new CountFunction(FunctionType.System, "sys_count");
+    FunctionParams params = new FunctionParams(new BaseExpression("v"));
+    GroupBy groupBy =
+        new GroupBy(
+            EmptySource.EMPTY_SOURCE,
+            Collections.singletonList(new BaseExpression("g")),
+            Arrays.asList(new FunctionCall(system, params), new FunctionCall(udf, params)));
+
+    List<Field> fields = new ArrayList<>(Collections.singletonList(groupField));
+    List<Row> rows = RowUtils.applyFunc(groupBy, fields, header, groups);
+
+    assertEquals(4, rows.size());
+    for (Row row : rows) {
+      long g = (long) row.getValues()[0];
+      assertEquals(g + 1, row.getValues()[1]);
+      assertEquals(g + 1, row.getValues()[2]);
+    }
+    // 分组数未超过阈值时系统函数在当前线程串行执行，只有 UDF 交给解释器池
+    assertEquals(Collections.singleton(Thread.currentThread()), system.threads);
+    assertFalse(udf.threads.isEmpty());
+    for (Thread thread : udf.threads) {
+      assertNotEquals(Thread.currentThread(), thread);
+    }
+  }
+
+  private static class CountFunction implements SetMappingFunction {
+
+    private final FunctionType type;
+
+    private final String identifier;
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    CountFunction(FunctionType type, String identifier) {
+      this.type = type;
+      this.identifier = identifier;
+    }
+
+    @Override
+    public Row transform(Table table, FunctionParams params) {
+      threads.add(Thread.currentThread());
+      Header header =
+          new Header(Collections.singletonList(new Field(identifier + "(v)", DataType.LONG)));
+      return new Row(header, new Object[] {(long) table.getRowSize()});
+    }
+
+    @Override
+    public FunctionType getFunctionType() {
+      return type;
+    }
+
+    @Override
+    public MappingType getMappingType() {
+      return MappingType.SetMapping;
+    }
+
+    @Override
+    public String getIdentifier() {
+      return identifier;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.system.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+  @Test
+  public void testSmallCardinalityIsExact() {
+    HyperLogLog hll = new HyperLogLog();
+    for (int i = 0; i < 1000; i++) {
+      hll.add((long) (i % 100));
+      hll.add(("v" + (i % 50)).getBytes());
+    }
+    assertEquals(150, hll.cardinality());
+  }
+
+  @Test
+  public void testMergeAndSerialize() {
+    HyperLogLog left = new HyperLogLog();
+    HyperLogLog right = new HyperLogLog();
+    for (long i = 0; i < 100000; i++) {
+      left.add(i);
+      right.add(i + 50000);
+    }
+    HyperLogLog merged = HyperLogLog.deserialize(left.serialize());
+    merged.merge(HyperLogLog.deserialize(right.serialize()));
+    double error = Math.abs(merged.cardinality() - 150000) / 150000.0;
+    assertTrue(error < 0.03);
+  }
+}
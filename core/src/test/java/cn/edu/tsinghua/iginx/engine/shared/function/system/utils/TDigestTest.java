@@ -0,0 +1,60 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.engine.shared.function.system.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class TDigestTest {
+
+  @Test
+  public void testSmallInputIsExact() {
+    TDigest digest = new TDigest();
+    for (int i = 10; i >= 1; i--) {
+      digest.add(i);
+    }
+    assertEquals(1.0, digest.quantile(0), 0);
+    assertEquals(5.5, digest.quantile(0.5), 1e-9);
+    assertEquals(10.0, digest.quantile(1), 0);
+  }
+
+  @Test
+  public void testMergeAndSerialize() {
+    Random random = new Random(0);
+    TDigest left = new TDigest();
+    TDigest right = new TDigest();
+    for (int i = 0; i < 100000; i++) {
+      double value = random.nextDouble();
+      if (i % 2 == 0) {
+        left.add(value);
+      } else {
+        right.add(value);
+      }
+    }
+    TDigest merged = TDigest.deserialize(left.serialize());
+    merged.merge(TDigest.deserialize(right.serialize()));
+    assertEquals(100000, merged.size());
+    assertTrue(Math.abs(merged.quantile(0.5) - 0.5) < 0.01);
+    assertTrue(Math.abs(merged.quantile(0.99) - 0.99) < 0.005);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+  @Test
+  public void testBucketIndex() {
+    assertEquals(0, Histogram.bucketIndex(0));
+    assertEquals(0, Histogram.bucketIndex(1));
+    assertEquals(1, Histogram.bucketIndex(2));
+    assertEquals(2, Histogram.bucketIndex(3));
+    assertEquals(2, Histogram.bucketIndex(4));
+    assertEquals(10, Histogram.bucketIndex(1000));
+    assertEquals(Histogram.BUCKET_NUM - 1, Histogram.bucketIndex(1L << (Histogram.BUCKET_NUM - 1)));
+    assertEquals(Histogram.BUCKET_NUM, Histogram.bucketIndex(Long.MAX_VALUE / 1000));
+  }
+
+  @Test
+  public void testScrape() {
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    registry.counter("test_requests_total", "test counter", "method", "a\"b").inc(3);
+    registry.gauge("test_queue_size", "test gauge", () -> 7);
+    Histogram histogram = registry.histogram("test_duration_seconds", "test histogram", "k", "v");
+    histogram.record(1_500_000); // 1.5ms, 落在上界为 2048us 的桶中
+    histogram.record(100_000_000_000L); // 超出最大上界
+
+    String text = registry.scrape();
+    assertTrue(text.contains("# TYPE test_requests_total counter\n"));
+    assertTrue(text.contains("test_requests_total{method=\"a\\\"b\"} 3\n"));
+    assertTrue(text.contains("test_queue_size 7\n"));
+    assertTrue(text.contains("test_duration_seconds_bucket{k=\"v\",le=\"0.001024\"} 0\n"));
+    assertTrue(text.contains("test_duration_seconds_bucket{k=\"v\",le=\"0.002048\"} 1\n"));
+    assertTrue(text.contains("test_duration_seconds_bucket{k=\"v\",le=\"+Inf\"} 2\n"));
+    assertTrue(text.contains("test_duration_seconds_count{k=\"v\"} 2\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTypeConflict() {
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    registry.counter("test_conflict", "test");
+    registry.histogram("test_conflict", "test");
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.policy;
+
+import static org.junit.Assert.assertEquals;
+
+import cn.edu.tsinghua.iginx.metadata.entity.ColumnsInterval;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class AdaptiveFragmentSplitterTest {
+
+  @Test
+  public void testSelectColumnBorders() {
+    List<String> paths =
+        Arrays.asList("root.a", "root.b", "root.c", "root.d", "root.e", "root.f", "other.x");
+    ColumnsInterval columnsInterval = new ColumnsInterval("root.a", "root.f");
+
+    // root.f 与 other.x 不在分片的列区间内
+    assertEquals(
+        Arrays.asList("root.b", "root.c", "root.d", "root.e"),
+        AdaptiveFragmentSplitter.selectColumnBorders(columnsInterval, paths, 5));
+    assertEquals(
+        Collections.singletonList("root.c"),
+        AdaptiveFragmentSplitter.selectColumnBorders(columnsInterval, paths, 2));
+    assertEquals(
+        Collections.emptyList(),
+        AdaptiveFragmentSplitter.selectColumnBorders(
+            columnsInterval, Collections.singletonList("root.a"), 4));
+  }
+
+  @Test
+  public void testRankStorageEngines() {
+    Map<Long, Double> loads = new HashMap<>();
+    loads.put(1L, 10.0);
+    loads.put(3L, 5.0);
+    // 没有负载记录的存储引擎视为空闲
+    assertEquals(
+        Arrays.asList(2L, 4L, 3L, 1L),
+        AdaptiveFragmentSplitter.rankStorageEngines(Arrays.asList(1L, 2L, 3L, 4L), loads));
+  }
+}
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import shaded.iginx.org.apache.parquet.ParquetWriteOptions;
 import shaded.iginx.org.apache.parquet.bytes.HeapByteBufferAllocator;
+import shaded.iginx.org.apache.parquet.column.ParquetProperties;
 import shaded.iginx.org.apache.parquet.hadoop.CodecFactory;
 import shaded.iginx.org.apache.parquet.hadoop.ParquetFileWriter;
 import shaded.iginx.org.apache.parquet.hadoop.ParquetRecordWriter;
@@ -111,6 +112,39 @@ public class IParquetWriter implements Closeable {
       optionsBuilder.withCompressor(new CodecFactory().getCompressor(codecName));
       return this;
     }
+
+    public Builder withCompressionCodec(
+        String codec, int lz4BufferSize, int zstdLevel, int zstdWorkers) {
+      CompressionCodecName codecName = CompressionCodecName.valueOf(codec);
+      CodecFactory codecFactory = new CodecFactory(lz4BufferSize, zstdLevel, zstdWorkers);
+      optionsBuilder.withCompressor(codecFactory.getCompressor(codecName));
+      return this;
+    }
+
+    public Builder withWriterVersion(String version) {
+      optionsBuilder
+          .asParquetPropertiesBuilder()
+          .withWriterVersion(ParquetProperties.WriterVersion.valueOf(version));
+      return this;
+    }
+
+    public Builder withDictionaryEncoding(boolean enabled, int dictionaryPageSize) {
+      optionsBuilder
+          .asParquetPropertiesBuilder()
+          .withDictionaryEncoding(enabled)
+          .withDictionaryPageSize(dictionaryPageSize);
+      return this;
+    }
+
+    public Builder withByteStreamSplitEncoding(boolean enabled) {
+      optionsBuilder.asParquetPropertiesBuilder().withByteStreamSplitEncoding(enabled);
+      return this;
+    }
+
+    public Builder withPageRowCountLimit(int rowCount) {
+      optionsBuilder.asParquetPropertiesBuilder().withPageRowCountLimit(rowCount);
+      return this;
+    }
   }
 
   public static IRecord getRecord(MessageType schema, Long key, Scanner<String, Object> value)
@@ -123,6 +123,27 @@ public class LegacyParquet implements FileStructure {
       builder.setParquetLz4BufferSize(
           Math.toIntExact(config.getBytes(StorageProperties.Builder.PARQUET_LZ4_BUFFER_SIZE)));
     }
+    if (config.hasPath(StorageProperties.Builder.PARQUET_WRITER_VERSION)) {
+      builder.setParquetWriterVersion(
+          config.getString(StorageProperties.Builder.PARQUET_WRITER_VERSION));
+    }
+    if (config.hasPath(StorageProperties.Builder.PARQUET_DICTIONARY_ENABLED)) {
+      builder.setParquetDictionaryEnabled(
+          config.getBoolean(StorageProperties.Builder.PARQUET_DICTIONARY_ENABLED));
+    }
+    if (config.hasPath(StorageProperties.Builder.PARQUET_DICTIONARY_PAGE_SIZE)) {
+      builder.setParquetDictionaryPageSize(
+          Math.toIntExact(
+              config.getBytes(StorageProperties.Builder.PARQUET_DICTIONARY_PAGE_SIZE)));
+    }
+    if (config.hasPath(StorageProperties.Builder.PARQUET_BYTE_STREAM_SPLIT)) {
+      builder.setParquetByteStreamSplit(
+          config.getBoolean(StorageProperties.Builder.PARQUET_BYTE_STREAM_SPLIT));
+    }
+    if (config.hasPath(StorageProperties.Builder.PARQUET_PAGE_ROW_COUNT_LIMIT)) {
+      builder.setParquetPageRowCountLimit(
+          config.getInt(StorageProperties.Builder.PARQUET_PAGE_ROW_COUNT_LIMIT));
+    }
 
     StorageProperties storageProperties = builder.build();
 
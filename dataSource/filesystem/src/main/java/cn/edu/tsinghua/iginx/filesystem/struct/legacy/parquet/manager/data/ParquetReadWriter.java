@@ -35,6 +35,7 @@ import cn.edu.tsinghua.iginx.filesystem.struct.legacy.parquet.manager.dummy.Stor
 import cn.edu.tsinghua.iginx.filesystem.struct.legacy.parquet.util.CachePool;
 import cn.edu.tsinghua.iginx.filesystem.struct.legacy.parquet.util.Constants;
 import cn.edu.tsinghua.iginx.filesystem.struct.legacy.parquet.util.Shared;
+import cn.edu.tsinghua.iginx.filesystem.struct.legacy.parquet.util.StorageProperties;
 import cn.edu.tsinghua.iginx.filesystem.struct.legacy.parquet.util.exception.StorageException;
 import cn.edu.tsinghua.iginx.filesystem.struct.legacy.parquet.util.exception.StorageRuntimeException;
 import cn.edu.tsinghua.iginx.thrift.DataType;
@@ -98,11 +99,23 @@ public class ParquetReadWriter implements ReadWriter {
     LOGGER.debug("flushing into {}", tempPath);
 
     MessageType parquetSchema = getMessageType(meta.getSchema());
-    int maxBufferSize = shared.getStorageProperties().getParquetOutputBufferMaxSize();
+    StorageProperties properties = shared.getStorageProperties();
+    int maxBufferSize = properties.getParquetOutputBufferMaxSize();
     IParquetWriter.Builder builder = IParquetWriter.builder(tempPath, parquetSchema, maxBufferSize);
-    builder.withRowGroupSize(shared.getStorageProperties().getParquetRowGroupSize());
-    builder.withPageSize((int) shared.getStorageProperties().getParquetPageSize());
-    builder.withCompressionCodec(shared.getStorageProperties().getParquetCompression());
+    builder.withRowGroupSize(properties.getParquetRowGroupSize());
+    builder.withPageSize((int) properties.getParquetPageSize());
+    builder.withPageRowCountLimit(properties.getParquetPageRowCountLimit());
+    builder.withCompressionCodec(
+        properties.getParquetCompression(),
+        properties.getParquetLz4BufferSize(),
+        properties.getZstdLevel(),
+        properties.getZstdWorkers());
+    // v2 writer encodes key and integer columns with DELTA_BINARY_PACKED, float columns with
+    // BYTE_STREAM_SPLIT, and keeps dictionary encoding only for low-cardinality columns
+    builder.withWriterVersion(properties.getParquetWriterVersion());
+    builder.withByteStreamSplitEncoding(properties.isParquetByteStreamSplit());
+    builder.withDictionaryEncoding(
+        properties.isParquetDictionaryEnabled(), properties.getParquetDictionaryPageSize());
 
     try (IParquetWriter writer = builder.build()) {
       while (scanner.iterate()) {
@@ -188,6 +201,7 @@ public class ParquetReadWriter implements ReadWriter {
     IParquetReader.Builder builder = IParquetReader.builder(path);
     builder.project(fields);
     builder.filter(unionFilter);
+    builder.withCodecFactory(shared.getStorageProperties().getParquetLz4BufferSize());
 
     ParquetTableMeta parquetTableMeta = getParquetTableMeta(path.toString());
     IParquetReader reader = builder.build(parquetTableMeta.getMeta());
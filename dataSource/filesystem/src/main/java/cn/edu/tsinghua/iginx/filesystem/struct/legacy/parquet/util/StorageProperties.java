@@ -50,6 +50,11 @@ public class StorageProperties {
   private final int zstdLevel;
   private final int zstdWorkers;
   private final int parquetLz4BufferSize;
+  private final String parquetWriterVersion;
+  private final boolean parquetDictionaryEnabled;
+  private final int parquetDictionaryPageSize;
+  private final boolean parquetByteStreamSplit;
+  private final int parquetPageRowCountLimit;
 
   private StorageProperties(
       boolean flushOnClose,
@@ -71,7 +76,12 @@ public class StorageProperties {
       String parquetCompression,
       int zstdLevel,
       int zstdWorkers,
-      int parquetLz4BufferSize) {
+      int parquetLz4BufferSize,
+      String parquetWriterVersion,
+      boolean parquetDictionaryEnabled,
+      int parquetDictionaryPageSize,
+      boolean parquetByteStreamSplit,
+      int parquetPageRowCountLimit) {
     this.flushOnClose = flushOnClose;
     this.writeBufferSize = writeBufferSize;
     this.writeBufferChunkValuesMax = writeBufferChunkValuesMax;
@@ -92,6 +102,11 @@ public class StorageProperties {
     this.zstdLevel = zstdLevel;
     this.zstdWorkers = zstdWorkers;
     this.parquetLz4BufferSize = parquetLz4BufferSize;
+    this.parquetWriterVersion = parquetWriterVersion;
+    this.parquetDictionaryEnabled = parquetDictionaryEnabled;
+    this.parquetDictionaryPageSize = parquetDictionaryPageSize;
+    this.parquetByteStreamSplit = parquetByteStreamSplit;
+    this.parquetPageRowCountLimit = parquetPageRowCountLimit;
   }
 
   /**
@@ -270,6 +285,54 @@ public class StorageProperties {
     return parquetLz4BufferSize;
   }
 
+  /**
+   * Get the parquet writer version. PARQUET_2_0 encodes integer columns (including key) with
+   * DELTA_BINARY_PACKED, which is compact for monotonic keys.
+   *
+   * @return the parquet writer version
+   */
+  public String getParquetWriterVersion() {
+    return parquetWriterVersion;
+  }
+
+  /**
+   * Get whether to enable parquet dictionary encoding. Columns with high cardinality fall back to
+   * the non-dictionary encoding of the writer version after the first page.
+   *
+   * @return whether to enable parquet dictionary encoding
+   */
+  public boolean isParquetDictionaryEnabled() {
+    return parquetDictionaryEnabled;
+  }
+
+  /**
+   * Get the max size of parquet dictionary page in bytes
+   *
+   * @return the max size of parquet dictionary page, bytes
+   */
+  public int getParquetDictionaryPageSize() {
+    return parquetDictionaryPageSize;
+  }
+
+  /**
+   * Get whether to encode float and double columns with BYTE_STREAM_SPLIT
+   *
+   * @return whether to encode float and double columns with BYTE_STREAM_SPLIT
+   */
+  public boolean isParquetByteStreamSplit() {
+    return parquetByteStreamSplit;
+  }
+
+  /**
+   * Get the max number of rows in a parquet page, which bounds the granularity of page skipping
+   * by key range
+   *
+   * @return the max number of rows in a parquet page
+   */
+  public int getParquetPageRowCountLimit() {
+    return parquetPageRowCountLimit;
+  }
+
   /**
    * Get a builder of StorageProperties
    *
@@ -301,6 +364,11 @@ public class StorageProperties {
         .add("zstdLevel=" + zstdLevel)
         .add("zstdWorkers=" + zstdWorkers)
         .add("parquetLz4BufferSize=" + parquetLz4BufferSize)
+        .add("parquetWriterVersion='" + parquetWriterVersion + "'")
+        .add("parquetDictionaryEnabled=" + parquetDictionaryEnabled)
+        .add("parquetDictionaryPageSize=" + parquetDictionaryPageSize)
+        .add("parquetByteStreamSplit=" + parquetByteStreamSplit)
+        .add("parquetPageRowCountLimit=" + parquetPageRowCountLimit)
         .toString();
   }
 
@@ -326,6 +394,11 @@ public class StorageProperties {
     public static final String ZSTD_LEVEL = "zstd.level";
     public static final String ZSTD_WORKERS = "zstd.workers";
     public static final String PARQUET_LZ4_BUFFER_SIZE = "parquet.lz4.buffer.size";
+    public static final String PARQUET_WRITER_VERSION = "parquet.writer.version";
+    public static final String PARQUET_DICTIONARY_ENABLED = "parquet.dictionary.enabled";
+    public static final String PARQUET_DICTIONARY_PAGE_SIZE = "parquet.dictionary.page.size";
+    public static final String PARQUET_BYTE_STREAM_SPLIT = "parquet.byte.stream.split";
+    public static final String PARQUET_PAGE_ROW_COUNT_LIMIT = "parquet.page.row.count.limit";
 
     private boolean flushOnClose = true;
     private long writeBufferSize = 100 * 1024 * 1024; // BYTE
@@ -347,6 +420,11 @@ public class StorageProperties {
     private int zstdLevel = 3;
     private int zstdWorkers = 0;
     private int parquetLz4BufferSize = 256 * 1024; // BYTE
+    private String parquetWriterVersion = "PARQUET_2_0";
+    private boolean parquetDictionaryEnabled = true;
+    private int parquetDictionaryPageSize = 256 * 1024; // BYTE
+    private boolean parquetByteStreamSplit = true;
+    private int parquetPageRowCountLimit = 10000;
 
     private Builder() {}
 
@@ -588,6 +666,65 @@ public class StorageProperties {
       return this;
     }
 
+    /**
+     * Set the parquet writer version
+     *
+     * @param version the parquet writer version
+     *     <p>Supported values: "PARQUET_1_0", "PARQUET_2_0"
+     * @return this builder
+     */
+    public Builder setParquetWriterVersion(String version) {
+      ParseUtils.in("PARQUET_1_0", "PARQUET_2_0").accept(version);
+      this.parquetWriterVersion = version;
+      return this;
+    }
+
+    /**
+     * Set whether to enable parquet dictionary encoding
+     *
+     * @param enabled whether to enable parquet dictionary encoding
+     * @return this builder
+     */
+    public Builder setParquetDictionaryEnabled(boolean enabled) {
+      this.parquetDictionaryEnabled = enabled;
+      return this;
+    }
+
+    /**
+     * Set the max size of parquet dictionary page in bytes
+     *
+     * @param pageSize the max size of parquet dictionary page, bytes
+     * @return this builder
+     */
+    public Builder setParquetDictionaryPageSize(int pageSize) {
+      ParseUtils.checkPositive(pageSize);
+      this.parquetDictionaryPageSize = pageSize;
+      return this;
+    }
+
+    /**
+     * Set whether to encode float and double columns with BYTE_STREAM_SPLIT
+     *
+     * @param enabled whether to encode float and double columns with BYTE_STREAM_SPLIT
+     * @return this builder
+     */
+    public Builder setParquetByteStreamSplit(boolean enabled) {
+      this.parquetByteStreamSplit = enabled;
+      return this;
+    }
+
+    /**
+     * Set the max number of rows in a parquet page
+     *
+     * @param limit the max number of rows in a parquet page
+     * @return this builder
+     */
+    public Builder setParquetPageRowCountLimit(int limit) {
+      ParseUtils.checkPositive(limit);
+      this.parquetPageRowCountLimit = limit;
+      return this;
+    }
+
     /**
      * Parse properties to set the properties of StorageProperties
      *
@@ -627,6 +764,16 @@ public class StorageProperties {
       ParseUtils.getOptionalInteger(properties, ZSTD_WORKERS).ifPresent(this::setZstdWorkers);
       ParseUtils.getOptionalInteger(properties, PARQUET_LZ4_BUFFER_SIZE)
           .ifPresent(this::setParquetLz4BufferSize);
+      ParseUtils.getOptionalString(properties, PARQUET_WRITER_VERSION)
+          .ifPresent(this::setParquetWriterVersion);
+      ParseUtils.getOptionalBoolean(properties, PARQUET_DICTIONARY_ENABLED)
+          .ifPresent(this::setParquetDictionaryEnabled);
+      ParseUtils.getOptionalInteger(properties, PARQUET_DICTIONARY_PAGE_SIZE)
+          .ifPresent(this::setParquetDictionaryPageSize);
+      ParseUtils.getOptionalBoolean(properties, PARQUET_BYTE_STREAM_SPLIT)
+          .ifPresent(this::setParquetByteStreamSplit);
+      ParseUtils.getOptionalInteger(properties, PARQUET_PAGE_ROW_COUNT_LIMIT)
+          .ifPresent(this::setParquetPageRowCountLimit);
       return this;
     }
 
@@ -656,7 +803,12 @@ public class StorageProperties {
           parquetCompression,
           zstdLevel,
           zstdWorkers,
-          parquetLz4BufferSize);
+          parquetLz4BufferSize,
+          parquetWriterVersion,
+          parquetDictionaryEnabled,
+          parquetDictionaryPageSize,
+          parquetByteStreamSplit,
+          parquetPageRowCountLimit);
     }
   }
 }
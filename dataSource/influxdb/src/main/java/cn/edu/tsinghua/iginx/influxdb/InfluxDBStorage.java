@@ -32,6 +32,8 @@ import cn.edu.tsinghua.iginx.engine.physical.storage.domain.DataArea;
 import cn.edu.tsinghua.iginx.engine.physical.storage.utils.TagKVUtils;
 import cn.edu.tsinghua.iginx.engine.physical.task.TaskExecuteResult;
 import cn.edu.tsinghua.iginx.engine.shared.KeyRange;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
 import cn.edu.tsinghua.iginx.engine.shared.data.write.BitmapView;
 import cn.edu.tsinghua.iginx.engine.shared.data.write.ColumnDataView;
 import cn.edu.tsinghua.iginx.engine.shared.data.write.DataView;
@@ -48,6 +50,7 @@ import cn.edu.tsinghua.iginx.influxdb.exception.InfluxDBException;
 import cn.edu.tsinghua.iginx.influxdb.exception.InfluxDBTaskExecuteFailureException;
 import cn.edu.tsinghua.iginx.influxdb.query.entity.InfluxDBQueryRowStream;
 import cn.edu.tsinghua.iginx.influxdb.query.entity.InfluxDBSchema;
+import cn.edu.tsinghua.iginx.influxdb.query.entity.InfluxDBStreamingRowStream;
 import cn.edu.tsinghua.iginx.influxdb.tools.FilterTransformer;
 import cn.edu.tsinghua.iginx.influxdb.tools.SchemaTransformer;
 import cn.edu.tsinghua.iginx.influxdb.tools.TagFilterUtils;
@@ -75,10 +78,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -102,6 +110,10 @@ public class InfluxDBStorage implements IStorage {
   private static final String QUERY_DATA_ALL =
       "from(bucket:\"%s\") |> range(start: time(v: %s), stop: time(v: %s)) |> filter(fn: (r) => (r._measurement =%s and r._field =%s))";
 
+  // 流式查询时把 _value 统一转为字符串，使不同类型的序列可以 group() 到同一张表中
+  private static final String STRING_VALUE =
+      " |> map(fn: (r) => ({r with _value: string(v: r._value)}))";
+
   private static final String DELETE_DATA = "_measurement=\"%s\" AND _field=\"%s\"";
 
   private static final String SHOW_TIME_SERIES =
@@ -110,10 +122,38 @@ public class InfluxDBStorage implements IStorage {
   private static final String SHOW_TIME_SERIES_BY_PATTERN =
       "from(bucket:\"%s\") |> range(start: time(v: 0), stop: time(v: 9223372036854775807)) |> filter(fn: (r) => (r._measurement =~ /%s/ and r._field =~ /%s/)) |> first()";
 
+  // 查询多个 bucket（dummy 查询）时的并发数
+  private static final String QUERY_PARALLELISM = "query_parallelism";
+
+  private static final String DEFAULT_QUERY_PARALLELISM = "4";
+
+  // 流式查询时缓存的最大记录数
+  private static final String QUERY_BUFFER_SIZE = "query_buffer_size";
+
+  private static final String DEFAULT_QUERY_BUFFER_SIZE = "10000";
+
+  // 每个写请求包含的最大点数
+  private static final String WRITE_BATCH_SIZE = "write_batch_size";
+
+  private static final String DEFAULT_WRITE_BATCH_SIZE = "5000";
+
+  // 同时进行中的写请求数上限
+  private static final String WRITE_MAX_IN_FLIGHT = "write_max_in_flight";
+
+  private static final String DEFAULT_WRITE_MAX_IN_FLIGHT = "4";
+
   private final StorageEngineMeta meta;
 
   private final InfluxDBClient client;
 
+  private final ExecutorService queryPool;
+
+  private final ExecutorService writePool;
+
+  private final int queryBufferSize;
+
+  private final int writeBatchSize;
+
   private final String organizationName;
 
   private final Organization organization;
@@ -142,6 +182,18 @@ public class InfluxDBStorage implements IStorage {
             .build();
     client = InfluxDBClientFactory.create(options);
     organizationName = extraParams.get("organization");
+    queryPool =
+        Executors.newFixedThreadPool(
+            Integer.parseInt(
+                extraParams.getOrDefault(QUERY_PARALLELISM, DEFAULT_QUERY_PARALLELISM)));
+    writePool =
+        Executors.newFixedThreadPool(
+            Integer.parseInt(
+                extraParams.getOrDefault(WRITE_MAX_IN_FLIGHT, DEFAULT_WRITE_MAX_IN_FLIGHT)));
+    queryBufferSize =
+        Integer.parseInt(extraParams.getOrDefault(QUERY_BUFFER_SIZE, DEFAULT_QUERY_BUFFER_SIZE));
+    writeBatchSize =
+        Integer.parseInt(extraParams.getOrDefault(WRITE_BATCH_SIZE, DEFAULT_WRITE_BATCH_SIZE));
     organization =
         client.getOrganizationsApi().findOrganizations().stream()
             .filter(o -> o.getName().equals(this.organizationName))
@@ -401,6 +453,8 @@ public class InfluxDBStorage implements IStorage {
 
   @Override
   public void release() {
+    queryPool.shutdownNow();
+    writePool.shutdownNow();
     client.close();
   }
 
@@ -432,9 +486,7 @@ public class InfluxDBStorage implements IStorage {
             keyInterval.getEndKey(),
             false);
 
-    List<FluxTable> tables = client.getQueryApi().query(statement, organization.getId());
-    InfluxDBQueryRowStream rowStream = new InfluxDBQueryRowStream(tables, project, filter);
-    return new TaskExecuteResult(rowStream);
+    return new TaskExecuteResult(streamQuery(statement, project, filter));
   }
 
   @Override
@@ -446,8 +498,7 @@ public class InfluxDBStorage implements IStorage {
     Filter filter = select.getFilter();
     getBucketQueriesForExecuteDummy(project, bucketQueries, tagFilter);
 
-    List<FluxTable> tables = new ArrayList<>();
-    List<String> BucketNames = new ArrayList<>();
+    Map<String, String> statements = new LinkedHashMap<>();
     for (String bucket : bucketQueries.keySet()) {
       String statement =
           generateQueryStatement(
@@ -458,12 +509,15 @@ public class InfluxDBStorage implements IStorage {
               keyInterval.getStartKey(),
               keyInterval.getEndKey(),
               true);
+      statements.put(bucket, statement);
+    }
 
-      LOGGER.info("execute query: {}", statement);
-      for (FluxTable table : client.getQueryApi().query(statement, organization.getId())) {
-        tables.add(table);
-        BucketNames.add(bucket);
-      }
+    List<FluxTable> tables = new ArrayList<>();
+    List<String> BucketNames = new ArrayList<>();
+    try {
+      queryBuckets(statements, tables, BucketNames);
+    } catch (PhysicalException e) {
+      return new TaskExecuteResult(e);
     }
 
     InfluxDBQueryRowStream rowStream =
@@ -492,9 +546,63 @@ public class InfluxDBStorage implements IStorage {
             keyInterval.getEndKey(),
             false);
 
-    List<FluxTable> tables = client.getQueryApi().query(statement, organization.getId());
-    InfluxDBQueryRowStream rowStream = new InfluxDBQueryRowStream(tables, project, null);
-    return new TaskExecuteResult(rowStream);
+    return new TaskExecuteResult(streamQuery(statement, project, null));
+  }
+
+  /**
+   * 以回调方式流式读取单个 bucket 的查询结果
+   *
+   * <p>先对每个序列用 limit(n: 1) 取一条记录构造表头，再把全部序列 group() 成一张表并按时间排序后逐条回调读取，
+   * 内存中只保留有界队列中的记录。pivot 后同名字段在不同 measurement 中类型不一致时无法合并为一张表，此时退回一次性读取
+   */
+  private RowStream streamQuery(String statement, Project project, Filter filter) {
+    List<FluxTable> headerTables =
+        client.getQueryApi().query(statement + " |> limit(n: 1)", organization.getId());
+    Header header = new InfluxDBQueryRowStream(headerTables, project, filter).getHeader();
+    if (header.getFieldSize() == 0) {
+      return new InfluxDBQueryRowStream(Collections.emptyList(), project, filter);
+    }
+
+    boolean isPivot = false;
+    Set<String> tagKeys = new HashSet<>();
+    Map<String, String> fieldTypes = new HashMap<>();
+    for (FluxTable table : headerTables) {
+      if (table.getRecords().isEmpty()) {
+        continue;
+      }
+      boolean pivot = InfluxDBQueryRowStream.isPivotFluxTable(table);
+      isPivot |= pivot;
+      List<FluxColumn> columns = table.getColumns();
+      // 与 InfluxDBQueryRowStream 构造表头的方式一致：pivot 表从第 6 列起区分 tag 与字段，普通表从第 8 列起均为 tag
+      for (int i = pivot ? 6 : 8; i < columns.size(); i++) {
+        FluxColumn column = columns.get(i);
+        if (!pivot || column.isGroup()) {
+          tagKeys.add(column.getLabel());
+          continue;
+        }
+        String type = fieldTypes.putIfAbsent(column.getLabel(), column.getDataType());
+        if (type != null && !type.equals(column.getDataType())) {
+          LOGGER.info(
+              "field {} has conflicting types, read query result at once", column.getLabel());
+          List<FluxTable> tables = client.getQueryApi().query(statement, organization.getId());
+          return new InfluxDBQueryRowStream(tables, project, filter);
+        }
+      }
+    }
+
+    String streamStatement =
+        (isPivot ? statement : statement + STRING_VALUE)
+            + " |> group() |> sort(columns: [\"_time\"])";
+    LOGGER.info("execute streaming query: {}", streamStatement);
+    return new InfluxDBStreamingRowStream(
+        client.getQueryApi(),
+        streamStatement,
+        organization.getId(),
+        header,
+        tagKeys,
+        isPivot ? fieldTypes.keySet() : null,
+        filter,
+        queryBufferSize);
   }
 
   @Override
@@ -507,8 +615,7 @@ public class InfluxDBStorage implements IStorage {
     long startKey = keyInterval.getStartKey();
     long endKey = keyInterval.getEndKey();
 
-    List<FluxTable> tables = new ArrayList<>();
-    List<String> BucketNames = new ArrayList<>();
+    Map<String, String> statements = new LinkedHashMap<>();
     for (String bucket : bucketQueries.keySet()) {
       String statement =
           String.format(
@@ -517,11 +624,15 @@ public class InfluxDBStorage implements IStorage {
       if (!bucketQueries.get(bucket).equals("()")) {
         statement += String.format(" |> filter(fn: (r) => %s)", bucketQueries.get(bucket));
       }
-      LOGGER.info("execute query: {}", statement);
-      for (FluxTable table : client.getQueryApi().query(statement, organization.getId())) {
-        tables.add(table);
-        BucketNames.add(bucket);
-      }
+      statements.put(bucket, statement);
+    }
+
+    List<FluxTable> tables = new ArrayList<>();
+    List<String> BucketNames = new ArrayList<>();
+    try {
+      queryBuckets(statements, tables, BucketNames);
+    } catch (PhysicalException e) {
+      return new TaskExecuteResult(e);
     }
 
     InfluxDBQueryRowStream rowStream =
@@ -529,6 +640,36 @@ public class InfluxDBStorage implements IStorage {
     return new TaskExecuteResult(rowStream);
   }
 
+  /** 并行执行各 bucket 上的查询，结果按 bucket 的顺序放入 tables，bucketNames 与 tables 一一对应 */
+  private void queryBuckets(
+      Map<String, String> statements, List<FluxTable> tables, List<String> bucketNames)
+      throws PhysicalException {
+    Map<String, Future<List<FluxTable>>> futures = new LinkedHashMap<>();
+    statements.forEach(
+        (bucket, statement) -> {
+          LOGGER.info("execute query: {}", statement);
+          futures.put(
+              bucket,
+              queryPool.submit(() -> client.getQueryApi().query(statement, organization.getId())));
+        });
+    try {
+      for (Map.Entry<String, Future<List<FluxTable>>> entry : futures.entrySet()) {
+        for (FluxTable table : entry.getValue().get()) {
+          tables.add(table);
+          bucketNames.add(entry.getKey());
+        }
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      futures.values().forEach(future -> future.cancel(true));
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      throw new InfluxDBTaskExecuteFailureException(
+          "encounter error when query buckets in influxdb: ", cause);
+    }
+  }
+
   private void getBucketQueriesForExecuteDummy(
       Project project, Map<String, String> bucketQueries, TagFilter tagFilter) {
     for (String pattern : project.getPatterns()) {
@@ -1290,7 +1431,7 @@ public class InfluxDBStorage implements IStorage {
     }
     try {
       LOGGER.info("开始数据写入");
-      client.getWriteApiBlocking().writePoints(bucket.getId(), organization.getId(), points);
+      writePoints(bucket, points);
     } catch (Exception e) {
       return new InfluxDBTaskExecuteFailureException(
           "encounter error when write points to influxdb: ", e);
@@ -1381,7 +1522,7 @@ public class InfluxDBStorage implements IStorage {
 
     try {
       LOGGER.info("开始数据写入");
-      client.getWriteApiBlocking().writePoints(bucket.getId(), organization.getId(), points);
+      writePoints(bucket, points);
     } catch (Exception e) {
       return new InfluxDBTaskExecuteFailureException(
           "encounter error when write points to influxdb: ", e);
@@ -1392,6 +1533,44 @@ public class InfluxDBStorage implements IStorage {
     return null;
   }
 
+  /**
+   * 将数据点按 writeBatchSize 切分成多个写请求，在写线程池中并发执行
+   *
+   * <p>写线程池的大小限制了同时进行中的写请求数，所有请求完成后才返回。任一请求失败时其他请求可能已经写入，
+   * 抛出的异常会说明已写入的点数；InfluxDB 中相同时间戳的点会被覆盖，调用者重试整个写入不会产生重复数据
+   */
+  private void writePoints(Bucket bucket, List<Point> points) throws Exception {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < points.size(); i += writeBatchSize) {
+      List<Point> batch = points.subList(i, Math.min(points.size(), i + writeBatchSize));
+      futures.add(
+          writePool.submit(
+              () ->
+                  client
+                      .getWriteApiBlocking()
+                      .writePoints(bucket.getId(), organization.getId(), batch)));
+    }
+    Throwable failure = null;
+    int writtenPoints = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+        writtenPoints += Math.min(writeBatchSize, points.size() - i * writeBatchSize);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+    }
+    if (failure != null) {
+      throw new InfluxDBTaskExecuteFailureException(
+          String.format(
+              "partial write to bucket %s: %d of %d points written before failure",
+              bucket.getName(), writtenPoints, points.size()),
+          failure);
+    }
+  }
+
   @Override
   public TaskExecuteResult executeDelete(Delete delete, DataArea dataArea) {
     String storageUnit = dataArea.getStorageUnit();
@@ -44,6 +44,13 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * 将 Flux 查询返回的多张二维表按 key 归并为行
+ *
+ * <p>Flux 逐张表返回结果，表头需要全部表的列信息，按 key 归并也需要同时访问所有表，因此查询结果会先完整读入内存，
+ * 本类只在消费过程中逐条释放已归并的记录。单个 bucket 的查询使用 {@link InfluxDBStreamingRowStream} 流式读取，
+ * 本类用于跨 bucket 的 dummy 查询和无法合并为单表的查询
+ */
 public class InfluxDBQueryRowStream implements RowStream {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(InfluxDBQueryRowStream.class);
@@ -99,6 +106,12 @@ public class InfluxDBQueryRowStream implements RowStream {
       }
     }
     filterMap = filterList;
+    // 被标签过滤掉的表不会参与归并，直接释放
+    for (int i = 0; i < this.tables.size(); i++) {
+      if (filterMap.get(i)) {
+        this.tables.get(i).getRecords().clear();
+      }
+    }
     this.header = new Header(Field.KEY, fields);
     this.indices = new int[this.tables.size()];
     this.filter = filter;
@@ -213,7 +226,11 @@ public class InfluxDBQueryRowStream implements RowStream {
 
   @Override
   public void close() throws PhysicalException {
-    // need to do nothing
+    // 释放尚未消费的数据
+    for (FluxTable table : tables) {
+      table.getRecords().clear();
+    }
+    hasMoreRecords = 0;
   }
 
   @Override
@@ -296,6 +313,8 @@ public class InfluxDBQueryRowStream implements RowStream {
               }
             }
           }
+          // 已消费的记录不会再被访问，及时释放以降低大查询的内存占用
+          records.set(index, null);
           indices[i]++;
           if (indices[i] == records.size()) {
             hasMoreRecords--;
@@ -0,0 +1,281 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.influxdb.query.entity;
+
+import static cn.edu.tsinghua.iginx.influxdb.tools.TimeUtils.instantToNs;
+
+import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
+import cn.edu.tsinghua.iginx.engine.physical.exception.RowFetchException;
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterUtils;
+import cn.edu.tsinghua.iginx.engine.physical.storage.utils.TagKVUtils;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Header;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.Row;
+import cn.edu.tsinghua.iginx.engine.shared.data.read.RowStream;
+import cn.edu.tsinghua.iginx.engine.shared.operator.filter.Filter;
+import cn.edu.tsinghua.iginx.influxdb.exception.InfluxDBTaskExecuteFailureException;
+import cn.edu.tsinghua.iginx.thrift.DataType;
+import com.influxdb.Cancellable;
+import com.influxdb.client.QueryApi;
+import com.influxdb.query.FluxRecord;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以回调方式流式消费 Flux 查询结果的行流
+ *
+ * <p>查询语句需要以 group() 和 sort(_time) 结尾，使全部记录按时间有序地从一张表中返回；HTTP 回调线程把记录放入有界队列，
+ * 消费者从队列中取出时间相同的连续记录拼成一行，队列满时回调线程阻塞，因此内存中最多只缓存 bufferSize 条记录
+ *
+ * <p>未经 pivot 的记录的 _value 在 Flux 中统一转换为字符串以避免 group() 时不同类型的列冲突，这里按表头中的类型解析回来
+ */
+public class InfluxDBStreamingRowStream implements RowStream {
+
+  private static final Object END = new Object();
+
+  private static final long OFFER_TIMEOUT_MS = 100;
+
+  private final QueryApi queryApi;
+
+  private final String statement;
+
+  private final String organizationId;
+
+  private final Header header;
+
+  private final Set<String> tagKeys;
+
+  private final Set<String> fieldKeys; // pivot 后的字段列，为 null 表示结果未经 pivot
+
+  private final Filter filter;
+
+  private final BlockingQueue<Object> queue;
+
+  private volatile boolean closed = false;
+
+  private volatile Cancellable cancellable;
+
+  private boolean started = false;
+
+  private boolean finished = false;
+
+  private FluxRecord pendingRecord = null;
+
+  private Row cachedRow = null;
+
+  public InfluxDBStreamingRowStream(
+      QueryApi queryApi,
+      String statement,
+      String organizationId,
+      Header header,
+      Set<String> tagKeys,
+      Set<String> fieldKeys,
+      Filter filter,
+      int bufferSize) {
+    this.queryApi = queryApi;
+    this.statement = statement;
+    this.organizationId = organizationId;
+    this.header = header;
+    this.tagKeys = tagKeys;
+    this.fieldKeys = fieldKeys;
+    this.filter = filter;
+    this.queue = new ArrayBlockingQueue<>(bufferSize);
+  }
+
+  @Override
+  public Header getHeader() {
+    return header;
+  }
+
+  @Override
+  public void close() throws PhysicalException {
+    closed = true;
+    if (cancellable != null) {
+      cancellable.cancel();
+    }
+    queue.clear();
+  }
+
+  @Override
+  public boolean hasNext() throws PhysicalException {
+    if (cachedRow == null) {
+      cachedRow = fetchRow();
+    }
+    return cachedRow != null;
+  }
+
+  @Override
+  public Row next() throws PhysicalException {
+    if (!hasNext()) {
+      return null;
+    }
+    Row row = cachedRow;
+    cachedRow = null;
+    return row;
+  }
+
+  private void start() {
+    started = true;
+    queryApi.query(
+        statement,
+        organizationId,
+        (cancellable, record) -> {
+          this.cancellable = cancellable;
+          if (!enqueue(record)) {
+            cancellable.cancel();
+          }
+        },
+        this::enqueue,
+        () -> enqueue(END));
+  }
+
+  /** 在 HTTP 回调线程中调用，队列满时阻塞等待；行流已关闭时返回 false */
+  private boolean enqueue(Object element) {
+    try {
+      while (!closed) {
+        if (queue.offer(element, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  private FluxRecord nextRecord() throws PhysicalException {
+    if (pendingRecord != null) {
+      FluxRecord record = pendingRecord;
+      pendingRecord = null;
+      return record;
+    }
+    if (finished) {
+      return null;
+    }
+    if (!started) {
+      start();
+    }
+    Object element;
+    try {
+      element = queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RowFetchException(e);
+    }
+    if (element == END) {
+      finished = true;
+      return null;
+    }
+    if (element instanceof Throwable) {
+      finished = true;
+      throw new RowFetchException(
+          new InfluxDBTaskExecuteFailureException(
+              "encounter error when query influxdb: ", (Throwable) element));
+    }
+    return (FluxRecord) element;
+  }
+
+  private Row fetchRow() throws PhysicalException {
+    while (true) {
+      FluxRecord record = nextRecord();
+      if (record == null) {
+        return null;
+      }
+      long key = instantToNs(record.getTime());
+      Object[] values = new Object[header.getFieldSize()];
+      boolean hasValue = fill(values, record);
+      while ((record = nextRecord()) != null) {
+        if (instantToNs(record.getTime()) != key) {
+          pendingRecord = record;
+          break;
+        }
+        hasValue |= fill(values, record);
+      }
+      if (!hasValue) { // 记录都被标签过滤掉了
+        continue;
+      }
+      Row row = new Row(header, key, values);
+      if (filter == null || FilterUtils.validate(filter, row)) {
+        return row;
+      }
+    }
+  }
+
+  private boolean fill(Object[] values, FluxRecord record) {
+    Map<String, String> tags = new HashMap<>();
+    for (String key : tagKeys) {
+      Object value = record.getValueByKey(key);
+      if (value != null) {
+        tags.put(key, (String) value);
+      }
+    }
+    String prefix = record.getMeasurement() + ".";
+    if (record.getValueByKey(InfluxDBSchema.TAG) != null) {
+      prefix += record.getValueByKey(InfluxDBSchema.TAG) + ".";
+    }
+    if (fieldKeys == null) {
+      return fill(values, prefix + record.getField(), tags, record.getValue());
+    }
+    boolean hasValue = false;
+    for (String field : fieldKeys) {
+      Object value = record.getValueByKey(field);
+      if (value != null) {
+        hasValue |= fill(values, prefix + field, tags, value);
+      }
+    }
+    return hasValue;
+  }
+
+  private boolean fill(Object[] values, String path, Map<String, String> tags, Object value) {
+    int index = header.indexOf(TagKVUtils.toFullName(path, tags));
+    if (index < 0 || value == null) {
+      return false;
+    }
+    values[index] = convert(value, header.getField(index).getType());
+    return true;
+  }
+
+  private static Object convert(Object value, DataType type) {
+    if (type == DataType.BINARY) {
+      return ((String) value).getBytes();
+    }
+    if (!(value instanceof String)) {
+      return value;
+    }
+    String str = (String) value;
+    switch (type) {
+      case BOOLEAN:
+        return Boolean.parseBoolean(str);
+      case INTEGER:
+        return Integer.parseInt(str);
+      case LONG:
+        return Long.parseLong(str);
+      case FLOAT:
+        return Float.parseFloat(str);
+      case DOUBLE:
+        return Double.parseDouble(str);
+      default:
+        return str;
+    }
+  }
+}
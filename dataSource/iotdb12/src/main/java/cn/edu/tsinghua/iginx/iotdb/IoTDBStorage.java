@@ -20,7 +20,6 @@
 package cn.edu.tsinghua.iginx.iotdb;
 
 import static cn.edu.tsinghua.iginx.iotdb.tools.DataTypeTransformer.toIoTDB;
-import static cn.edu.tsinghua.iginx.thrift.DataType.BINARY;
 
 import cn.edu.tsinghua.iginx.engine.physical.exception.PhysicalException;
 import cn.edu.tsinghua.iginx.engine.physical.exception.StorageInitializationException;
@@ -47,6 +46,7 @@ import cn.edu.tsinghua.iginx.iotdb.exception.IoTDBTaskExecuteFailureException;
 import cn.edu.tsinghua.iginx.iotdb.query.entity.IoTDBQueryRowStream;
 import cn.edu.tsinghua.iginx.iotdb.tools.DataViewWrapper;
 import cn.edu.tsinghua.iginx.iotdb.tools.FilterTransformer;
+import cn.edu.tsinghua.iginx.iotdb.tools.TabletPool;
 import cn.edu.tsinghua.iginx.iotdb.tools.TagKVUtils;
 import cn.edu.tsinghua.iginx.metadata.entity.ColumnsInterval;
 import cn.edu.tsinghua.iginx.metadata.entity.KeyInterval;
@@ -64,11 +64,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.session.Config;
 import org.apache.iotdb.session.Session;
 import org.apache.iotdb.session.pool.SessionDataSetWrapper;
 import org.apache.iotdb.session.pool.SessionPool;
@@ -89,12 +94,24 @@ public class IoTDBStorage implements IStorage {
 
   private static final String SESSION_POOL_SIZE = "sessionPoolSize";
 
+  private static final String FETCH_SIZE = "fetchSize";
+
+  private static final String INSERT_PARALLELISM = "insertParallelism";
+
+  private static final String TABLET_POOL_SIZE = "tabletPoolSize";
+
   private static final String DEFAULT_USERNAME = "root";
 
   private static final String DEFAULT_PASSWORD = "root";
 
   private static final String DEFAULT_SESSION_POOL_SIZE = "100";
 
+  private static final String DEFAULT_FETCH_SIZE = String.valueOf(Config.DEFAULT_FETCH_SIZE);
+
+  private static final String DEFAULT_INSERT_PARALLELISM = "4";
+
+  private static final String DEFAULT_TABLET_POOL_SIZE = "64";
+
   private static final String PREFIX = "root.";
 
   private static final String QUERY_DATA = "SELECT %s FROM " + PREFIX + "%s";
@@ -119,6 +136,13 @@ public class IoTDBStorage implements IStorage {
 
   private final SessionPool sessionPool;
 
+  // 多设备写入时并发调用 insertTablets 的线程池，大小不超过 sessionPool 的大小
+  private final ExecutorService insertPool;
+
+  private final int insertParallelism;
+
+  private final TabletPool tabletPool;
+
   private final StorageEngineMeta meta;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(IoTDBStorage.class);
@@ -132,6 +156,18 @@ public class IoTDBStorage implements IStorage {
       throw new StorageInitializationException("cannot connect to " + meta);
     }
     sessionPool = createSessionPool();
+    Map<String, String> extraParams = meta.getExtraParams();
+    int sessionPoolSize =
+        Integer.parseInt(extraParams.getOrDefault(SESSION_POOL_SIZE, DEFAULT_SESSION_POOL_SIZE));
+    insertParallelism =
+        Math.min(
+            sessionPoolSize,
+            Integer.parseInt(
+                extraParams.getOrDefault(INSERT_PARALLELISM, DEFAULT_INSERT_PARALLELISM)));
+    insertPool = Executors.newFixedThreadPool(Math.max(1, insertParallelism));
+    tabletPool =
+        new TabletPool(
+            Integer.parseInt(extraParams.getOrDefault(TABLET_POOL_SIZE, DEFAULT_TABLET_POOL_SIZE)));
   }
 
   @Override
@@ -157,7 +193,19 @@ public class IoTDBStorage implements IStorage {
     String password = extraParams.getOrDefault(PASSWORD, DEFAULT_PASSWORD);
     int sessionPoolSize =
         Integer.parseInt(extraParams.getOrDefault(SESSION_POOL_SIZE, DEFAULT_SESSION_POOL_SIZE));
-    return new SessionPool(meta.getIp(), meta.getPort(), username, password, sessionPoolSize);
+    int fetchSize = Integer.parseInt(extraParams.getOrDefault(FETCH_SIZE, DEFAULT_FETCH_SIZE));
+    return new SessionPool(
+        meta.getIp(),
+        meta.getPort(),
+        username,
+        password,
+        sessionPoolSize,
+        fetchSize,
+        60_000,
+        false,
+        null,
+        Config.DEFAULT_CACHE_LEADER_MODE,
+        Config.DEFAULT_CONNECTION_TIMEOUT_MS);
   }
 
   @Override
@@ -204,6 +252,7 @@ public class IoTDBStorage implements IStorage {
 
   @Override
   public void release() {
+    insertPool.shutdownNow();
     sessionPool.close();
   }
 
@@ -463,7 +512,8 @@ public class IoTDBStorage implements IStorage {
     DataViewWrapper data = new DataViewWrapper(dataView);
     Map<String, Tablet> tablets = new HashMap<>();
     Map<String, List<MeasurementSchema>> schemasMap = new HashMap<>();
-    Map<String, List<Integer>> deviceIdToPathIndexes = new HashMap<>();
+    String[] deviceIds = new String[data.getPathNum()];
+    int[] columns = new int[data.getPathNum()];
     int batchSize = Math.min(data.getTimeSize(), BATCH_SIZE);
 
     // 创建 tablets
@@ -471,71 +521,63 @@ public class IoTDBStorage implements IStorage {
       String path = data.getPath(i);
       String deviceId = PREFIX + storageUnit + "." + path.substring(0, path.lastIndexOf('.'));
       String measurement = path.substring(path.lastIndexOf('.') + 1);
-      List<MeasurementSchema> schemaList;
-      List<Integer> pathIndexes;
-      if (schemasMap.containsKey(deviceId)) {
-        schemaList = schemasMap.get(deviceId);
-        pathIndexes = deviceIdToPathIndexes.get(deviceId);
-      } else {
-        schemaList = new ArrayList<>();
-        pathIndexes = new ArrayList<>();
-      }
+      List<MeasurementSchema> schemaList =
+          schemasMap.computeIfAbsent(deviceId, k -> new ArrayList<>());
+      deviceIds[i] = deviceId;
+      columns[i] = schemaList.size();
       schemaList.add(new MeasurementSchema(measurement, toIoTDB(data.getDataType(i))));
-      schemasMap.put(deviceId, schemaList);
-      pathIndexes.add(i);
-      deviceIdToPathIndexes.put(deviceId, pathIndexes);
     }
 
     for (Map.Entry<String, List<MeasurementSchema>> entry : schemasMap.entrySet()) {
-      tablets.put(entry.getKey(), new Tablet(entry.getKey(), entry.getValue(), batchSize));
+      tablets.put(entry.getKey(), tabletPool.borrow(entry.getKey(), entry.getValue(), batchSize));
     }
 
-    int cnt = 0;
-    do {
-      int size = Math.min(data.getTimeSize() - cnt, batchSize);
-      // 对于每个时间戳，需要记录每个 deviceId 对应的 tablet 的 row 的变化
-      Map<String, Integer> deviceIdToRow = new HashMap<>();
-
-      // 插入 timestamps 和 values
-      for (int i = cnt; i < cnt + size; i++) {
-        int index = 0;
-        deviceIdToRow.clear();
-        BitmapView bitmapView = data.getBitmapView(i);
-        for (int j = 0; j < data.getPathNum(); j++) {
-          if (bitmapView.get(j)) {
-            String path = data.getPath(j);
-            String deviceId = PREFIX + storageUnit + "." + path.substring(0, path.lastIndexOf('.'));
-            String measurement = path.substring(path.lastIndexOf('.') + 1);
-            Tablet tablet = tablets.get(deviceId);
-            if (!deviceIdToRow.containsKey(deviceId)) {
-              int row = tablet.rowSize++;
-              tablet.addTimestamp(row, data.getTimestamp(i));
-              deviceIdToRow.put(deviceId, row);
-            }
-            if (data.getDataType(j) == BINARY) {
-              tablet.addValue(
-                  measurement,
+    try {
+      int cnt = 0;
+      do {
+        int size = Math.min(data.getTimeSize() - cnt, batchSize);
+        // 对于每个时间戳，需要记录每个 deviceId 对应的 tablet 的 row 的变化
+        Map<String, Integer> deviceIdToRow = new HashMap<>();
+
+        // 插入 timestamps 和 values
+        for (int i = cnt; i < cnt + size; i++) {
+          int index = 0;
+          deviceIdToRow.clear();
+          BitmapView bitmapView = data.getBitmapView(i);
+          for (int j = 0; j < data.getPathNum(); j++) {
+            if (bitmapView.get(j)) {
+              String deviceId = deviceIds[j];
+              Tablet tablet = tablets.get(deviceId);
+              if (!deviceIdToRow.containsKey(deviceId)) {
+                int row = tablet.rowSize++;
+                tablet.addTimestamp(row, data.getTimestamp(i));
+                deviceIdToRow.put(deviceId, row);
+              }
+              addValue(
+                  tablet,
+                  columns[j],
                   deviceIdToRow.get(deviceId),
-                  new Binary((byte[]) data.getValue(i, index)));
-            } else {
-              tablet.addValue(measurement, deviceIdToRow.get(deviceId), data.getValue(i, index));
+                  data.getDataType(j),
+                  data.getValue(i, index));
+              index++;
             }
-            index++;
           }
         }
-      }
 
-      try {
-        sessionPool.insertTablets(tablets);
-      } catch (IoTDBConnectionException | StatementExecutionException e) {
-        return e;
-      }
+        try {
+          insertTablets(tablets);
+        } catch (IoTDBConnectionException | StatementExecutionException e) {
+          return e;
+        }
 
-      for (Tablet tablet : tablets.values()) {
-        tablet.reset();
-      }
-      cnt += size;
-    } while (cnt < data.getTimeSize());
+        for (Tablet tablet : tablets.values()) {
+          tablet.reset();
+        }
+        cnt += size;
+      } while (cnt < data.getTimeSize());
+    } finally {
+      tabletPool.release(tablets.values());
+    }
 
     return null;
   }
@@ -545,6 +587,7 @@ public class IoTDBStorage implements IStorage {
     Map<Integer, Map<String, Tablet>> tabletsMap = new HashMap<>();
     Map<Integer, Integer> pathIndexToTabletIndex = new HashMap<>();
     Map<String, Integer> deviceIdToCnt = new HashMap<>();
+    String[] deviceIds = new String[data.getPathNum()];
     int batchSize = Math.min(data.getTimeSize(), BATCH_SIZE);
 
     // 创建 tablets
@@ -555,71 +598,68 @@ public class IoTDBStorage implements IStorage {
       int measurementNum;
       Map<String, Tablet> tablets;
 
+      deviceIds[i] = deviceId;
       measurementNum = deviceIdToCnt.computeIfAbsent(deviceId, x -> -1);
       deviceIdToCnt.put(deviceId, measurementNum + 1);
       pathIndexToTabletIndex.put(i, measurementNum + 1);
       tablets = tabletsMap.computeIfAbsent(measurementNum + 1, x -> new HashMap<>());
       tablets.put(
           deviceId,
-          new Tablet(
+          tabletPool.borrow(
               deviceId,
               Collections.singletonList(
                   new MeasurementSchema(measurement, toIoTDB(data.getDataType(i)))),
               batchSize));
-      tabletsMap.put(measurementNum + 1, tablets);
     }
 
-    int cnt = 0;
-    do {
-      int size = Math.min(data.getTimeSize() - cnt, batchSize);
-      boolean[] needToInsert = new boolean[tabletsMap.size()];
-      Arrays.fill(needToInsert, false);
-
-      // 插入 timestamps 和 values
-      for (int i = cnt; i < cnt + size; i++) {
-        int index = 0;
-        BitmapView bitmapView = data.getBitmapView(i);
-        for (int j = 0; j < data.getPathNum(); j++) {
-          if (bitmapView.get(j)) {
-            String path = data.getPath(j);
-            String deviceId = PREFIX + storageUnit + "." + path.substring(0, path.lastIndexOf('.'));
-            String measurement = path.substring(path.lastIndexOf('.') + 1);
-            Tablet tablet = tabletsMap.get(pathIndexToTabletIndex.get(j)).get(deviceId);
-            int row = tablet.rowSize++;
-            tablet.addTimestamp(row, data.getTimestamp(i));
-            if (data.getDataType(j) == BINARY) {
-              tablet.addValue(measurement, row, new Binary((byte[]) data.getValue(i, index)));
-            } else {
-              tablet.addValue(measurement, row, data.getValue(i, index));
+    try {
+      int cnt = 0;
+      do {
+        int size = Math.min(data.getTimeSize() - cnt, batchSize);
+        boolean[] needToInsert = new boolean[tabletsMap.size()];
+        Arrays.fill(needToInsert, false);
+
+        // 插入 timestamps 和 values
+        for (int i = cnt; i < cnt + size; i++) {
+          int index = 0;
+          BitmapView bitmapView = data.getBitmapView(i);
+          for (int j = 0; j < data.getPathNum(); j++) {
+            if (bitmapView.get(j)) {
+              Tablet tablet = tabletsMap.get(pathIndexToTabletIndex.get(j)).get(deviceIds[j]);
+              int row = tablet.rowSize++;
+              tablet.addTimestamp(row, data.getTimestamp(i));
+              addValue(tablet, 0, row, data.getDataType(j), data.getValue(i, index));
+              needToInsert[pathIndexToTabletIndex.get(j)] = true;
+              index++;
             }
-            needToInsert[pathIndexToTabletIndex.get(j)] = true;
-            index++;
           }
         }
-      }
 
-      // 插入 tablets
-      try {
-        for (int i = 0; i < needToInsert.length; i++) {
-          if (needToInsert[i]) {
-            sessionPool.insertTablets(tabletsMap.get(i));
+        // 插入 tablets
+        try {
+          for (int i = 0; i < needToInsert.length; i++) {
+            if (needToInsert[i]) {
+              insertTablets(tabletsMap.get(i));
+            }
           }
+        } catch (IoTDBConnectionException | StatementExecutionException e) {
+          return e;
         }
-      } catch (IoTDBConnectionException | StatementExecutionException e) {
-        return e;
-      }
 
-      // 重置 tablets
-      for (int i = 0; i < needToInsert.length; i++) {
-        if (needToInsert[i]) {
-          for (Tablet tablet : tabletsMap.get(i).values()) {
-            tablet.reset();
+        // 重置 tablets
+        for (int i = 0; i < needToInsert.length; i++) {
+          if (needToInsert[i]) {
+            for (Tablet tablet : tabletsMap.get(i).values()) {
+              tablet.reset();
+            }
+            needToInsert[i] = false;
           }
-          needToInsert[i] = false;
         }
-      }
-      cnt += size;
-    } while (cnt < data.getTimeSize());
+        cnt += size;
+      } while (cnt < data.getTimeSize());
+    } finally {
+      tabletsMap.values().forEach(tablets -> tabletPool.release(tablets.values()));
+    }
 
     return null;
   }
@@ -629,6 +669,7 @@ public class IoTDBStorage implements IStorage {
     Map<String, Tablet> tablets = new HashMap<>();
     Map<String, List<MeasurementSchema>> schemasMap = new HashMap<>();
     Map<String, List<Integer>> deviceIdToPathIndexes = new HashMap<>();
+    int[] columns = new int[data.getPathNum()];
     int batchSize = Math.min(data.getTimeSize(), BATCH_SIZE);
 
     // 创建 tablets
@@ -636,65 +677,55 @@ public class IoTDBStorage implements IStorage {
       String path = data.getPath(i);
       String deviceId = PREFIX + storageUnit + "." + path.substring(0, path.lastIndexOf('.'));
       String measurement = path.substring(path.lastIndexOf('.') + 1);
-      List<MeasurementSchema> schemaList;
-      List<Integer> pathIndexes;
-      if (schemasMap.containsKey(deviceId)) {
-        schemaList = schemasMap.get(deviceId);
-        pathIndexes = deviceIdToPathIndexes.get(deviceId);
-      } else {
-        schemaList = new ArrayList<>();
-        pathIndexes = new ArrayList<>();
-      }
+      List<MeasurementSchema> schemaList =
+          schemasMap.computeIfAbsent(deviceId, k -> new ArrayList<>());
+      columns[i] = schemaList.size();
       schemaList.add(new MeasurementSchema(measurement, toIoTDB(data.getDataType(i))));
-      schemasMap.put(deviceId, schemaList);
-      pathIndexes.add(i);
-      deviceIdToPathIndexes.put(deviceId, pathIndexes);
+      deviceIdToPathIndexes.computeIfAbsent(deviceId, k -> new ArrayList<>()).add(i);
     }
 
     for (Map.Entry<String, List<MeasurementSchema>> entry : schemasMap.entrySet()) {
-      tablets.put(entry.getKey(), new Tablet(entry.getKey(), entry.getValue(), batchSize));
+      tablets.put(entry.getKey(), tabletPool.borrow(entry.getKey(), entry.getValue(), batchSize));
     }
 
-    int cnt = 0;
-    int[] indexes = new int[data.getPathNum()];
-    do {
-      int size = Math.min(data.getTimeSize() - cnt, batchSize);
+    try {
+      int cnt = 0;
+      int[] indexes = new int[data.getPathNum()];
+      do {
+        int size = Math.min(data.getTimeSize() - cnt, batchSize);
 
-      // 插入 timestamps 和 values
-      for (Map.Entry<String, List<Integer>> entry : deviceIdToPathIndexes.entrySet()) {
-        String deviceId = entry.getKey();
-        Tablet tablet = tablets.get(deviceId);
-        for (int i = cnt; i < cnt + size; i++) {
-          BitmapView bitmapView = data.getBitmapView(entry.getValue().get(0));
-          if (bitmapView.get(i)) {
-            int row = tablet.rowSize++;
-            tablet.addTimestamp(row, data.getTimestamp(i));
-            for (Integer j : entry.getValue()) {
-              String path = data.getPath(j);
-              String measurement = path.substring(path.lastIndexOf('.') + 1);
-              if (data.getDataType(j) == BINARY) {
-                tablet.addValue(
-                    measurement, row, new Binary((byte[]) data.getValue(j, indexes[j])));
-              } else {
-                tablet.addValue(measurement, row, data.getValue(j, indexes[j]));
+        // 插入 timestamps 和 values
+        for (Map.Entry<String, List<Integer>> entry : deviceIdToPathIndexes.entrySet()) {
+          String deviceId = entry.getKey();
+          Tablet tablet = tablets.get(deviceId);
+          for (int i = cnt; i < cnt + size; i++) {
+            BitmapView bitmapView = data.getBitmapView(entry.getValue().get(0));
+            if (bitmapView.get(i)) {
+              int row = tablet.rowSize++;
+              tablet.addTimestamp(row, data.getTimestamp(i));
+              for (Integer j : entry.getValue()) {
+                addValue(
+                    tablet, columns[j], row, data.getDataType(j), data.getValue(j, indexes[j]));
+                indexes[j]++;
               }
-              indexes[j]++;
             }
           }
         }
-      }
 
-      try {
-        sessionPool.insertTablets(tablets);
-      } catch (IoTDBConnectionException | StatementExecutionException e) {
-        return e;
-      }
+        try {
+          insertTablets(tablets);
+        } catch (IoTDBConnectionException | StatementExecutionException e) {
+          return e;
+        }
 
-      for (Tablet tablet : tablets.values()) {
-        tablet.reset();
-      }
-      cnt += size;
-    } while (cnt < data.getTimeSize());
+        for (Tablet tablet : tablets.values()) {
+          tablet.reset();
+        }
+        cnt += size;
+      } while (cnt < data.getTimeSize());
+    } finally {
+      tabletPool.release(tablets.values());
+    }
 
     return null;
   }
@@ -704,6 +735,7 @@ public class IoTDBStorage implements IStorage {
     Map<Integer, Map<String, Tablet>> tabletsMap = new HashMap<>();
     Map<Integer, List<Integer>> tabletIndexToPathIndexes = new HashMap<>();
     Map<String, Integer> deviceIdToCnt = new HashMap<>();
+    String[] deviceIds = new String[data.getPathNum()];
     int batchSize = Math.min(data.getTimeSize(), BATCH_SIZE);
 
     // 创建 tablets
@@ -712,72 +744,149 @@ public class IoTDBStorage implements IStorage {
       String deviceId = PREFIX + storageUnit + "." + path.substring(0, path.lastIndexOf('.'));
       String measurement = path.substring(path.lastIndexOf('.') + 1);
       int measurementNum;
-      List<Integer> pathIndexes;
       Map<String, Tablet> tablets;
 
+      deviceIds[i] = deviceId;
       measurementNum = deviceIdToCnt.computeIfAbsent(deviceId, x -> -1);
       deviceIdToCnt.put(deviceId, measurementNum + 1);
-      pathIndexes =
-          tabletIndexToPathIndexes.computeIfAbsent(measurementNum + 1, x -> new ArrayList<>());
-      pathIndexes.add(i);
-      tabletIndexToPathIndexes.put(measurementNum + 1, pathIndexes);
+      tabletIndexToPathIndexes.computeIfAbsent(measurementNum + 1, x -> new ArrayList<>()).add(i);
       tablets = tabletsMap.computeIfAbsent(measurementNum + 1, x -> new HashMap<>());
       tablets.put(
           deviceId,
-          new Tablet(
+          tabletPool.borrow(
               deviceId,
               Collections.singletonList(
                   new MeasurementSchema(measurement, toIoTDB(data.getDataType(i)))),
               batchSize));
-      tabletsMap.put(measurementNum + 1, tablets);
     }
 
-    for (Map.Entry<Integer, List<Integer>> entry : tabletIndexToPathIndexes.entrySet()) {
-      int cnt = 0;
-      int[] indexesOfBitmap = new int[entry.getValue().size()];
-      do {
-        int size = Math.min(data.getTimeSize() - cnt, batchSize);
-
-        // 插入 timestamps 和 values
-        for (int i = 0; i < entry.getValue().size(); i++) {
-          int index = entry.getValue().get(i);
-          String path = data.getPath(index);
-          String deviceId = PREFIX + storageUnit + "." + path.substring(0, path.lastIndexOf('.'));
-          String measurement = path.substring(path.lastIndexOf('.') + 1);
-          Tablet tablet = tabletsMap.get(entry.getKey()).get(deviceId);
-          BitmapView bitmapView = data.getBitmapView(index);
-          for (int j = cnt; j < cnt + size; j++) {
-            if (bitmapView.get(j)) {
-              int row = tablet.rowSize++;
-              tablet.addTimestamp(row, data.getTimestamp(j));
-              if (data.getDataType(index) == BINARY) {
-                tablet.addValue(
-                    measurement,
+    try {
+      for (Map.Entry<Integer, List<Integer>> entry : tabletIndexToPathIndexes.entrySet()) {
+        int cnt = 0;
+        int[] indexesOfBitmap = new int[entry.getValue().size()];
+        do {
+          int size = Math.min(data.getTimeSize() - cnt, batchSize);
+
+          // 插入 timestamps 和 values
+          for (int i = 0; i < entry.getValue().size(); i++) {
+            int index = entry.getValue().get(i);
+            Tablet tablet = tabletsMap.get(entry.getKey()).get(deviceIds[index]);
+            BitmapView bitmapView = data.getBitmapView(index);
+            for (int j = cnt; j < cnt + size; j++) {
+              if (bitmapView.get(j)) {
+                int row = tablet.rowSize++;
+                tablet.addTimestamp(row, data.getTimestamp(j));
+                addValue(
+                    tablet,
+                    0,
                     row,
-                    new Binary((byte[]) data.getValue(index, indexesOfBitmap[i])));
-              } else {
-                tablet.addValue(measurement, row, data.getValue(index, indexesOfBitmap[i]));
+                    data.getDataType(index),
+                    data.getValue(index, indexesOfBitmap[i]));
+                indexesOfBitmap[i]++;
               }
-              indexesOfBitmap[i]++;
             }
           }
-        }
 
-        try {
-          sessionPool.insertTablets(tabletsMap.get(entry.getKey()));
-        } catch (IoTDBConnectionException | StatementExecutionException e) {
-          return e;
-        }
+          try {
+            insertTablets(tabletsMap.get(entry.getKey()));
+          } catch (IoTDBConnectionException | StatementExecutionException e) {
+            return e;
+          }
 
-        for (Tablet tablet : tabletsMap.get(entry.getKey()).values()) {
-          tablet.reset();
-        }
-        cnt += size;
-      } while (cnt < data.getTimeSize());
+          for (Tablet tablet : tabletsMap.get(entry.getKey()).values()) {
+            tablet.reset();
+          }
+          cnt += size;
+        } while (cnt < data.getTimeSize());
+      }
+    } finally {
+      tabletsMap.values().forEach(tablets -> tabletPool.release(tablets.values()));
     }
     return null;
   }
 
+  /** 将 value 直接写入 tablet 第 column 列的数组，避免 addValue 每次按列名查找列下标 */
+  private static void addValue(Tablet tablet, int column, int row, DataType type, Object value) {
+    switch (type) {
+      case BOOLEAN:
+        ((boolean[]) tablet.values[column])[row] = (boolean) value;
+        break;
+      case INTEGER:
+        ((int[]) tablet.values[column])[row] = (int) value;
+        break;
+      case LONG:
+        ((long[]) tablet.values[column])[row] = (long) value;
+        break;
+      case FLOAT:
+        ((float[]) tablet.values[column])[row] = (float) value;
+        break;
+      case DOUBLE:
+        ((double[]) tablet.values[column])[row] = (double) value;
+        break;
+      case BINARY:
+        ((Binary[]) tablet.values[column])[row] = new Binary((byte[]) value);
+        break;
+    }
+  }
+
+  /**
+   * 将多个设备的 tablet 分成至多 insertParallelism 组并发写入
+   *
+   * <p>等待所有分组写入结束后才返回，保证返回后 tablet 不再被其他线程使用，任一分组失败则抛出其异常
+   */
+  private void insertTablets(Map<String, Tablet> tablets)
+      throws IoTDBConnectionException, StatementExecutionException {
+    int groupNum = Math.min(insertParallelism, tablets.size());
+    if (groupNum <= 1) {
+      sessionPool.insertTablets(tablets);
+      return;
+    }
+    List<Map<String, Tablet>> groups = new ArrayList<>(groupNum);
+    for (int i = 0; i < groupNum; i++) {
+      groups.add(new HashMap<>());
+    }
+    int index = 0;
+    for (Map.Entry<String, Tablet> entry : tablets.entrySet()) {
+      groups.get(index++ % groupNum).put(entry.getKey(), entry.getValue());
+    }
+    List<Future<?>> futures = new ArrayList<>(groupNum);
+    for (Map<String, Tablet> group : groups) {
+      futures.add(
+          insertPool.submit(
+              () -> {
+                sessionPool.insertTablets(group);
+                return null;
+              }));
+    }
+    Throwable failure = null;
+    boolean interrupted = false;
+    for (Future<?> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof IoTDBConnectionException) {
+      throw (IoTDBConnectionException) failure;
+    } else if (failure instanceof StatementExecutionException) {
+      throw (StatementExecutionException) failure;
+    } else if (failure != null) {
+      throw new IoTDBConnectionException(failure);
+    }
+  }
+
   @Override
   public TaskExecuteResult executeDelete(Delete delete, DataArea dataArea) {
     String storageUnit = dataArea.getStorageUnit();
@@ -40,7 +40,9 @@ import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.session.SessionDataSet;
 import org.apache.iotdb.session.pool.SessionDataSetWrapper;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +64,15 @@ public class IoTDBQueryRowStream implements RowStream {
 
   private final SessionDataSetWrapper dataset;
 
+  // 结果中含有时间列且没有 TEXT 列时按列直接读取，避免为每行构造 RowRecord；
+  // DataIterator 只能以字符串读取 TEXT，会破坏非 UTF-8 的字节，因此含 TEXT 列时仍从 RowRecord 读取原始字节
+  private final SessionDataSet.DataIterator iterator;
+
+  // 需要返回的列在 iterator 中的下标（从 1 开始，1 为时间列）
+  private final int[] columnIndexes;
+
+  private final TSDataType[] columnTypes;
+
   private final boolean trimStorageUnit;
 
   private final boolean filterByTags;
@@ -88,6 +99,8 @@ public class IoTDBQueryRowStream implements RowStream {
     List<Field> fields = new ArrayList<>();
 
     List<Boolean> filterList = new ArrayList<>();
+    List<Integer> selectedIndexes = new ArrayList<>();
+    List<TSDataType> selectedTypes = new ArrayList<>();
     TagFilter tagFilter = project.getTagFilter();
     for (int i = 0; i < names.size(); i++) {
       String name = names.get(i);
@@ -109,6 +122,8 @@ public class IoTDBQueryRowStream implements RowStream {
       }
       fields.add(field);
       filterList.add(false);
+      selectedIndexes.add(i + 1);
+      selectedTypes.add(TSDataType.valueOf(type));
     }
 
     if (needFilter()) {
@@ -127,9 +142,13 @@ public class IoTDBQueryRowStream implements RowStream {
 
     if (time == null) {
       this.header = new Header(fields);
+      this.iterator = null;
     } else {
       this.header = new Header(time, fields);
+      this.iterator = selectedTypes.contains(TEXT) ? null : dataset.iterator();
     }
+    this.columnIndexes = selectedIndexes.stream().mapToInt(Integer::intValue).toArray();
+    this.columnTypes = selectedTypes.toArray(new TSDataType[0]);
 
     this.state = State.UNKNOWN;
   }
@@ -187,6 +206,10 @@ public class IoTDBQueryRowStream implements RowStream {
   }
 
   private void cacheOneRow() throws SQLException, PhysicalException {
+    if (iterator != null) {
+      cacheOneRowByColumn();
+      return;
+    }
     try {
       while (true) {
         if (dataset.hasNext()) {
@@ -222,6 +245,48 @@ public class IoTDBQueryRowStream implements RowStream {
     }
   }
 
+  private void cacheOneRowByColumn() throws PhysicalException {
+    try {
+      while (iterator.next()) {
+        long timestamp = iterator.getLong(1);
+        Object[] fields = new Object[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+          fields[i] = getValue(columnIndexes[i], columnTypes[i]);
+        }
+        state = State.HAS_NEXT;
+        cachedRow = new Row(header, timestamp, fields);
+        if (validate(filter, cachedRow)) {
+          return;
+        }
+      }
+      state = State.NO_NEXT;
+      cachedRow = null;
+    } catch (StatementExecutionException | IoTDBConnectionException e) {
+      LOGGER.error("unexpected error: ", e);
+      throw new RowFetchException(e);
+    }
+  }
+
+  private Object getValue(int columnIndex, TSDataType type) throws StatementExecutionException {
+    if (iterator.isNull(columnIndex)) {
+      return null;
+    }
+    switch (type) {
+      case BOOLEAN:
+        return iterator.getBoolean(columnIndex);
+      case INT32:
+        return iterator.getInt(columnIndex);
+      case INT64:
+        return iterator.getLong(columnIndex);
+      case FLOAT:
+        return iterator.getFloat(columnIndex);
+      case DOUBLE:
+        return iterator.getDouble(columnIndex);
+      default:
+        return iterator.getObject(columnIndex);
+    }
+  }
+
   private boolean needFilter() {
     return !trimStorageUnit || filterByTags;
   }
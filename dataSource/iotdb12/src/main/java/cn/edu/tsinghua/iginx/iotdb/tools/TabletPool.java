@@ -0,0 +1,105 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.iotdb.tools;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * 按设备和列结构缓存空闲的 Tablet，持续写入相同设备时复用其中的数组，避免每次写入都重新分配
+ *
+ * <p>空闲 Tablet 的总数不超过 capacity，超出时直接丢弃
+ */
+public class TabletPool {
+
+  private final int capacity;
+
+  private final Map<String, Deque<Tablet>> idleTablets = new HashMap<>();
+
+  private int idleCount = 0;
+
+  public TabletPool(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public Tablet borrow(String deviceId, List<MeasurementSchema> schemas, int maxRowNumber) {
+    Tablet tablet = null;
+    synchronized (this) {
+      Deque<Tablet> tablets = idleTablets.get(key(deviceId, schemas));
+      if (tablets != null && !tablets.isEmpty()) {
+        tablet = tablets.pollLast();
+        idleCount--;
+      }
+    }
+    if (tablet == null || tablet.getMaxRowNumber() < maxRowNumber) {
+      return new Tablet(deviceId, schemas, maxRowNumber);
+    }
+    clear(tablet);
+    return tablet;
+  }
+
+  public void release(Iterable<Tablet> tablets) {
+    for (Tablet tablet : tablets) {
+      tablet.reset();
+      synchronized (this) {
+        if (idleCount >= capacity) {
+          return;
+        }
+        idleTablets
+            .computeIfAbsent(key(tablet.deviceId, tablet.getSchemas()), k -> new ArrayDeque<>())
+            .addLast(tablet);
+        idleCount++;
+      }
+    }
+  }
+
+  /** 清空上一次写入留下的值，保证未赋值的位置与新建的 Tablet 一致 */
+  private static void clear(Tablet tablet) {
+    for (Object values : tablet.values) {
+      if (values instanceof boolean[]) {
+        Arrays.fill((boolean[]) values, false);
+      } else if (values instanceof int[]) {
+        Arrays.fill((int[]) values, 0);
+      } else if (values instanceof long[]) {
+        Arrays.fill((long[]) values, 0L);
+      } else if (values instanceof float[]) {
+        Arrays.fill((float[]) values, 0F);
+      } else if (values instanceof double[]) {
+        Arrays.fill((double[]) values, 0D);
+      } else if (values instanceof Object[]) {
+        Arrays.fill((Object[]) values, null);
+      }
+    }
+  }
+
+  private static String key(String deviceId, List<MeasurementSchema> schemas) {
+    StringBuilder builder = new StringBuilder(deviceId);
+    for (MeasurementSchema schema : schemas) {
+      builder.append(',').append(schema.getMeasurementId()).append(':').append(schema.getType());
+    }
+    return builder.toString();
+  }
+}
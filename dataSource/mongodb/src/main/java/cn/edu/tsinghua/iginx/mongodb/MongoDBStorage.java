@@ -63,6 +63,8 @@ import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.*;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.bson.BsonDocument;
@@ -84,13 +86,19 @@ public class MongoDBStorage implements IStorage {
   public static final String CONNECTION_STRING = "uri";
   public static final String SCHEMA_SAMPLE_SIZE = "schema.sample.size";
   public static final String QUERY_SAMPLE_SIZE = "dummy.sample.size";
+  public static final String QUERY_PARALLELISM = "query.parallelism";
+  public static final String QUERY_BATCH_SIZE = "query.batch.size";
   public static final String SCHEMA_SAMPLE_SIZE_DEFAULT = "1000";
   public static final String QUERY_SAMPLE_SIZE_DEFAULT = "0";
+  public static final String QUERY_PARALLELISM_DEFAULT = "8";
+  public static final String QUERY_BATCH_SIZE_DEFAULT = "4096";
 
   private final MongoClient client;
 
   private final int schemaSampleSize;
   private final int querySampleSize;
+  private final int queryBatchSize;
+  private final ExecutorService queryPool;
 
   public MongoDBStorage(StorageEngineMeta meta) throws StorageInitializationException {
     if (!meta.getStorageEngine().equals(StorageEngineType.mongodb)) {
@@ -109,6 +117,14 @@ public class MongoDBStorage implements IStorage {
         meta.getExtraParams().getOrDefault(QUERY_SAMPLE_SIZE, QUERY_SAMPLE_SIZE_DEFAULT);
     this.querySampleSize = Integer.parseInt(querySampleSize);
 
+    String queryParallelism =
+        meta.getExtraParams().getOrDefault(QUERY_PARALLELISM, QUERY_PARALLELISM_DEFAULT);
+    this.queryPool = Executors.newFixedThreadPool(Integer.parseInt(queryParallelism));
+
+    String queryBatchSize =
+        meta.getExtraParams().getOrDefault(QUERY_BATCH_SIZE, QUERY_BATCH_SIZE_DEFAULT);
+    this.queryBatchSize = Integer.parseInt(queryBatchSize);
+
     try {
       this.client = connect(connectionString);
     } catch (Exception e) {
@@ -216,7 +232,7 @@ public class MongoDBStorage implements IStorage {
     RowStream result;
     try {
       if (filter == null) {
-        result = new ColumnQuery(db).query(fieldList, range);
+        result = new ColumnQuery(db, queryPool, queryBatchSize).query(fieldList, range);
       } else {
         Filter unionFilter = rangeUnionWithFilter(range, filter);
         result = new JoinQuery(db).query(fieldList, unionFilter);
@@ -437,6 +453,7 @@ public class MongoDBStorage implements IStorage {
 
   @Override
   public void release() {
+    queryPool.shutdownNow();
     client.close();
   }
 }
@@ -28,45 +28,107 @@ import cn.edu.tsinghua.iginx.mongodb.MongoDBStorage;
 import cn.edu.tsinghua.iginx.mongodb.tools.FilterUtils;
 import cn.edu.tsinghua.iginx.mongodb.tools.NameUtils;
 import cn.edu.tsinghua.iginx.mongodb.tools.TypeUtils;
+import com.mongodb.MongoInterruptedException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Sorts;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.bson.BsonDocument;
 import org.bson.conversions.Bson;
 
 public class ColumnQuery {
   private final MongoDatabase database;
 
-  public ColumnQuery(MongoDatabase database) {
+  private final ExecutorService pool;
+
+  private final int batchSize;
+
+  public ColumnQuery(MongoDatabase database, ExecutorService pool, int batchSize) {
     this.database = database;
+    this.pool = pool;
+    this.batchSize = batchSize;
   }
 
+  /** 每列对应一个集合，并发打开各集合上按 _id 排序的游标，再按 key 归并成行 */
   public RowStream query(List<Field> fieldList, KeyInterval range) {
     Bson columnFilter = FilterUtils.interval(range);
-    QueryRowStream.Builder builder = QueryRowStream.builder(fieldList.size());
+    List<Future<MongoCursor<BsonDocument>>> futures = new ArrayList<>(fieldList.size());
     for (Field field : fieldList) {
-      builder.add(field);
       String collName = NameUtils.getCollectionName(field);
       MongoCollection<BsonDocument> coll =
           this.database.getCollection(collName, BsonDocument.class);
-      for (BsonDocument document : coll.find(columnFilter)) {
-        long key = document.get("_id").asInt64().getValue();
-        Object value = TypeUtils.toObject(document.get(MongoDBStorage.VALUE_FIELD));
-        builder.put(key, value);
+      futures.add(
+          pool.submit(
+              () ->
+                  coll.find(columnFilter)
+                      .sort(Sorts.ascending("_id"))
+                      .batchSize(batchSize)
+                      .cursor()));
+    }
+
+    List<MongoCursor<BsonDocument>> cursors = new ArrayList<>(futures.size());
+    RuntimeException failure = null;
+    for (Future<MongoCursor<BsonDocument>> future : futures) {
+      try {
+        cursors.add(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = new MongoInterruptedException("interrupted when open cursors", e);
+        break;
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        failure =
+            cause instanceof RuntimeException
+                ? (RuntimeException) cause
+                : new IllegalStateException(cause);
+        break;
       }
     }
-    return builder.build();
+    if (failure != null) {
+      futures.forEach(future -> future.cancel(true));
+      for (Future<MongoCursor<BsonDocument>> future : futures) {
+        if (future.isDone() && !future.isCancelled()) {
+          try {
+            future.get().close();
+          } catch (Exception ignored) {
+          }
+        }
+      }
+      throw failure;
+    }
+    return new QueryRowStream(new Header(Field.KEY, new ArrayList<>(fieldList)), cursors);
   }
 
+  /** 对各列按 key 有序的游标做多路归并，同一 key 的值组装成一行 */
   public static class QueryRowStream implements RowStream {
 
     private final Header header;
 
-    private final Iterator<Map.Entry<Long, Object[]>> rowItr;
+    private final List<MongoCursor<BsonDocument>> cursors;
+
+    private final PriorityQueue<Cell> heads =
+        new PriorityQueue<>(Comparator.comparingLong((Cell cell) -> cell.key));
 
-    public QueryRowStream(Header header, Iterator<Map.Entry<Long, Object[]>> rowItr) {
+    public QueryRowStream(Header header, List<MongoCursor<BsonDocument>> cursors) {
       this.header = header;
-      this.rowItr = rowItr;
+      this.cursors = cursors;
+      for (int i = 0; i < cursors.size(); i++) {
+        advance(i);
+      }
+    }
+
+    private void advance(int index) {
+      MongoCursor<BsonDocument> cursor = cursors.get(index);
+      if (cursor.hasNext()) {
+        BsonDocument document = cursor.next();
+        long key = document.get("_id").asInt64().getValue();
+        Object value = TypeUtils.toObject(document.get(MongoDBStorage.VALUE_FIELD));
+        heads.add(new Cell(key, index, value));
+      }
     }
 
     @Override
@@ -76,53 +138,42 @@ public class ColumnQuery {
 
     @Override
     public void close() {
-      while (this.rowItr.hasNext()) {
-        this.rowItr.next();
-      }
+      this.cursors.forEach(MongoCursor::close);
+      this.heads.clear();
     }
 
     @Override
     public boolean hasNext() {
-      return this.rowItr.hasNext();
+      return !this.heads.isEmpty();
     }
 
     @Override
     public Row next() {
-      Map.Entry<Long, Object[]> rowData = this.rowItr.next();
-      return new Row(this.header, rowData.getKey(), rowData.getValue());
-    }
-
-    public static Builder builder(int columnNum) {
-      return new Builder(columnNum);
+      if (this.heads.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      long key = this.heads.peek().key;
+      Object[] values = new Object[this.cursors.size()];
+      while (!this.heads.isEmpty() && this.heads.peek().key == key) {
+        Cell cell = this.heads.poll();
+        values[cell.index] = cell.value;
+        advance(cell.index);
+      }
+      return new Row(this.header, key, values);
     }
 
-    public static class Builder {
+    private static class Cell {
 
-      private final int columnNum;
+      private final long key;
 
-      private final List<Field> fieldList;
+      private final int index;
 
-      private final SortedMap<Long, Object[]> rows;
-
-      private Builder(int columnNum) {
-        this.columnNum = columnNum;
-        this.fieldList = new ArrayList<>(columnNum);
-        this.rows = new TreeMap<>();
-      }
-
-      public void add(Field field) {
-        this.fieldList.add(field);
-      }
-
-      public void put(Long key, Object value) {
-        int idx = fieldList.size() - 1;
-        Object[] row = rows.computeIfAbsent(key, k -> new Object[this.columnNum]);
-        row[idx] = value;
-      }
+      private final Object value;
 
-      public QueryRowStream build() {
-        Header header = new Header(Field.KEY, new ArrayList<>(this.fieldList));
-        return new QueryRowStream(header, rows.entrySet().iterator());
+      private Cell(long key, int index, Object value) {
+        this.key = key;
+        this.index = index;
+        this.value = value;
       }
     }
   }
@@ -142,6 +142,7 @@ public class RelationalStorage implements IStorage {
       config.addDataSourceProperty(
           "prepStmtCacheSqlLimit",
           meta.getExtraParams().getOrDefault("prep_stmt_cache_sql_limit", "2048"));
+      relationalMeta.getDataSourceProperties().forEach(config::addDataSourceProperty);
 
       HikariDataSource newDataSource = new HikariDataSource(config);
       connectionPoolMap.put(databaseName, newDataSource);
@@ -531,7 +532,6 @@ public class RelationalStorage implements IStorage {
 
       List<String> databaseNameList = new ArrayList<>();
       List<ResultSet> resultSets = new ArrayList<>();
-      Statement stmt;
 
       Map<String, String> tableNameToColumnNames =
           splitAndMergeQueryPatterns(databaseName, project.getPatterns());
@@ -556,8 +556,7 @@ public class RelationalStorage implements IStorage {
 
           ResultSet rs = null;
           try {
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(statement);
+            rs = executeQuery(conn, statement);
             LOGGER.info("[Query] execute query: {}", statement);
           } catch (SQLException e) {
             LOGGER.error("meet error when executing query {}: ", statement, e);
@@ -621,8 +620,7 @@ public class RelationalStorage implements IStorage {
 
         ResultSet rs = null;
         try {
-          stmt = conn.createStatement();
-          rs = stmt.executeQuery(statement);
+          rs = executeQuery(conn, statement);
           LOGGER.info("[Query] execute query: {}", statement);
         } catch (SQLException e) {
           LOGGER.error("meet error when executing query {}: ", statement, e);
@@ -652,6 +650,36 @@ public class RelationalStorage implements IStorage {
     }
   }
 
+  /**
+   * 以只读、只进的游标执行查询，并按方言设置 fetchSize，使驱动分批拉取结果而不是在客户端缓存整个结果集
+   *
+   * <p>需要关闭自动提交的方言（如pg）在事务中执行查询，查询失败时回滚到执行前的保存点，以免影响同一连接上已打开的其他结果集。
+   * 事务由 RelationQueryRowStream 关闭时结束并恢复自动提交
+   */
+  private ResultSet executeQuery(Connection conn, String statement) throws SQLException {
+    Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    int fetchSize = relationalMeta.getFetchSize();
+    Savepoint savepoint = null;
+    if (fetchSize > 0) {
+      stmt.setFetchSize(fetchSize);
+      if (relationalMeta.isFetchRequireNoAutoCommit()) {
+        if (conn.getAutoCommit()) {
+          conn.setAutoCommit(false);
+        }
+        savepoint = conn.setSavepoint();
+      }
+    }
+    try {
+      return stmt.executeQuery(statement);
+    } catch (SQLException e) {
+      stmt.close();
+      if (savepoint != null) {
+        conn.rollback(savepoint);
+      }
+      throw e;
+    }
+  }
+
   private String getFullJoinTables(List<String> tableNames, List<List<String>> fullColumnList) {
     StringBuilder fullTableName = new StringBuilder();
     if (relationalMeta.isSupportFullJoin()) {
@@ -1092,7 +1120,6 @@ public class RelationalStorage implements IStorage {
       List<ResultSet> resultSets = new ArrayList<>();
       ResultSet rs = null;
       Connection conn = null;
-      Statement stmt = null;
       String statement;
 
       Map<String, Map<String, String>> splitResults =
@@ -1137,8 +1164,7 @@ public class RelationalStorage implements IStorage {
                     concatKey);
 
             try {
-              stmt = conn.createStatement();
-              rs = stmt.executeQuery(statement);
+              rs = executeQuery(conn, statement);
               LOGGER.info("[Query] execute query: {}", statement);
             } catch (SQLException e) {
               LOGGER.error("meet error when executing query {}: ", statement, e);
@@ -1212,8 +1238,7 @@ public class RelationalStorage implements IStorage {
                   orderByKey);
 
           try {
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(statement);
+            rs = executeQuery(conn, statement);
             LOGGER.info("[Query] execute query: {}", statement);
           } catch (SQLException e) {
             LOGGER.error("meet error when executing query {}: ", statement, e);
@@ -24,6 +24,7 @@ import static cn.edu.tsinghua.iginx.relational.tools.Constants.KEY_NAME;
 import cn.edu.tsinghua.iginx.metadata.entity.StorageEngineMeta;
 import cn.edu.tsinghua.iginx.relational.datatype.transformer.IDataTypeTransformer;
 import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractRelationalMeta {
 
@@ -181,4 +182,25 @@ public abstract class AbstractRelationalMeta {
 
   /** jdbc获取元数据是否支持反斜杠的识别 */
   public abstract boolean jdbcSupportSpecialChar();
+
+  /**
+   * 获取查询时每次从数据库拉取的行数，为0表示使用驱动的默认行为（通常会在客户端缓存整个结果集）
+   *
+   * @return 每次拉取的行数
+   */
+  public abstract int getFetchSize();
+
+  /**
+   * 按fetchSize分批拉取是否需要关闭自动提交，如pg只有在事务中才会使用游标
+   *
+   * @return 是否需要关闭自动提交
+   */
+  public abstract boolean isFetchRequireNoAutoCommit();
+
+  /**
+   * 获取创建连接池时需要额外设置的数据源属性，如MySQL需要开启useCursorFetch才会按fetchSize分批拉取
+   *
+   * @return 数据源属性
+   */
+  public abstract Map<String, String> getDataSourceProperties();
 }
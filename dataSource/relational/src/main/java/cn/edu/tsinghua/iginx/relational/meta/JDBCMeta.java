@@ -23,7 +23,9 @@ import cn.edu.tsinghua.iginx.metadata.entity.StorageEngineMeta;
 import cn.edu.tsinghua.iginx.relational.datatype.transformer.IDataTypeTransformer;
 import cn.edu.tsinghua.iginx.relational.datatype.transformer.JDBCDataTypeTransformer;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class JDBCMeta extends AbstractRelationalMeta {
@@ -56,6 +58,12 @@ public class JDBCMeta extends AbstractRelationalMeta {
 
   private final boolean jdbcSupportBackslash;
 
+  private final int fetchSize;
+
+  private final boolean fetchRequireNoAutoCommit;
+
+  private final Map<String, String> dataSourceProperties;
+
   public JDBCMeta(StorageEngineMeta meta, Properties properties) {
     super(meta);
     quote = properties.getProperty("quote").charAt(0);
@@ -74,6 +82,20 @@ public class JDBCMeta extends AbstractRelationalMeta {
     notRegexOp = properties.getProperty("not_regex_like_symbol");
     jdbcSupportBackslash =
         Boolean.parseBoolean(properties.getProperty("jdbc_support_special_char"));
+    fetchSize =
+        Integer.parseInt(
+            meta.getExtraParams()
+                .getOrDefault("fetch_size", properties.getProperty("fetch_size", "0")));
+    fetchRequireNoAutoCommit =
+        Boolean.parseBoolean(properties.getProperty("fetch_require_no_autocommit", "false"));
+    dataSourceProperties = new HashMap<>();
+    String dataSourcePropertiesStr = properties.getProperty("datasource_properties", "");
+    for (String property : dataSourcePropertiesStr.split(",")) {
+      String[] kv = property.split(":", 2);
+      if (kv.length == 2) {
+        dataSourceProperties.put(kv[0].trim(), kv[1].trim());
+      }
+    }
   }
 
   @Override
@@ -150,4 +172,19 @@ public class JDBCMeta extends AbstractRelationalMeta {
   public boolean jdbcSupportSpecialChar() {
     return jdbcSupportBackslash;
   }
+
+  @Override
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  @Override
+  public boolean isFetchRequireNoAutoCommit() {
+    return fetchRequireNoAutoCommit;
+  }
+
+  @Override
+  public Map<String, String> getDataSourceProperties() {
+    return dataSourceProperties;
+  }
 }
@@ -68,6 +68,12 @@ public class RelationQueryRowStream implements RowStream {
 
   private Map<Field, String> fieldToColumnName; // 记录匹配 tagFilter 的列名
 
+  private int[] columnIndexes; // 每列在其结果集中的下标，-1 表示结果集中不存在该列
+
+  private DataType[] columnTypes; // 每列的数据类型，用于按类型直接读取结果集，避免逐行装箱与解析列名
+
+  private int[] resultSetTableCounts; // 每个结果集涉及的表的数量，用于截断dummy查询拼接出的key
+
   private Row cachedRow;
 
   private boolean hasCachedRow;
@@ -174,6 +180,7 @@ public class RelationQueryRowStream implements RowStream {
     }
 
     this.header = new Header(key, fields);
+    resolveColumnIndexes();
 
     this.gotNext = new boolean[resultSets.size()];
     Arrays.fill(gotNext, false);
@@ -196,12 +203,25 @@ public class RelationQueryRowStream implements RowStream {
       for (ResultSet resultSet : resultSets) {
         resultSet.close();
       }
-      for (Connection conn : connList) {
-        conn.close();
-      }
     } catch (SQLException e) {
       LOGGER.error("error occurred when closing resultSets or connections", e);
     }
+    for (Connection conn : connList) {
+      try {
+        // 需要游标的方言（如pg）在事务中执行查询，结束只读事务并恢复自动提交后再归还连接
+        if (!conn.getAutoCommit()) {
+          conn.rollback();
+          conn.setAutoCommit(true);
+        }
+      } catch (SQLException e) {
+        LOGGER.error("error occurred when ending transaction of connection", e);
+      }
+      try {
+        conn.close();
+      } catch (SQLException e) {
+        LOGGER.error("error occurred when closing resultSets or connections", e);
+      }
+    }
   }
 
   @Override
@@ -258,35 +278,9 @@ public class RelationQueryRowStream implements RowStream {
 
           if (tempHasNext) {
             long tempKey;
-            Object tempValue;
-
-            Set<String> tableNameSet = new HashSet<>();
 
-            for (int j = 0; j < resultSetSizes[i]; j++) {
-              String columnName = fieldToColumnName.get(header.getField(startIndex + j));
-              RelationSchema schema =
-                  new RelationSchema(
-                      header.getField(startIndex + j).getName(),
-                      isDummy,
-                      relationalMeta.getQuote());
-              String tableName = schema.getTableName();
-
-              tableNameSet.add(tableName);
-
-              Object value = getResultSetObject(resultSet, columnName, tableName);
-              if (header.getField(startIndex + j).getType() == DataType.BINARY && value != null) {
-                tempValue = value.toString().getBytes();
-              } else if (header.getField(startIndex + j).getType() == DataType.BOOLEAN
-                  && value != null) {
-                if (value instanceof Boolean) {
-                  tempValue = value;
-                } else {
-                  tempValue = ((int) value) == 1;
-                }
-              } else {
-                tempValue = value;
-              }
-              cachedValues[startIndex + j] = tempValue;
+            for (int j = startIndex; j < endIndex; j++) {
+              cachedValues[j] = getValue(resultSet, columnIndexes[j], columnTypes[j]);
             }
 
             if (isDummy) {
@@ -294,7 +288,7 @@ public class RelationQueryRowStream implements RowStream {
               // 所以在这里需要将key列的值截断为一个表的所有列的值，因为能合并在一行里的不同表的数据一定是key相同的
               // 所以查询出来的KEY值一定是（我们需要的KEY值 * 表的数量），因此只需要裁剪取第一个表的key列的值即可
               String keyString = resultSet.getString(fullKeyName);
-              keyString = keyString.substring(0, keyString.length() / tableNameSet.size());
+              keyString = keyString.substring(0, keyString.length() / resultSetTableCounts[i]);
               tempKey = toHash(keyString);
             } else {
               tempKey = resultSet.getLong(fullKeyName);
@@ -345,27 +339,85 @@ public class RelationQueryRowStream implements RowStream {
   }
 
   /**
-   * 从结果集中获取指定column、指定table的值 不用resultSet.getObject(String
-   * columnLabel)是因为：在pg的filter下推中，可能会存在column名字相同，但是table不同的情况 这时候用resultSet.getObject(String
-   * columnLabel)就只能取到第一个column的值
+   * 在构造时一次性确定每列在结果集中的下标，取代逐行调用getObject(String columnLabel)再解析列名的方式
+   *
+   * <p>不直接用列名取值是因为：在pg的filter下推中，可能会存在column名字相同，但是table不同的情况，
+   * 这时候用resultSet.getObject(String columnLabel)就只能取到第一个column的值
    */
-  private Object getResultSetObject(ResultSet resultSet, String columnName, String tableName)
+  private void resolveColumnIndexes() throws SQLException {
+    int fieldSize = header.getFieldSize();
+    this.columnIndexes = new int[fieldSize];
+    this.columnTypes = new DataType[fieldSize];
+    this.resultSetTableCounts = new int[resultSets.size()];
+
+    int startIndex = 0;
+    for (int i = 0; i < resultSets.size(); i++) {
+      ResultSet resultSet = resultSets.get(i);
+      Set<String> tableNameSet = new HashSet<>();
+      for (int j = startIndex; j < startIndex + resultSetSizes[i]; j++) {
+        Field field = header.getField(j);
+        String columnName = fieldToColumnName.get(field);
+        String tableName =
+            new RelationSchema(field.getName(), isDummy, relationalMeta.getQuote()).getTableName();
+        tableNameSet.add(tableName);
+        columnIndexes[j] = findColumnIndex(i, resultSet, columnName, tableName);
+        columnTypes[j] = field.getType();
+      }
+      resultSetTableCounts[i] = Math.max(1, tableNameSet.size());
+      startIndex += resultSetSizes[i];
+    }
+  }
+
+  private int findColumnIndex(
+      int resultSetIndex, ResultSet resultSet, String columnName, String tableName)
       throws SQLException {
     if (!relationalMeta.isSupportFullJoin() && isPushDown) {
-      return resultSet.getObject(tableName + SEPARATOR + columnName);
+      return resultSet.findColumn(tableName + SEPARATOR + columnName);
     }
 
-    if (!resultSetHasColumnWithTheSameName.get(resultSets.indexOf(resultSet))) {
-      return resultSet.getObject(columnName);
+    if (!resultSetHasColumnWithTheSameName.get(resultSetIndex)) {
+      return resultSet.findColumn(columnName);
     }
     ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
     for (int j = 1; j <= resultSetMetaData.getColumnCount(); j++) {
       String tempColumnName = resultSetMetaData.getColumnName(j);
       String tempTableName = resultSetMetaData.getTableName(j);
       if (tempColumnName.equals(columnName) && tempTableName.equals(tableName)) {
-        return resultSet.getObject(j);
+        return j;
       }
     }
-    return null;
+    return -1;
+  }
+
+  /** 按列的数据类型直接调用对应的getter读取值，数据库中的NULL返回null */
+  private static Object getValue(ResultSet resultSet, int columnIndex, DataType type)
+      throws SQLException {
+    if (columnIndex < 0) {
+      return null;
+    }
+    Object value;
+    switch (type) {
+      case BOOLEAN:
+        value = resultSet.getBoolean(columnIndex);
+        break;
+      case INTEGER:
+        value = resultSet.getInt(columnIndex);
+        break;
+      case LONG:
+        value = resultSet.getLong(columnIndex);
+        break;
+      case FLOAT:
+        value = resultSet.getFloat(columnIndex);
+        break;
+      case DOUBLE:
+        value = resultSet.getDouble(columnIndex);
+        break;
+      case BINARY:
+        String str = resultSet.getString(columnIndex);
+        return str == null ? null : str.getBytes();
+      default:
+        return resultSet.getObject(columnIndex);
+    }
+    return resultSet.wasNull() ? null : value;
   }
 }
@@ -0,0 +1,226 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.logical.optimizer.cbo;
+
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterUtils;
+import cn.edu.tsinghua.iginx.engine.shared.operator.BinaryOperator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.InnerJoin;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Limit;
+import cn.edu.tsinghua.iginx.engine.shared.operator.MultipleOperator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.OuterJoin;
+import cn.edu.tsinghua.iginx.engine.shared.operator.UnaryOperator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
+import cn.edu.tsinghua.iginx.engine.shared.source.FragmentSource;
+import cn.edu.tsinghua.iginx.engine.shared.source.OperatorSource;
+import cn.edu.tsinghua.iginx.engine.shared.source.Source;
+import cn.edu.tsinghua.iginx.engine.shared.source.SourceType;
+import cn.edu.tsinghua.iginx.metadata.statistics.ColumnStatistics;
+import cn.edu.tsinghua.iginx.metadata.statistics.DataStatisticsManager;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import java.util.List;
+
+/**
+ * 根据写入路径维护的统计信息估计算子输出的行数
+ *
+ * <p>分片的行数取自 DataStatisticsManager；过滤条件使用固定的选择率，等值连接按 |A| * |B| / max(NDV(a), NDV(b)) 估计。
+ * 任一输入无法估计时返回 UNKNOWN。
+ *
+ * <p>统计信息只在本节点内存中累计，估计值通常只是下界，{@link #isAuthoritative} 判断估计值是否可信。
+ */
+public class CardinalityEstimator {
+
+  public static final long UNKNOWN = -1;
+
+  private static final double DEFAULT_FILTER_SELECTIVITY = 1.0 / 3;
+
+  private static final double DEFAULT_JOIN_SELECTIVITY = 0.1;
+
+  private final DataStatisticsManager statisticsManager;
+
+  public CardinalityEstimator() {
+    this(DataStatisticsManager.getInstance());
+  }
+
+  public CardinalityEstimator(DataStatisticsManager statisticsManager) {
+    this.statisticsManager = statisticsManager;
+  }
+
+  public long estimate(Operator operator) {
+    OperatorType type = operator.getType();
+    switch (type) {
+      case Project:
+        Source source = ((UnaryOperator) operator).getSource();
+        if (source.getType() == SourceType.Fragment) {
+          return statisticsManager.getFragmentRowCount(((FragmentSource) source).getFragment());
+        }
+        return estimate(source);
+      case Select:
+        return scale(estimate(((UnaryOperator) operator).getSource()), DEFAULT_FILTER_SELECTIVITY);
+      case Limit:
+        Limit limit = (Limit) operator;
+        long limitRows = (long) limit.getLimit() + limit.getOffset();
+        long childRows = estimate(limit.getSource());
+        return childRows == UNKNOWN ? limitRows : Math.min(childRows, limitRows);
+      case SetTransform:
+        return 1;
+      case InnerJoin:
+        InnerJoin innerJoin = (InnerJoin) operator;
+        return estimateEquiJoin(innerJoin, estimateSides(innerJoin));
+      case OuterJoin:
+        OuterJoin outerJoin = (OuterJoin) operator;
+        Pair<Long, Long> sides = estimateSides(outerJoin);
+        long joined = estimateEquiJoin(outerJoin, sides);
+        return joined == UNKNOWN ? UNKNOWN : Math.max(joined, Math.max(sides.k, sides.v));
+      case CrossJoin:
+        Pair<Long, Long> crossSides = estimateSides((BinaryOperator) operator);
+        return crossSides == null ? UNKNOWN : multiply(crossSides.k, crossSides.v);
+      case Union:
+        Pair<Long, Long> unionSides = estimateSides((BinaryOperator) operator);
+        return unionSides == null ? UNKNOWN : unionSides.k + unionSides.v;
+      case Join:
+      case PathUnion:
+        Pair<Long, Long> keySides = estimateSides((BinaryOperator) operator);
+        return keySides == null ? UNKNOWN : Math.max(keySides.k, keySides.v);
+      case Intersect:
+        Pair<Long, Long> intersectSides = estimateSides((BinaryOperator) operator);
+        return intersectSides == null ? UNKNOWN : Math.min(intersectSides.k, intersectSides.v);
+      default:
+        break;
+    }
+    if (OperatorType.isUnaryOperator(type)) {
+      // 其余一元算子不会增加行数，用输入的行数作为上界
+      return estimate(((UnaryOperator) operator).getSource());
+    } else if (OperatorType.isBinaryOperator(type)) {
+      return estimate(((BinaryOperator) operator).getSourceA());
+    } else if (OperatorType.isMultipleOperator(type)) {
+      long total = 0;
+      for (Source source : ((MultipleOperator) operator).getSources()) {
+        long rows = estimate(source);
+        if (rows == UNKNOWN) {
+          return UNKNOWN;
+        }
+        total += rows;
+      }
+      return total;
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * 判断估计值是否可信：读取的分片的行数都可信，或行数被 Limit 等算子限定了上界
+   *
+   * <p>只有可信的估计值才能作为选择对输入规模敏感的算法（如嵌套循环连接）的依据
+   */
+  public boolean isAuthoritative(Operator operator) {
+    OperatorType type = operator.getType();
+    if (type == OperatorType.Limit || type == OperatorType.SetTransform) {
+      return true;
+    }
+    if (type == OperatorType.Project) {
+      Source source = ((UnaryOperator) operator).getSource();
+      if (source.getType() == SourceType.Fragment) {
+        return statisticsManager.isRowCountAuthoritative(((FragmentSource) source).getFragment());
+      }
+      return isAuthoritative(source);
+    }
+    if (OperatorType.isUnaryOperator(type)) {
+      return isAuthoritative(((UnaryOperator) operator).getSource());
+    } else if (OperatorType.isBinaryOperator(type)) {
+      BinaryOperator binaryOperator = (BinaryOperator) operator;
+      return isAuthoritative(binaryOperator.getSourceA())
+          && isAuthoritative(binaryOperator.getSourceB());
+    } else if (OperatorType.isMultipleOperator(type)) {
+      for (Source source : ((MultipleOperator) operator).getSources()) {
+        if (!isAuthoritative(source)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private boolean isAuthoritative(Source source) {
+    return source.getType() == SourceType.Operator
+        && isAuthoritative(((OperatorSource) source).getOperator());
+  }
+
+  private long estimate(Source source) {
+    if (source.getType() != SourceType.Operator) {
+      return UNKNOWN;
+    }
+    return estimate(((OperatorSource) source).getOperator());
+  }
+
+  /** 估计二元算子左右两个输入的行数，任一输入无法估计时返回 null */
+  private Pair<Long, Long> estimateSides(BinaryOperator operator) {
+    long rowsA = estimate(operator.getSourceA());
+    long rowsB = estimate(operator.getSourceB());
+    if (rowsA == UNKNOWN || rowsB == UNKNOWN) {
+      return null;
+    }
+    return new Pair<>(rowsA, rowsB);
+  }
+
+  private long estimateEquiJoin(Operator join, Pair<Long, Long> sides) {
+    if (sides == null) {
+      return UNKNOWN;
+    }
+    long product = multiply(sides.k, sides.v);
+    long maxNdv = 0;
+    if (join.getType() == OperatorType.InnerJoin && ((InnerJoin) join).getFilter() != null) {
+      maxNdv = getMaxNdv(FilterUtils.getJoinColumnsFromFilter(((InnerJoin) join).getFilter()));
+    } else if (join.getType() == OperatorType.OuterJoin
+        && ((OuterJoin) join).getFilter() != null) {
+      maxNdv = getMaxNdv(FilterUtils.getJoinColumnsFromFilter(((OuterJoin) join).getFilter()));
+    }
+    if (maxNdv > 0) {
+      return Math.max(1, product / maxNdv);
+    }
+    return scale(product, DEFAULT_JOIN_SELECTIVITY);
+  }
+
+  private long getMaxNdv(List<Pair<String, String>> joinColumns) {
+    long maxNdv = 0;
+    for (Pair<String, String> joinColumn : joinColumns) {
+      maxNdv = Math.max(maxNdv, getNdv(joinColumn.k));
+      maxNdv = Math.max(maxNdv, getNdv(joinColumn.v));
+    }
+    return maxNdv;
+  }
+
+  private long getNdv(String path) {
+    ColumnStatistics statistics = statisticsManager.getColumnStatistics(path);
+    return statistics == null ? 0 : statistics.getNdv();
+  }
+
+  private static long scale(long rows, double selectivity) {
+    return rows == UNKNOWN ? UNKNOWN : Math.max(1, (long) (rows * selectivity));
+  }
+
+  /** 饱和乘法，溢出时返回 Long.MAX_VALUE */
+  public static long multiply(long a, long b) {
+    if (a != 0 && b > Long.MAX_VALUE / a) {
+      return Long.MAX_VALUE;
+    }
+    return a * b;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.logical.optimizer.rules;
+
+import cn.edu.tsinghua.iginx.engine.physical.memory.execute.utils.FilterUtils;
+import cn.edu.tsinghua.iginx.engine.shared.operator.InnerJoin;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Operator;
+import cn.edu.tsinghua.iginx.engine.shared.operator.Sort;
+import cn.edu.tsinghua.iginx.engine.shared.operator.type.JoinAlgType;
+import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
+import cn.edu.tsinghua.iginx.logical.optimizer.cbo.CardinalityEstimator;
+import cn.edu.tsinghua.iginx.utils.Pair;
+import com.google.auto.service.AutoService;
+import java.util.List;
+
+/**
+ * 基于代价选择 InnerJoin 的连接算法
+ *
+ * <p>两侧输入已按连接列升序排列时使用 SortedMergeJoin，省去建哈希表的开销；两侧估计行数都很小且估计值可信时使用
+ * NestedLoopJoin，统计信息缺失或只覆盖部分写入（新启动的节点、多节点部署）时不会选择它；
+ * 其余情况保持 HashJoin，哈希表建在哪一侧由执行器在运行时根据实际行数决定。
+ *
+ * <p>该规则不交换连接的左右输入，也不调整多表连接的顺序，以保证输出列的顺序不变。
+ */
+@AutoService(Rule.class)
+public class JoinAlgorithmSelectionRule extends Rule {
+
+  /** 两侧行数之积不超过该值时，嵌套循环连接比建哈希表更划算 */
+  private static final long NESTED_LOOP_MAX_CARTESIAN_ROWS = 4096;
+
+  private final CardinalityEstimator estimator = new CardinalityEstimator();
+
+  public JoinAlgorithmSelectionRule() {
+    /*
+     * we want to match the topology like:
+     *         InnerJoin
+     *         /      \
+     *       any      any
+     */
+    // 优先级靠后，尽量在下推与裁剪之后执行；选定非 HashJoin 的算法后不会再次匹配
+    super(
+        "JoinAlgorithmSelectionRule",
+        "CostBasedJoinRule",
+        operand(InnerJoin.class, any(), any()),
+        10,
+        RuleStrategy.FIXED_POINT);
+  }
+
+  @Override
+  public boolean matches(RuleCall call) {
+    InnerJoin innerJoin = (InnerJoin) call.getMatchedRoot();
+    // 只处理通过 on 条件指定的等值连接，using/natural/按 key 连接维持原有逻辑
+    if (innerJoin.getJoinAlgType() != JoinAlgType.HashJoin
+        || innerJoin.isJoinByKey()
+        || innerJoin.isNaturalJoin()
+        || !innerJoin.getJoinColumns().isEmpty()
+        || (innerJoin.getExtraJoinPrefix() != null && !innerJoin.getExtraJoinPrefix().isEmpty())
+        || innerJoin.getFilter() == null) {
+      return false;
+    }
+    JoinAlgType joinAlgType = chooseJoinAlg(innerJoin, call.getChildrenIndex().get(innerJoin));
+    if (joinAlgType == innerJoin.getJoinAlgType()) {
+      return false;
+    }
+    call.setContext(joinAlgType);
+    return true;
+  }
+
+  @Override
+  public void onMatch(RuleCall call) {
+    InnerJoin innerJoin = (InnerJoin) call.getMatchedRoot();
+    innerJoin.setJoinAlgType((JoinAlgType) call.getContext());
+  }
+
+  private JoinAlgType chooseJoinAlg(InnerJoin innerJoin, List<Operator> children) {
+    List<Pair<String, String>> joinColumns =
+        FilterUtils.getJoinColumnsFromFilter(innerJoin.getFilter());
+    if (joinColumns.isEmpty()) {
+      return innerJoin.getJoinAlgType();
+    }
+    if (isSortedByJoinColumns(children.get(0), joinColumns, true)
+        && isSortedByJoinColumns(children.get(1), joinColumns, false)) {
+      return JoinAlgType.SortedMergeJoin;
+    }
+
+    long rowsA = estimator.estimate(children.get(0));
+    long rowsB = estimator.estimate(children.get(1));
+    if (rowsA != CardinalityEstimator.UNKNOWN
+        && rowsB != CardinalityEstimator.UNKNOWN
+        && CardinalityEstimator.multiply(rowsA, rowsB) <= NESTED_LOOP_MAX_CARTESIAN_ROWS
+        && estimator.isAuthoritative(children.get(0))
+        && estimator.isAuthoritative(children.get(1))) {
+      return JoinAlgType.NestedLoopJoin;
+    }
+    return innerJoin.getJoinAlgType();
+  }
+
+  /** 判断子算子是否是按连接列升序排列的 Sort，连接条件两侧的列名都可能出现在任一输入中 */
+  private static boolean isSortedByJoinColumns(
+      Operator child, List<Pair<String, String>> joinColumns, boolean isLeft) {
+    if (child.getType() != OperatorType.Sort) {
+      return false;
+    }
+    Sort sort = (Sort) child;
+    List<String> sortByCols = sort.getSortByCols();
+    List<Boolean> ascendingList = sort.getAscendingList();
+    if (sortByCols.size() < joinColumns.size()) {
+      return false;
+    }
+    for (int i = 0; i < joinColumns.size(); i++) {
+      Pair<String, String> joinColumn = joinColumns.get(i);
+      String sortByCol = sortByCols.get(i);
+      if (!ascendingList.get(i)
+          || !sortByCol.equals(isLeft ? joinColumn.k : joinColumn.v)
+              && !sortByCol.equals(isLeft ? joinColumn.v : joinColumn.k)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
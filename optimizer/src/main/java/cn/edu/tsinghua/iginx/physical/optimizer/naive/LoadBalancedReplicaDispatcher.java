@@ -0,0 +1,113 @@
+/*
+ * IGinX - the polystore system with high performance
+ * Copyright (C) Tsinghua University
+ * TSIGinX@gmail.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cn.edu.tsinghua.iginx.physical.optimizer.naive;
+
+import cn.edu.tsinghua.iginx.conf.Config;
+import cn.edu.tsinghua.iginx.conf.ConfigDescriptor;
+import cn.edu.tsinghua.iginx.engine.physical.optimizer.ReplicaDispatcher;
+import cn.edu.tsinghua.iginx.engine.physical.storage.execute.StoragePhysicalTaskExecutor;
+import cn.edu.tsinghua.iginx.engine.physical.storage.execute.StorageUnitLoadTracker;
+import cn.edu.tsinghua.iginx.engine.physical.task.StoragePhysicalTask;
+import cn.edu.tsinghua.iginx.engine.shared.operator.type.OperatorType;
+import cn.edu.tsinghua.iginx.metadata.entity.StorageUnitMeta;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 查询在主副本与各从副本之间负载均衡：按 (堆积任务数 + 1) * 近期查询延迟 的估计值选择代价最小的副本。
+ *
+ * <p>写入与删除仍然只发往主副本，由执行器异步广播到从副本。
+ */
+public class LoadBalancedReplicaDispatcher implements ReplicaDispatcher {
+
+  private static final LoadBalancedReplicaDispatcher INSTANCE =
+      new LoadBalancedReplicaDispatcher();
+
+  private static final Config config = ConfigDescriptor.getInstance().getConfig();
+
+  private LoadBalancedReplicaDispatcher() {}
+
+  public static LoadBalancedReplicaDispatcher getInstance() {
+    return INSTANCE;
+  }
+
+  @Override
+  public String chooseReplica(StoragePhysicalTask task) {
+    if (task == null) {
+      return null;
+    }
+    String masterId = task.getTargetFragment().getMasterStorageUnitId();
+    if (!isReplicaReadable(task)) {
+      return masterId;
+    }
+    return chooseBest(getReplicaIds(task), null);
+  }
+
+  @Override
+  public String chooseHedgeReplica(StoragePhysicalTask task, String primaryReplica) {
+    if (!config.isEnableHedgedRead() || !isReplicaReadable(task)) {
+      return null;
+    }
+    return chooseBest(getReplicaIds(task), primaryReplica);
+  }
+
+  @Override
+  public long getHedgeDelayMs(StoragePhysicalTask task, String primaryReplica) {
+    long p95 = StorageUnitLoadTracker.getInstance().getP95Latency(primaryReplica);
+    return Math.max(config.getHedgedReadMinDelayMs(), p95);
+  }
+
+  private boolean isReplicaReadable(StoragePhysicalTask task) {
+    return !task.isNeedBroadcasting()
+        && task.getOperators().get(0).getType() == OperatorType.Project
+        && !task.getTargetFragment().getMasterStorageUnit().getReplicas().isEmpty();
+  }
+
+  private List<String> getReplicaIds(StoragePhysicalTask task) {
+    StorageUnitMeta masterStorageUnit = task.getTargetFragment().getMasterStorageUnit();
+    List<String> replicaIds = new ArrayList<>();
+    replicaIds.add(masterStorageUnit.getId());
+    for (StorageUnitMeta replica : masterStorageUnit.getReplicas()) {
+      replicaIds.add(replica.getId());
+    }
+    return replicaIds;
+  }
+
+  /** 选择估计代价最小的副本，代价相同时优先选择排在前面的主副本 */
+  private String chooseBest(List<String> replicaIds, String excluded) {
+    StoragePhysicalTaskExecutor executor = StoragePhysicalTaskExecutor.getInstance();
+    StorageUnitLoadTracker tracker = StorageUnitLoadTracker.getInstance();
+    String best = null;
+    double bestCost = Double.MAX_VALUE;
+    for (String replicaId : replicaIds) {
+      if (replicaId.equals(excluded)) {
+        continue;
+      }
+      // 没有延迟记录的副本按 1ms 估计，使其有机会被选中从而积累统计信息
+      double latency = Math.max(1, tracker.getLatencyEwma(replicaId));
+      double cost = (executor.getPendingTaskCount(replicaId) + 1) * latency;
+      if (cost < bestCost) {
+        best = replicaId;
+        bestCost = cost;
+      }
+    }
+    return best;
+  }
+}
@@ -57,6 +57,9 @@ public class NaivePhysicalOptimizer implements PhysicalOptimizer {
 
   @Override
   public ReplicaDispatcher getReplicaDispatcher() {
+    if (ConfigDescriptor.getInstance().getConfig().isEnableReplicaRead()) {
+      return LoadBalancedReplicaDispatcher.getInstance();
+    }
     return NaiveReplicaDispatcher.getInstance();
   }
 
@@ -126,6 +129,10 @@ public class NaivePhysicalOptimizer implements PhysicalOptimizer {
   }
 
   private PhysicalTask constructBinaryTask(BinaryOperator operator, RequestContext context) {
+    if (operator.getType() == OperatorType.PathUnion
+        && ConfigDescriptor.getInstance().getConfig().isEnableParallelFragmentScan()) {
+      return constructParallelScanTask(operator, context);
+    }
     OperatorSource sourceA = (OperatorSource) operator.getSourceA();
     OperatorSource sourceB = (OperatorSource) operator.getSourceB();
     PhysicalTask sourceTaskA = constructTask(sourceA.getOperator(), context);
@@ -138,6 +145,33 @@ public class NaivePhysicalOptimizer implements PhysicalOptimizer {
     return task;
   }
 
+  /** 将级联的 PathUnion 展开，各分支的结果由一个并行扫描任务同时读取并按 key 归并 */
+  private PhysicalTask constructParallelScanTask(BinaryOperator operator, RequestContext context) {
+    List<Operator> branches = new ArrayList<>();
+    collectPathUnionBranches(operator, branches);
+    List<PhysicalTask> parentTasks = new ArrayList<>(branches.size());
+    for (Operator branch : branches) {
+      parentTasks.add(constructTask(branch, context));
+    }
+    List<Operator> operators = new ArrayList<>();
+    operators.add(operator);
+    PhysicalTask task = new MultipleMemoryPhysicalTask(operators, parentTasks, context);
+    for (PhysicalTask parentTask : parentTasks) {
+      parentTask.setFollowerTask(task);
+    }
+    return task;
+  }
+
+  private void collectPathUnionBranches(Operator operator, List<Operator> branches) {
+    if (operator.getType() != OperatorType.PathUnion) {
+      branches.add(operator);
+      return;
+    }
+    BinaryOperator union = (BinaryOperator) operator;
+    collectPathUnionBranches(((OperatorSource) union.getSourceA()).getOperator(), branches);
+    collectPathUnionBranches(((OperatorSource) union.getSourceB()).getOperator(), branches);
+  }
+
   private PhysicalTask constructMultipleTask(MultipleOperator operator, RequestContext context) {
     List<PhysicalTask> parentTasks = new ArrayList<>();
     for (Source source : operator.getSources()) {
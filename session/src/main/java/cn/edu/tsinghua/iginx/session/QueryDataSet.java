@@ -31,9 +31,22 @@ import cn.edu.tsinghua.iginx.utils.Pair;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class QueryDataSet {
 
+  // 后台预取下一批数据，Session 内部对 client 的调用已加锁，因此可以与用户线程并发使用
+  private static final ExecutorService PREFETCH_EXECUTOR =
+      Executors.newCachedThreadPool(
+          r -> {
+            Thread thread = new Thread(r, "iginx-query-prefetch");
+            thread.setDaemon(true);
+            return thread;
+          });
+
   enum State {
     HAS_MORE,
     NO_MORE,
@@ -64,6 +77,8 @@ public class QueryDataSet {
 
   private String warningMsg;
 
+  private Future<Pair<QueryDataSetV2, Boolean>> prefetched;
+
   public QueryDataSet(
       Session session,
       long queryId,
@@ -75,6 +90,35 @@ public class QueryDataSet {
       String warningMsg,
       String exportStreamDir,
       ExportCSV exportCSV) {
+    this(
+        session,
+        queryId,
+        columnList,
+        dataTypeList,
+        fetchSize,
+        valuesList,
+        bitmapList,
+        warningMsg,
+        exportStreamDir,
+        exportCSV,
+        true);
+  }
+
+  /**
+   * @param hasMoreResults 首批结果之后服务端是否还有数据，没有时不再预取
+   */
+  public QueryDataSet(
+      Session session,
+      long queryId,
+      List<String> columnList,
+      List<DataType> dataTypeList,
+      int fetchSize,
+      List<ByteBuffer> valuesList,
+      List<ByteBuffer> bitmapList,
+      String warningMsg,
+      String exportStreamDir,
+      ExportCSV exportCSV,
+      boolean hasMoreResults) {
     this.session = session;
     this.queryId = queryId;
     this.columnList = columnList;
@@ -84,15 +128,51 @@ public class QueryDataSet {
     this.bitmapList = bitmapList;
     this.exportStreamDir = exportStreamDir;
     this.exportCSV = exportCSV;
-    this.state = State.UNKNOWN;
+    this.state = hasMoreResults ? State.UNKNOWN : State.NO_MORE;
     this.index = 0;
     this.warningMsg = warningMsg;
+    prefetch();
   }
 
   public void close() throws SessionException {
+    if (prefetched != null) {
+      // 等待进行中的预取结束后再关闭查询，避免其在查询关闭后继续取数
+      try {
+        prefetched.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // 查询即将关闭，预取失败无需处理
+      }
+      prefetched = null;
+    }
     session.closeQuery(queryId);
   }
 
+  /** 在消费当前批次的同时异步获取下一批，使得取数的网络往返与本地消费重叠 */
+  private void prefetch() {
+    if (state == State.NO_MORE || prefetched != null) {
+      return;
+    }
+    prefetched = PREFETCH_EXECUTOR.submit(() -> session.fetchResult(queryId, fetchSize));
+  }
+
+  private Pair<QueryDataSetV2, Boolean> takePrefetched() throws SessionException {
+    Future<Pair<QueryDataSetV2, Boolean>> future = prefetched;
+    prefetched = null;
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SessionException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SessionException) {
+        throw (SessionException) e.getCause();
+      }
+      throw new SessionException(e.getCause());
+    }
+  }
+
   private void fetch() throws SessionException {
     if (bitmapList != null && index != bitmapList.size()) { // 只有之前的被消费完才有可能继续取数据
       return;
@@ -101,12 +181,14 @@ public class QueryDataSet {
     valuesList = null;
     index = 0;
 
-    Pair<QueryDataSetV2, Boolean> pair = session.fetchResult(queryId, fetchSize);
+    Pair<QueryDataSetV2, Boolean> pair =
+        prefetched != null ? takePrefetched() : session.fetchResult(queryId, fetchSize);
     if (pair.k != null) {
       bitmapList = pair.k.bitmapList;
       valuesList = pair.k.valuesList;
     }
     state = pair.v ? State.HAS_MORE : State.NO_MORE;
+    prefetch();
   }
 
   public boolean hasMore() throws SessionException {
@@ -1035,6 +1035,8 @@ public class Session {
     String warningMessage = ref.resp.getWarningMsg();
     String dir = ref.resp.getExportStreamDir();
     ExportCSV exportCSV = ref.resp.getExportCSV();
+    // 旧版本服务端不返回该字段，此时按仍有数据处理
+    boolean hasMoreResults = !ref.resp.isSetHasMoreResults() || ref.resp.isHasMoreResults();
 
     return new QueryDataSet(
         this,
@@ -1046,7 +1048,8 @@ public class Session {
         dataSetV2.bitmapList,
         warningMessage,
         dir,
-        exportCSV);
+        exportCSV,
+        hasMoreResults);
   }
 
   Pair<QueryDataSetV2, Boolean> fetchResult(long queryId, int fetchSize) throws SessionException {
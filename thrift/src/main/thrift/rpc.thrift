@@ -490,6 +490,7 @@ struct ExecuteStatementResp {
     8: optional string warningMsg;
     9: optional string exportStreamDir
     10: optional ExportCSV exportCSV
+    11: optional bool hasMoreResults
 }
 
 struct ExportCSV {